@@ -23,20 +23,40 @@ import org.folio.dao.ledger.LedgerPostgresDAO;
 import org.folio.dao.rollover.LedgerFiscalYearRolloverDAO;
 import org.folio.dao.rollover.RolloverBudgetDAO;
 import org.folio.dao.rollover.RolloverErrorDAO;
+import org.folio.dao.rollover.RolloverJobDAO;
 import org.folio.dao.rollover.RolloverProgressDAO;
+import org.folio.dao.transactions.BatchIdempotencyDAO;
+import org.folio.dao.transactions.BatchIdempotencyPostgresDAO;
 import org.folio.dao.transactions.BatchTransactionDAO;
 import org.folio.dao.transactions.BatchTransactionPostgresDAO;
 import org.folio.dao.transactions.TemporaryEncumbranceDAO;
 import org.folio.dao.transactions.TemporaryEncumbrancePostgresDAO;
 import org.folio.dao.transactions.TransactionTotalDAO;
 import org.folio.dao.transactions.TransactionTotalPostgresDAO;
+import org.folio.rest.persist.BulkInsertWriter;
 import org.springframework.context.annotation.Bean;
 
+import static org.folio.utils.EnvUtils.getEnvVar;
+
 public class DAOConfiguration {
 
+  private static final String BULK_INSERT_ENABLED = "BULK_INSERT_ENABLED";
+  private static final String BULK_INSERT_THRESHOLD = "BULK_INSERT_THRESHOLD";
+  private static final String BULK_INSERT_CHUNK_SIZE = "BULK_INSERT_CHUNK_SIZE";
+
+  @Bean
+  public BulkInsertWriter bulkInsertWriter() {
+    if (!Boolean.parseBoolean(getEnvVar(BULK_INSERT_ENABLED, "false"))) {
+      return BulkInsertWriter.disabled();
+    }
+    return new BulkInsertWriter(
+      Integer.parseInt(getEnvVar(BULK_INSERT_THRESHOLD, String.valueOf(BulkInsertWriter.DEFAULT_THRESHOLD))),
+      Integer.parseInt(getEnvVar(BULK_INSERT_CHUNK_SIZE, String.valueOf(BulkInsertWriter.DEFAULT_CHUNK_SIZE))));
+  }
+
   @Bean
-  public BudgetDAO budgetDAO() {
-    return new BudgetPostgresDAO();
+  public BudgetDAO budgetDAO(BulkInsertWriter bulkInsertWriter) {
+    return new BudgetPostgresDAO(bulkInsertWriter);
   }
 
   @Bean
@@ -65,8 +85,13 @@ public class DAOConfiguration {
   }
 
   @Bean
-  public BatchTransactionDAO batchTransactionDAO() {
-    return new BatchTransactionPostgresDAO();
+  public BatchTransactionDAO batchTransactionDAO(BulkInsertWriter bulkInsertWriter) {
+    return new BatchTransactionPostgresDAO(bulkInsertWriter);
+  }
+
+  @Bean
+  public BatchIdempotencyDAO batchIdempotencyDAO() {
+    return new BatchIdempotencyPostgresDAO();
   }
 
   @Bean
@@ -89,6 +114,11 @@ public class DAOConfiguration {
     return new RolloverBudgetDAO();
   }
 
+  @Bean
+  public RolloverJobDAO rolloverJobDAO() {
+    return new RolloverJobDAO();
+  }
+
   @Bean
   public ExpenseClassDAO expenseClassDAO() {
     return new ExpenseClassDAOImpl();
@@ -1,7 +1,12 @@
 package org.folio.config;
 
+import java.time.Duration;
 import java.util.Set;
 
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import io.vertx.core.Vertx;
+
 import org.folio.dao.budget.BudgetDAO;
 import org.folio.dao.budget.BudgetExpenseClassDAO;
 import org.folio.dao.exchangerate.ExchangeRateSourceDAO;
@@ -14,7 +19,9 @@ import org.folio.dao.ledger.LedgerDAO;
 import org.folio.dao.rollover.LedgerFiscalYearRolloverDAO;
 import org.folio.dao.rollover.RolloverBudgetDAO;
 import org.folio.dao.rollover.RolloverErrorDAO;
+import org.folio.dao.rollover.RolloverJobDAO;
 import org.folio.dao.rollover.RolloverProgressDAO;
+import org.folio.dao.transactions.BatchIdempotencyDAO;
 import org.folio.dao.transactions.BatchTransactionDAO;
 import org.folio.dao.transactions.TemporaryEncumbranceDAO;
 import org.folio.rest.core.RestClient;
@@ -27,6 +34,7 @@ import org.folio.service.email.EmailService;
 import org.folio.service.exchangerate.ExchangeRateSourceService;
 import org.folio.service.financedata.FinanceDataService;
 import org.folio.service.fiscalyear.FiscalYearService;
+import org.folio.service.fund.FundLedgerCache;
 import org.folio.service.fund.FundService;
 import org.folio.service.fund.StorageFundService;
 import org.folio.service.group.GroupService;
@@ -36,23 +44,57 @@ import org.folio.service.ledger.StorageLedgerService;
 import org.folio.service.rollover.LedgerRolloverService;
 import org.folio.service.rollover.RolloverBudgetService;
 import org.folio.service.rollover.RolloverErrorService;
+import org.folio.service.rollover.RolloverJobRunner;
 import org.folio.service.rollover.RolloverProgressService;
 import org.folio.service.rollover.RolloverValidationService;
 import org.folio.service.settings.CommonSettingsService;
 import org.folio.service.transactions.TemporaryEncumbranceService;
+import org.folio.service.transactions.batch.BatchAdmissionControl;
 import org.folio.service.transactions.batch.BatchAllocationService;
+import org.folio.service.transactions.batch.BatchCoalescer;
 import org.folio.service.transactions.batch.BatchEncumbranceService;
+import org.folio.service.transactions.batch.BatchIdempotency;
+import org.folio.service.transactions.batch.BatchMetrics;
 import org.folio.service.transactions.batch.BatchPaymentCreditService;
 import org.folio.service.transactions.batch.BatchPendingPaymentService;
+import org.folio.service.transactions.batch.BatchStreamService;
 import org.folio.service.transactions.batch.BatchTransactionService;
 import org.folio.service.transactions.batch.BatchTransactionServiceInterface;
+import org.folio.service.transactions.batch.BatchTransactionSettings;
 import org.folio.service.transactions.batch.BatchTransferService;
 import org.folio.tools.store.SecureStore;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 
+import static org.folio.utils.EnvUtils.getEnvVar;
+
 public class ServicesConfiguration {
 
+  private static final String BATCH_CONTEXT_FUNCTION_ENABLED = "BATCH_CONTEXT_FUNCTION_ENABLED";
+  private static final String BATCH_BUDGET_DELTA_UPDATES_ENABLED = "BATCH_BUDGET_DELTA_UPDATES_ENABLED";
+  private static final String BATCH_ADMISSION_CONTROL_ENABLED = "BATCH_ADMISSION_CONTROL_ENABLED";
+  private static final String BATCH_ADMISSION_LOCK_STRIPES = "BATCH_ADMISSION_LOCK_STRIPES";
+  private static final String BATCH_ADMISSION_LOCK_TIMEOUT_MS = "BATCH_ADMISSION_LOCK_TIMEOUT_MS";
+  private static final String BATCH_COALESCING_ENABLED = "BATCH_COALESCING_ENABLED";
+  private static final String BATCH_COALESCING_WINDOW_MS = "BATCH_COALESCING_WINDOW_MS";
+  private static final String BATCH_COALESCING_MAX_BATCHES = "BATCH_COALESCING_MAX_BATCHES";
+  private static final String BATCH_STREAM_MAX_OPERATIONS = "BATCH_STREAM_MAX_OPERATIONS";
+  private static final String BATCH_STREAM_MAX_PENDING_BATCHES = "BATCH_STREAM_MAX_PENDING_BATCHES";
+  private static final String BATCH_STREAM_IDLE_TIMEOUT_MS = "BATCH_STREAM_IDLE_TIMEOUT_MS";
+  private static final String BATCH_METRICS_ENABLED = "BATCH_METRICS_ENABLED";
+  private static final String BATCH_METRICS_PORT = "BATCH_METRICS_PORT";
+  private static final String BATCH_IDEMPOTENCY_ENABLED = "BATCH_IDEMPOTENCY_ENABLED";
+  private static final String BATCH_IDEMPOTENCY_TTL_HOURS = "BATCH_IDEMPOTENCY_TTL_HOURS";
+  private static final String BATCH_IDEMPOTENCY_CACHE_SIZE = "BATCH_IDEMPOTENCY_CACHE_SIZE";
+  private static final String BATCH_FUND_LEDGER_CACHE_ENABLED = "BATCH_FUND_LEDGER_CACHE_ENABLED";
+  private static final String BATCH_FUND_LEDGER_CACHE_EXPIRATION_SECONDS = "BATCH_FUND_LEDGER_CACHE_EXPIRATION_SECONDS";
+  private static final String ROLLOVER_SET_BASED_ENABLED = "ROLLOVER_SET_BASED_ENABLED";
+  private static final String ROLLOVER_JOBS_ENABLED = "ROLLOVER_JOBS_ENABLED";
+  private static final String ROLLOVER_JOBS_MAX_RUNNING = "ROLLOVER_JOBS_MAX_RUNNING";
+  private static final String ROLLOVER_JOBS_CHUNK_SIZE = "ROLLOVER_JOBS_CHUNK_SIZE";
+  private static final String ROLLOVER_JOBS_LEASE_SECONDS = "ROLLOVER_JOBS_LEASE_SECONDS";
+  private static final String ROLLOVER_JOBS_PARALLELISM = "ROLLOVER_JOBS_PARALLELISM";
+
   @Bean
   public BudgetService budgetService(DBClientFactory dbClientFactory, BudgetDAO budgetDAO, GroupService groupService) {
     return new BudgetService(dbClientFactory, budgetDAO, groupService);
@@ -64,8 +106,17 @@ public class ServicesConfiguration {
   }
 
   @Bean
-  public FundService fundService(FundDAO fundDAO) {
-    return new StorageFundService(fundDAO);
+  public FundService fundService(FundDAO fundDAO, FundLedgerCache fundLedgerCache) {
+    return new StorageFundService(fundDAO, fundLedgerCache);
+  }
+
+  @Bean
+  public FundLedgerCache fundLedgerCache() {
+    if (!Boolean.parseBoolean(getEnvVar(BATCH_FUND_LEDGER_CACHE_ENABLED, "false"))) {
+      return FundLedgerCache.disabled();
+    }
+    return new FundLedgerCache(Vertx.currentContext(),
+      Long.parseLong(getEnvVar(BATCH_FUND_LEDGER_CACHE_EXPIRATION_SECONDS, "60")));
   }
 
   @Bean
@@ -111,14 +162,61 @@ public class ServicesConfiguration {
   @Bean
   public BatchTransactionService batchTransactionService(DBClientFactory dbClientFactory, BatchTransactionDAO batchTransactionDAO,
       FundService fundService, BudgetService budgetService, LedgerService ledgerService,
-      Set<BatchTransactionServiceInterface> batchTransactionStrategies) {
+      Set<BatchTransactionServiceInterface> batchTransactionStrategies, BatchMetrics batchMetrics,
+      BatchIdempotencyDAO batchIdempotencyDAO, FundLedgerCache fundLedgerCache) {
+    boolean loadWithBatchContextFunction = Boolean.parseBoolean(getEnvVar(BATCH_CONTEXT_FUNCTION_ENABLED, "false"));
+    boolean updateBudgetsWithDeltas = Boolean.parseBoolean(getEnvVar(BATCH_BUDGET_DELTA_UPDATES_ENABLED, "false"));
+    BatchAdmissionControl admissionControl = null;
+    if (Boolean.parseBoolean(getEnvVar(BATCH_ADMISSION_CONTROL_ENABLED, "false"))) {
+      admissionControl = new BatchAdmissionControl(Integer.parseInt(getEnvVar(BATCH_ADMISSION_LOCK_STRIPES, "256")),
+        Long.parseLong(getEnvVar(BATCH_ADMISSION_LOCK_TIMEOUT_MS, "30000")));
+      batchMetrics.registerAdmissionControl(admissionControl);
+    }
+    BatchCoalescer coalescer = null;
+    if (Boolean.parseBoolean(getEnvVar(BATCH_COALESCING_ENABLED, "false"))) {
+      coalescer = new BatchCoalescer(Long.parseLong(getEnvVar(BATCH_COALESCING_WINDOW_MS, "3")),
+        Integer.parseInt(getEnvVar(BATCH_COALESCING_MAX_BATCHES, "50")));
+    }
+    BatchIdempotency idempotency = null;
+    if (Boolean.parseBoolean(getEnvVar(BATCH_IDEMPOTENCY_ENABLED, "false"))) {
+      idempotency = new BatchIdempotency(batchIdempotencyDAO,
+        Duration.ofHours(Long.parseLong(getEnvVar(BATCH_IDEMPOTENCY_TTL_HOURS, "24"))),
+        Long.parseLong(getEnvVar(BATCH_IDEMPOTENCY_CACHE_SIZE, "10000")));
+    }
+    BatchTransactionSettings settings = BatchTransactionSettings.defaults()
+      .withLoadWithBatchContextFunction(loadWithBatchContextFunction)
+      .withUpdateBudgetsWithDeltas(updateBudgetsWithDeltas)
+      .withAdmissionControl(admissionControl)
+      .withCoalescer(coalescer)
+      .withMetrics(batchMetrics)
+      .withIdempotency(idempotency)
+      .withFundLedgerCache(fundLedgerCache);
     return new BatchTransactionService(dbClientFactory, batchTransactionDAO, fundService, budgetService, ledgerService,
-      batchTransactionStrategies);
+      batchTransactionStrategies, settings);
+  }
+
+  @Bean
+  public BatchMetrics batchMetrics() {
+    if (!Boolean.parseBoolean(getEnvVar(BATCH_METRICS_ENABLED, "false"))) {
+      return BatchMetrics.disabled();
+    }
+    return new BatchMetrics(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT),
+      Integer.parseInt(getEnvVar(BATCH_METRICS_PORT, "9102")));
+  }
+
+  @Bean
+  public BatchStreamService batchStreamService(DBClientFactory dbClientFactory,
+      BatchTransactionService batchTransactionService) {
+    return new BatchStreamService(dbClientFactory, batchTransactionService,
+      Integer.parseInt(getEnvVar(BATCH_STREAM_MAX_OPERATIONS, "1000")),
+      Integer.parseInt(getEnvVar(BATCH_STREAM_MAX_PENDING_BATCHES, "100")),
+      Long.parseLong(getEnvVar(BATCH_STREAM_IDLE_TIMEOUT_MS, "60000")));
   }
 
   @Bean
   public PostgresFunctionExecutionService postgresFunctionExecutionService() {
-    return new PostgresFunctionExecutionService();
+    return new PostgresFunctionExecutionService(
+      Boolean.parseBoolean(getEnvVar(ROLLOVER_SET_BASED_ENABLED, "false")));
   }
 
   @Bean
@@ -136,9 +234,18 @@ public class ServicesConfiguration {
     PostgresFunctionExecutionService postgresFunctionExecutionService,
     RolloverValidationService rolloverValidationService,
     @Qualifier("orderRolloverRestClient") RestClient orderRolloverRestClient,
-    EmailService emailService) {
+    EmailService emailService,
+    RolloverJobDAO rolloverJobDAO) {
+    RolloverJobRunner rolloverJobRunner = null;
+    if (Boolean.parseBoolean(getEnvVar(ROLLOVER_JOBS_ENABLED, "false"))) {
+      rolloverJobRunner = new RolloverJobRunner(Integer.parseInt(getEnvVar(ROLLOVER_JOBS_MAX_RUNNING, "2")),
+        Integer.parseInt(getEnvVar(ROLLOVER_JOBS_CHUNK_SIZE, "500")),
+        Integer.parseInt(getEnvVar(ROLLOVER_JOBS_LEASE_SECONDS, "600")),
+        Integer.parseInt(getEnvVar(ROLLOVER_JOBS_PARALLELISM, "1")));
+    }
     return new LedgerRolloverService(fiscalYearService, ledgerFiscalYearRolloverDAO, budgetService, rolloverProgressService, rolloverErrorService,
-      rolloverBudgetService, postgresFunctionExecutionService, rolloverValidationService, orderRolloverRestClient, emailService);
+      rolloverBudgetService, postgresFunctionExecutionService, rolloverValidationService, orderRolloverRestClient, emailService,
+      rolloverJobDAO, rolloverJobRunner);
   }
 
   @Bean
@@ -181,8 +288,9 @@ public class ServicesConfiguration {
 
   @Bean
   public FinanceDataService financeDataService(FundService fundService, BudgetService budgetService, FiscalYearService fiscalYearService,
-      BatchTransactionService batchTransactionService) {
-    return new FinanceDataService(fundService, budgetService, fiscalYearService, batchTransactionService);
+      BatchTransactionService batchTransactionService, FundLedgerCache fundLedgerCache) {
+    return new FinanceDataService(fundService, budgetService, fiscalYearService, batchTransactionService,
+      fundLedgerCache);
   }
 
   @Bean
@@ -17,12 +17,19 @@ public interface BudgetDAO {
 
   Future<Void> updateBatchBudgets(List<Budget> budgets, DBConn conn);
 
+  /**
+   * Adds the deltas to the amounts of the stored budgets with a single statement, and returns the updated budgets.
+   */
+  Future<List<Budget>> updateBudgetsWithDeltas(List<BudgetDelta> deltas, DBConn conn);
+
   Future<Integer> updateBatchBudgetsBySql(String sql, DBConn conn);
 
   Future<List<Budget>> getBudgetsBySql(String sql, Tuple params, DBConn conn);
 
   Future<List<Budget>> getBudgetsByCriterion(Criterion criterion, DBConn conn);
 
+  Future<List<Budget>> getBudgetsByIds(List<String> ids, DBConn conn);
+
   Future<Budget> getBudgetById(String id, DBConn conn);
 
   Future<Void> deleteBudget(String id, DBConn conn);
@@ -0,0 +1,56 @@
+package org.folio.dao.budget;
+
+import java.math.BigDecimal;
+import java.util.stream.Stream;
+
+import org.folio.rest.jaxrs.model.Budget;
+import org.folio.rest.jaxrs.model.Metadata;
+
+/**
+ * Changes to the amounts of a budget, applied to the stored budget by adding them to the stored values.
+ * metadata replaces the stored metadata fields that are set (it can be null).
+ */
+public record BudgetDelta(
+  String id,
+  BigDecimal initialAllocation,
+  BigDecimal allocationTo,
+  BigDecimal allocationFrom,
+  BigDecimal netTransfers,
+  BigDecimal encumbered,
+  BigDecimal awaitingPayment,
+  BigDecimal expenditures,
+  BigDecimal credits,
+  Metadata metadata) {
+
+  /**
+   * @param before a budget with the amounts as they were loaded
+   * @param after the same budget after processing
+   */
+  public static BudgetDelta between(Budget before, Budget after) {
+    return new BudgetDelta(after.getId(),
+      difference(before.getInitialAllocation(), after.getInitialAllocation()),
+      difference(before.getAllocationTo(), after.getAllocationTo()),
+      difference(before.getAllocationFrom(), after.getAllocationFrom()),
+      difference(before.getNetTransfers(), after.getNetTransfers()),
+      difference(before.getEncumbered(), after.getEncumbered()),
+      difference(before.getAwaitingPayment(), after.getAwaitingPayment()),
+      difference(before.getExpenditures(), after.getExpenditures()),
+      difference(before.getCredits(), after.getCredits()),
+      after.getMetadata());
+  }
+
+  /**
+   * @return true if none of the amounts changed
+   */
+  public boolean isEmpty() {
+    return Stream.of(initialAllocation, allocationTo, allocationFrom, netTransfers, encumbered, awaitingPayment,
+        expenditures, credits)
+      .allMatch(amount -> amount.signum() == 0);
+  }
+
+  private static BigDecimal difference(Double before, Double after) {
+    BigDecimal beforeValue = before == null ? BigDecimal.ZERO : BigDecimal.valueOf(before);
+    BigDecimal afterValue = after == null ? BigDecimal.ZERO : BigDecimal.valueOf(after);
+    return afterValue.subtract(beforeValue).stripTrailingZeros();
+  }
+}
@@ -1,6 +1,7 @@
 package org.folio.dao.budget;
 
 import static org.folio.rest.impl.BudgetAPI.BUDGET_TABLE;
+import static org.folio.rest.persist.HelperUtils.getFullTableName;
 import static org.folio.rest.util.ErrorCodes.BUDGET_EXPENSE_CLASS_REFERENCE_ERROR;
 
 import java.util.ArrayList;
@@ -11,13 +12,16 @@ import java.util.UUID;
 import javax.ws.rs.core.Response;
 
 import io.vertx.sqlclient.SqlResult;
+import io.vertx.sqlclient.data.Numeric;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.folio.rest.jaxrs.model.Budget;
+import org.folio.rest.persist.BulkInsertWriter;
 import org.folio.rest.persist.DBConn;
 import org.folio.rest.persist.PgExceptionUtil;
 import org.folio.rest.persist.Criteria.Criterion;
 import org.folio.utils.CalculationUtils;
+import org.folio.utils.ObjectMapper;
 
 import io.vertx.core.Future;
 import io.vertx.core.json.JsonObject;
@@ -27,6 +31,33 @@ import io.vertx.sqlclient.Tuple;
 public class BudgetPostgresDAO implements BudgetDAO {
 
   private static final Logger logger = LogManager.getLogger();
+  private static final String UPDATE_BUDGETS_WITH_DELTAS = "UPDATE %s AS budget SET jsonb = " +
+    "(budget.jsonb - '{allocated,available,unavailable,overEncumbrance,overExpended,cashBalance,totalFunding}'::text[]) " +
+    "|| jsonb_build_object(" +
+    "'initialAllocation', coalesce((budget.jsonb->>'initialAllocation')::numeric, 0) + deltas.initialAllocation, " +
+    "'allocationTo', coalesce((budget.jsonb->>'allocationTo')::numeric, 0) + deltas.allocationTo, " +
+    "'allocationFrom', coalesce((budget.jsonb->>'allocationFrom')::numeric, 0) + deltas.allocationFrom, " +
+    "'netTransfers', coalesce((budget.jsonb->>'netTransfers')::numeric, 0) + deltas.netTransfers, " +
+    "'encumbered', coalesce((budget.jsonb->>'encumbered')::numeric, 0) + deltas.encumbered, " +
+    "'awaitingPayment', coalesce((budget.jsonb->>'awaitingPayment')::numeric, 0) + deltas.awaitingPayment, " +
+    "'expenditures', coalesce((budget.jsonb->>'expenditures')::numeric, 0) + deltas.expenditures, " +
+    "'credits', coalesce((budget.jsonb->>'credits')::numeric, 0) + deltas.credits, " +
+    "'metadata', coalesce(budget.jsonb->'metadata', '{}'::jsonb) || coalesce(deltas.metadata::jsonb, '{}'::jsonb)) " +
+    "FROM unnest($1::uuid[], $2::numeric[], $3::numeric[], $4::numeric[], $5::numeric[], $6::numeric[], " +
+    "$7::numeric[], $8::numeric[], $9::numeric[], $10::text[]) AS deltas(id, initialAllocation, allocationTo, " +
+    "allocationFrom, netTransfers, encumbered, awaitingPayment, expenditures, credits, metadata) " +
+    "WHERE budget.id = deltas.id " +
+    "RETURNING budget.jsonb";
+
+  private final BulkInsertWriter bulkInsertWriter;
+
+  public BudgetPostgresDAO() {
+    this(BulkInsertWriter.disabled());
+  }
+
+  public BudgetPostgresDAO(BulkInsertWriter bulkInsertWriter) {
+    this.bulkInsertWriter = bulkInsertWriter;
+  }
 
   @Override
   public Future<Budget> createBudget(Budget budget, DBConn conn) {
@@ -44,10 +75,9 @@ public class BudgetPostgresDAO implements BudgetDAO {
   public Future<Void> createBatchBudgets(List<Budget> budgets, DBConn conn) {
     List<String> ids = budgets.stream().map(Budget::getId).toList();
     logger.debug("Trying create batch budgets, ids={}", ids);
-    return conn.saveBatch(BUDGET_TABLE, budgets)
-      .onSuccess(rowSet -> logger.info("createBatchBudgets:: Created {} batch budgets", budgets.size()))
-      .onFailure(e -> logger.error("Create batch budgets failed, ids={}", ids, e))
-      .mapEmpty();
+    return bulkInsertWriter.insert(BUDGET_TABLE, budgets, conn)
+      .onSuccess(v -> logger.info("createBatchBudgets:: Created {} batch budgets", budgets.size()))
+      .onFailure(e -> logger.error("Create batch budgets failed, ids={}", ids, e));
   }
 
   @Override
@@ -60,6 +90,66 @@ public class BudgetPostgresDAO implements BudgetDAO {
       .mapEmpty();
   }
 
+  @Override
+  public Future<List<Budget>> updateBudgetsWithDeltas(List<BudgetDelta> deltas, DBConn conn) {
+    List<String> ids = deltas.stream().map(BudgetDelta::id).toList();
+    logger.debug("Trying to update budgets with deltas, ids={}", ids);
+    String sql = String.format(UPDATE_BUDGETS_WITH_DELTAS, getFullTableName(conn.getTenantId(), BUDGET_TABLE));
+    return Future.<Tuple>future(promise -> promise.complete(buildDeltaParams(deltas)))
+      .compose(params -> conn.execute(sql, params))
+      .map(rowSet -> {
+        List<Budget> budgets = new ArrayList<>();
+        rowSet.forEach(row -> budgets.add(row.getJsonObject(0).mapTo(Budget.class)));
+        if (budgets.size() != deltas.size()) {
+          List<String> updatedIds = budgets.stream().map(Budget::getId).toList();
+          List<String> missingIds = ids.stream().filter(id -> !updatedIds.contains(id)).toList();
+          throw new HttpException(500, "Could not find some budgets to update, ids=" + missingIds);
+        }
+        budgets.forEach(CalculationUtils::calculateBudgetSummaryFields);
+        return budgets;
+      })
+      .onSuccess(budgets -> logger.info("updateBudgetsWithDeltas:: Updated {} budgets", budgets.size()))
+      .onFailure(e -> logger.error("Update budgets with deltas failed, ids={}", ids, e));
+  }
+
+  private Tuple buildDeltaParams(List<BudgetDelta> deltas) {
+    int size = deltas.size();
+    UUID[] ids = new UUID[size];
+    Numeric[] initialAllocations = new Numeric[size];
+    Numeric[] allocationsTo = new Numeric[size];
+    Numeric[] allocationsFrom = new Numeric[size];
+    Numeric[] netTransfers = new Numeric[size];
+    Numeric[] encumbered = new Numeric[size];
+    Numeric[] awaitingPayments = new Numeric[size];
+    Numeric[] expenditures = new Numeric[size];
+    Numeric[] credits = new Numeric[size];
+    String[] metadata = new String[size];
+    for (int i = 0; i < size; i++) {
+      BudgetDelta delta = deltas.get(i);
+      ids[i] = UUID.fromString(delta.id());
+      initialAllocations[i] = Numeric.create(delta.initialAllocation());
+      allocationsTo[i] = Numeric.create(delta.allocationTo());
+      allocationsFrom[i] = Numeric.create(delta.allocationFrom());
+      netTransfers[i] = Numeric.create(delta.netTransfers());
+      encumbered[i] = Numeric.create(delta.encumbered());
+      awaitingPayments[i] = Numeric.create(delta.awaitingPayment());
+      expenditures[i] = Numeric.create(delta.expenditures());
+      credits[i] = Numeric.create(delta.credits());
+      metadata[i] = delta.metadata() == null ? null : ObjectMapper.valueAsString(delta.metadata());
+    }
+    return Tuple.tuple()
+      .addValue(ids)
+      .addValue(initialAllocations)
+      .addValue(allocationsTo)
+      .addValue(allocationsFrom)
+      .addValue(netTransfers)
+      .addValue(encumbered)
+      .addValue(awaitingPayments)
+      .addValue(expenditures)
+      .addValue(credits)
+      .addValue(metadata);
+  }
+
   @Override
   public Future<Integer> updateBatchBudgetsBySql(String sql, DBConn conn) {
     logger.debug("Trying update batch budgets by query: {}", sql);
@@ -102,6 +192,21 @@ public class BudgetPostgresDAO implements BudgetDAO {
       .onFailure(e -> logger.error("Getting budgets by query: {} failed", criterion, e));
   }
 
+  @Override
+  public Future<List<Budget>> getBudgetsByIds(List<String> ids, DBConn conn) {
+    logger.debug("Trying to get budgets by ids = {}", ids);
+    if (ids.isEmpty()) {
+      return Future.succeededFuture(List.of());
+    }
+    return conn.getByIds(BUDGET_TABLE, Budget.class, ids)
+      .map(budgets -> {
+        budgets.forEach(CalculationUtils::calculateBudgetSummaryFields);
+        return budgets;
+      })
+      .onSuccess(budgets -> logger.info("Successfully retrieved {} budgets by ids", budgets.size()))
+      .onFailure(e -> logger.error("Getting budgets by ids failed, ids: {}", ids, e));
+  }
+
   public Future<Budget> getBudgetById(String id, DBConn conn) {
     logger.debug("Trying to get a budget by id {}", id);
     return conn.getById(BUDGET_TABLE, id, Budget.class)
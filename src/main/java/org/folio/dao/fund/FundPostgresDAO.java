@@ -14,12 +14,9 @@ import org.folio.rest.exception.HttpException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.folio.rest.jaxrs.model.Fund;
-import org.folio.rest.persist.Criteria.Criterion;
 
 import io.vertx.core.Future;
-import org.folio.rest.persist.CriterionBuilder;
 import org.folio.rest.persist.DBConn;
-import org.folio.rest.persist.interfaces.Results;
 
 import javax.ws.rs.core.Response;
 
@@ -55,9 +52,9 @@ public class FundPostgresDAO implements FundDAO {
     if (ids.isEmpty()) {
       return Future.succeededFuture(Collections.emptyList());
     }
-    CriterionBuilder criterionBuilder = new CriterionBuilder("OR");
-    ids.forEach(id -> criterionBuilder.with("id", id));
-    return getFundsByCriterion(criterionBuilder.build(), conn);
+    return conn.getByIds(FUND_TABLE, Fund.class, ids)
+      .onSuccess(funds -> logger.info("Successfully retrieved {} funds by ids", funds.size()))
+      .onFailure(e -> logger.error("Getting funds by ids failed, ids: {}", ids, e));
   }
 
   @Override
@@ -93,12 +90,4 @@ public class FundPostgresDAO implements FundDAO {
       .mapEmpty();
   }
 
-  private Future<List<Fund>> getFundsByCriterion(Criterion criterion, DBConn conn) {
-    logger.debug("Trying to get funds by criterion = {}", criterion);
-    return conn.get(FUND_TABLE, Fund.class, criterion, false)
-      .map(Results::getResults)
-      .onSuccess(funds -> logger.info("Successfully retrieved {} funds by criterion = {}", funds.size(), criterion))
-      .onFailure(e -> logger.error("Getting funds by criterion = {} failed", criterion, e));
-  }
-
 }
@@ -8,14 +8,15 @@ import org.apache.logging.log4j.Logger;
 import org.folio.rest.jaxrs.model.Group;
 import org.folio.rest.jaxrs.model.GroupFundFiscalYear;
 import org.folio.rest.jaxrs.model.GroupFundFiscalYearBatchRequest;
-import org.folio.rest.persist.Criteria.Criteria;
 import org.folio.rest.persist.Criteria.Criterion;
 import org.folio.rest.persist.CriterionBuilder;
 import org.folio.rest.persist.DBConn;
 import org.folio.rest.persist.interfaces.Results;
 
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public class GroupPostgresDAO implements GroupDAO {
@@ -75,31 +76,18 @@ public class GroupPostgresDAO implements GroupDAO {
       return Future.succeededFuture(Collections.emptyList());
     }
 
-    CriterionBuilder fundIdCriterionBuilder = new CriterionBuilder("OR");
-    fundIds.forEach(fundId -> fundIdCriterionBuilder.with("fundId", fundId));
-    Criterion criterion = fundIdCriterionBuilder.build();
-
-    // Add optional filters
+    // Optional filters
+    Map<String, String> columnFilters = new LinkedHashMap<>();
     if (StringUtils.isNotBlank(batchRequest.getFiscalYearId())) {
-      Criteria fiscalYearIdCriteria = new Criteria();
-      fiscalYearIdCriteria.addField("fiscalYearId")
-        .setOperation("=")
-        .setVal(batchRequest.getFiscalYearId())
-        .setJSONB(false);
-      criterion.addCriterion(fiscalYearIdCriteria);
+      columnFilters.put("fiscalYearId", batchRequest.getFiscalYearId());
     }
     if (StringUtils.isNotBlank(batchRequest.getGroupId())) {
-      Criteria groupIdCriteria = new Criteria();
-      groupIdCriteria.addField("groupId")
-        .setOperation("=")
-        .setVal(batchRequest.getGroupId())
-        .setJSONB(false);
-      criterion.addCriterion(groupIdCriteria);
+      columnFilters.put("groupId", batchRequest.getGroupId());
     }
 
-    return conn.get(GROUP_FUND_FY_TABLE, GroupFundFiscalYear.class, criterion)
-      .map(Results::getResults)
-      .onFailure(e -> logger.error("Getting group fund fiscal years by batch failed, criterion: {}", criterion, e));
+    return conn.getByColumnValues(GROUP_FUND_FY_TABLE, GroupFundFiscalYear.class, "fundId", fundIds, columnFilters)
+      .onFailure(e -> logger.error("Getting group fund fiscal years by batch failed, fundIds: {}, filters: {}",
+        fundIds, columnFilters, e));
   }
 
 }
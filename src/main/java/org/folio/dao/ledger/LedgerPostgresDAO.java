@@ -8,10 +8,7 @@ import org.apache.logging.log4j.Logger;
 import org.folio.rest.jaxrs.model.Ledger;
 
 import io.vertx.core.Future;
-import org.folio.rest.persist.Criteria.Criterion;
-import org.folio.rest.persist.CriterionBuilder;
 import org.folio.rest.persist.DBConn;
-import org.folio.rest.persist.interfaces.Results;
 
 import java.util.Collections;
 import java.util.List;
@@ -44,16 +41,8 @@ public class LedgerPostgresDAO implements LedgerDAO {
     if (ids.isEmpty()) {
       return Future.succeededFuture(Collections.emptyList());
     }
-    CriterionBuilder criterionBuilder = new CriterionBuilder("OR");
-    ids.forEach(id -> criterionBuilder.with("id", id));
-    return getLedgersByCriterion(criterionBuilder.build(), conn);
-  }
-
-  private Future<List<Ledger>> getLedgersByCriterion(Criterion criterion, DBConn conn) {
-    logger.debug("Trying to get ledgers by criterion = {}", criterion);
-    return conn.get(LEDGER_TABLE, Ledger.class, criterion, false)
-      .map(Results::getResults)
-      .onSuccess(ledgers -> logger.info("Successfully retrieved {} ledgers by criterion = {}", ledgers.size(), criterion))
-      .onFailure(e -> logger.error("Getting ledgers by criterion = {} failed", criterion, e));
+    return conn.getByIds(LEDGER_TABLE, Ledger.class, ids)
+      .onSuccess(ledgers -> logger.info("Successfully retrieved {} ledgers by ids", ledgers.size()))
+      .onFailure(e -> logger.error("Getting ledgers by ids failed, ids: {}", ids, e));
   }
 }
@@ -0,0 +1,23 @@
+package org.folio.dao.rollover;
+
+import java.util.Map;
+
+import org.folio.rest.jaxrs.model.LedgerFiscalYearRollover;
+import org.folio.rest.jaxrs.model.RolloverStatus;
+
+/**
+ * A rollover run in steps committed separately (see rollover_job.sql).
+ *
+ * @param rollover the rollover, with the currency factor
+ * @param totalChunks number of chunks of orders, null until the budgets have been rolled over
+ * @param completedChunks number of chunks already rolled over
+ * @param partitioned true if the chunks are grouped in partitions sharing no fund, which can be rolled over at the same time
+ * @param okapiHeaders Okapi URL, tenant and user id of the rollover request, null if they were not saved
+ */
+public record RolloverJob(LedgerFiscalYearRollover rollover, RolloverStatus status, Integer totalChunks,
+                          int completedChunks, boolean partitioned, Map<String, String> okapiHeaders) {
+
+  public String getId() {
+    return rollover.getId();
+  }
+}
@@ -0,0 +1,13 @@
+package org.folio.dao.rollover;
+
+import java.util.List;
+
+/**
+ * A chunk of orders of a partitioned rollover job. The chunks of a partition share funds and are rolled over one after
+ * the other; they share no fund with the chunks of the other partitions.
+ *
+ * @param partition the number of the partition, starting at 1
+ * @param orderSeqs the sequence numbers of the orders of the chunk
+ */
+public record RolloverJobChunk(int partition, List<Long> orderSeqs) {
+}
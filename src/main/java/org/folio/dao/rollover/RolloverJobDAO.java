@@ -0,0 +1,338 @@
+package org.folio.dao.rollover;
+
+import static org.folio.dao.transactions.BatchTransactionDAO.TRANSACTIONS_TABLE;
+import static org.folio.rest.persist.HelperUtils.getFullTableName;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.RowIterator;
+import io.vertx.sqlclient.Tuple;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.okapi.common.XOkapiHeaders;
+import org.folio.rest.jaxrs.model.LedgerFiscalYearRollover;
+import org.folio.rest.jaxrs.model.RolloverStatus;
+import org.folio.rest.persist.DBConn;
+import org.folio.rest.persist.PostgresClient;
+import org.folio.rest.tools.utils.ModuleName;
+import org.folio.utils.ObjectMapper;
+
+public class RolloverJobDAO {
+
+  private static final Logger logger = LogManager.getLogger(RolloverJobDAO.class);
+
+  public static final String ROLLOVER_JOB_TABLE = "ledger_fiscal_year_rollover_job";
+  private static final String ROLLOVER_JOB_ORDER_TABLE = "ledger_fiscal_year_rollover_job_order";
+  private static final String ROLLOVER_JOB_ENCUMBRANCE_TABLE = "ledger_fiscal_year_rollover_job_encumbrance";
+  private static final String ROLLOVER_JOB_CHUNK_TABLE = "ledger_fiscal_year_rollover_job_chunk";
+  // Headers identifying the rollover request; the token is never saved
+  private static final List<String> SAVED_OKAPI_HEADERS = List.of(XOkapiHeaders.URL, XOkapiHeaders.TENANT,
+    XOkapiHeaders.USER_ID);
+
+  private static final String CREATE_JOB_QUERY = "INSERT INTO %s (id, rollover, status, owner, lease_expires_at, " +
+    "okapi_headers) VALUES ($1, $2, $3, $4, now() + make_interval(secs => $5::integer), $6)";
+  // Waits for the chunks of a partitioned job being rolled over, which hold the shared lock until their commit
+  private static final String LOCK_JOB_CLAIM_QUERY = "SELECT pg_advisory_xact_lock(%s.rollover_job_lock_key($1))";
+  // A job can be claimed by its owner, or by any instance once the lease of its owner has expired
+  private static final String CLAIM_JOB_QUERY = "UPDATE %s SET owner = $2, status = $3, " +
+    "lease_expires_at = now() + make_interval(secs => $4::integer), updated_at = now() " +
+    "WHERE id = $1 AND status IN ($5, $3) AND (owner = $2 OR lease_expires_at IS NULL OR lease_expires_at < now()) " +
+    "RETURNING rollover, status, total_chunks, completed_chunks, partitioned, okapi_headers";
+  private static final String GET_RESUMABLE_JOB_IDS_QUERY = "SELECT id FROM %s " +
+    "WHERE status IN ($1, $2) AND (lease_expires_at IS NULL OR lease_expires_at < now()) ORDER BY created_at";
+  private static final String GET_ORDER_FUND_IDS_QUERY = "SELECT DISTINCT job_order.seq, tr.fromFundId FROM %s AS job_order " +
+    "LEFT JOIN %s AS tr ON tr.jsonb->'encumbrance'->>'sourcePurchaseOrderId' = job_order.order_id " +
+    "AND tr.fiscalYearId = $2 WHERE job_order.job_id = $1";
+  private static final String SAVE_PARTITIONS_QUERY = "UPDATE %s AS job_order SET chunk = partitions.chunk, " +
+    "partition_number = partitions.partition_number " +
+    "FROM unnest($2::bigint[], $3::integer[], $4::integer[]) AS partitions(seq, chunk, partition_number) " +
+    "WHERE job_order.job_id = $1 AND job_order.seq = partitions.seq";
+  private static final String SET_PARTITIONED_QUERY = "UPDATE %s SET total_chunks = $2, partitioned = true, " +
+    "updated_at = now() WHERE id = $1";
+  private static final String GET_REMAINING_CHUNKS_QUERY = "SELECT DISTINCT partition_number, chunk " +
+    "FROM %s AS job_order WHERE job_id = $1 AND NOT EXISTS (SELECT 1 FROM %s AS job_chunk " +
+    "WHERE job_chunk.job_id = job_order.job_id AND job_chunk.chunk = job_order.chunk) ORDER BY partition_number, chunk";
+  // The completed chunks are counted again by every renewal, so the count only grows whatever the order of the renewals
+  private static final String RENEW_LEASE_QUERY = "UPDATE %s SET " +
+    "completed_chunks = greatest(completed_chunks, (SELECT count(*) FROM %s WHERE job_id = $1)), " +
+    "lease_expires_at = now() + make_interval(secs => $3::integer), updated_at = now() WHERE id = $1 AND owner = $2";
+  private static final String FINISH_JOB_QUERY = "UPDATE %s SET status = $3, owner = NULL, lease_expires_at = NULL, " +
+    "okapi_headers = NULL, updated_at = now() WHERE id = $1 AND owner = $2";
+  private static final String DELETE_JOB_DATA_QUERY = "DELETE FROM %s WHERE job_id = $1";
+  private static final String GET_SCHEMAS_WITH_JOBS_QUERY = "SELECT table_schema FROM information_schema.tables " +
+    "WHERE table_name = '" + ROLLOVER_JOB_TABLE + "'";
+
+  /**
+   * Creates the job, with the Okapi URL, tenant and user id of the rollover request, kept until the job is finished.
+   * The token of the request is not saved.
+   */
+  public Future<Void> create(LedgerFiscalYearRollover rollover, String owner, int leaseSeconds,
+      Map<String, String> okapiHeaders, DBConn conn) {
+    String sql = String.format(CREATE_JOB_QUERY, getFullTableName(conn.getTenantId(), ROLLOVER_JOB_TABLE));
+    JsonObject rolloverJson = new JsonObject(ObjectMapper.valueAsString(rollover));
+    // saved in lower case, as the services read them
+    JsonObject headersJson = new JsonObject();
+    okapiHeaders.forEach((header, value) -> {
+      if (value != null && SAVED_OKAPI_HEADERS.stream().anyMatch(header::equalsIgnoreCase)) {
+        headersJson.put(header.toLowerCase(Locale.ROOT), value);
+      }
+    });
+    return conn.execute(sql, Tuple.of(UUID.fromString(rollover.getId()), rolloverJson,
+        RolloverStatus.NOT_STARTED.value(), owner, leaseSeconds, headersJson))
+      .onSuccess(rowSet -> logger.info("create:: Created rollover job {}", rollover.getId()))
+      .onFailure(e -> logger.error("create:: Creating rollover job {} failed", rollover.getId(), e))
+      .mapEmpty();
+  }
+
+  /**
+   * Makes the owner run the job, if it is not finished and not run by another module instance.
+   * Must run in a transaction: the chunks of a partitioned job being rolled over by the previous owner are committed
+   * before the job is claimed, and its next chunks fail once the claim is committed.
+   *
+   * @return the job, or null if it cannot be claimed
+   */
+  public Future<RolloverJob> claim(String jobId, String owner, int leaseSeconds, DBConn conn) {
+    String sql = String.format(CLAIM_JOB_QUERY, getFullTableName(conn.getTenantId(), ROLLOVER_JOB_TABLE));
+    return conn.execute(String.format(LOCK_JOB_CLAIM_QUERY, getSchemaName(conn)), Tuple.of(UUID.fromString(jobId)))
+      .compose(v -> conn.execute(sql, Tuple.of(UUID.fromString(jobId), owner, RolloverStatus.IN_PROGRESS.value(),
+        leaseSeconds, RolloverStatus.NOT_STARTED.value())))
+      .map(rowSet -> {
+        RowIterator<Row> iterator = rowSet.iterator();
+        if (!iterator.hasNext()) {
+          return null;
+        }
+        Row row = iterator.next();
+        JsonObject headersJson = row.getJsonObject("okapi_headers");
+        Map<String, String> okapiHeaders = null;
+        if (headersJson != null) {
+          okapiHeaders = new HashMap<>();
+          for (String header : headersJson.fieldNames()) {
+            okapiHeaders.put(header, headersJson.getString(header));
+          }
+        }
+        return new RolloverJob(row.getJsonObject("rollover").mapTo(LedgerFiscalYearRollover.class),
+          RolloverStatus.fromValue(row.getString("status")), row.getInteger("total_chunks"),
+          row.getInteger("completed_chunks"), row.getBoolean("partitioned"), okapiHeaders);
+      })
+      .onFailure(e -> logger.error("claim:: Claiming rollover job {} failed", jobId, e));
+  }
+
+  public Future<List<String>> getResumableJobIds(DBConn conn) {
+    String sql = String.format(GET_RESUMABLE_JOB_IDS_QUERY, getFullTableName(conn.getTenantId(), ROLLOVER_JOB_TABLE));
+    return conn.execute(sql, Tuple.of(RolloverStatus.NOT_STARTED.value(), RolloverStatus.IN_PROGRESS.value()))
+      .map(rowSet -> {
+        List<String> ids = new ArrayList<>();
+        rowSet.forEach(row -> ids.add(row.getUUID(0).toString()));
+        return ids;
+      });
+  }
+
+  /**
+   * Rolls over the budgets (#1 - #3 of the rollover), and splits the orders in chunks.
+   *
+   * @return the number of chunks
+   */
+  public Future<Integer> prepare(LedgerFiscalYearRollover rollover, int chunkSize, String owner, int leaseSeconds,
+      DBConn conn) {
+    String sql = String.format("SELECT %s.rollover_job_prepare($1, $2, $3, $4)", getSchemaName(conn));
+    return conn.execute(sql, Tuple.of(toJson(rollover), chunkSize, owner, leaseSeconds))
+      .map(rowSet -> rowSet.iterator().next().getInteger(0))
+      .onSuccess(chunks -> logger.info("prepare:: Rollover job {} has {} chunks of orders", rollover.getId(), chunks))
+      .onFailure(e -> logger.error("prepare:: Preparing rollover job {} failed", rollover.getId(), e));
+  }
+
+  /**
+   * Rolls over the orders of the chunk, and records the chunk as completed.
+   */
+  public Future<Void> runChunk(LedgerFiscalYearRollover rollover, int chunk, String owner, int leaseSeconds,
+      DBConn conn) {
+    String sql = String.format("SELECT %s.rollover_job_chunk($1, $2, $3, $4)", getSchemaName(conn));
+    return conn.execute(sql, Tuple.of(toJson(rollover), chunk, owner, leaseSeconds))
+      .onSuccess(rowSet -> logger.info("runChunk:: Rolled over chunk {} of rollover job {}", chunk, rollover.getId()))
+      .onFailure(e -> logger.error("runChunk:: Rolling over chunk {} of rollover job {} failed", chunk,
+        rollover.getId(), e))
+      .mapEmpty();
+  }
+
+  /**
+   * @return the fund ids of the encumbrances of each order of the job, by order sequence number
+   */
+  public Future<SortedMap<Long, Set<String>>> getOrderFundIds(LedgerFiscalYearRollover rollover, DBConn conn) {
+    String tenantId = conn.getTenantId();
+    String sql = String.format(GET_ORDER_FUND_IDS_QUERY, getFullTableName(tenantId, ROLLOVER_JOB_ORDER_TABLE),
+      getFullTableName(tenantId, TRANSACTIONS_TABLE));
+    return conn.execute(sql, Tuple.of(UUID.fromString(rollover.getId()), UUID.fromString(rollover.getFromFiscalYearId())))
+      .map(rowSet -> {
+        SortedMap<Long, Set<String>> fundIdsByOrder = new TreeMap<>();
+        rowSet.forEach(row -> {
+          Set<String> fundIds = fundIdsByOrder.computeIfAbsent(row.getLong(0), seq -> new HashSet<>());
+          UUID fundId = row.getUUID(1);
+          if (fundId != null) {
+            fundIds.add(fundId.toString());
+          }
+        });
+        return fundIdsByOrder;
+      });
+  }
+
+  /**
+   * Replaces the chunks of the job with the given chunks, whose orders share no fund with the chunks of the other
+   * partitions. The chunks are numbered in the order of the list.
+   */
+  public Future<Void> savePartitions(String jobId, List<RolloverJobChunk> chunks, DBConn conn) {
+    String tenantId = conn.getTenantId();
+    List<Long> seqs = new ArrayList<>();
+    List<Integer> chunkNumbers = new ArrayList<>();
+    List<Integer> partitionNumbers = new ArrayList<>();
+    for (int i = 0; i < chunks.size(); i++) {
+      RolloverJobChunk chunk = chunks.get(i);
+      for (Long seq : chunk.orderSeqs()) {
+        seqs.add(seq);
+        chunkNumbers.add(i + 1);
+        partitionNumbers.add(chunk.partition());
+      }
+    }
+    Tuple params = Tuple.tuple()
+      .addValue(UUID.fromString(jobId))
+      .addValue(seqs.toArray(Long[]::new))
+      .addValue(chunkNumbers.toArray(Integer[]::new))
+      .addValue(partitionNumbers.toArray(Integer[]::new));
+    return conn.execute(String.format(SAVE_PARTITIONS_QUERY, getFullTableName(tenantId, ROLLOVER_JOB_ORDER_TABLE)), params)
+      .compose(v -> conn.execute(String.format(SET_PARTITIONED_QUERY, getFullTableName(tenantId, ROLLOVER_JOB_TABLE)),
+        Tuple.of(UUID.fromString(jobId), chunks.size())))
+      .onSuccess(v -> logger.info("savePartitions:: Rollover job {} has {} chunks of orders in {} partitions", jobId,
+        chunks.size(), chunks.isEmpty() ? 0 : chunks.getLast().partition()))
+      .mapEmpty();
+  }
+
+  /**
+   * Rolls over the orders of a chunk of a partitioned job, and records the chunk as completed; fails if a previous
+   * chunk of its partition has not been rolled over. The chunks of the other partitions can be rolled over at the same
+   * time, in other transactions.
+   */
+  public Future<Void> runPartitionChunk(LedgerFiscalYearRollover rollover, int chunk, String owner, DBConn conn) {
+    String sql = String.format("SELECT %s.rollover_job_partition_chunk($1, $2, $3)", getSchemaName(conn));
+    return conn.execute(sql, Tuple.of(toJson(rollover), chunk, owner))
+      .onSuccess(rowSet -> logger.info("runPartitionChunk:: Rolled over chunk {} of rollover job {}", chunk,
+        rollover.getId()))
+      .onFailure(e -> logger.error("runPartitionChunk:: Rolling over chunk {} of rollover job {} failed", chunk,
+        rollover.getId(), e))
+      .mapEmpty();
+  }
+
+  /**
+   * @return the chunks of a partitioned job not rolled over yet, by partition, in the order in which they must be
+   * rolled over
+   */
+  public Future<List<List<Integer>>> getRemainingChunks(String jobId, DBConn conn) {
+    String tenantId = conn.getTenantId();
+    String sql = String.format(GET_REMAINING_CHUNKS_QUERY, getFullTableName(tenantId, ROLLOVER_JOB_ORDER_TABLE),
+      getFullTableName(tenantId, ROLLOVER_JOB_CHUNK_TABLE));
+    return conn.execute(sql, Tuple.of(UUID.fromString(jobId)))
+      .map(rowSet -> {
+        Map<Integer, List<Integer>> chunksByPartition = new LinkedHashMap<>();
+        rowSet.forEach(row -> chunksByPartition.computeIfAbsent(row.getInteger(0), partition -> new ArrayList<>())
+          .add(row.getInteger(1)));
+        return new ArrayList<>(chunksByPartition.values());
+      });
+  }
+
+  /**
+   * Renews the lease of a partitioned job after a chunk, and updates its number of completed chunks.
+   */
+  public Future<Void> renewLease(String jobId, String owner, int leaseSeconds, DBConn conn) {
+    String tenantId = conn.getTenantId();
+    String sql = String.format(RENEW_LEASE_QUERY, getFullTableName(tenantId, ROLLOVER_JOB_TABLE),
+      getFullTableName(tenantId, ROLLOVER_JOB_CHUNK_TABLE));
+    return conn.execute(sql, Tuple.of(UUID.fromString(jobId), owner, leaseSeconds))
+      .mapEmpty();
+  }
+
+  /**
+   * Locks the job until the end of the transaction; fails if it is not owned by the owner anymore.
+   */
+  public Future<Void> lock(String jobId, String owner, int completedChunks, DBConn conn) {
+    String sql = String.format("SELECT %s.lock_rollover_job($1, $2, $3)", getSchemaName(conn));
+    return conn.execute(sql, Tuple.of(UUID.fromString(jobId), owner, completedChunks))
+      .mapEmpty();
+  }
+
+  /**
+   * Creates the temporary tables used by the final steps of the rollover, and makes the planned budgets active.
+   */
+  public Future<Void> restoreTemporaryTablesAndActivateBudgets(LedgerFiscalYearRollover rollover, DBConn conn) {
+    String schemaName = getSchemaName(conn);
+    JsonObject rolloverJson = toJson(rollover);
+    return conn.execute(String.format("SELECT %s.rollover_job_restore_tables($1)", schemaName), Tuple.of(rolloverJson))
+      .compose(v -> conn.execute(String.format("SELECT %s.activate_planned_budgets($1)", schemaName),
+        Tuple.of(rolloverJson)))
+      .mapEmpty();
+  }
+
+  /**
+   * Records the final status of the job, and deletes the data saved for its steps.
+   *
+   * @return false if the job is not owned by the owner anymore, in which case nothing is changed
+   */
+  public Future<Boolean> finish(String jobId, String owner, RolloverStatus status, DBConn conn) {
+    String tenantId = conn.getTenantId();
+    Tuple jobIdParam = Tuple.of(UUID.fromString(jobId));
+    return conn.execute(String.format(FINISH_JOB_QUERY, getFullTableName(tenantId, ROLLOVER_JOB_TABLE)),
+        Tuple.of(UUID.fromString(jobId), owner, status.value()))
+      .compose(rowSet -> {
+        if (rowSet.rowCount() == 0) {
+          logger.warn("finish:: Rollover job {} is not owned by {} anymore", jobId, owner);
+          return Future.succeededFuture(false);
+        }
+        return conn.execute(String.format(DELETE_JOB_DATA_QUERY,
+            getFullTableName(tenantId, ROLLOVER_JOB_ORDER_TABLE)), jobIdParam)
+          .compose(v -> conn.execute(String.format(DELETE_JOB_DATA_QUERY,
+            getFullTableName(tenantId, ROLLOVER_JOB_ENCUMBRANCE_TABLE)), jobIdParam))
+          .compose(v -> conn.execute(String.format(DELETE_JOB_DATA_QUERY,
+            getFullTableName(tenantId, ROLLOVER_JOB_CHUNK_TABLE)), jobIdParam))
+          .onSuccess(v -> logger.info("finish:: Rollover job {} finished with status {}", jobId, status.value()))
+          .map(true);
+      })
+      .onFailure(e -> logger.error("finish:: Finishing rollover job {} failed", jobId, e));
+  }
+
+  /**
+   * @return the ids of the tenants having the rollover job tables
+   */
+  public Future<List<String>> getTenantIds(Vertx vertx) {
+    String schemaSuffix = "_" + ModuleName.getModuleName();
+    return PostgresClient.getInstance(vertx).select(GET_SCHEMAS_WITH_JOBS_QUERY)
+      .map(rowSet -> {
+        List<String> tenantIds = new ArrayList<>();
+        rowSet.forEach(row -> {
+          String schemaName = row.getString(0);
+          if (schemaName.endsWith(schemaSuffix)) {
+            tenantIds.add(schemaName.substring(0, schemaName.length() - schemaSuffix.length()));
+          }
+        });
+        return tenantIds;
+      });
+  }
+
+  private String getSchemaName(DBConn conn) {
+    return PostgresClient.convertToPsqlStandard(conn.getTenantId());
+  }
+
+  private JsonObject toJson(LedgerFiscalYearRollover rollover) {
+    return new JsonObject(ObjectMapper.valueAsString(rollover));
+  }
+}
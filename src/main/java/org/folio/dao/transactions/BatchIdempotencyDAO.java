@@ -0,0 +1,24 @@
+package org.folio.dao.transactions;
+
+import io.vertx.core.Future;
+import org.folio.rest.persist.DBConn;
+
+import java.time.Instant;
+
+public interface BatchIdempotencyDAO {
+
+  /**
+   * Records the key, unless it is already recorded and has not expired. If another transaction is recording
+   * the same key, this waits until that transaction ends.
+   *
+   * @return true if the key was recorded, false if it was already recorded
+   */
+  Future<Boolean> registerKey(String key, String payloadHash, Instant expiresAt, DBConn conn);
+
+  /**
+   * @return the payload hash recorded with the key, or null if the key is not recorded
+   */
+  Future<String> getPayloadHash(String key, DBConn conn);
+
+  Future<Integer> deleteExpiredKeys(DBConn conn);
+}
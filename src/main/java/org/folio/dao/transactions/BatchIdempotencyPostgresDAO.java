@@ -0,0 +1,55 @@
+package org.folio.dao.transactions;
+
+import io.vertx.core.Future;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.RowIterator;
+import io.vertx.sqlclient.Tuple;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.rest.persist.DBConn;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import static org.folio.rest.persist.HelperUtils.getFullTableName;
+
+public class BatchIdempotencyPostgresDAO implements BatchIdempotencyDAO {
+
+  private static final Logger logger = LogManager.getLogger();
+  private static final String BATCH_IDEMPOTENCY_KEY_TABLE = "batch_idempotency_key";
+  // An expired key is replaced as if it was not there
+  private static final String REGISTER_KEY_QUERY = "INSERT INTO %1$s AS k (key, payload_hash, expires_at) " +
+    "VALUES ($1, $2, $3) " +
+    "ON CONFLICT (key) DO UPDATE SET payload_hash = EXCLUDED.payload_hash, expires_at = EXCLUDED.expires_at " +
+    "WHERE k.expires_at < now() " +
+    "RETURNING key";
+  private static final String GET_PAYLOAD_HASH_QUERY = "SELECT payload_hash FROM %s WHERE key = $1";
+  private static final String DELETE_EXPIRED_KEYS_QUERY = "DELETE FROM %s WHERE expires_at < now()";
+
+  @Override
+  public Future<Boolean> registerKey(String key, String payloadHash, Instant expiresAt, DBConn conn) {
+    String sql = String.format(REGISTER_KEY_QUERY, getFullTableName(conn.getTenantId(), BATCH_IDEMPOTENCY_KEY_TABLE));
+    return conn.execute(sql, Tuple.of(key, payloadHash, OffsetDateTime.ofInstant(expiresAt, ZoneOffset.UTC)))
+      .map(rowSet -> rowSet.rowCount() == 1)
+      .onFailure(e -> logger.error("registerKey:: Failed to register idempotency key {}", key, e));
+  }
+
+  @Override
+  public Future<String> getPayloadHash(String key, DBConn conn) {
+    String sql = String.format(GET_PAYLOAD_HASH_QUERY, getFullTableName(conn.getTenantId(), BATCH_IDEMPOTENCY_KEY_TABLE));
+    return conn.execute(sql, Tuple.of(key))
+      .map(rowSet -> {
+        RowIterator<Row> iterator = rowSet.iterator();
+        return iterator.hasNext() ? iterator.next().getString(0) : null;
+      });
+  }
+
+  @Override
+  public Future<Integer> deleteExpiredKeys(DBConn conn) {
+    String sql = String.format(DELETE_EXPIRED_KEYS_QUERY, getFullTableName(conn.getTenantId(), BATCH_IDEMPOTENCY_KEY_TABLE));
+    return conn.execute(sql)
+      .map(rowSet -> rowSet.rowCount())
+      .onSuccess(count -> logger.info("deleteExpiredKeys:: Deleted {} expired idempotency keys", count));
+  }
+}
@@ -0,0 +1,23 @@
+package org.folio.dao.transactions;
+
+import org.folio.rest.jaxrs.model.Budget;
+import org.folio.rest.jaxrs.model.Fund;
+import org.folio.rest.jaxrs.model.Ledger;
+import org.folio.rest.jaxrs.model.Transaction;
+
+import java.util.List;
+
+/**
+ * Result of the batch_transaction_context database function. Budgets are locked for update.
+ */
+public record BatchTransactionContext(
+  List<Transaction> transactionsToDelete,
+  List<String> pendingPaymentIdsForEncumbrancesToDelete,
+  List<Transaction> existingTransactions,
+  List<Transaction> linkedPendingPayments,
+  List<Transaction> linkedPayments,
+  List<Transaction> linkedEncumbrances,
+  List<Fund> funds,
+  List<Budget> budgets,
+  List<Ledger> ledgers) {
+}
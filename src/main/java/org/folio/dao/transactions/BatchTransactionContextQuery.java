@@ -0,0 +1,16 @@
+package org.folio.dao.transactions;
+
+import java.util.List;
+
+/**
+ * Parameters of the batch_transaction_context database function.
+ * fiscalYearIds and fundIds are parallel lists of (fiscalYearId, fundId) pairs.
+ */
+public record BatchTransactionContextQuery(
+  List<String> ids,
+  List<String> idsToDelete,
+  List<String> invoiceIds,
+  List<String> encumbranceIds,
+  List<String> fiscalYearIds,
+  List<String> fundIds) {
+}
@@ -1,18 +1,23 @@
 package org.folio.dao.transactions;
 
 import io.vertx.core.Future;
+import org.folio.rest.jaxrs.model.Metadata;
 import org.folio.rest.jaxrs.model.Transaction;
-import org.folio.rest.persist.Criteria.Criterion;
+import org.folio.rest.jaxrs.model.TransactionPatch;
 import org.folio.rest.persist.DBConn;
 
 import java.util.List;
+import java.util.Map;
 
 public interface BatchTransactionDAO {
   String TRANSACTIONS_TABLE = "transaction";
 
-  Future<List<Transaction>> getTransactionsByCriterion(Criterion criterion, DBConn conn);
+  Future<List<Transaction>> getTransactionsByFieldValues(String field, List<String> values,
+      Map<String, String> fieldFilters, DBConn conn);
   Future<List<Transaction>> getTransactionsByIds(List<String> ids, DBConn conn);
+  Future<BatchTransactionContext> getBatchTransactionContext(BatchTransactionContextQuery query, DBConn conn);
   Future<Void> createTransactions(List<Transaction> transactions, DBConn conn);
   Future<Void> updateTransactions(List<Transaction> transactions, DBConn conn);
   Future<Void> deleteTransactionsByIds(List<String> ids, DBConn conn);
+  Future<Void> patchTransactions(List<TransactionPatch> patches, Metadata metadata, DBConn conn);
 }
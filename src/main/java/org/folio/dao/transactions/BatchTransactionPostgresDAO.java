@@ -1,27 +1,58 @@
 package org.folio.dao.transactions;
 
 import io.vertx.core.Future;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.sqlclient.Tuple;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.folio.rest.exception.HttpException;
+import org.folio.rest.jaxrs.model.Budget;
+import org.folio.rest.jaxrs.model.Fund;
+import org.folio.rest.jaxrs.model.Ledger;
+import org.folio.rest.jaxrs.model.Metadata;
 import org.folio.rest.jaxrs.model.Transaction;
-import org.folio.rest.persist.Criteria.Criterion;
-import org.folio.rest.persist.CriterionBuilder;
+import org.folio.rest.jaxrs.model.TransactionPatch;
+import org.folio.rest.persist.BulkInsertWriter;
 import org.folio.rest.persist.DBConn;
-import org.folio.rest.persist.interfaces.Results;
+import org.folio.rest.persist.PostgresClient;
+import org.folio.utils.CalculationUtils;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.folio.rest.persist.HelperUtils.getFullTableName;
 
 public class BatchTransactionPostgresDAO implements BatchTransactionDAO {
   private static final Logger logger = LogManager.getLogger();
+  private static final String BATCH_TRANSACTION_CONTEXT_QUERY = "SELECT %s.batch_transaction_context($1, $2, $3, $4, $5, $6)";
+
+  private final BulkInsertWriter bulkInsertWriter;
+
+  public BatchTransactionPostgresDAO() {
+    this(BulkInsertWriter.disabled());
+  }
+
+  public BatchTransactionPostgresDAO(BulkInsertWriter bulkInsertWriter) {
+    this.bulkInsertWriter = bulkInsertWriter;
+  }
 
   @Override
-  public Future<List<Transaction>> getTransactionsByCriterion(Criterion criterion, DBConn conn) {
-    logger.debug("Trying to get transactions by criterion: {}", criterion);
-    return conn.get(TRANSACTIONS_TABLE, Transaction.class, criterion)
-      .map(Results::getResults)
-      .onSuccess(transactions -> logger.info("Successfully retrieved {} transactions", transactions.size()))
-      .onFailure(e -> logger.error("Getting transactions by criterion failed, criterion: {}", criterion, e));
+  public Future<List<Transaction>> getTransactionsByFieldValues(String field, List<String> values,
+      Map<String, String> fieldFilters, DBConn conn) {
+    logger.debug("Trying to get transactions by {} = {}, filters = {}", field, values, fieldFilters);
+    if (values.isEmpty()) {
+      return Future.succeededFuture(Collections.emptyList());
+    }
+    return conn.getByJsonbFieldValues(TRANSACTIONS_TABLE, Transaction.class, field, values, fieldFilters)
+      .onSuccess(transactions -> logger.info("Successfully retrieved {} transactions by {}", transactions.size(), field))
+      .onFailure(e -> logger.error("Getting transactions by {} failed, values: {}, filters: {}", field, values,
+        fieldFilters, e));
   }
 
   @Override
@@ -30,13 +61,28 @@ public class BatchTransactionPostgresDAO implements BatchTransactionDAO {
     if (ids.isEmpty()) {
       return Future.succeededFuture(Collections.emptyList());
     }
-    return getTransactionsByCriterion(buildCriterionByIds(ids), conn);
+    return conn.getByIds(TRANSACTIONS_TABLE, Transaction.class, ids)
+      .onSuccess(transactions -> logger.info("Successfully retrieved {} transactions by ids", transactions.size()))
+      .onFailure(e -> logger.error("Getting transactions by ids failed, ids: {}", ids, e));
+  }
+
+  @Override
+  public Future<BatchTransactionContext> getBatchTransactionContext(BatchTransactionContextQuery query, DBConn conn) {
+    logger.debug("Trying to get batch transaction context, query = {}", query);
+    String sql = String.format(BATCH_TRANSACTION_CONTEXT_QUERY, PostgresClient.convertToPsqlStandard(conn.getTenantId()));
+    Tuple params = Tuple.of(toUuidArray(query.ids()), toUuidArray(query.idsToDelete()),
+      query.invoiceIds().toArray(String[]::new), toUuidArray(query.encumbranceIds()),
+      toUuidArray(query.fiscalYearIds()), toUuidArray(query.fundIds()));
+    return conn.execute(sql, params)
+      .map(rowSet -> toBatchTransactionContext(rowSet.iterator().next().getJsonObject(0)))
+      .onSuccess(context -> logger.info("Successfully retrieved batch transaction context with {} existing transactions and {} budgets",
+        context.existingTransactions().size(), context.budgets().size()))
+      .onFailure(e -> logger.error("Getting batch transaction context failed, query = {}", query, e));
   }
 
   @Override
   public Future<Void> createTransactions(List<Transaction> transactions, DBConn conn) {
-    return conn.saveBatch(TRANSACTIONS_TABLE, transactions)
-      .mapEmpty();
+    return bulkInsertWriter.insert(TRANSACTIONS_TABLE, transactions, conn);
   }
 
   @Override
@@ -51,15 +97,105 @@ public class BatchTransactionPostgresDAO implements BatchTransactionDAO {
     if (ids.isEmpty()) {
       return Future.succeededFuture();
     }
-    return conn.delete(TRANSACTIONS_TABLE, buildCriterionByIds(ids))
+    return conn.deleteByIds(TRANSACTIONS_TABLE, ids)
       .onSuccess(transactions -> logger.info("Successfully deleted {} transactions", ids.size()))
       .onFailure(e -> logger.error("Deleting transactions failed, ids: {}", ids, e))
       .mapEmpty();
   }
 
-  private Criterion buildCriterionByIds(List<String> ids) {
-    CriterionBuilder criterionBuilder = new CriterionBuilder("OR");
-    ids.forEach(id -> criterionBuilder.with("id", id));
-    return criterionBuilder.build();
+  /**
+   * Applies each patch with a single UPDATE statement, without reading the transaction first.
+   * Top-level values replace the stored ones, objects are merged one level deep, and null values remove fields.
+   * The updatedDate and updatedByUserId fields of the metadata are set from the given metadata.
+   */
+  @Override
+  public Future<Void> patchTransactions(List<TransactionPatch> patches, Metadata metadata, DBConn conn) {
+    if (patches.isEmpty()) {
+      return Future.succeededFuture();
+    }
+    String table = getFullTableName(conn.getTenantId(), TRANSACTIONS_TABLE);
+    JsonObject metadataChanges = new JsonObject()
+      .put("updatedDate", JsonObject.mapFrom(metadata).getValue("updatedDate"))
+      .put("updatedByUserId", metadata.getUpdatedByUserId());
+    Future<Void> future = Future.succeededFuture();
+    for (TransactionPatch patch : patches) {
+      future = future.compose(v -> patchTransaction(table, patch, metadataChanges, conn));
+    }
+    return future
+      .onSuccess(v -> logger.info("Successfully patched {} transactions", patches.size()))
+      .onFailure(e -> logger.error("Patching transactions failed, ids: {}",
+        patches.stream().map(TransactionPatch::getId).toList(), e));
+  }
+
+  private Future<Void> patchTransaction(String table, TransactionPatch patch, JsonObject metadataChanges,
+      DBConn conn) {
+    JsonObject changes = new JsonObject(new LinkedHashMap<>(patch.getAdditionalProperties()))
+      .put("metadata", metadataChanges);
+    List<Object> params = new ArrayList<>();
+    params.add(UUID.fromString(patch.getId()));
+    String expression = "jsonb";
+    for (Map.Entry<String, Object> change : changes) {
+      String key = change.getKey();
+      Object value = change.getValue();
+      if (value == null) {
+        params.add(key);
+        expression = "(" + expression + " - $" + params.size() + "::text)";
+      } else if (value instanceof JsonObject object) {
+        JsonObject valuesToSet = new JsonObject();
+        List<String> keysToRemove = new ArrayList<>();
+        object.forEach(field -> {
+          if (field.getValue() == null) {
+            keysToRemove.add(field.getKey());
+          } else {
+            valuesToSet.put(field.getKey(), field.getValue());
+          }
+        });
+        params.add(new String[] { key });
+        params.add(key);
+        params.add(valuesToSet.encode());
+        params.add(keysToRemove.toArray(String[]::new));
+        int n = params.size();
+        expression = "jsonb_set(" + expression + ", $" + (n - 3) + "::text[], " +
+          "(COALESCE(jsonb->$" + (n - 2) + "::text, '{}'::jsonb) || $" + (n - 1) + "::text::jsonb) - $" + n + "::text[])";
+      } else {
+        params.add(new String[] { key });
+        params.add(Json.encode(value));
+        int n = params.size();
+        expression = "jsonb_set(" + expression + ", $" + (n - 1) + "::text[], $" + n + "::text::jsonb)";
+      }
+    }
+    String sql = "UPDATE " + table + " SET jsonb = " + expression + " WHERE id = $1";
+    return conn.execute(sql, Tuple.from(params))
+      .map(rowSet -> {
+        if (rowSet.rowCount() != 1) {
+          throw new HttpException(400, String.format("A transaction to patch does not exist: %s", patch.getId()));
+        }
+        return null;
+      });
+  }
+
+  private BatchTransactionContext toBatchTransactionContext(JsonObject json) {
+    List<Budget> budgets = toList(json.getJsonArray("budgets"), Budget.class);
+    budgets.forEach(CalculationUtils::calculateBudgetSummaryFields);
+    return new BatchTransactionContext(
+      toList(json.getJsonArray("transactionsToDelete"), Transaction.class),
+      json.getJsonArray("pendingPaymentIdsForEncumbrancesToDelete").stream().map(String.class::cast).toList(),
+      toList(json.getJsonArray("existingTransactions"), Transaction.class),
+      toList(json.getJsonArray("linkedPendingPayments"), Transaction.class),
+      toList(json.getJsonArray("linkedPayments"), Transaction.class),
+      toList(json.getJsonArray("linkedEncumbrances"), Transaction.class),
+      toList(json.getJsonArray("funds"), Fund.class),
+      budgets,
+      toList(json.getJsonArray("ledgers"), Ledger.class));
+  }
+
+  private <T> List<T> toList(JsonArray array, Class<T> clazz) {
+    List<T> list = new ArrayList<>(array.size());
+    array.forEach(o -> list.add(((JsonObject) o).mapTo(clazz)));
+    return list;
+  }
+
+  private UUID[] toUuidArray(List<String> ids) {
+    return ids.stream().map(UUID::fromString).toArray(UUID[]::new);
   }
 }
@@ -5,6 +5,7 @@ import static org.folio.rest.jaxrs.resource.FinanceStorageFunds.PostFinanceStora
 import static org.folio.rest.jaxrs.resource.FinanceStorageGroupFundFiscalYears.PutFinanceStorageGroupFundFiscalYearsByIdResponse.respond204;
 
 import javax.ws.rs.core.Response;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.logging.log4j.LogManager;
@@ -18,6 +19,8 @@ import org.folio.rest.jaxrs.model.FundCollection;
 import org.folio.rest.jaxrs.resource.FinanceStorageFunds;
 import org.folio.rest.persist.HelperUtils;
 import org.folio.rest.persist.PgUtil;
+import org.folio.rest.tools.utils.TenantTool;
+import org.folio.service.fund.FundLedgerCache;
 import org.folio.service.fund.FundService;
 import org.folio.spring.SpringContextUtil;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -35,6 +38,8 @@ public class FundAPI implements FinanceStorageFunds {
 
   @Autowired
   private FundService fundService;
+  @Autowired
+  private FundLedgerCache fundLedgerCache;
 
   public FundAPI() {
     SpringContextUtil.autowireDependencies(this, Vertx.currentContext());
@@ -75,7 +80,10 @@ public class FundAPI implements FinanceStorageFunds {
   @Override
   @Validate
   public void deleteFinanceStorageFundsById(String id, Map<String, String> okapiHeaders, Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
-    PgUtil.deleteById(FUND_TABLE, id, okapiHeaders, vertxContext, DeleteFinanceStorageFundsByIdResponse.class, asyncResultHandler);
+    PgUtil.deleteById(FUND_TABLE, id, okapiHeaders, vertxContext, DeleteFinanceStorageFundsByIdResponse.class, result -> {
+      fundLedgerCache.invalidateFunds(TenantTool.tenantId(okapiHeaders), List.of(id));
+      asyncResultHandler.handle(result);
+    });
   }
 
   @Override
@@ -5,7 +5,10 @@ import org.apache.logging.log4j.Logger;
 import org.folio.config.ApplicationConfig;
 import org.folio.dbschema.ObjectMapperTool;
 import org.folio.rest.resource.interfaces.InitAPI;
+import org.folio.service.rollover.LedgerRolloverService;
+import org.folio.service.transactions.batch.BatchMetrics;
 import org.folio.spring.SpringContextUtil;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import com.fasterxml.jackson.databind.DeserializationConfig;
 import com.fasterxml.jackson.databind.SerializationConfig;
@@ -24,6 +27,12 @@ public class InitAPIs implements InitAPI {
 
   private static final Logger logger = LogManager.getLogger(InitAPIs.class);
 
+  @Autowired
+  private BatchMetrics batchMetrics;
+
+  @Autowired
+  private LedgerRolloverService ledgerRolloverService;
+
   @Override
   public void init(Vertx vertx, Context context, Handler<AsyncResult<Boolean>> resultHandler) {
     vertx.executeBlocking(() -> {
@@ -34,8 +43,12 @@ public class InitAPIs implements InitAPI {
       DatabindCodec.mapper().setConfig(deserializationConfig);
 
       SpringContextUtil.init(vertx, context, ApplicationConfig.class);
+      SpringContextUtil.autowireDependencies(this, context);
       return true;
-    }).onComplete(
+    })
+    .compose(v -> batchMetrics.startScrapeEndpoint(vertx))
+    .onSuccess(v -> ledgerRolloverService.scheduleRolloverJobsResumption(vertx))
+    .onComplete(
       result -> {
         if (result.succeeded()) {
           resultHandler.handle(Future.succeededFuture(true));
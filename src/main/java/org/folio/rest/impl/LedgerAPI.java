@@ -30,12 +30,17 @@ import org.folio.rest.persist.DBClient;
 import org.folio.rest.persist.DBConn;
 import org.folio.rest.persist.HelperUtils;
 import org.folio.rest.persist.PgUtil;
+import org.folio.rest.tools.utils.TenantTool;
 import org.folio.rest.util.ResponseUtils;
+import org.folio.service.fund.FundLedgerCache;
+import org.folio.spring.SpringContextUtil;
+import org.springframework.beans.factory.annotation.Autowired;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
 import io.vertx.sqlclient.Tuple;
 import io.vertx.sqlclient.internal.ArrayTuple;
 
@@ -43,6 +48,13 @@ public class LedgerAPI implements FinanceStorageLedgers {
 
   private static final Logger logger = LogManager.getLogger(LedgerAPI.class);
 
+  @Autowired
+  private FundLedgerCache fundLedgerCache;
+
+  public LedgerAPI() {
+    SpringContextUtil.autowireDependencies(this, Vertx.currentContext());
+  }
+
   @Override
   @Validate
   public void getFinanceStorageLedgers(String query, String totalRecords, int offset, int limit, Map<String, String> okapiHeaders, Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
@@ -65,7 +77,10 @@ public class LedgerAPI implements FinanceStorageLedgers {
   @Override
   @Validate
   public void deleteFinanceStorageLedgersById(String id, Map<String, String> okapiHeaders, Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
-    PgUtil.deleteById(LEDGER_TABLE, id, okapiHeaders, vertxContext, DeleteFinanceStorageLedgersByIdResponse.class, asyncResultHandler);
+    PgUtil.deleteById(LEDGER_TABLE, id, okapiHeaders, vertxContext, DeleteFinanceStorageLedgersByIdResponse.class, result -> {
+      fundLedgerCache.invalidateLedger(TenantTool.tenantId(okapiHeaders), id);
+      asyncResultHandler.handle(result);
+    });
   }
 
   @Override
@@ -87,7 +102,10 @@ public class LedgerAPI implements FinanceStorageLedgers {
           } else if (Boolean.TRUE.equals(result.result())) {
             handleLedgerStatusUpdate(ledger, client).onComplete(asyncResultHandler);
           } else {
-            PgUtil.put(LEDGER_TABLE, ledger, id, okapiHeaders, vertxContext, PutFinanceStorageLedgersByIdResponse.class, asyncResultHandler);
+            PgUtil.put(LEDGER_TABLE, ledger, id, okapiHeaders, vertxContext, PutFinanceStorageLedgersByIdResponse.class, putResult -> {
+              fundLedgerCache.invalidateLedger(client.getTenantId(), id);
+              asyncResultHandler.handle(putResult);
+            });
           }
         })
     );
@@ -96,7 +114,12 @@ public class LedgerAPI implements FinanceStorageLedgers {
   private Future<Response> handleLedgerStatusUpdate(Ledger ledger, DBClient client) {
     return client.withTrans(conn -> updateLedger(ledger, conn)
             .compose(v -> updateRelatedFunds(ledger, conn))
-            .compose(fundIds -> updateRelatedBudgets(fundIds, ledger, conn)))
+            .compose(fundIds -> updateRelatedBudgets(fundIds, ledger, conn).map(fundIds)))
+        .onSuccess(fundIds -> {
+          fundLedgerCache.invalidateLedger(client.getTenantId(), ledger.getId());
+          fundLedgerCache.invalidateFunds(client.getTenantId(), fundIds);
+        })
+        .<Void>mapEmpty()
         .transform(result -> handleNoContentResponse(result, ledger.getId(), "Ledger {} {} updated"));
   }
 
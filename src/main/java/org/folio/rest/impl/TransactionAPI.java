@@ -2,12 +2,20 @@ package org.folio.rest.impl;
 
 import static org.folio.rest.util.ResponseUtils.buildErrorResponse;
 import static org.folio.rest.util.ResponseUtils.buildNoContentResponse;
+import static org.folio.rest.util.ResponseUtils.buildOkResponse;
 import static org.folio.dao.transactions.BatchTransactionDAO.TRANSACTIONS_TABLE;
+import static org.folio.rest.RestVerticle.STREAM_ABORT;
+import static org.folio.rest.RestVerticle.STREAM_COMPLETE;
+import static org.folio.rest.RestVerticle.STREAM_ID;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.Map;
 
 import javax.ws.rs.core.Response;
 
+import org.folio.rest.annotations.Stream;
 import org.folio.rest.annotations.Validate;
 import org.folio.rest.core.model.RequestContext;
 import org.folio.rest.jaxrs.model.Batch;
@@ -15,6 +23,7 @@ import org.folio.rest.jaxrs.model.Transaction;
 import org.folio.rest.jaxrs.model.TransactionCollection;
 import org.folio.rest.jaxrs.resource.FinanceStorageTransactions;
 import org.folio.rest.persist.PgUtil;
+import org.folio.service.transactions.batch.BatchStreamService;
 import org.folio.service.transactions.batch.BatchTransactionService;
 import org.folio.spring.SpringContextUtil;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,6 +37,8 @@ public class TransactionAPI implements FinanceStorageTransactions {
 
   @Autowired
   private BatchTransactionService batchTransactionService;
+  @Autowired
+  private BatchStreamService batchStreamService;
 
 
   public TransactionAPI() {
@@ -50,8 +61,19 @@ public class TransactionAPI implements FinanceStorageTransactions {
 
   @Override
   @Validate
-  public void postFinanceStorageTransactionsBatchAllOrNothing(Batch batch, Map<String, String> okapiHeaders,
-      Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
+  public void postFinanceStorageTransactionsBatchAllOrNothing(boolean validateOnly, Batch batch,
+      Map<String, String> okapiHeaders, Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
+    if (validateOnly) {
+      batchTransactionService.validateBatch(batch, new RequestContext(vertxContext, okapiHeaders))
+        .onComplete(event -> {
+          if (event.succeeded()) {
+            asyncResultHandler.handle(buildOkResponse(event.result()));
+          } else {
+            asyncResultHandler.handle(buildErrorResponse(event.cause()));
+          }
+        });
+      return;
+    }
     batchTransactionService.processBatch(batch, new RequestContext(vertxContext, okapiHeaders))
       .onComplete(event -> {
         if (event.succeeded()) {
@@ -62,4 +84,39 @@ public class TransactionAPI implements FinanceStorageTransactions {
       });
   }
 
+  @Override
+  @Stream
+  public void postFinanceStorageTransactionsBatchAllOrNothingStream(InputStream entity, Map<String, String> okapiHeaders,
+      Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
+    String streamId = okapiHeaders.get(STREAM_ID);
+    if (okapiHeaders.containsKey(STREAM_ABORT)) {
+      batchStreamService.abortStream(streamId);
+      return;
+    }
+    RequestContext requestContext = new RequestContext(vertxContext, okapiHeaders);
+    if (!okapiHeaders.containsKey(STREAM_COMPLETE)) {
+      batchStreamService.processChunk(streamId, readChunk(entity), requestContext);
+      return;
+    }
+    batchStreamService.completeStream(streamId, readChunk(entity), requestContext)
+      .onComplete(event -> {
+        if (event.succeeded()) {
+          asyncResultHandler.handle(buildNoContentResponse());
+        } else {
+          asyncResultHandler.handle(buildErrorResponse(event.cause()));
+        }
+      });
+  }
+
+  private static byte[] readChunk(InputStream entity) {
+    if (entity == null) {
+      return new byte[0];
+    }
+    try {
+      return entity.readAllBytes();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
 }
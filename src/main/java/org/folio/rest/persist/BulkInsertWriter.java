@@ -0,0 +1,81 @@
+package org.folio.rest.persist;
+
+import static io.vertx.core.Future.succeededFuture;
+import static org.folio.rest.persist.HelperUtils.getFullTableName;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.dbschema.ObjectMapperTool;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import io.vertx.core.Future;
+import io.vertx.sqlclient.Tuple;
+
+/**
+ * Inserts large lists of records with one statement per chunk: the ids and the JSON documents are sent as
+ * two array parameters expanded with unnest, instead of one statement execution per record as with
+ * {@link Conn#saveBatch(String, List)}. Small lists, and lists with records without an id, still use saveBatch.
+ */
+public class BulkInsertWriter {
+  private static final Logger logger = LogManager.getLogger();
+  private static final String BULK_INSERT = "INSERT INTO %s (id, jsonb) "
+    + "SELECT id, jsonb::jsonb FROM unnest($1::uuid[], $2::text[]) AS record(id, jsonb)";
+
+  public static final int DEFAULT_THRESHOLD = 500;
+  public static final int DEFAULT_CHUNK_SIZE = 5000;
+
+  private final int threshold;
+  private final int chunkSize;
+
+  /**
+   * @return a writer always using saveBatch
+   */
+  public static BulkInsertWriter disabled() {
+    return new BulkInsertWriter(Integer.MAX_VALUE, DEFAULT_CHUNK_SIZE);
+  }
+
+  /**
+   * @param threshold minimum number of records for which the bulk insert is used
+   * @param chunkSize maximum number of records inserted by a single statement
+   */
+  public BulkInsertWriter(int threshold, int chunkSize) {
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("The chunk size must be positive: " + chunkSize);
+    }
+    this.threshold = threshold;
+    this.chunkSize = chunkSize;
+  }
+
+  public <T> Future<Void> insert(String table, List<T> entities, DBConn conn) {
+    if (entities.size() < threshold) {
+      return conn.saveBatch(table, entities).mapEmpty();
+    }
+    List<UUID> ids = new ArrayList<>(entities.size());
+    List<String> documents = new ArrayList<>(entities.size());
+    for (T entity : entities) {
+      JsonNode json = ObjectMapperTool.getMapper().valueToTree(entity);
+      JsonNode id = json.get("id");
+      if (id == null || id.isNull()) {
+        logger.debug("insert:: A record has no id, using saveBatch for table {}", table);
+        return conn.saveBatch(table, entities).mapEmpty();
+      }
+      ids.add(UUID.fromString(id.asText()));
+      documents.add(json.toString());
+    }
+    String sql = String.format(BULK_INSERT, getFullTableName(conn.getTenantId(), table));
+    Future<Void> future = succeededFuture();
+    for (int start = 0; start < entities.size(); start += chunkSize) {
+      int end = Math.min(start + chunkSize, entities.size());
+      Tuple params = Tuple.of(ids.subList(start, end).toArray(UUID[]::new),
+        documents.subList(start, end).toArray(String[]::new));
+      future = future.compose(v -> conn.execute(sql, params).mapEmpty());
+    }
+    return future
+      .onSuccess(v -> logger.info("insert:: Inserted {} records in table {} with the bulk insert", entities.size(), table));
+  }
+}
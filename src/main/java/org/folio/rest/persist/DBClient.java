@@ -40,6 +40,14 @@ public class DBClient {
     return pgClient.withTrans(conn -> function.apply(new DBConn(this, conn)));
   }
 
+  /**
+   * Runs the function in a read-only transaction: any attempt to write or to lock rows fails.
+   */
+  public <T> Future<T> withReadOnlyTrans(Function<DBConn, Future<T>> function) {
+    return withTrans(conn -> conn.execute("SET TRANSACTION READ ONLY")
+      .compose(v -> function.apply(conn)));
+  }
+
   public <T> Future<T> withConn(Function<DBConn, Future<T>> function) {
     return pgClient.withConn(conn -> function.apply(new DBConn(this, conn)));
   }
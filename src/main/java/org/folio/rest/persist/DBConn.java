@@ -13,7 +13,13 @@ import org.folio.rest.persist.interfaces.Results;
 import org.folio.rest.util.ResponseUtils;
 
 import javax.ws.rs.core.Response;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import static org.folio.rest.persist.HelperUtils.getFullTableName;
 
 /**
  * Wrapper for RMB's {@link Conn} that calls {@link ResponseUtils#handleFailure(Throwable)}
@@ -21,6 +27,10 @@ import java.util.List;
  */
 public class DBConn {
   private static final Logger logger = LogManager.getLogger();
+  private static final String SELECT_BY_UUID_COLUMN = "SELECT jsonb FROM %s WHERE %s = ANY($1::uuid[])";
+  private static final String SELECT_BY_JSONB_FIELD = "SELECT jsonb FROM %s WHERE %s = ANY($1::text[])";
+  private static final String DELETE_BY_IDS = "DELETE FROM %s WHERE id = ANY($1::uuid[])";
+  private static final Pattern JSONB_FIELD = Pattern.compile("\\w+(\\.\\w+)*");
 
   private final DBClient dbClient;
   private final Conn conn;
@@ -50,6 +60,67 @@ public class DBConn {
       .recover(ResponseUtils::handleFailure);
   }
 
+  /**
+   * Returns the records with the given ids. The ids are passed as a single array parameter, so the SQL text
+   * (and the query plan) does not depend on the number of ids.
+   */
+  public <T> Future<List<T>> getByIds(String table, Class<T> clazz, List<String> ids) {
+    return getByColumnValues(table, clazz, "id", ids, Map.of());
+  }
+
+  /**
+   * Returns the records with a uuid column matching one of the given values, and the other uuid columns
+   * equal to the given filter values. Like {@link #getByIds(String, Class, List)}, the values are passed
+   * as parameters.
+   */
+  public <T> Future<List<T>> getByColumnValues(String table, Class<T> clazz, String column, List<String> values,
+      Map<String, String> columnFilters) {
+    StringBuilder sql = new StringBuilder(String.format(SELECT_BY_UUID_COLUMN, getFullTableName(getTenantId(), table), column));
+    return Future.<Tuple>future(promise -> {
+        Tuple params = Tuple.of(toUuidArray(values));
+        columnFilters.forEach((filterColumn, value) -> {
+          params.addValue(toUuid(value));
+          sql.append(" AND ").append(filterColumn).append(" = $").append(params.size()).append("::uuid");
+        });
+        promise.complete(params);
+      })
+      .compose(params -> execute(sql.toString(), params))
+      .map(rowSet -> {
+        List<T> results = new ArrayList<>(rowSet.rowCount());
+        rowSet.forEach(row -> results.add(row.getJsonObject(0).mapTo(clazz)));
+        return results;
+      });
+  }
+
+  /**
+   * Returns the records with a jsonb field matching one of the given values, and the other jsonb fields equal
+   * to the given filter values. Fields are given as property paths such as {@code awaitingPayment.encumbranceId}
+   * and compared as text with {@code jsonb->'awaitingPayment'->>'encumbranceId'}, so that the expression indexes
+   * on these fields can be used. Like {@link #getByIds(String, Class, List)}, the values are passed as parameters.
+   */
+  public <T> Future<List<T>> getByJsonbFieldValues(String table, Class<T> clazz, String field, List<String> values,
+      Map<String, String> fieldFilters) {
+    return Future.<String>future(promise -> {
+        StringBuilder sql = new StringBuilder(String.format(SELECT_BY_JSONB_FIELD, getFullTableName(getTenantId(), table),
+          toJsonbTextExpression(field)));
+        int index = 2;
+        for (String filterField : fieldFilters.keySet()) {
+          sql.append(" AND ").append(toJsonbTextExpression(filterField)).append(" = $").append(index++);
+        }
+        promise.complete(sql.toString());
+      })
+      .compose(sql -> {
+        Tuple params = Tuple.tuple().addValue(values.toArray(String[]::new));
+        fieldFilters.values().forEach(params::addValue);
+        return execute(sql, params);
+      })
+      .map(rowSet -> {
+        List<T> results = new ArrayList<>(rowSet.rowCount());
+        rowSet.forEach(row -> results.add(row.getJsonObject(0).mapTo(clazz)));
+        return results;
+      });
+  }
+
   public Future<JsonObject> getByIdForUpdate(String table, String id) {
     return conn.getByIdForUpdate(table, id)
       .recover(ResponseUtils::handleFailure);
@@ -99,6 +170,12 @@ public class DBConn {
       .recover(ResponseUtils::handleFailure);
   }
 
+  public Future<RowSet<Row>> deleteByIds(String table, List<String> ids) {
+    String sql = String.format(DELETE_BY_IDS, getFullTableName(getTenantId(), table));
+    return Future.<Tuple>future(promise -> promise.complete(Tuple.of(toUuidArray(ids))))
+      .compose(params -> execute(sql, params));
+  }
+
   public Future<String> save(String table, String id, Object entity) {
     return conn.save(table, id, entity)
       .recover(ResponseUtils::handleFailure);
@@ -117,4 +194,28 @@ public class DBConn {
   public String getTenantId() {
     return dbClient.getTenantId();
   }
+
+  private static String toJsonbTextExpression(String field) {
+    if (!JSONB_FIELD.matcher(field).matches()) {
+      throw new IllegalArgumentException("Invalid jsonb field: " + field);
+    }
+    String[] names = field.split("\\.");
+    StringBuilder expression = new StringBuilder("jsonb");
+    for (int i = 0; i < names.length - 1; i++) {
+      expression.append("->'").append(names[i]).append("'");
+    }
+    return expression.append("->>'").append(names[names.length - 1]).append("'").toString();
+  }
+
+  private static UUID[] toUuidArray(List<String> ids) {
+    return ids.stream().map(DBConn::toUuid).toArray(UUID[]::new);
+  }
+
+  private static UUID toUuid(String id) {
+    try {
+      return UUID.fromString(id);
+    } catch (IllegalArgumentException e) {
+      throw new HttpException(Response.Status.BAD_REQUEST.getStatusCode(), "Invalid UUID: " + id);
+    }
+  }
 }
@@ -16,12 +16,26 @@ public class PostgresFunctionExecutionService {
 
   private static final Logger logger = LogManager.getLogger(PostgresFunctionExecutionService.class);
 
+  private final boolean setBasedRollover;
+
+  public PostgresFunctionExecutionService() {
+    this(false);
+  }
+
+  /**
+   * @param setBasedRollover if true, the encumbrances of all the orders are rolled over with a few set-based
+   *                         statements (rollover_orders_set_based), instead of calling rollover_order for each order
+   */
+  public PostgresFunctionExecutionService(boolean setBasedRollover) {
+    this.setBasedRollover = setBasedRollover;
+  }
+
   public Future<Void> runBudgetEncumbrancesRolloverScript(LedgerFiscalYearRollover rollover, DBConn conn) {
     logger.debug("runBudgetEncumbrancesRolloverScript:: Trying to run budget encumbrances rollover script");
     String schemaName = PostgresClient.convertToPsqlStandard(conn.getTenantId());
-    String sql = String.format("SELECT %s.budget_encumbrances_rollover($1);", schemaName);
+    String sql = String.format("SELECT %s.budget_encumbrances_rollover($1, $2);", schemaName);
     JsonObject rolloverPayload = new JsonObject(ObjectMapper.valueAsString(rollover));
-    return conn.execute(sql, Tuple.of(rolloverPayload))
+    return conn.execute(sql, Tuple.of(rolloverPayload, setBasedRollover))
       .onSuccess(rowSet -> logger.info("runBudgetEncumbrancesRolloverScript:: Budget encumbrances rollover script successfully ran"))
       .onFailure(e -> logger.error("runBudgetEncumbrancesRolloverScript:: Running budget encumbrances rollover script failed", e))
       .mapEmpty();
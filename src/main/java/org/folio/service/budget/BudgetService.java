@@ -7,8 +7,8 @@ import static org.folio.rest.persist.HelperUtils.getFullTableName;
 import static org.folio.rest.util.ErrorCodes.TRANSACTION_IS_PRESENT_BUDGET_DELETE_ERROR;
 import static org.folio.rest.util.ResponseUtils.handleNoContentResponse;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -19,10 +19,10 @@ import javax.ws.rs.core.Response;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.folio.dao.budget.BudgetDAO;
+import org.folio.dao.budget.BudgetDelta;
 import org.folio.rest.core.model.RequestContext;
 import org.folio.rest.jaxrs.model.Budget;
 import org.folio.rest.jaxrs.model.LedgerFiscalYearRollover;
-import org.folio.rest.persist.CriterionBuilder;
 import org.folio.rest.persist.DBClient;
 import org.folio.rest.persist.DBClientFactory;
 import org.folio.rest.persist.DBConn;
@@ -41,6 +41,14 @@ public class BudgetService {
   private static final Logger logger = LogManager.getLogger(BudgetService.class);
 
   private static final String GROUP_FUND_FY_TABLE = "group_fund_fiscal_year";
+  private static final String SELECT_BUDGETS_BY_FY_AND_FUND =
+    "SELECT budget.jsonb FROM %s AS budget " +
+    "INNER JOIN unnest($1::uuid[], $2::uuid[]) AS keys(fiscalYearId, fundId) " +
+    "ON budget.fiscalYearId = keys.fiscalYearId AND budget.fundId = keys.fundId " +
+    "ORDER BY budget.id";
+  // Budgets are locked in id order so that concurrent batches over the same budgets cannot deadlock
+  private static final String SELECT_BUDGETS_BY_FY_AND_FUND_FOR_UPDATE =
+    SELECT_BUDGETS_BY_FY_AND_FUND + " FOR UPDATE OF budget";
 
   private final DBClientFactory dbClientFactory;
   private final GroupService groupService;
@@ -94,14 +102,16 @@ public class BudgetService {
     return budgetDAO.updateBatchBudgets(budgets, conn);
   }
 
+  public Future<List<Budget>> updateBudgetsWithDeltas(List<BudgetDelta> deltas, DBConn conn) {
+    return budgetDAO.updateBudgetsWithDeltas(deltas, conn);
+  }
+
   public Future<List<Budget>> getBudgets(String sql, Tuple params, DBConn conn) {
     return budgetDAO.getBudgetsBySql(sql, params, conn);
   }
 
   public Future<List<Budget>> getBudgetsByIds(List<String> ids, DBConn conn) {
-    CriterionBuilder criterionBuilder = new CriterionBuilder("OR");
-    ids.forEach(id -> criterionBuilder.with("id", id));
-    return budgetDAO.getBudgetsByCriterion(criterionBuilder.build(), conn);
+    return budgetDAO.getBudgetsByIds(ids, conn);
   }
 
   public void clearReadOnlyFields(Budget budgetFromNew) {
@@ -131,49 +141,46 @@ public class BudgetService {
 
   public Future<List<Budget>> getBudgetsByFiscalYearIdsAndFundIdsForUpdate(
       Map<String, Set<String>> fiscalYearIdToFundIds, DBConn conn) {
-    StringBuilder sb = new StringBuilder();
-    sb.append("SELECT jsonb FROM ")
-      .append(getFullTableName(conn.getTenantId(), BUDGET_TABLE))
-      .append(" WHERE ");
-    Iterator<String> fiscalYearIterator = fiscalYearIdToFundIds.keySet().iterator();
-    while (fiscalYearIterator.hasNext()) {
-      String fiscalYearId = fiscalYearIterator.next();
-      Set<String> fundIds = fiscalYearIdToFundIds.get(fiscalYearId);
-      sb.append("(fiscalYearId = '")
-        .append(fiscalYearId)
-        .append("' AND (");
-      Iterator<String> fundIterator = fundIds.iterator();
-      while (fundIterator.hasNext()) {
-        String fundId = fundIterator.next();
-        sb.append("fundId = '")
-          .append(fundId)
-          .append("'");
-        if (fundIterator.hasNext()) {
-          sb.append(" OR ");
-        }
-      }
-      sb.append("))");
-      if (fiscalYearIterator.hasNext()) {
-        sb.append(" OR ");
-      }
-    }
-    sb.append(" FOR UPDATE");
-    String sql = sb.toString();
-    return budgetDAO.getBudgetsBySql(sql, Tuple.tuple(), conn)
+    return getBudgetsByFiscalYearIdsAndFundIds(fiscalYearIdToFundIds, SELECT_BUDGETS_BY_FY_AND_FUND_FOR_UPDATE, conn);
+  }
+
+  /**
+   * Same as {@link #getBudgetsByFiscalYearIdsAndFundIdsForUpdate}, without locking the budgets.
+   */
+  public Future<List<Budget>> getBudgetsByFiscalYearIdsAndFundIds(Map<String, Set<String>> fiscalYearIdToFundIds,
+      DBConn conn) {
+    return getBudgetsByFiscalYearIdsAndFundIds(fiscalYearIdToFundIds, SELECT_BUDGETS_BY_FY_AND_FUND, conn);
+  }
+
+  private Future<List<Budget>> getBudgetsByFiscalYearIdsAndFundIds(Map<String, Set<String>> fiscalYearIdToFundIds,
+      String sqlTemplate, DBConn conn) {
+    List<UUID> fiscalYearIds = new ArrayList<>();
+    List<UUID> fundIds = new ArrayList<>();
+    fiscalYearIdToFundIds.forEach((fiscalYearId, fyFundIds) -> fyFundIds.forEach(fundId -> {
+      fiscalYearIds.add(UUID.fromString(fiscalYearId));
+      fundIds.add(UUID.fromString(fundId));
+    }));
+    String sql = String.format(sqlTemplate, getFullTableName(conn.getTenantId(), BUDGET_TABLE));
+    Tuple params = Tuple.of(fiscalYearIds.toArray(UUID[]::new), fundIds.toArray(UUID[]::new));
+    return budgetDAO.getBudgetsBySql(sql, params, conn)
       .map(budgets -> {
-        int expectedNumberOfBudgets = fiscalYearIdToFundIds.values().stream().map(Set::size).mapToInt(Integer::intValue).sum();
-        if (budgets.size() != expectedNumberOfBudgets) {
-          List<String> idsOfFundsWithNoBudget = fiscalYearIdToFundIds.values().stream()
-            .flatMap(Collection::stream)
-            .distinct()
-            .filter(fundId -> budgets.stream().noneMatch(b -> fundId.equals(b.getFundId())))
-            .toList();
-          throw new HttpException(500, "Could not find some budgets in the database, fund ids=" + idsOfFundsWithNoBudget);
-        }
+        checkAllBudgetsWereFound(fiscalYearIdToFundIds, budgets);
         return budgets;
       });
   }
 
+  public void checkAllBudgetsWereFound(Map<String, Set<String>> fiscalYearIdToFundIds, List<Budget> budgets) {
+    int expectedNumberOfBudgets = fiscalYearIdToFundIds.values().stream().map(Set::size).mapToInt(Integer::intValue).sum();
+    if (budgets.size() != expectedNumberOfBudgets) {
+      List<String> idsOfFundsWithNoBudget = fiscalYearIdToFundIds.values().stream()
+        .flatMap(Collection::stream)
+        .distinct()
+        .filter(fundId -> budgets.stream().noneMatch(b -> fundId.equals(b.getFundId())))
+        .toList();
+      throw new HttpException(500, "Could not find some budgets in the database, fund ids=" + idsOfFundsWithNoBudget);
+    }
+  }
+
   private Future<Void> deleteAllocationTransactions(Budget budget, DBConn conn) {
     logger.debug("deleteAllocationTransactions:: Trying to delete allocation transactions with fund id {}", budget.getFundId());
 
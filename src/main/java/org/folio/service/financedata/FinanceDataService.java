@@ -32,6 +32,7 @@ import org.folio.rest.persist.DBConn;
 import org.folio.rest.util.ErrorCodes;
 import org.folio.service.budget.BudgetService;
 import org.folio.service.fiscalyear.FiscalYearService;
+import org.folio.service.fund.FundLedgerCache;
 import org.folio.service.fund.FundService;
 import org.folio.service.transactions.batch.BatchTransactionService;
 
@@ -42,13 +43,15 @@ public class FinanceDataService {
   private final BudgetService budgetService;
   private final FiscalYearService fiscalYearService;
   private final BatchTransactionService batchTransactionService;
+  private final FundLedgerCache fundLedgerCache;
 
   public FinanceDataService(FundService fundService, BudgetService budgetService, FiscalYearService fiscalYearService,
-                            BatchTransactionService batchTransactionService) {
+                            BatchTransactionService batchTransactionService, FundLedgerCache fundLedgerCache) {
     this.fundService = fundService;
     this.budgetService = budgetService;
     this.fiscalYearService = fiscalYearService;
     this.batchTransactionService = batchTransactionService;
+    this.fundLedgerCache = fundLedgerCache;
   }
 
   public Future<FyFinanceDataCollection> update(FyFinanceDataCollection entity, RequestContext requestContext) {
@@ -62,6 +65,8 @@ public class FinanceDataService {
         .compose(fiscalYear -> createBudgetsIfNeeded(entity, fiscalYear, conn, okapiHeaders)
           .compose(v -> updateFundAndBudget(entity, conn))
           .compose(v -> processAllocationTransaction(entity, fiscalYear, conn, okapiHeaders))))
+      // invalidated after the commit: before it, another request could cache the funds again with the old values
+      .onSuccess(v -> fundLedgerCache.invalidateFunds(dbClient.getTenantId(), getFundIds(entity)))
       .onSuccess(v -> logger.info("update:: Successfully updated finance data"))
       .onFailure(e -> logger.error("Failed to update finance data", e))
       .map(v -> entity);
@@ -157,15 +162,18 @@ public class FinanceDataService {
   }
 
   private Future<Void> processFundUpdate(FyFinanceDataCollection entity, DBConn conn) {
-    List<String> fundIds = entity.getFyFinanceData().stream()
-      .map(FyFinanceData::getFundId)
-      .toList();
-    return fundService.getFundsByIds(fundIds, conn)
+    return fundService.getFundsByIds(getFundIds(entity), conn)
       .map(funds -> setNewValuesForFunds(funds, entity))
       .compose(funds -> fundService.updateFunds(funds, conn))
       .recover(t -> Future.failedFuture(new HttpException(500, ErrorCodes.FAILED_TO_UPDATE_FUNDS, t)));
   }
 
+  private List<String> getFundIds(FyFinanceDataCollection entity) {
+    return entity.getFyFinanceData().stream()
+      .map(FyFinanceData::getFundId)
+      .toList();
+  }
+
   private Future<Void> processBudgetUpdate(FyFinanceDataCollection entity, DBConn conn) {
     List<String> budgetIds = entity.getFyFinanceData().stream()
       .map(FyFinanceData::getBudgetId)
@@ -0,0 +1,108 @@
+package org.folio.service.fund;
+
+import static io.vertx.core.Future.failedFuture;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toMap;
+import static org.folio.utils.CacheUtils.buildAsyncCache;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+import org.folio.rest.jaxrs.model.Fund;
+import org.folio.rest.jaxrs.model.Ledger;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Tenant-aware cache of the funds and ledgers used by batch transaction processing, to get fund ledger ids
+ * and ledger restrictions without querying the database for each batch.
+ * <p>
+ * Entries are invalidated when funds and ledgers are changed by this module instance. Other instances
+ * are not notified, so a change can be ignored by their batches until the entries expire: the expiration
+ * time is the maximum staleness. The cached objects are shared and must not be modified.
+ */
+@Log4j2
+public class FundLedgerCache {
+
+  private final AsyncCache<TenantKey, Fund> funds;
+  private final AsyncCache<TenantKey, Ledger> ledgers;
+
+  private record TenantKey(String tenantId, String id) { }
+
+  /**
+   * @param context context used to run the cache maintenance
+   * @param expirationSeconds maximum time during which an entry is used
+   */
+  public FundLedgerCache(Context context, long expirationSeconds) {
+    this(buildAsyncCache(context, expirationSeconds), buildAsyncCache(context, expirationSeconds));
+  }
+
+  private FundLedgerCache(AsyncCache<TenantKey, Fund> funds, AsyncCache<TenantKey, Ledger> ledgers) {
+    this.funds = funds;
+    this.ledgers = ledgers;
+  }
+
+  /**
+   * Returns a cache that always loads the values.
+   */
+  public static FundLedgerCache disabled() {
+    return new FundLedgerCache(null, null);
+  }
+
+  /**
+   * Returns the funds with the given ids, using the loader for the funds that are not cached.
+   * Funds that are not found are omitted, like with {@link FundService#getFundsByIds}.
+   */
+  public Future<List<Fund>> getFunds(String tenantId, List<String> ids,
+      Function<List<String>, Future<List<Fund>>> loader) {
+    return getAll(funds, tenantId, ids, Fund::getId, loader);
+  }
+
+  /**
+   * Returns the ledgers with the given ids, using the loader for the ledgers that are not cached.
+   */
+  public Future<List<Ledger>> getLedgers(String tenantId, List<String> ids,
+      Function<List<String>, Future<List<Ledger>>> loader) {
+    return getAll(ledgers, tenantId, ids, Ledger::getId, loader);
+  }
+
+  public void invalidateFunds(String tenantId, Collection<String> ids) {
+    invalidate(funds, tenantId, ids);
+  }
+
+  public void invalidateLedger(String tenantId, String id) {
+    invalidate(ledgers, tenantId, List.of(id));
+  }
+
+  private static <T> Future<List<T>> getAll(AsyncCache<TenantKey, T> cache, String tenantId, List<String> ids,
+      Function<T, String> idGetter, Function<List<String>, Future<List<T>>> loader) {
+    if (cache == null) {
+      return loader.apply(ids);
+    }
+    List<TenantKey> keys = ids.stream().distinct().map(id -> new TenantKey(tenantId, id)).toList();
+    return Future.fromCompletionStage(cache.getAll(keys, (missingKeys, executor) -> {
+        log.debug("getAll:: Loading {} entries for tenant {}", missingKeys.size(), tenantId);
+        return loader.apply(missingKeys.stream().map(TenantKey::id).toList())
+          .map(values -> values.stream()
+            .collect(toMap(value -> new TenantKey(tenantId, idGetter.apply(value)), identity(), (v1, v2) -> v1)))
+          .toCompletionStage()
+          .toCompletableFuture();
+      }))
+      .map(values -> keys.stream().map(values::get).filter(Objects::nonNull).toList())
+      .recover(t -> failedFuture(t instanceof CompletionException && t.getCause() != null ? t.getCause() : t));
+  }
+
+  private static <T> void invalidate(AsyncCache<TenantKey, T> cache, String tenantId, Collection<String> ids) {
+    if (cache == null || ids.isEmpty()) {
+      return;
+    }
+    cache.synchronous().invalidateAll(ids.stream().map(id -> new TenantKey(tenantId, id)).toList());
+  }
+}
@@ -14,9 +14,15 @@ public class StorageFundService implements FundService {
   private static final Logger logger = LogManager.getLogger();
 
   private final FundDAO fundDAO;
+  private final FundLedgerCache fundLedgerCache;
 
   public StorageFundService(FundDAO fundDAO) {
+    this(fundDAO, FundLedgerCache.disabled());
+  }
+
+  public StorageFundService(FundDAO fundDAO, FundLedgerCache fundLedgerCache) {
     this.fundDAO = fundDAO;
+    this.fundLedgerCache = fundLedgerCache;
   }
 
   @Override
@@ -43,7 +49,7 @@ public class StorageFundService implements FundService {
           }
           return fundDAO.updateFund(fund, conn);
         })
-    );
+    ).onSuccess(v -> fundLedgerCache.invalidateFunds(dbClient.getTenantId(), List.of(fund.getId())));
   }
 
   @Override
@@ -2,19 +2,29 @@ package org.folio.service.rollover;
 
 import static org.folio.dao.budget.BudgetExpenseClassDAOImpl.TEMPORARY_BUDGET_EXPENSE_CLASS_TABLE;
 import static org.folio.dao.transactions.TemporaryEncumbrancePostgresDAO.TEMPORARY_ENCUMBRANCE_TRANSACTIONS_TABLE;
+import static org.folio.rest.RestVerticle.OKAPI_HEADER_TENANT;
 import static org.folio.rest.jaxrs.model.LedgerFiscalYearRolloverError.ErrorType.FINANCIAL_ROLLOVER;
 import static org.folio.rest.jaxrs.model.LedgerFiscalYearRolloverError.ErrorType.ORDER_ROLLOVER;
 import static org.folio.rest.jaxrs.model.RolloverStatus.ERROR;
 import static org.folio.rest.jaxrs.model.RolloverStatus.IN_PROGRESS;
 import static org.folio.rest.jaxrs.model.RolloverStatus.SUCCESS;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
+import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonObject;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.folio.dao.rollover.LedgerFiscalYearRolloverDAO;
+import org.folio.dao.rollover.RolloverJob;
+import org.folio.dao.rollover.RolloverJobDAO;
+import org.folio.okapi.common.XOkapiHeaders;
 import org.folio.rest.core.RestClient;
 import org.folio.rest.core.model.RequestContext;
 import org.folio.rest.jaxrs.model.LedgerFiscalYearRolloverBudget;
@@ -49,11 +59,27 @@ public class LedgerRolloverService {
   private final RolloverValidationService rolloverValidationService;
   private final RestClient orderRolloverRestClient;
   private final EmailService emailService;
+  private final RolloverJobDAO rolloverJobDAO;
+  private final RolloverJobRunner rolloverJobRunner;
 
   public LedgerRolloverService(FiscalYearService fiscalYearService, LedgerFiscalYearRolloverDAO ledgerFiscalYearRolloverDAO,
       BudgetService budgetService, RolloverProgressService rolloverProgressService, RolloverErrorService rolloverErrorService,
       RolloverBudgetService rolloverBudgetService,PostgresFunctionExecutionService postgresFunctionExecutionService,
       RolloverValidationService rolloverValidationService, RestClient orderRolloverRestClient, EmailService emailService) {
+    this(fiscalYearService, ledgerFiscalYearRolloverDAO, budgetService, rolloverProgressService, rolloverErrorService,
+      rolloverBudgetService, postgresFunctionExecutionService, rolloverValidationService, orderRolloverRestClient,
+      emailService, null, null);
+  }
+
+  /**
+   * @param rolloverJobRunner if not null, rollovers are run in the background as rollover jobs, in chunks of orders
+   *                          committed separately and resumed after a restart
+   */
+  public LedgerRolloverService(FiscalYearService fiscalYearService, LedgerFiscalYearRolloverDAO ledgerFiscalYearRolloverDAO,
+      BudgetService budgetService, RolloverProgressService rolloverProgressService, RolloverErrorService rolloverErrorService,
+      RolloverBudgetService rolloverBudgetService, PostgresFunctionExecutionService postgresFunctionExecutionService,
+      RolloverValidationService rolloverValidationService, RestClient orderRolloverRestClient, EmailService emailService,
+      RolloverJobDAO rolloverJobDAO, RolloverJobRunner rolloverJobRunner) {
     this.fiscalYearService = fiscalYearService;
     this.ledgerFiscalYearRolloverDAO = ledgerFiscalYearRolloverDAO;
     this.budgetService = budgetService;
@@ -64,6 +90,8 @@ public class LedgerRolloverService {
     this.rolloverValidationService = rolloverValidationService;
     this.orderRolloverRestClient = orderRolloverRestClient;
     this.emailService = emailService;
+    this.rolloverJobDAO = rolloverJobDAO;
+    this.rolloverJobRunner = rolloverJobRunner;
   }
 
   public Future<Void> rolloverLedger(LedgerFiscalYearRollover rollover, RequestContext requestContext) {
@@ -80,10 +108,231 @@ public class LedgerRolloverService {
       .withMetadata(rollover.getMetadata());
 
     DBClient client = requestContext.toDBClient();
+    if (rolloverJobRunner != null) {
+      return client.withTrans(conn -> rolloverPreparation(rollover, progress, conn)
+          .compose(v -> rolloverJobDAO.create(rollover, rolloverJobRunner.getOwner(),
+            rolloverJobRunner.getLeaseSeconds(), requestContext.getHeaders(), conn)))
+        .onSuccess(v -> submitRolloverJob(rollover.getId(), requestContext, true));
+    }
     return client.withTrans(conn -> rolloverPreparation(rollover, progress, conn))
       .compose(v -> client.withConn(conn -> startRollover(rollover, progress, requestContext, conn)));
   }
 
+  /**
+   * Looks for the rollover jobs to resume at startup, then periodically once per lease duration, if the rollover jobs
+   * are enabled.
+   */
+  public void scheduleRolloverJobsResumption(Vertx vertx) {
+    if (rolloverJobRunner == null) {
+      return;
+    }
+    resumeRolloverJobs(vertx);
+    long intervalMs = rolloverJobRunner.getLeaseSeconds() * 1000L;
+    vertx.setPeriodic(intervalMs, id -> resumeRolloverJobs(vertx));
+  }
+
+  /**
+   * Resumes the rollover jobs of all the tenants that are not finished and not run by another module instance.
+   * The orders rollover of a resumed job is not started, because the token of the rollover request is not saved:
+   * an error is recorded instead.
+   */
+  public Future<Void> resumeRolloverJobs(Vertx vertx) {
+    if (rolloverJobRunner == null) {
+      return Future.succeededFuture();
+    }
+    return rolloverJobDAO.getTenantIds(vertx)
+      .compose(tenantIds -> {
+        Future<Void> future = Future.succeededFuture();
+        for (String tenantId : tenantIds) {
+          future = future.compose(v -> resumeRolloverJobs(vertx, tenantId));
+        }
+        return future;
+      })
+      .onFailure(t -> logger.error("resumeRolloverJobs:: Resuming rollover jobs failed", t));
+  }
+
+  private Future<Void> resumeRolloverJobs(Vertx vertx, String tenantId) {
+    RequestContext requestContext = new RequestContext(vertx.getOrCreateContext(), Map.of(OKAPI_HEADER_TENANT, tenantId));
+    return requestContext.toDBClient().withConn(conn -> rolloverJobDAO.getResumableJobIds(conn))
+      .onSuccess(jobIds -> jobIds.forEach(jobId -> {
+        logger.info("resumeRolloverJobs:: Resuming rollover job {} for tenant {}", jobId, tenantId);
+        submitRolloverJob(jobId, requestContext, false);
+      }))
+      .mapEmpty();
+  }
+
+  private void submitRolloverJob(String jobId, RequestContext requestContext, boolean startedByRequest) {
+    rolloverJobRunner.submit(jobId, () -> runRolloverJob(jobId, requestContext, startedByRequest))
+      .onFailure(t -> logger.error("submitRolloverJob:: Rollover job {} failed", jobId, t));
+  }
+
+  private Future<Void> runRolloverJob(String jobId, RequestContext requestContext, boolean startedByRequest) {
+    DBClient client = requestContext.toDBClient();
+    return client.withTrans(conn -> rolloverJobDAO.claim(jobId, rolloverJobRunner.getOwner(),
+        rolloverJobRunner.getLeaseSeconds(), conn))
+      .compose(job -> {
+        if (job == null) {
+          logger.info("runRolloverJob:: Rollover job {} is finished or run by another module instance", jobId);
+          return Future.succeededFuture();
+        }
+        return client.withConn(conn -> rolloverProgressService.getLedgerRolloverProgressForRollover(jobId, conn))
+          .compose(progress -> runFinancialRolloverJob(job, progress, client)
+            .compose(jobOwned -> {
+              if (Boolean.FALSE.equals(jobOwned)) {
+                return Future.succeededFuture();
+              }
+              return client.withConn(conn -> startedByRequest
+                ? startOrdersRolloverAndSendEmail(job.rollover(), progress, requestContext, conn)
+                : skipOrdersRolloverOfResumedJob(job, progress, conn));
+            }));
+      });
+  }
+
+  /**
+   * Runs the steps of the job not completed yet: budgets rollover, then every chunk of orders, then the final steps.
+   *
+   * @return false if the job has been taken over by another module instance
+   */
+  private Future<Boolean> runFinancialRolloverJob(RolloverJob job, LedgerFiscalYearRolloverProgress progress,
+      DBClient client) {
+    LedgerFiscalYearRollover rollover = job.rollover();
+    String owner = rolloverJobRunner.getOwner();
+    logger.info("runFinancialRolloverJob:: Rollover job {} started for ledger {}, {} of {} chunks completed",
+      job.getId(), rollover.getLedgerId(), job.completedChunks(), job.totalChunks());
+    return client.withConn(conn -> rolloverProgressService.updateRolloverProgress(
+        progress.withFinancialRolloverStatus(IN_PROGRESS), conn))
+      .compose(v -> prepareRolloverJob(job, client))
+      .compose(preparedJob -> runRolloverJobChunks(preparedJob, client)
+        .map(preparedJob.totalChunks()))
+      .compose(totalChunks -> client.withTrans(conn -> rolloverJobDAO.lock(job.getId(), owner, totalChunks, conn)
+        .compose(v -> rolloverJobDAO.restoreTemporaryTablesAndActivateBudgets(rollover, conn))
+        .compose(v -> updateRolloverBudgetsWithCalculatedAmounts(rollover.getId(), conn))
+        .compose(v -> updateRolloverBudgetsWithExpenseClassTotals(rollover.getId(), conn))
+        .compose(v -> dropRolloverTemporaryTables(conn))
+        .compose(v -> rolloverProgressService.calculateAndUpdateFinancialProgressStatus(
+          progress.withOrdersRolloverStatus(IN_PROGRESS), conn))
+        .compose(v -> rolloverJobDAO.finish(job.getId(), owner, SUCCESS, conn))))
+      .recover(t -> client.withConn(conn -> rolloverJobDAO.finish(job.getId(), owner, ERROR, conn)
+        .compose(jobOwned -> {
+          if (Boolean.FALSE.equals(jobOwned)) {
+            logger.warn("runFinancialRolloverJob:: Rollover job {} stopped, it was taken over by another module instance",
+              job.getId(), t);
+            return Future.succeededFuture(false);
+          }
+          return handleFinancialRolloverError(t, rollover, progress, conn).map(true);
+        })));
+  }
+
+  /**
+   * Rolls over the budgets and plans the chunks of orders, if not done yet. With a parallelism greater than 1,
+   * the chunks are replaced with chunks grouped in partitions sharing no fund.
+   */
+  private Future<RolloverJob> prepareRolloverJob(RolloverJob job, DBClient client) {
+    if (job.totalChunks() != null) {
+      return Future.succeededFuture(job);
+    }
+    LedgerFiscalYearRollover rollover = job.rollover();
+    int chunkSize = rolloverJobRunner.getChunkSize();
+    return client.withTrans(conn -> rolloverJobDAO.prepare(rollover, chunkSize, rolloverJobRunner.getOwner(),
+        rolloverJobRunner.getLeaseSeconds(), conn)
+      .compose(totalChunks -> {
+        if (rolloverJobRunner.getParallelism() == 1) {
+          return Future.succeededFuture(new RolloverJob(rollover, job.status(), totalChunks, 0, false,
+            job.okapiHeaders()));
+        }
+        return rolloverJobDAO.getOrderFundIds(rollover, conn)
+          .map(fundIdsByOrder -> RolloverOrderPartitioner.partition(fundIdsByOrder, chunkSize))
+          .compose(chunks -> rolloverJobDAO.savePartitions(job.getId(), chunks, conn)
+            .map(v -> new RolloverJob(rollover, job.status(), chunks.size(), 0, true, job.okapiHeaders())));
+      }));
+  }
+
+  private Future<Void> runRolloverJobChunks(RolloverJob job, DBClient client) {
+    if (job.partitioned()) {
+      return client.withConn(conn -> rolloverJobDAO.getRemainingChunks(job.getId(), conn))
+        .compose(partitions -> {
+          Queue<List<Integer>> remainingPartitions = new ConcurrentLinkedQueue<>(partitions);
+          int workers = Math.min(rolloverJobRunner.getParallelism(), partitions.size());
+          List<Future<Void>> futures = new ArrayList<>(workers);
+          for (int i = 0; i < workers; i++) {
+            futures.add(runPartitions(job, remainingPartitions, client));
+          }
+          return Future.join(futures);
+        })
+        // counts the chunks completed before a restart, whose lease renewal may have been missed
+        .compose(v -> client.withConn(conn -> rolloverJobDAO.renewLease(job.getId(), rolloverJobRunner.getOwner(),
+          rolloverJobRunner.getLeaseSeconds(), conn)));
+    }
+    return runRolloverJobChunks(job.rollover(), job.completedChunks() + 1, job.totalChunks(), client);
+  }
+
+  /**
+   * Rolls over the remaining partitions of a partitioned job one after the other, while other calls do the same with
+   * other partitions. After a failure the remaining partitions are abandoned.
+   */
+  private Future<Void> runPartitions(RolloverJob job, Queue<List<Integer>> remainingPartitions, DBClient client) {
+    List<Integer> chunks = remainingPartitions.poll();
+    if (chunks == null) {
+      return Future.succeededFuture();
+    }
+    return runPartitionChunks(job, chunks, 0, client)
+      .onFailure(t -> remainingPartitions.clear())
+      .compose(v -> runPartitions(job, remainingPartitions, client));
+  }
+
+  /**
+   * Rolls over the chunks of a partition in their order, each in its own transaction.
+   */
+  private Future<Void> runPartitionChunks(RolloverJob job, List<Integer> chunks, int index, DBClient client) {
+    if (index == chunks.size()) {
+      return Future.succeededFuture();
+    }
+    int chunk = chunks.get(index);
+    String owner = rolloverJobRunner.getOwner();
+    return client.withTrans(conn -> rolloverJobDAO.runPartitionChunk(job.rollover(), chunk, owner, conn))
+      .compose(v -> client.withConn(conn -> rolloverJobDAO.renewLease(job.getId(), owner,
+        rolloverJobRunner.getLeaseSeconds(), conn)))
+      .compose(v -> runPartitionChunks(job, chunks, index + 1, client));
+  }
+
+  private Future<Void> runRolloverJobChunks(LedgerFiscalYearRollover rollover, int chunk, int totalChunks,
+      DBClient client) {
+    if (chunk > totalChunks) {
+      return Future.succeededFuture();
+    }
+    return client.withTrans(conn -> rolloverJobDAO.runChunk(rollover, chunk, rolloverJobRunner.getOwner(),
+        rolloverJobRunner.getLeaseSeconds(), conn))
+      .compose(v -> runRolloverJobChunks(rollover, chunk + 1, totalChunks, client));
+  }
+
+  private Future<Void> startOrdersRolloverAndSendEmail(LedgerFiscalYearRollover rollover,
+      LedgerFiscalYearRolloverProgress progress, RequestContext requestContext, DBConn conn) {
+    return startOrdersRollover(rollover, progress, requestContext, conn)
+      .compose(aVoid -> emailService.createAndSendEmail(requestContext, rollover, conn)
+        .recover(t -> {
+          logger.warn("Ignoring error when sending an email after the rollover starts", t);
+          return Future.succeededFuture(null);
+        }))
+      .onSuccess(aVoid -> logger.info("startRollover:: Rollover completed for Ledger {}", rollover.getLedgerId()));
+  }
+
+  private Future<Void> skipOrdersRolloverOfResumedJob(RolloverJob job, LedgerFiscalYearRolloverProgress progress,
+      DBConn conn) {
+    LedgerFiscalYearRollover rollover = job.rollover();
+    if (LedgerFiscalYearRollover.RolloverType.PREVIEW.equals(rollover.getRolloverType())) {
+      return rolloverProgressService.calculateAndUpdateOverallProgressStatus(progress.withOrdersRolloverStatus(SUCCESS), conn);
+    }
+    String userId = job.okapiHeaders() == null ? null
+      : job.okapiHeaders().get(XOkapiHeaders.USER_ID.toLowerCase(Locale.ROOT));
+    logger.warn("skipOrdersRolloverOfResumedJob:: Orders rollover not started for resumed rollover job {} "
+      + "requested by user {}, the token of the rollover request is not saved", rollover.getId(), userId);
+    return saveRolloverError(rollover.getId(),
+        new HttpException(500, "The rollover was resumed after a restart, the orders rollover must be started again"),
+        ORDER_ROLLOVER, "Overall order rollover", conn)
+      .compose(v -> rolloverProgressService.updateRolloverProgress(
+        progress.withOrdersRolloverStatus(ERROR).withOverallRolloverStatus(ERROR), conn));
+  }
+
   public Future<Void> deleteRollover(String rolloverId, RequestContext requestContext) {
     DBClient client = requestContext.toDBClient();
     return client.withTrans(conn -> rolloverProgressService.getLedgerRolloverProgressForRollover(rolloverId, conn)
@@ -130,13 +379,7 @@ public class LedgerRolloverService {
     logger.info("startRollover:: Rollover started for ledger {}", rollover.getLedgerId());
 
     return startFinancialRollover(rollover, progress, conn)
-      .compose(rolloverProgress -> startOrdersRollover(rollover, progress, requestContext, conn))
-      .compose(aVoid -> emailService.createAndSendEmail(requestContext, rollover, conn)
-        .recover(t -> {
-          logger.warn("Ignoring error when sending an email after the rollover starts", t);
-          return Future.succeededFuture(null);
-        }))
-      .onSuccess(aVoid -> logger.info("startRollover:: Rollover completed for Ledger {}", rollover.getLedgerId()));
+      .compose(rolloverProgress -> startOrdersRolloverAndSendEmail(rollover, progress, requestContext, conn));
   }
 
   private Future<Void> closeBudgets(LedgerFiscalYearRollover rollover, DBConn conn) {
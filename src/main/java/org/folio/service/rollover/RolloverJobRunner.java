@@ -0,0 +1,125 @@
+package org.folio.service.rollover;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Runs the rollover jobs of the module instance in the background, with at most {@code maxRunningJobs} jobs at
+ * the same time; the other jobs wait in a queue. A job is split in chunks of {@code chunkSize} orders, each committed
+ * in its own database transaction, so that a job only holds a database connection for one chunk at a time.
+ * <p>
+ * The jobs of an instance are leased for {@code leaseSeconds}, and the lease is renewed by every chunk:
+ * a job whose lease has expired (because its instance stopped) is resumed from its last completed chunk by the next
+ * instance looking for unfinished jobs. A chunk must take less time than the lease.
+ * <p>
+ * With a {@code parallelism} greater than 1, the orders of a job are split in chunks sharing no fund
+ * (see {@link RolloverOrderPartitioner}), and up to {@code parallelism} chunks of a job are rolled over at the same
+ * time, each with its own database connection.
+ */
+@Log4j2
+public class RolloverJobRunner {
+
+  private final int maxRunningJobs;
+  private final int chunkSize;
+  private final int leaseSeconds;
+  private final int parallelism;
+  private final String owner = UUID.randomUUID().toString();
+  private final Deque<Runnable> waitingJobs = new ArrayDeque<>();
+  private final Set<String> submittedJobIds = new HashSet<>();
+  private int runningJobs;
+
+  public RolloverJobRunner(int maxRunningJobs, int chunkSize, int leaseSeconds) {
+    this(maxRunningJobs, chunkSize, leaseSeconds, 1);
+  }
+
+  public RolloverJobRunner(int maxRunningJobs, int chunkSize, int leaseSeconds, int parallelism) {
+    if (maxRunningJobs < 1 || chunkSize < 1 || leaseSeconds < 1 || parallelism < 1) {
+      throw new IllegalArgumentException(
+        "The number of jobs, the chunk size, the lease duration and the parallelism must be positive");
+    }
+    this.maxRunningJobs = maxRunningJobs;
+    this.chunkSize = chunkSize;
+    this.leaseSeconds = leaseSeconds;
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Runs the job when fewer than {@code maxRunningJobs} jobs are running. A job already submitted and not finished
+   * is not submitted again.
+   *
+   * @return a future completed when the job is finished, or failed if the job was already submitted
+   */
+  public Future<Void> submit(String jobId, Supplier<Future<Void>> job) {
+    Promise<Void> promise = Promise.promise();
+    Runnable task = () -> Future.succeededFuture().compose(v -> job.get())
+      .onComplete(ar -> {
+        jobFinished(jobId);
+        promise.handle(ar);
+      });
+    boolean runNow;
+    synchronized (this) {
+      if (!submittedJobIds.add(jobId)) {
+        return Future.failedFuture(new IllegalStateException("Rollover job " + jobId + " was already submitted"));
+      }
+      runNow = runningJobs < maxRunningJobs;
+      if (runNow) {
+        runningJobs++;
+      } else {
+        waitingJobs.add(task);
+        log.info("submit:: Rollover job {} is waiting, {} jobs are running", jobId, runningJobs);
+      }
+    }
+    if (runNow) {
+      task.run();
+    }
+    return promise.future();
+  }
+
+  public int getChunkSize() {
+    return chunkSize;
+  }
+
+  public int getLeaseSeconds() {
+    return leaseSeconds;
+  }
+
+  /**
+   * @return the number of chunks of a job rolled over at the same time
+   */
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  /**
+   * @return the id of this module instance, owning the jobs it runs
+   */
+  public String getOwner() {
+    return owner;
+  }
+
+  public synchronized int getRunningJobs() {
+    return runningJobs;
+  }
+
+  private void jobFinished(String jobId) {
+    Runnable next;
+    synchronized (this) {
+      submittedJobIds.remove(jobId);
+      next = waitingJobs.poll();
+      if (next == null) {
+        runningJobs--;
+      }
+    }
+    if (next != null) {
+      next.run();
+    }
+  }
+}
@@ -0,0 +1,102 @@
+package org.folio.service.rollover;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+
+import org.folio.dao.rollover.RolloverJobChunk;
+
+/**
+ * Splits the orders of a rollover in chunks that share no fund, so that the chunks can be rolled over at the same time:
+ * the rollover of an order only reads and updates the budgets of its funds.
+ * <p>
+ * The orders are grouped in partitions with a union-find over their fund ids: two orders having a fund in common are in
+ * the same partition. The partitions are then packed in chunks of at most {@code chunkSize} orders, in the order of
+ * their first order. A partition larger than {@code chunkSize} is split in several chunks, which share funds and must
+ * be rolled over one after the other, in the order of the list.
+ * Inside a chunk the orders keep their original order, so the orders of a partition are rolled over in the same
+ * order as with the sequential rollover.
+ */
+public final class RolloverOrderPartitioner {
+
+  private RolloverOrderPartitioner() {
+  }
+
+  /**
+   * @param fundIdsByOrder the fund ids of the encumbrances of each order, by order sequence number
+   * @param chunkSize the maximum number of orders of a chunk
+   * @return the chunks, with the chunks of a partition in the order in which they must be rolled over
+   */
+  public static List<RolloverJobChunk> partition(SortedMap<Long, Set<String>> fundIdsByOrder, int chunkSize) {
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("The chunk size must be positive: " + chunkSize);
+    }
+    List<Long> orders = new ArrayList<>(fundIdsByOrder.keySet());
+    int[] parents = new int[orders.size()];
+    for (int i = 0; i < parents.length; i++) {
+      parents[i] = i;
+    }
+    Map<String, Integer> firstOrderByFund = new HashMap<>();
+    int order = 0;
+    for (Set<String> fundIds : fundIdsByOrder.values()) {
+      for (String fundId : fundIds) {
+        Integer firstOrder = firstOrderByFund.putIfAbsent(fundId, order);
+        if (firstOrder != null) {
+          union(parents, firstOrder, order);
+        }
+      }
+      order++;
+    }
+
+    // the root of a partition is its first order, so the partitions are sorted by their first order
+    Map<Integer, List<Long>> partitions = new LinkedHashMap<>();
+    for (int i = 0; i < orders.size(); i++) {
+      partitions.computeIfAbsent(find(parents, i), root -> new ArrayList<>()).add(orders.get(i));
+    }
+
+    // the orders of a partition are already sorted, the partitions packed in a chunk are sorted together
+    List<RolloverJobChunk> chunks = new ArrayList<>();
+    List<Long> packedChunk = null;
+    int partitionNumber = 0;
+    for (List<Long> partition : partitions.values()) {
+      if (partition.size() > chunkSize) {
+        partitionNumber++;
+        for (int from = 0; from < partition.size(); from += chunkSize) {
+          List<Long> orderSeqs = new ArrayList<>(partition.subList(from, Math.min(from + chunkSize, partition.size())));
+          chunks.add(new RolloverJobChunk(partitionNumber, orderSeqs));
+        }
+        continue;
+      }
+      if (packedChunk == null || packedChunk.size() + partition.size() > chunkSize) {
+        packedChunk = new ArrayList<>();
+        partitionNumber++;
+        chunks.add(new RolloverJobChunk(partitionNumber, packedChunk));
+      }
+      packedChunk.addAll(partition);
+    }
+    chunks.forEach(chunk -> chunk.orderSeqs().sort(null));
+    return chunks;
+  }
+
+  private static int find(int[] parents, int i) {
+    while (parents[i] != i) {
+      parents[i] = parents[parents[i]];
+      i = parents[i];
+    }
+    return i;
+  }
+
+  private static void union(int[] parents, int i, int j) {
+    int rootI = find(parents, i);
+    int rootJ = find(parents, j);
+    if (rootI < rootJ) {
+      parents[rootJ] = rootI;
+    } else if (rootJ < rootI) {
+      parents[rootI] = rootJ;
+    }
+  }
+}
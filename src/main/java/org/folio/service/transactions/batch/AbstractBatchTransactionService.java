@@ -1,22 +1,22 @@
 package org.folio.service.transactions.batch;
 
-import io.vertx.core.json.JsonObject;
 import org.folio.rest.exception.HttpException;
 import org.folio.rest.jaxrs.model.Budget;
 import org.folio.rest.jaxrs.model.Metadata;
 import org.folio.rest.jaxrs.model.Transaction;
+import org.folio.utils.ModelCopyUtils;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 import static java.lang.Boolean.TRUE;
 import static java.util.Objects.requireNonNullElse;
-import static java.util.function.Function.identity;
-import static java.util.stream.Collectors.groupingBy;
-import static java.util.stream.Collectors.toMap;
 import static javax.ws.rs.core.Response.Status.INTERNAL_SERVER_ERROR;
 import static org.folio.rest.jaxrs.model.Transaction.TransactionType.CREDIT;
 
@@ -26,35 +26,33 @@ public abstract class AbstractBatchTransactionService implements BatchTransactio
   public void prepareDeletingTransactions(List<Transaction> transactionsToDelete, BatchTransactionHolder holder) {
   }
 
-  Map<Budget, List<Transaction>> createBudgetMapForTransactions(List<Transaction> transactions, List<Budget> budgets) {
-    return transactions.stream()
-      .collect(groupingBy(tr -> getBudgetForTransaction(budgets, tr)))
-      .entrySet()
-      .stream()
-      .filter(entry -> entry.getKey().isPresent())
-      .collect(toMap(entry -> entry.getKey().get(), Map.Entry::getValue));
+  Map<Budget, List<Transaction>> createBudgetMapForTransactions(List<Transaction> transactions, BatchTransactionHolder holder) {
+    Map<Budget, List<Transaction>> budgetToTransactions = new LinkedHashMap<>();
+    transactions.forEach(tr -> budgetToTransactions.computeIfAbsent(getBudgetForTransaction(holder, tr), b -> new ArrayList<>())
+      .add(tr));
+    return budgetToTransactions;
   }
 
-  Optional<Budget> getBudgetForTransaction(List<Budget> budgets, Transaction tr) {
+  Budget getBudgetForTransaction(BatchTransactionHolder holder, Transaction tr) {
     String fundId = tr.getTransactionType() == CREDIT ? tr.getToFundId() : tr.getFromFundId();
-    String fiscalYearId = tr.getFiscalYearId();
-    Optional<Budget> optionalBudget = budgets.stream()
-      .filter(b -> b.getFundId().equals(fundId) && b.getFiscalYearId().equals(fiscalYearId))
-      .findFirst();
-    if (optionalBudget.isEmpty()) {
+    Budget budget = holder.getBudget(fundId, tr.getFiscalYearId());
+    if (budget == null) {
       throw new HttpException(INTERNAL_SERVER_ERROR.getStatusCode(),
         String.format("Warning: could not find budget for transaction with type %s, id=%s", tr.getTransactionType(), tr.getId()));
     }
-    return optionalBudget;
+    return budget;
   }
 
-  Map<Budget, List<Transaction>> createBudgetMapForAllocationsAndTransfers(List<Transaction> transactions, List<Budget> budgets) {
-    return budgets.stream()
-      .collect(toMap(b -> b, b -> transactions.stream()
-        .filter(tr -> (b.getFundId().equals(tr.getFromFundId()) || b.getFundId().equals(tr.getToFundId())) &&
-          b.getFiscalYearId().equals(tr.getFiscalYearId()))
-        .toList()
-      ));
+  Map<Budget, List<Transaction>> createBudgetMapForAllocationsAndTransfers(List<Transaction> transactions,
+      BatchTransactionHolder holder) {
+    Map<Budget, List<Transaction>> budgetToTransactions = new LinkedHashMap<>();
+    transactions.forEach(tr -> Stream.of(tr.getFromFundId(), tr.getToFundId())
+      .filter(Objects::nonNull)
+      .distinct()
+      .map(fundId -> holder.getBudget(fundId, tr.getFiscalYearId()))
+      .filter(Objects::nonNull)
+      .forEach(budget -> budgetToTransactions.computeIfAbsent(budget, b -> new ArrayList<>()).add(tr)));
+    return budgetToTransactions;
   }
 
   boolean cancelledTransaction(Transaction transaction, Map<String, Transaction> existingTransactionMap) {
@@ -86,15 +84,14 @@ public abstract class AbstractBatchTransactionService implements BatchTransactio
       return encumbrances;
     }
     // If an encumbrance is already marked for update, use the object from transactionsToUpdate to continue
-    Map<String, Transaction> transactionsToUpdateMap = holder.getAllTransactionsToUpdate().stream()
-      .collect(toMap(Transaction::getId, identity()));
+    List<Transaction> encumbrancesToAdd = encumbrances.stream()
+      .filter(tr -> holder.getTransactionToUpdate(tr.getId()) == null)
+      .toList();
     encumbrances = encumbrances.stream()
-      .map(tr -> requireNonNullElse(transactionsToUpdateMap.get(tr.getId()), tr))
+      .map(tr -> requireNonNullElse(holder.getTransactionToUpdate(tr.getId()), tr))
       .toList();
     // Otherwise add it, so it gets saved (assuming encumbrances are processed after pending payments)
-    encumbrances.stream()
-      .filter(tr -> !transactionsToUpdateMap.containsKey(tr.getId()))
-      .forEach(tr -> holder.addTransactionToUpdate(tr, JsonObject.mapFrom(tr).mapTo(Transaction.class)));
+    encumbrancesToAdd.forEach(tr -> holder.addTransactionToUpdate(tr, ModelCopyUtils.deepCopy(tr)));
     return encumbrances;
   }
 }
@@ -0,0 +1,129 @@
+package org.folio.service.transactions.batch;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.shareddata.Lock;
+import io.vertx.core.shareddata.SharedData;
+import lombok.extern.log4j.Log4j2;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import static io.vertx.core.Future.succeededFuture;
+
+/**
+ * Serializes in the JVM the batches that use the same budgets, so that they wait on an asynchronous lock
+ * instead of holding a database connection while they wait for the budget row locks.
+ * Batches using different budgets run in parallel.
+ * <p>
+ * Budget keys are mapped to a fixed number of lock stripes per tenant; the stripes of a batch are always
+ * acquired in ascending order, so batches cannot deadlock. If the stripes cannot be acquired before the timeout,
+ * the batch runs anyway: the database locks still guarantee consistency.
+ */
+@Log4j2
+public class BatchAdmissionControl {
+
+  private static final String LOCK_NAME_PREFIX = "batch-transaction-budgets-";
+
+  private final int stripes;
+  private final long lockTimeoutMs;
+
+  private final AtomicInteger queueDepth = new AtomicInteger();
+  private final AtomicInteger maxQueueDepth = new AtomicInteger();
+  private final LongAdder admittedBatches = new LongAdder();
+  private final LongAdder timedOutBatches = new LongAdder();
+  private final LongAdder totalWaitNanos = new LongAdder();
+  private final AtomicLong maxWaitNanos = new AtomicLong();
+
+  public BatchAdmissionControl(int stripes, long lockTimeoutMs) {
+    if (stripes < 1) {
+      throw new IllegalArgumentException("The number of lock stripes must be positive: " + stripes);
+    }
+    this.stripes = stripes;
+    this.lockTimeoutMs = lockTimeoutMs;
+  }
+
+  /**
+   * Runs the task once no other batch using one of the same budgets is running.
+   *
+   * @param budgetKeys keys identifying the budgets used by the batch (fund id and fiscal year id)
+   */
+  public <T> Future<T> runAdmitted(Vertx vertx, String tenantId, Collection<String> budgetKeys,
+      Supplier<Future<T>> task) {
+    if (budgetKeys.isEmpty()) {
+      return succeededFuture().compose(v -> task.get());
+    }
+    SortedSet<Integer> stripeIndexes = new TreeSet<>();
+    budgetKeys.forEach(key -> stripeIndexes.add(Math.floorMod(key.hashCode(), stripes)));
+    List<String> lockNames = stripeIndexes.stream()
+      .map(index -> LOCK_NAME_PREFIX + tenantId + "-" + index)
+      .toList();
+
+    long start = System.nanoTime();
+    maxQueueDepth.accumulateAndGet(queueDepth.incrementAndGet(), Math::max);
+    List<Lock> locks = new ArrayList<>();
+    return acquireLocks(vertx.sharedData(), lockNames.iterator(), locks)
+      .recover(t -> {
+        timedOutBatches.increment();
+        log.warn("runAdmitted:: Could not acquire the budget locks for tenant {} in {} ms, running the batch anyway",
+          tenantId, lockTimeoutMs, t);
+        releaseLocks(locks);
+        locks.clear();
+        return succeededFuture();
+      })
+      .compose(v -> {
+        long waitNanos = System.nanoTime() - start;
+        queueDepth.decrementAndGet();
+        admittedBatches.increment();
+        totalWaitNanos.add(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        log.debug("runAdmitted:: Batch admitted after {} ms, tenant={}, stripes={}, metrics={}",
+          TimeUnit.NANOSECONDS.toMillis(waitNanos), tenantId, stripeIndexes, getMetrics());
+        return succeededFuture().compose(v2 -> task.get())
+          .onComplete(ar -> releaseLocks(locks));
+      });
+  }
+
+  public BatchAdmissionMetrics getMetrics() {
+    long admitted = admittedBatches.sum();
+    long averageWaitMs = admitted == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.sum() / admitted);
+    return new BatchAdmissionMetrics(queueDepth.get(), maxQueueDepth.get(), admitted, timedOutBatches.sum(),
+      averageWaitMs, TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()));
+  }
+
+  private Future<Void> acquireLocks(SharedData sharedData, Iterator<String> lockNames, List<Lock> locks) {
+    if (!lockNames.hasNext()) {
+      return succeededFuture();
+    }
+    return sharedData.getLocalLockWithTimeout(lockNames.next(), lockTimeoutMs)
+      .compose(lock -> {
+        locks.add(lock);
+        return acquireLocks(sharedData, lockNames, locks);
+      });
+  }
+
+  private void releaseLocks(List<Lock> locks) {
+    locks.forEach(Lock::release);
+  }
+
+  /**
+   * @param queueDepth number of batches currently waiting for their budget locks
+   * @param maxQueueDepth highest number of batches that were waiting at the same time
+   * @param admittedBatches number of batches that were allowed to run
+   * @param timedOutBatches number of batches that ran after the lock timeout
+   * @param averageWaitMs average time a batch waited for its budget locks
+   * @param maxWaitMs longest time a batch waited for its budget locks
+   */
+  public record BatchAdmissionMetrics(int queueDepth, int maxQueueDepth, long admittedBatches, long timedOutBatches,
+                                      long averageWaitMs, long maxWaitMs) {
+  }
+}
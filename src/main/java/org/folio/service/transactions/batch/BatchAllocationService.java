@@ -28,7 +28,7 @@ public class BatchAllocationService extends AbstractBatchTransactionService {
   }
 
   private void calculateBudgetsTotals(List<Transaction> transactions, BatchTransactionHolder holder) {
-    createBudgetMapForAllocationsAndTransfers(transactions, holder.getBudgets())
+    createBudgetMapForAllocationsAndTransfers(transactions, holder)
       .forEach((budget, budgetTransactions) -> {
         budgetTransactions.forEach(tr -> applyTransaction(budget, tr));
         calculateBudgetSummaryFields(budget);
@@ -0,0 +1,149 @@
+package org.folio.service.transactions.batch;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import lombok.extern.log4j.Log4j2;
+import org.folio.rest.jaxrs.model.Batch;
+import org.folio.rest.persist.DBClient;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.vertx.core.Future.succeededFuture;
+
+/**
+ * Groups the batches received for a tenant while another group of the tenant is being processed, so that they can be
+ * processed in the same database transaction. A batch received when nothing is being processed or waiting for the
+ * tenant is processed right away. Otherwise it is added to the waiting group of the tenant, which is processed when
+ * no other group of the tenant is being processed, when its time window ends or when it reaches the maximum number
+ * of batches, whichever comes first.
+ */
+@Log4j2
+public class BatchCoalescer {
+
+  private final long windowMs;
+  private final int maxBatches;
+  private final Map<String, PendingGroup> pendingGroups = new HashMap<>();
+  // number of groups being processed for each tenant, guarded by pendingGroups
+  private final Map<String, Integer> groupsInProgress = new HashMap<>();
+
+  public BatchCoalescer(long windowMs, int maxBatches) {
+    if (windowMs < 1 || maxBatches < 1) {
+      throw new IllegalArgumentException("The coalescing window and the maximum number of batches must be positive");
+    }
+    this.windowMs = windowMs;
+    this.maxBatches = maxBatches;
+  }
+
+  /**
+   * Adds the batch to the pending group of its tenant.
+   *
+   * @param payloadHash hash of the batch if it has an idempotency key, null otherwise
+   * @param groupProcessor processes a group; it must complete the promise of each batch, and the promises left
+   *                       uncompleted are failed with the error of the returned future
+   * @return a future completed when the batch has been processed
+   */
+  public Future<Void> submit(DBClient client, Batch batch, Map<String, String> okapiHeaders, String payloadHash,
+      GroupProcessor groupProcessor) {
+    CoalescedBatch coalescedBatch = new CoalescedBatch(batch, okapiHeaders, payloadHash, Promise.promise());
+    String tenantId = client.getTenantId();
+    PendingGroup groupToProcess = null;
+    synchronized (pendingGroups) {
+      PendingGroup group = pendingGroups.get(tenantId);
+      if (group == null && !groupsInProgress.containsKey(tenantId)) {
+        // nothing to wait for
+        group = new PendingGroup(client, groupProcessor);
+        group.batches.add(coalescedBatch);
+        groupToProcess = group;
+      } else {
+        if (group == null) {
+          PendingGroup newGroup = new PendingGroup(client, groupProcessor);
+          newGroup.timerId = client.getVertx().setTimer(windowMs, id -> processTimedOutGroup(tenantId, newGroup));
+          pendingGroups.put(tenantId, newGroup);
+          group = newGroup;
+        }
+        group.batches.add(coalescedBatch);
+        if (group.batches.size() >= maxBatches) {
+          pendingGroups.remove(tenantId);
+          client.getVertx().cancelTimer(group.timerId);
+          groupToProcess = group;
+        }
+      }
+      if (groupToProcess != null) {
+        groupsInProgress.merge(tenantId, 1, Integer::sum);
+      }
+    }
+    if (groupToProcess != null) {
+      process(tenantId, groupToProcess);
+    }
+    return coalescedBatch.promise().future();
+  }
+
+  private void processTimedOutGroup(String tenantId, PendingGroup group) {
+    synchronized (pendingGroups) {
+      if (!pendingGroups.remove(tenantId, group)) {
+        // already processed because it was full, or because the previous group was done
+        return;
+      }
+      groupsInProgress.merge(tenantId, 1, Integer::sum);
+    }
+    process(tenantId, group);
+  }
+
+  private void process(String tenantId, PendingGroup group) {
+    List<CoalescedBatch> batches = group.batches;
+    log.debug("process:: Processing {} coalesced batches for tenant {}", batches.size(), tenantId);
+    succeededFuture()
+      .compose(v -> group.groupProcessor.process(group.client, batches))
+      .onComplete(ar -> {
+        Throwable cause = ar.failed() ? ar.cause()
+          : new IllegalStateException("A coalesced batch was not completed by the group processor");
+        batches.forEach(b -> b.promise().tryFail(cause));
+        processWaitingGroup(tenantId);
+      });
+  }
+
+  /**
+   * Called when a group is done: the waiting group of the tenant is processed without waiting for the end of its
+   * window if no other group of the tenant is being processed.
+   */
+  private void processWaitingGroup(String tenantId) {
+    PendingGroup groupToProcess = null;
+    synchronized (pendingGroups) {
+      groupsInProgress.computeIfPresent(tenantId, (id, count) -> count == 1 ? null : count - 1);
+      if (!groupsInProgress.containsKey(tenantId)) {
+        groupToProcess = pendingGroups.remove(tenantId);
+        if (groupToProcess != null) {
+          groupToProcess.client.getVertx().cancelTimer(groupToProcess.timerId);
+          groupsInProgress.put(tenantId, 1);
+        }
+      }
+    }
+    if (groupToProcess != null) {
+      process(tenantId, groupToProcess);
+    }
+  }
+
+  @FunctionalInterface
+  public interface GroupProcessor {
+    Future<Void> process(DBClient client, List<CoalescedBatch> batches);
+  }
+
+  public record CoalescedBatch(Batch batch, Map<String, String> okapiHeaders, String payloadHash,
+                               Promise<Void> promise) {
+  }
+
+  private static class PendingGroup {
+    private final DBClient client;
+    private final GroupProcessor groupProcessor;
+    private final List<CoalescedBatch> batches = new ArrayList<>();
+    private long timerId;
+
+    private PendingGroup(DBClient client, GroupProcessor groupProcessor) {
+      this.client = client;
+      this.groupProcessor = groupProcessor;
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package org.folio.service.transactions.batch;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.Json;
+import lombok.experimental.UtilityClass;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.rest.jaxrs.model.Batch;
+import org.folio.rest.jaxrs.model.Budget;
+import org.folio.rest.jaxrs.model.Transaction;
+import org.folio.rest.jaxrs.model.TransactionPatch;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Describes batches and budgets in the logs when batch processing fails, without encoding whole payloads
+ * on the event loop.
+ * <p>
+ * Error logs contain a bounded summary. The full JSON is only encoded when the {@value #DUMP_LOGGER_NAME} logger
+ * is enabled at DEBUG level; it is then encoded and logged on a worker thread. This logger can be routed to a
+ * rolling file appender in the log4j2 configuration.
+ */
+@UtilityClass
+public class BatchDiagnostics {
+
+  public static final String DUMP_LOGGER_NAME = "org.folio.service.transactions.batch.dump";
+  static final int MAX_IDS = 10;
+
+  private static final Logger dumpLogger = LogManager.getLogger(DUMP_LOGGER_NAME);
+
+  /**
+   * Returns the number of operations by type of transaction, the first ids and the first budgets used.
+   */
+  public static String summarize(Batch batch) {
+    List<String> ids = Stream.of(batch.getTransactionsToCreate().stream().map(Transaction::getId),
+        batch.getTransactionsToUpdate().stream().map(Transaction::getId),
+        batch.getIdsOfTransactionsToDelete().stream(),
+        batch.getTransactionPatches().stream().map(TransactionPatch::getId))
+      .flatMap(s -> s)
+      .limit(MAX_IDS)
+      .toList();
+    Set<String> budgetKeys = new LinkedHashSet<>();
+    Stream.concat(batch.getTransactionsToCreate().stream(), batch.getTransactionsToUpdate().stream())
+      .flatMap(tr -> Stream.of(tr.getFromFundId(), tr.getToFundId())
+        .filter(Objects::nonNull)
+        .map(fundId -> fundId + "/" + tr.getFiscalYearId()))
+      .limit(MAX_IDS)
+      .forEach(budgetKeys::add);
+    return String.format("{transactionsToCreate=%d %s, transactionsToUpdate=%d %s, idsOfTransactionsToDelete=%d, "
+        + "transactionPatches=%d, firstIds=%s, firstFundsAndFiscalYears=%s}",
+      batch.getTransactionsToCreate().size(), countByType(batch.getTransactionsToCreate()),
+      batch.getTransactionsToUpdate().size(), countByType(batch.getTransactionsToUpdate()),
+      batch.getIdsOfTransactionsToDelete().size(), batch.getTransactionPatches().size(), ids, budgetKeys);
+  }
+
+  /**
+   * Returns the number of budgets and the first ids.
+   */
+  public static String summarize(Collection<Budget> budgets) {
+    List<String> ids = budgets.stream()
+      .map(Budget::getId)
+      .limit(MAX_IDS)
+      .toList();
+    return String.format("{count=%d, firstIds=%s}", budgets.size(), ids);
+  }
+
+  /**
+   * Logs the full JSON of the value with the dump logger, if it is enabled at DEBUG level.
+   * The value should not be modified afterward, as it can be encoded on another thread.
+   */
+  public static void dump(String description, Object value) {
+    if (!dumpLogger.isDebugEnabled()) {
+      return;
+    }
+    Context context = Vertx.currentContext();
+    if (context == null) {
+      writeDump(description, value);
+      return;
+    }
+    context.executeBlocking(() -> {
+      writeDump(description, value);
+      return null;
+    }, false);
+  }
+
+  private static void writeDump(String description, Object value) {
+    dumpLogger.debug("{}: {}", description, Json.encode(value));
+  }
+
+  private static Map<String, Long> countByType(List<Transaction> transactions) {
+    return transactions.stream()
+      .collect(Collectors.groupingBy(tr -> String.valueOf(tr.getTransactionType()), TreeMap::new,
+        Collectors.counting()));
+  }
+}
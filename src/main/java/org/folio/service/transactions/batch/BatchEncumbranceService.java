@@ -28,13 +28,13 @@ public class BatchEncumbranceService extends AbstractBatchTransactionService {
 
   @Override
   public void prepareCreatingTransactions(List<Transaction> transactionsToCreate, BatchTransactionHolder holder) {
-    createBudgetMapForTransactions(transactionsToCreate, holder.getBudgets())
+    createBudgetMapForTransactions(transactionsToCreate, holder)
       .forEach(this::updateBudgetForEncumbranceCreation);
   }
 
   @Override
   public void prepareUpdatingTransactions(List<Transaction> transactionsToUpdate, BatchTransactionHolder holder) {
-    createBudgetMapForTransactions(transactionsToUpdate, holder.getBudgets())
+    createBudgetMapForTransactions(transactionsToUpdate, holder)
       .forEach((budget, encumbrances) -> updateBudgetForEncumbranceUpdate(budget, encumbrances,
         holder.getExistingTransactionMap()));
   }
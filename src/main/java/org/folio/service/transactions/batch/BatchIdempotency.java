@@ -0,0 +1,144 @@
+package org.folio.service.transactions.batch;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.vertx.core.Future;
+import io.vertx.core.json.Json;
+import lombok.extern.log4j.Log4j2;
+import org.folio.dao.transactions.BatchIdempotencyDAO;
+import org.folio.rest.exception.HttpException;
+import org.folio.rest.jaxrs.model.Batch;
+import org.folio.rest.persist.DBConn;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import static io.vertx.core.Future.succeededFuture;
+
+/**
+ * Makes batches sent with an Idempotency-Key header run at most once: a batch sent again with the same key
+ * succeeds without being processed again, as long as the key has not expired. Keys are saved in the same
+ * database transaction as the batch, so that the key of a batch that failed can be used again.
+ */
+@Log4j2
+public class BatchIdempotency {
+
+  public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+  private static final Duration CLEANUP_INTERVAL = Duration.ofHours(1);
+
+  private final BatchIdempotencyDAO idempotencyDAO;
+  private final Duration keyTtl;
+  // tenant id + key -> payload hash, for the keys of the batches known to be committed
+  private final Cache<String, String> committedKeys;
+  private final Map<String, Instant> lastCleanups = new ConcurrentHashMap<>();
+
+  public BatchIdempotency(BatchIdempotencyDAO idempotencyDAO, Duration keyTtl, long cacheSize) {
+    if (keyTtl.isNegative() || keyTtl.isZero() || cacheSize < 0) {
+      throw new IllegalArgumentException(
+        "The idempotency key time to live must be positive and the cache size must not be negative");
+    }
+    this.idempotencyDAO = idempotencyDAO;
+    this.keyTtl = keyTtl;
+    this.committedKeys = Caffeine.newBuilder()
+      .expireAfterWrite(keyTtl)
+      .maximumSize(cacheSize)
+      .build();
+  }
+
+  /**
+   * @return the value of the Idempotency-Key header, or null if there is none
+   */
+  public static String getKey(Map<String, String> okapiHeaders) {
+    return okapiHeaders.entrySet().stream()
+      .filter(entry -> IDEMPOTENCY_KEY_HEADER.equalsIgnoreCase(entry.getKey()))
+      .map(Map.Entry::getValue)
+      .filter(value -> value != null && !value.isBlank())
+      .findFirst()
+      .orElse(null);
+  }
+
+  /**
+   * Returns the SHA-256 hash of the batch. It must be computed before the batch is changed by the processing.
+   */
+  public static String hashPayload(Batch batch) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(digest.digest(Json.encode(batch).getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Checks the keys of the batches committed recently, without using the database.
+   *
+   * @return true if a batch with the same key and payload was committed
+   * @throws HttpException if the key was used for another batch
+   */
+  public boolean isCommittedReplay(String tenantId, String key, String payloadHash) {
+    String committedHash = committedKeys.getIfPresent(cacheKey(tenantId, key));
+    if (committedHash == null) {
+      return false;
+    }
+    checkSamePayload(key, payloadHash, committedHash);
+    log.info("isCommittedReplay:: Batch with idempotency key {} was already processed", key);
+    return true;
+  }
+
+  /**
+   * Remembers the key of a batch after its transaction was committed.
+   */
+  public void rememberCommitted(String tenantId, String key, String payloadHash) {
+    committedKeys.put(cacheKey(tenantId, key), payloadHash);
+  }
+
+  /**
+   * Saves the key and runs the task, unless the key was already saved for the same payload.
+   * This must be called in the database transaction used by the task.
+   */
+  public Future<Void> runOnce(String key, String payloadHash, DBConn conn, Supplier<Future<Void>> task) {
+    return deleteExpiredKeysIfNeeded(conn)
+      .compose(v -> idempotencyDAO.registerKey(key, payloadHash, Instant.now().plus(keyTtl), conn))
+      .compose(registered -> {
+        if (Boolean.TRUE.equals(registered)) {
+          return task.get();
+        }
+        return idempotencyDAO.getPayloadHash(key, conn)
+          .map(savedHash -> {
+            if (savedHash == null) {
+              throw new HttpException(409, String.format("The idempotency key %s is being released, try again", key));
+            }
+            checkSamePayload(key, payloadHash, savedHash);
+            log.info("runOnce:: Batch with idempotency key {} was already processed", key);
+            return null;
+          });
+      });
+  }
+
+  private Future<Void> deleteExpiredKeysIfNeeded(DBConn conn) {
+    Instant now = Instant.now();
+    Instant lastCleanup = lastCleanups.get(conn.getTenantId());
+    if (lastCleanup != null && lastCleanup.plus(CLEANUP_INTERVAL).isAfter(now)) {
+      return succeededFuture();
+    }
+    lastCleanups.put(conn.getTenantId(), now);
+    return idempotencyDAO.deleteExpiredKeys(conn).mapEmpty();
+  }
+
+  private void checkSamePayload(String key, String payloadHash, String savedHash) {
+    if (!savedHash.equals(payloadHash)) {
+      throw new HttpException(422, String.format("The idempotency key %s was already used with a different batch", key));
+    }
+  }
+
+  private String cacheKey(String tenantId, String key) {
+    return tenantId + "/" + key;
+  }
+}
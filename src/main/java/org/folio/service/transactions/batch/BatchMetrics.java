@@ -0,0 +1,203 @@
+package org.folio.service.transactions.batch;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import lombok.extern.log4j.Log4j2;
+import org.folio.rest.jaxrs.model.Batch;
+import org.folio.rest.jaxrs.model.Transaction;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static io.vertx.core.Future.succeededFuture;
+
+/**
+ * Timers for the phases of batch transaction processing, tagged with the tenant, the types of transactions
+ * in the batch and a batch size bucket. When a Prometheus registry is used, the timers can be scraped
+ * on a separate HTTP port.
+ * Metrics are disabled when there is no registry; timing then has no cost.
+ */
+@Log4j2
+public class BatchMetrics {
+
+  static final String PHASE_TIMER = "batch.transactions.phase";
+  static final String ADMISSION_TIMER = "batch.transactions.admission.wait";
+  static final String ADMISSION_QUEUE_DEPTH = "batch.transactions.admission.queue.depth";
+  static final String ADMISSION_MAX_QUEUE_DEPTH = "batch.transactions.admission.queue.max.depth";
+  static final String ADMISSION_TIMED_OUT = "batch.transactions.admission.timed.out";
+  private static final String UNKNOWN = "unknown";
+
+  private final MeterRegistry registry;
+  private final int scrapePort;
+
+  /**
+   * @param registry the registry, or null to disable metrics
+   * @param scrapePort port of the Prometheus scrape endpoint, used if the registry is a Prometheus registry
+   */
+  public BatchMetrics(MeterRegistry registry, int scrapePort) {
+    this.registry = registry;
+    this.scrapePort = scrapePort;
+  }
+
+  public static BatchMetrics disabled() {
+    return new BatchMetrics(null, 0);
+  }
+
+  public boolean isEnabled() {
+    return registry != null;
+  }
+
+  /**
+   * Returns the timer for the phases of a batch.
+   */
+  public BatchTimer startBatch(String tenantId, Batch batch) {
+    if (registry == null) {
+      return noTimer();
+    }
+    int batchSize = batch.getTransactionsToCreate().size() + batch.getTransactionsToUpdate().size() +
+      batch.getIdsOfTransactionsToDelete().size() + batch.getTransactionPatches().size();
+    String transactionTypes = Stream.concat(batch.getTransactionsToCreate().stream(),
+        batch.getTransactionsToUpdate().stream())
+      .map(Transaction::getTransactionType)
+      .filter(Objects::nonNull)
+      .map(Object::toString)
+      .distinct()
+      .sorted()
+      .collect(Collectors.joining(","));
+    return new BatchTimer(registry, Tags.of(
+      "tenant", Objects.requireNonNullElse(tenantId, UNKNOWN),
+      "transactionTypes", transactionTypes.isEmpty() ? "none" : transactionTypes,
+      "batchSize", sizeBucket(batchSize)));
+  }
+
+  /**
+   * Records the time a batch waited before it was admitted by {@link BatchAdmissionControl}.
+   */
+  public void recordAdmissionWait(String tenantId, long waitNanos) {
+    if (registry == null) {
+      return;
+    }
+    Timer.builder(ADMISSION_TIMER)
+      .tag("tenant", Objects.requireNonNullElse(tenantId, UNKNOWN))
+      .publishPercentileHistogram()
+      .register(registry)
+      .record(waitNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Registers gauges for the batches waiting in the admission control, and a counter of the batches that ran
+   * after the lock timeout.
+   */
+  public void registerAdmissionControl(BatchAdmissionControl admissionControl) {
+    if (registry == null) {
+      return;
+    }
+    Gauge.builder(ADMISSION_QUEUE_DEPTH, admissionControl, control -> control.getMetrics().queueDepth())
+      .description("Number of batches waiting for their budget locks")
+      .strongReference(true)
+      .register(registry);
+    Gauge.builder(ADMISSION_MAX_QUEUE_DEPTH, admissionControl, control -> control.getMetrics().maxQueueDepth())
+      .description("Highest number of batches that were waiting for their budget locks at the same time")
+      .strongReference(true)
+      .register(registry);
+    FunctionCounter.builder(ADMISSION_TIMED_OUT, admissionControl, control -> control.getMetrics().timedOutBatches())
+      .description("Number of batches that ran after the budget lock timeout")
+      .register(registry);
+  }
+
+  /**
+   * Starts the HTTP server returning the metrics in the Prometheus format, if a Prometheus registry is used.
+   */
+  public Future<Void> startScrapeEndpoint(Vertx vertx) {
+    if (!(registry instanceof PrometheusMeterRegistry prometheusRegistry)) {
+      return succeededFuture();
+    }
+    return vertx.createHttpServer()
+      .requestHandler(request -> request.response()
+        .putHeader("Content-Type", "text/plain; version=0.0.4; charset=utf-8")
+        .end(prometheusRegistry.scrape()))
+      .listen(scrapePort)
+      .onSuccess(server -> log.info("startScrapeEndpoint:: Batch transaction metrics available on port {}",
+        server.actualPort()))
+      .mapEmpty();
+  }
+
+  static String sizeBucket(int size) {
+    if (size <= 1) {
+      return "1";
+    } else if (size <= 10) {
+      return "2-10";
+    } else if (size <= 100) {
+      return "11-100";
+    } else if (size <= 1000) {
+      return "101-1000";
+    }
+    return "1001+";
+  }
+
+  /**
+   * Returns a timer that does not record anything.
+   */
+  public static BatchTimer noTimer() {
+    return new BatchTimer(null, null);
+  }
+
+  public static class BatchTimer {
+    private final MeterRegistry registry;
+    private final Tags tags;
+
+    private BatchTimer(MeterRegistry registry, Tags tags) {
+      this.registry = registry;
+      this.tags = tags;
+    }
+
+    /**
+     * Times the asynchronous phase, until the returned future is completed.
+     */
+    public <T> Future<T> time(String phase, Supplier<Future<T>> task) {
+      if (tags == null) {
+        return task.get();
+      }
+      long start = System.nanoTime();
+      return task.get()
+        .onComplete(ar -> record(phase, System.nanoTime() - start, ar.succeeded()));
+    }
+
+    /**
+     * Times the synchronous phase.
+     */
+    public <T> T timeSync(String phase, Supplier<T> task) {
+      if (tags == null) {
+        return task.get();
+      }
+      long start = System.nanoTime();
+      boolean succeeded = false;
+      try {
+        T result = task.get();
+        succeeded = true;
+        return result;
+      } finally {
+        record(phase, System.nanoTime() - start, succeeded);
+      }
+    }
+
+    private void record(String phase, long durationNanos, boolean succeeded) {
+      Timer.builder(PHASE_TIMER)
+        .tags(tags)
+        .tag("phase", phase)
+        .tag("outcome", succeeded ? "success" : "failure")
+        .publishPercentileHistogram()
+        .register(registry)
+        .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+  }
+}
@@ -5,11 +5,9 @@ import org.folio.rest.jaxrs.model.Budget;
 import org.folio.rest.jaxrs.model.Encumbrance;
 import org.folio.rest.jaxrs.model.Transaction;
 import org.folio.rest.jaxrs.model.Transaction.TransactionType;
-import org.javamoney.moneta.Money;
 
 import javax.money.CurrencyUnit;
 import javax.money.Monetary;
-import javax.money.MonetaryAmount;
 import java.util.List;
 import java.util.Map;
 
@@ -131,7 +129,7 @@ public class BatchPaymentCreditService extends AbstractBatchTransactionService {
   }
 
   private void updateBudgets(List<Transaction> transactions, BatchTransactionHolder holder) {
-    Map<Budget, List<Transaction>> budgetToTransactions = createBudgetMapForTransactions(transactions, holder.getBudgets());
+    Map<Budget, List<Transaction>> budgetToTransactions = createBudgetMapForTransactions(transactions, holder);
     if (budgetToTransactions.isEmpty()) {
       return;
     }
@@ -166,23 +164,23 @@ public class BatchPaymentCreditService extends AbstractBatchTransactionService {
 
   private void applyTransaction(Budget budget, Transaction transaction, Transaction existingTransaction) {
     CurrencyUnit currency = Monetary.getCurrency(transaction.getCurrency());
-    MonetaryAmount expenditures = Money.of(budget.getExpenditures(), currency);
-    MonetaryAmount credits = Money.of(budget.getCredits(), currency);
-    MonetaryAmount awaitingPayment = Money.of(budget.getAwaitingPayment(), currency);
-    MonetaryAmount amount = Money.of(transaction.getAmount(), currency);
+    double expenditures = budget.getExpenditures();
+    double credits = budget.getCredits();
+    double awaitingPayment = budget.getAwaitingPayment();
+    double amount = transaction.getAmount();
     if (existingTransaction != null) {
-      amount = amount.subtract(Money.of(existingTransaction.getAmount(), currency));
+      amount = subtractMoney(amount, existingTransaction.getAmount(), currency);
     }
     if (transaction.getTransactionType() == PAYMENT) {
-      expenditures = expenditures.add(amount);
-      awaitingPayment = awaitingPayment.subtract(amount);
+      expenditures = sumMoney(expenditures, amount, currency);
+      awaitingPayment = subtractMoney(awaitingPayment, amount, currency);
     } else {
-      credits = credits.add(amount);
-      awaitingPayment = awaitingPayment.add(amount);
+      credits = sumMoney(credits, amount, currency);
+      awaitingPayment = sumMoney(awaitingPayment, amount, currency);
     }
-    budget.setExpenditures(expenditures.getNumber().doubleValue());
-    budget.setCredits(credits.getNumber().doubleValue());
-    budget.setAwaitingPayment(awaitingPayment.getNumber().doubleValue());
+    budget.setExpenditures(expenditures);
+    budget.setCredits(credits);
+    budget.setAwaitingPayment(awaitingPayment);
   }
 
   private void markPendingPaymentsForDeletion(BatchTransactionHolder holder) {
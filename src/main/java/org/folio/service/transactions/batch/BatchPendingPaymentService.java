@@ -116,7 +116,7 @@ public class BatchPendingPaymentService extends AbstractBatchTransactionService
 
   private void applyPendingPayments(List<Transaction> pendingPayments, BatchTransactionHolder holder, boolean delete) {
     Map<String, Transaction> existingTransactionMap = holder.getExistingTransactionMap();
-    Map<Budget, List<Transaction>> budgetToTransactions = createBudgetMapForTransactions(pendingPayments, holder.getBudgets());
+    Map<Budget, List<Transaction>> budgetToTransactions = createBudgetMapForTransactions(pendingPayments, holder);
     if (budgetToTransactions.isEmpty()) {
       return;
     }
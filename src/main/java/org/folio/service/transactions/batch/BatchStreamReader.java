@@ -0,0 +1,105 @@
+package org.folio.service.transactions.batch;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.folio.dbschema.ObjectMapperTool;
+import org.folio.rest.exception.HttpException;
+import org.folio.rest.jaxrs.model.Batch;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses a stream of batch objects, one per line (NDJSON), received in chunks of any size.
+ * The non-blocking Jackson parser is used so that only the tokens of the batch being read are kept in memory.
+ */
+public class BatchStreamReader {
+
+  private final JsonParser parser;
+  private final ByteArrayFeeder feeder;
+  private TokenBuffer batchTokens;
+  private int depth;
+  private int lastBatchLine;
+
+  public BatchStreamReader() {
+    try {
+      parser = ObjectMapperTool.getMapper().getFactory().createNonBlockingByteArrayParser();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+  }
+
+  /**
+   * Adds a chunk of the stream.
+   *
+   * @return the batches completed by this chunk
+   */
+  public List<Batch> feed(byte[] chunk) {
+    try {
+      feeder.feedInput(chunk, 0, chunk.length);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return readBatches();
+  }
+
+  /**
+   * Signals the end of the stream.
+   *
+   * @return the last batch, if it was not followed by a line break
+   */
+  public List<Batch> endOfInput() {
+    feeder.endOfInput();
+    List<Batch> batches = readBatches();
+    if (batchTokens != null) {
+      throw new HttpException(400, "The last batch of the stream is incomplete");
+    }
+    return batches;
+  }
+
+  private List<Batch> readBatches() {
+    List<Batch> batches = new ArrayList<>();
+    try {
+      JsonToken token;
+      while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+        if (batchTokens == null) {
+          if (token != JsonToken.START_OBJECT) {
+            throw new HttpException(400, "Each line of the stream must contain a batch object");
+          }
+          if (parser.currentTokenLocation().getLineNr() == lastBatchLine) {
+            throw new HttpException(400, "Each line of the stream must contain a single batch object");
+          }
+          batchTokens = new TokenBuffer(parser);
+        }
+        batchTokens.copyCurrentEvent(parser);
+        if (token.isStructStart()) {
+          depth++;
+        } else if (token.isStructEnd()) {
+          depth--;
+        }
+        if (depth == 0) {
+          lastBatchLine = parser.currentTokenLocation().getLineNr();
+          batches.add(readBatch(batchTokens));
+          batchTokens = null;
+        }
+      }
+    } catch (JsonProcessingException e) {
+      throw new HttpException(400, "Invalid batch in the stream: " + e.getOriginalMessage(), e);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return batches;
+  }
+
+  private Batch readBatch(TokenBuffer tokens) throws IOException {
+    try (JsonParser batchParser = tokens.asParser()) {
+      return ObjectMapperTool.getMapper().readValue(batchParser, Batch.class);
+    }
+  }
+}
@@ -0,0 +1,210 @@
+package org.folio.service.transactions.batch;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import lombok.extern.log4j.Log4j2;
+import org.folio.rest.core.model.RequestContext;
+import org.folio.rest.exception.HttpException;
+import org.folio.rest.jaxrs.model.Batch;
+import org.folio.rest.persist.DBClient;
+import org.folio.rest.persist.DBClientFactory;
+import org.folio.rest.persist.DBConn;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static io.vertx.core.Future.failedFuture;
+
+/**
+ * Processes batches sent as a stream, with one batch per line (NDJSON). Each batch is processed as soon as
+ * it has been read, so that a stream of any size can be processed without keeping it in memory.
+ * All the batches of a stream are processed in order in the same database transaction: either all of them
+ * are applied, or none of them.
+ * <p>
+ * The batches are read faster than they are processed when the client sends the stream faster than the database
+ * applies it: the stream is rejected when too many batches are waiting, so that they do not fill the memory.
+ * A stream that receives no chunk for some time is aborted, so that its transaction does not keep its connection
+ * and its locks when the client goes away without ending it.
+ */
+@Log4j2
+public class BatchStreamService {
+
+  private final DBClientFactory dbClientFactory;
+  private final BatchTransactionService batchTransactionService;
+  private final int maxOperationsPerBatch;
+  private final int maxPendingBatches;
+  private final long idleTimeoutMs;
+  private final Map<String, BatchStream> streams = new ConcurrentHashMap<>();
+
+  /**
+   * @param maxOperationsPerBatch maximum number of operations in a batch of the stream
+   * @param maxPendingBatches maximum number of batches of a stream read but not processed yet
+   * @param idleTimeoutMs time without any chunk after which a stream is aborted
+   */
+  public BatchStreamService(DBClientFactory dbClientFactory, BatchTransactionService batchTransactionService,
+                            int maxOperationsPerBatch, int maxPendingBatches, long idleTimeoutMs) {
+    if (maxPendingBatches < 1 || idleTimeoutMs < 1) {
+      throw new IllegalArgumentException("The maximum number of pending batches and the idle timeout must be positive");
+    }
+    this.dbClientFactory = dbClientFactory;
+    this.batchTransactionService = batchTransactionService;
+    this.maxOperationsPerBatch = maxOperationsPerBatch;
+    this.maxPendingBatches = maxPendingBatches;
+    this.idleTimeoutMs = idleTimeoutMs;
+  }
+
+  /**
+   * Reads a chunk of a stream, and queues the batches it completes for processing.
+   */
+  public void processChunk(String streamId, byte[] chunk, RequestContext requestContext) {
+    BatchStream stream = streams.computeIfAbsent(streamId, id -> new BatchStream(id, requestContext));
+    stream.restartIdleTimer();
+    if (stream.hasFailed()) {
+      return;
+    }
+    try {
+      stream.reader.feed(chunk).forEach(stream::process);
+    } catch (Exception e) {
+      stream.fail(e);
+    }
+  }
+
+  /**
+   * Reads the last chunk of a stream.
+   *
+   * @return a future completed when all the batches have been processed and the transaction has been committed
+   */
+  public Future<Void> completeStream(String streamId, byte[] lastChunk, RequestContext requestContext) {
+    BatchStream stream = streams.computeIfAbsent(streamId, id -> new BatchStream(id, requestContext));
+    streams.remove(streamId);
+    stream.cancelIdleTimer();
+    if (!stream.hasFailed()) {
+      try {
+        stream.reader.feed(lastChunk).forEach(stream::process);
+        stream.reader.endOfInput().forEach(stream::process);
+        if (stream.batchCount == 0) {
+          throw new HttpException(400, "The stream does not contain any batch.");
+        }
+      } catch (Exception e) {
+        stream.fail(e);
+      }
+    }
+    stream.end();
+    return stream.transaction
+      .onSuccess(v -> log.info("completeStream:: Successfully processed {} batches from the stream", stream.batchCount));
+  }
+
+  /**
+   * Rolls back the transaction of a stream that was interrupted.
+   */
+  public void abortStream(String streamId) {
+    BatchStream stream = streams.remove(streamId);
+    if (stream != null) {
+      log.warn("abortStream:: The batch stream was aborted after {} batches", stream.batchCount);
+      stream.cancelIdleTimer();
+      stream.fail(new HttpException(400, "The batch stream was aborted."));
+      stream.end();
+    }
+  }
+
+  private class BatchStream {
+    private final String streamId;
+    private final BatchStreamReader reader = new BatchStreamReader();
+    private final Vertx vertx;
+    private final Map<String, String> okapiHeaders;
+    private final Promise<DBConn> connPromise = Promise.promise();
+    private final Promise<Void> endPromise = Promise.promise();
+    private final Future<Void> transaction;
+    private Future<Void> processing;
+    private boolean inputRejected;
+    private boolean idle;
+    private int batchCount;
+    private int pendingBatches;
+    private long idleTimerId = -1;
+
+    private BatchStream(String streamId, RequestContext requestContext) {
+      this.streamId = streamId;
+      okapiHeaders = requestContext.getHeaders();
+      processing = connPromise.future().mapEmpty();
+      DBClient client = dbClientFactory.getDbClient(requestContext);
+      vertx = client.getVertx();
+      transaction = client.withTrans(conn -> {
+        connPromise.complete(conn);
+        return endPromise.future();
+      });
+      // the function above is not called when no connection could be obtained
+      transaction.onFailure(connPromise::tryFail);
+    }
+
+    private void process(Batch batch) {
+      int index = batchCount++;
+      int operations = batch.getTransactionsToCreate().size() + batch.getTransactionsToUpdate().size() +
+        batch.getIdsOfTransactionsToDelete().size() + batch.getTransactionPatches().size();
+      if (operations > maxOperationsPerBatch) {
+        throw new HttpException(400, String.format("Batch %d of the stream has %d operations, the maximum is %d.",
+          index + 1, operations, maxOperationsPerBatch));
+      }
+      if (pendingBatches >= maxPendingBatches) {
+        throw new HttpException(429, String.format("Batch %d of the stream was received while %d batches were "
+          + "waiting to be processed; the stream must be sent more slowly.", index + 1, pendingBatches));
+      }
+      pendingBatches++;
+      processing = processing.compose(v -> batchTransactionService.processBatch(batch, connPromise.future().result(),
+          okapiHeaders)
+        .onComplete(ar -> pendingBatches--)
+        .onFailure(t -> log.warn("process:: Batch {} of the stream failed, the transaction will be rolled back",
+          index + 1)));
+    }
+
+    private void restartIdleTimer() {
+      cancelIdleTimer();
+      idleTimerId = vertx.setTimer(idleTimeoutMs, id -> onIdleTimeout());
+    }
+
+    private void cancelIdleTimer() {
+      if (idleTimerId != -1) {
+        vertx.cancelTimer(idleTimerId);
+        idleTimerId = -1;
+      }
+    }
+
+    /**
+     * The transaction is rolled back at the first timeout; the stream is kept during another timeout so that
+     * the chunks still sent by the client are not read as the beginning of a new stream.
+     */
+    private void onIdleTimeout() {
+      idleTimerId = -1;
+      if (idle) {
+        streams.remove(streamId, this);
+        return;
+      }
+      log.warn("onIdleTimeout:: No chunk of the batch stream was received for {} ms, aborting it after {} batches",
+        idleTimeoutMs, batchCount);
+      idle = true;
+      fail(new HttpException(408, String.format("No chunk of the batch stream was received for %d ms.",
+        idleTimeoutMs)));
+      end();
+      idleTimerId = vertx.setTimer(idleTimeoutMs, id -> onIdleTimeout());
+    }
+
+    private boolean hasFailed() {
+      return inputRejected || processing.failed();
+    }
+
+    private void fail(Throwable cause) {
+      inputRejected = true;
+      processing = processing.compose(v -> failedFuture(cause));
+    }
+
+    private void end() {
+      processing.onComplete(ar -> {
+        if (ar.succeeded()) {
+          endPromise.tryComplete();
+        } else {
+          endPromise.tryFail(ar.cause());
+        }
+      });
+    }
+  }
+}
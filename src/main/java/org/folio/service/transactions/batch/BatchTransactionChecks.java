@@ -11,7 +11,7 @@ import org.folio.rest.jaxrs.model.Encumbrance;
 import org.folio.rest.jaxrs.model.Error;
 import org.folio.rest.jaxrs.model.Parameter;
 import org.folio.rest.jaxrs.model.Transaction;
-import org.folio.rest.persist.CriterionBuilder;
+import org.folio.rest.jaxrs.model.TransactionPatch;
 import org.folio.rest.persist.DBConn;
 import org.javamoney.moneta.Money;
 
@@ -23,6 +23,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static io.vertx.core.Future.succeededFuture;
 import static org.folio.rest.jaxrs.model.Budget.BudgetStatus.ACTIVE;
@@ -61,6 +62,7 @@ public class BatchTransactionChecks {
     checkSingleUpdates(batch.getTransactionsToCreate(), "create");
     checkSingleUpdates(batch.getTransactionsToUpdate(), "update");
     checkTransactionsToUpdateHaveMetadata(batch.getTransactionsToUpdate());
+    checkPatches(batch);
     batch.getTransactionsToCreate()
       .forEach(transaction -> {
         if (transaction.getTransactionType() == ALLOCATION) {
@@ -90,18 +92,7 @@ public class BatchTransactionChecks {
     if (transactionsToDelete.isEmpty()) {
       return succeededFuture();
     }
-    // NOTE: for the following checks we can't throw an exception because it would prevent the encumbrance script
-    // from working, so instead we just log a warning.
-    // Also in the future we could support auto-releasing encumbrances to delete, but this would not work well
-    // when there are duplicate encumbrances (released/unreleased), so we don't do it yet.
-    // Also note that the check for connected invoices is also done in mod-finance, and it throws an exception there
-    // (the encumbrance script is using mod-finance-storage directly).
-    transactionsToDelete.forEach(tr -> {
-      if (!((tr.getTransactionType() == ENCUMBRANCE && tr.getEncumbrance().getStatus() == Encumbrance.Status.RELEASED) ||
-          tr.getTransactionType() == PENDING_PAYMENT)) {
-        logger.warn("A transaction to delete is not a released encumbrance or a pending payment, id={}", tr.getId());
-      }
-    });
+    checkTransactionTypesToDelete(transactionsToDelete);
     List<String> idsOfEncumbrancesToDelete = transactionsToDelete.stream()
       .filter(tr -> tr.getTransactionType() == ENCUMBRANCE)
       .map(Transaction::getId)
@@ -109,17 +100,24 @@ public class BatchTransactionChecks {
     if (idsOfEncumbrancesToDelete.isEmpty()) {
       return succeededFuture(null);
     }
-    CriterionBuilder criterionBuilder = new CriterionBuilder("OR");
-    idsOfEncumbrancesToDelete.forEach(id -> criterionBuilder.withJson("awaitingPayment.encumbranceId", "=", id));
-    return transactionDAO.getTransactionsByCriterion(criterionBuilder.build(), conn)
+    return transactionDAO.getTransactionsByFieldValues("awaitingPayment.encumbranceId", idsOfEncumbrancesToDelete,
+      Map.of(), conn)
       .map(pendingPayments -> {
-        if (!pendingPayments.isEmpty()) {
-          logger.warn("An invoice is connected to an encumbrance to delete, id={}", pendingPayments.get(0).getId());
-        }
+        checkConnectedPendingPayments(pendingPayments.stream().map(Transaction::getId).toList());
         return null;
       });
   }
 
+  /**
+   * Same as {@link #checkTransactionsToDelete(List, BatchTransactionDAO, DBConn)}, using the ids of pending payments
+   * connected to the encumbrances to delete that were already loaded.
+   */
+  public static void checkTransactionsToDelete(List<Transaction> transactionsToDelete,
+      List<String> idsOfConnectedPendingPayments) {
+    checkTransactionTypesToDelete(transactionsToDelete);
+    checkConnectedPendingPayments(idsOfConnectedPendingPayments);
+  }
+
   public static void checkExistingTransactionsConsistency(List<Transaction> allTransactionsToCreate,
       List<Transaction> allTransactionsToUpdate, Map<String, Transaction>  existingTransactionMap) {
     allTransactionsToCreate.forEach(tr -> {
@@ -150,6 +148,27 @@ public class BatchTransactionChecks {
     });
   }
 
+  private static void checkTransactionTypesToDelete(List<Transaction> transactionsToDelete) {
+    // NOTE: for the following checks we can't throw an exception because it would prevent the encumbrance script
+    // from working, so instead we just log a warning.
+    // Also in the future we could support auto-releasing encumbrances to delete, but this would not work well
+    // when there are duplicate encumbrances (released/unreleased), so we don't do it yet.
+    // Also note that the check for connected invoices is also done in mod-finance, and it throws an exception there
+    // (the encumbrance script is using mod-finance-storage directly).
+    transactionsToDelete.forEach(tr -> {
+      if (!((tr.getTransactionType() == ENCUMBRANCE && tr.getEncumbrance().getStatus() == Encumbrance.Status.RELEASED) ||
+          tr.getTransactionType() == PENDING_PAYMENT)) {
+        logger.warn("A transaction to delete is not a released encumbrance or a pending payment, id={}", tr.getId());
+      }
+    });
+  }
+
+  private static void checkConnectedPendingPayments(List<String> idsOfConnectedPendingPayments) {
+    if (!idsOfConnectedPendingPayments.isEmpty()) {
+      logger.warn("An invoice is connected to an encumbrance to delete, id={}", idsOfConnectedPendingPayments.get(0));
+    }
+  }
+
   private static void checkIdIsPresent(List<Transaction> transactions, String operation) {
     for (Transaction transaction : transactions) {
       if (transaction.getId() == null) {
@@ -178,6 +197,27 @@ public class BatchTransactionChecks {
     }
   }
 
+  private static void checkPatches(Batch batch) {
+    if (batch.getTransactionPatches().isEmpty()) {
+      return;
+    }
+    List<String> ids = batch.getTransactionPatches().stream().map(TransactionPatch::getId).toList();
+    Set<String> duplicates = ids.stream().filter(id -> Collections.frequency(ids, id) > 1).collect(Collectors.toSet());
+    if (!duplicates.isEmpty()) {
+      throw new HttpException(400,
+        String.format("At least one transaction is present twice in transaction patches, duplicates: %s", duplicates));
+    }
+    Set<String> idsOfOtherOperations = Stream.concat(
+        batch.getTransactionsToUpdate().stream().map(Transaction::getId),
+        batch.getIdsOfTransactionsToDelete().stream())
+      .collect(Collectors.toSet());
+    List<String> conflictingIds = ids.stream().filter(idsOfOtherOperations::contains).toList();
+    if (!conflictingIds.isEmpty()) {
+      throw new HttpException(400, String.format(
+        "A transaction cannot be patched and updated or deleted in the same batch, ids: %s", conflictingIds));
+    }
+  }
+
   private static void checkTransactionsToUpdateHaveMetadata(List<Transaction> transactions) {
     transactions.forEach(tr -> {
       if (tr.getMetadata() == null) {
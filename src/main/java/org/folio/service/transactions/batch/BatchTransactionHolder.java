@@ -3,6 +3,8 @@ package org.folio.service.transactions.batch;
 import io.vertx.core.Future;
 import lombok.extern.log4j.Log4j2;
 import org.apache.commons.collections4.CollectionUtils;
+import org.folio.dao.budget.BudgetDelta;
+import org.folio.dao.transactions.BatchTransactionContextQuery;
 import org.folio.dao.transactions.BatchTransactionDAO;
 import org.folio.rest.exception.HttpException;
 import org.folio.rest.jaxrs.model.Batch;
@@ -13,13 +15,12 @@ import org.folio.rest.jaxrs.model.Ledger;
 import org.folio.rest.jaxrs.model.Parameter;
 import org.folio.rest.jaxrs.model.Transaction;
 import org.folio.rest.jaxrs.model.TransactionPatch;
-import org.folio.rest.persist.Criteria.Criteria;
-import org.folio.rest.persist.Criteria.Criterion;
-import org.folio.rest.persist.Criteria.GroupedCriterias;
 import org.folio.rest.persist.DBConn;
 import org.folio.service.budget.BudgetService;
+import org.folio.service.fund.FundLedgerCache;
 import org.folio.service.fund.FundService;
 import org.folio.service.ledger.LedgerService;
+import org.folio.service.transactions.batch.BatchMetrics.BatchTimer;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -31,6 +32,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -58,6 +60,10 @@ public class BatchTransactionHolder {
   private final FundService fundService;
   private final BudgetService budgetService;
   private final LedgerService ledgerService;
+  private final boolean loadWithBatchContextFunction;
+  private final BatchTimer timer;
+  private final FundLedgerCache fundLedgerCache;
+  private boolean lockBudgets;
 
   private List<Transaction> allTransactionsToCreate;
   private List<Transaction> allTransactionsToUpdate;
@@ -77,37 +83,74 @@ public class BatchTransactionHolder {
   private Map<String, Boolean> budgetIdToRestrictedExpenditures;
   private Map<String, Boolean> budgetIdToRestrictedEncumbrance;
   private Map<String, Transaction> existingTransactionMap;
+  // Indexes built once per batch, so that the strategies do not search the lists for every transaction
+  private Map<String, Transaction> transactionToUpdateMap;
+  private Map<String, Transaction> linkedEncumbranceMap;
+  private Map<String, Fund> fundMap;
+  private Map<FundFiscalYearKey, Budget> budgetMap;
+  private Map<String, Budget> loadedBudgetAmounts;
+
+  private record FundFiscalYearKey(String fundId, String fiscalYearId) { }
 
   public BatchTransactionHolder(BatchTransactionDAO transactionDAO, FundService fundService, BudgetService budgetService,
       LedgerService ledgerService) {
+    this(transactionDAO, fundService, budgetService, ledgerService, false, BatchMetrics.noTimer(),
+      FundLedgerCache.disabled());
+  }
+
+  /**
+   * @param loadWithBatchContextFunction if true, setup loads all the data with a single call to the
+   *                                     batch_transaction_context database function, instead of separate queries
+   * @param timer times the loads done by setup
+   * @param fundLedgerCache cache used to get the funds and ledgers, when they are not loaded by
+   *                        the batch_transaction_context function
+   */
+  public BatchTransactionHolder(BatchTransactionDAO transactionDAO, FundService fundService, BudgetService budgetService,
+      LedgerService ledgerService, boolean loadWithBatchContextFunction, BatchTimer timer,
+      FundLedgerCache fundLedgerCache) {
     this.transactionDAO = transactionDAO;
     this.fundService = fundService;
     this.budgetService = budgetService;
     this.ledgerService = ledgerService;
+    this.loadWithBatchContextFunction = loadWithBatchContextFunction;
+    this.timer = timer;
+    this.fundLedgerCache = fundLedgerCache;
   }
 
   public Future<Void> setup(Batch batch, DBConn conn) {
+    return setup(batch, conn, true);
+  }
+
+  /**
+   * @param lockBudgets if false, the budgets are read without being locked, and the batch_transaction_context
+   *                    function is not used; the changes computed with them must not be saved
+   */
+  public Future<Void> setup(Batch batch, DBConn conn, boolean lockBudgets) {
+    this.lockBudgets = lockBudgets;
     allTransactionsToCreate = batch.getTransactionsToCreate();
     allTransactionsToUpdate = new ArrayList<>(batch.getTransactionsToUpdate());
+    transactionToUpdateMap = allTransactionsToUpdate.stream()
+      .collect(toMap(Transaction::getId, Function.identity(), (tr1, tr2) -> tr1, HashMap::new));
     allTransactionPatches = new ArrayList<>(batch.getTransactionPatches());
     idsOfTransactionsToDelete = new HashSet<>(batch.getIdsOfTransactionsToDelete());
     allTransactionsToCreateOrUpdate = Stream.concat(allTransactionsToCreate.stream(), allTransactionsToUpdate.stream())
       .collect(toCollection(ArrayList::new));
 
-    return loadTransactionsToDelete(conn)
-      .compose(transactionsToDelete -> BatchTransactionChecks.checkTransactionsToDelete(transactionsToDelete, transactionDAO, conn))
-      .compose(v -> loadExistingTransactions(conn))
-      .compose(v -> loadLinkedPendingPayments(conn))
-      .compose(v -> loadLinkedPayments(idsOfTransactionsToDelete, conn))
-      .compose(v -> loadLinkedEncumbrances(conn))
+    if (loadWithBatchContextFunction && lockBudgets) {
+      return timer.time("load.batchContext", () -> loadBatchContext(conn));
+    }
+    // Loads are issued in 3 stages, following their data dependencies. Queries within a stage are sent together
+    // (they are pipelined on the connection), and their results are merged in a fixed order afterward,
+    // so that the first error reported is the same as if the queries had been run one after the other.
+    return timer.time("load.independentData", () -> loadIndependentData(conn))
+      .compose(v -> timer.time("load.linkedEncumbrances", () -> loadLinkedEncumbrances(conn)))
       .map(v -> {
         setAllTransactions();
         return null;
       })
-      .compose(v -> loadFunds(conn))
-      .compose(v -> loadBudgets(conn))
-      .compose(v -> loadLedgers(conn))
+      .compose(v -> timer.time("load.fundsBudgetsAndLedgers", () -> loadFundsBudgetsAndLedgers(conn)))
       .map(v -> {
+        buildFundAndBudgetMaps();
         buildOverspendMaps();
         return null;
       });
@@ -145,8 +188,34 @@ public class BatchTransactionHolder {
     return allBudgets;
   }
 
+  /**
+   * Returns the changes made to the amounts of the budgets since they were loaded, without the budgets
+   * whose amounts did not change.
+   */
+  public List<BudgetDelta> getBudgetDeltas() {
+    return allBudgets.stream()
+      .map(budget -> BudgetDelta.between(loadedBudgetAmounts.get(budget.getId()), budget))
+      .filter(delta -> !delta.isEmpty())
+      .toList();
+  }
+
+  /**
+   * Returns the budget for the given fund and fiscal year, or null if it was not loaded.
+   */
+  public Budget getBudget(String fundId, String fiscalYearId) {
+    return budgetMap.get(new FundFiscalYearKey(fundId, fiscalYearId));
+  }
+
   public Map<String, Transaction> getLinkedEncumbranceMap() {
-    return linkedEncumbrances.stream().collect(toMap(Transaction::getId, Function.identity()));
+    return linkedEncumbranceMap;
+  }
+
+  /**
+   * Returns the transaction with the given id if it is part of the transactions to update, including the ones
+   * added during processing with {@link #addTransactionToUpdate(Transaction, Transaction)}; null otherwise.
+   */
+  public Transaction getTransactionToUpdate(String id) {
+    return transactionToUpdateMap.get(id);
   }
 
   public List<Transaction> getLinkedPendingPayments() {
@@ -168,6 +237,7 @@ public class BatchTransactionHolder {
   public void addTransactionToUpdate(Transaction transactionToUpdate, Transaction existingTransaction) {
     transactionToUpdate.getMetadata().setUpdatedDate(new Date());
     allTransactionsToUpdate.add(transactionToUpdate);
+    transactionToUpdateMap.putIfAbsent(transactionToUpdate.getId(), transactionToUpdate);
     allTransactionsToCreateOrUpdate.add(transactionToUpdate);
     existingTransactions.add(existingTransaction);
     existingTransactionMap.put(existingTransaction.getId(), existingTransaction);
@@ -179,128 +249,208 @@ public class BatchTransactionHolder {
 
   public String getFundCodeForBudget(Budget budget) {
     // NOTE: this is only used for error messages
-    String fundId = budget.getFundId();
-    return allFunds.stream()
-      .filter(f -> f.getId().equals(fundId))
-      .findFirst()
-      .map(Fund::getCode)
-      .orElse(String.format("Could not find fund code for budget %s", budget.getId()));
+    Fund fund = fundMap.get(budget.getFundId());
+    return fund != null ? fund.getCode() : String.format("Could not find fund code for budget %s", budget.getId());
   }
 
   public String getCurrency() {
     return allTransactions.getFirst().getCurrency();
   }
 
+  private Future<Void> loadBatchContext(DBConn conn) {
+    // Everything is loaded with a single call to the batch_transaction_context database function,
+    // the checks done on the results are the same as when the data is loaded with separate queries.
+    List<Transaction> paymentsAndCreditsToCreate = allTransactionsToCreate.stream()
+      .filter(tr -> List.of(PAYMENT, CREDIT).contains(tr.getTransactionType()))
+      .toList();
+    List<String> fiscalYearIds = new ArrayList<>();
+    List<String> fundIds = new ArrayList<>();
+    allTransactionsToCreateOrUpdate.forEach(tr -> Stream.of(tr.getFromFundId(), tr.getToFundId())
+      .filter(Objects::nonNull)
+      .forEach(fundId -> {
+        fiscalYearIds.add(tr.getFiscalYearId());
+        fundIds.add(fundId);
+      }));
+    BatchTransactionContextQuery query = new BatchTransactionContextQuery(
+      allTransactionsToCreateOrUpdate.stream().map(Transaction::getId).toList(),
+      new ArrayList<>(idsOfTransactionsToDelete),
+      paymentsAndCreditsToCreate.stream().map(Transaction::getSourceInvoiceId).distinct().toList(),
+      getLinkedEncumbranceIds(allTransactionsToCreateOrUpdate.stream()),
+      fiscalYearIds,
+      fundIds);
+    return transactionDAO.getBatchTransactionContext(query, conn)
+      .map(context -> {
+        if (idsOfTransactionsToDelete.isEmpty()) {
+          transactionsToCancelAndDelete = new ArrayList<>();
+        } else {
+          setTransactionsToDelete(context.transactionsToDelete());
+          BatchTransactionChecks.checkTransactionsToDelete(transactionsToCancelAndDelete,
+            context.pendingPaymentIdsForEncumbrancesToDelete());
+        }
+        setExistingTransactions(context.existingTransactions());
+        setLinkedPendingPayments(context.linkedPendingPayments());
+        setLinkedPayments(context.linkedPayments());
+        List<String> linkedEncumbranceIds = getLinkedEncumbranceIds(Stream.of(
+            allTransactionsToCreateOrUpdate.stream(),
+            transactionsToCancelAndDelete.stream(),
+            linkedPayments.stream()
+          )
+          .flatMap(Function.identity()));
+        setLinkedEncumbrances(linkedEncumbranceIds, context.linkedEncumbrances());
+        setAllTransactions();
+        budgetService.checkAllBudgetsWereFound(getFiscalYearIdToFundIds(), context.budgets());
+        allFunds = context.funds();
+        allBudgets = context.budgets();
+        allLedgers = context.ledgers();
+        buildFundAndBudgetMaps();
+        buildOverspendMaps();
+        return null;
+      });
+  }
+
+  private Future<Void> loadIndependentData(DBConn conn) {
+    // These only depend on the batch content
+    Future<List<Transaction>> transactionsToDeleteFuture = deferred(() -> loadTransactionsToDelete(conn)
+      .compose(transactionsToDelete -> BatchTransactionChecks.checkTransactionsToDelete(transactionsToDelete, transactionDAO, conn)
+        .map(v -> transactionsToDelete)));
+    Future<List<Transaction>> existingTransactionsFuture = deferred(() -> fetchExistingTransactions(conn));
+    Future<List<Transaction>> linkedPendingPaymentsFuture = deferred(() -> fetchLinkedPendingPayments(conn));
+    Future<List<Transaction>> linkedPaymentsFuture = deferred(() -> fetchLinkedPayments(idsOfTransactionsToDelete, conn));
+    return Future.join(transactionsToDeleteFuture, existingTransactionsFuture, linkedPendingPaymentsFuture, linkedPaymentsFuture)
+      .transform(ar -> transactionsToDeleteFuture
+        .compose(v -> existingTransactionsFuture.map(this::setExistingTransactions))
+        .compose(v -> linkedPendingPaymentsFuture.map(this::setLinkedPendingPayments))
+        .compose(v -> linkedPaymentsFuture.map(this::setLinkedPayments)));
+  }
+
+  private Future<Void> loadFundsBudgetsAndLedgers(DBConn conn) {
+    // Budgets do not depend on funds, ledgers do
+    Future<List<Fund>> fundsFuture = deferred(() -> fetchFunds(conn));
+    Future<List<Budget>> budgetsFuture = deferred(() -> fetchBudgets(conn));
+    Future<List<Ledger>> ledgersFuture = fundsFuture.compose(funds -> fetchLedgers(funds, conn));
+    return Future.join(fundsFuture, budgetsFuture, ledgersFuture)
+      .transform(ar -> fundsFuture
+        .compose(funds -> budgetsFuture)
+        .compose(budgets -> ledgersFuture)
+        .map(ledgers -> {
+          allFunds = fundsFuture.result();
+          allBudgets = budgetsFuture.result();
+          allLedgers = ledgers;
+          return null;
+        }));
+  }
+
   private Future<List<Transaction>> loadTransactionsToDelete(DBConn conn) {
     if (idsOfTransactionsToDelete.isEmpty()) {
       transactionsToCancelAndDelete = new ArrayList<>();
       return succeededFuture(transactionsToCancelAndDelete);
     }
     return transactionDAO.getTransactionsByIds(new ArrayList<>(idsOfTransactionsToDelete), conn)
-      .map(transactions -> {
-        if (transactions.size() != idsOfTransactionsToDelete.size()) {
-          throw new HttpException(400, "One or more transaction to delete was not found");
-        }
-        allTransactionsToDelete = transactions;
-        // Do not process 0-amount encumbrances, just delete them (so no budget activity check is done)
-        transactionsToCancelAndDelete = transactions.stream()
-          .filter(tr -> tr.getTransactionType() != ENCUMBRANCE || tr.getAmount() != 0d)
-          .toList();
-        return transactionsToCancelAndDelete;
-      });
+      .map(this::setTransactionsToDelete);
   }
 
-  private Future<Void> loadExistingTransactions(DBConn conn) {
+  private List<Transaction> setTransactionsToDelete(List<Transaction> transactions) {
+    if (transactions.size() != idsOfTransactionsToDelete.size()) {
+      throw new HttpException(400, "One or more transaction to delete was not found");
+    }
+    allTransactionsToDelete = transactions;
+    // Do not process 0-amount encumbrances, just delete them (so no budget activity check is done)
+    transactionsToCancelAndDelete = transactions.stream()
+      .filter(tr -> tr.getTransactionType() != ENCUMBRANCE || tr.getAmount() != 0d)
+      .toList();
+    return transactionsToCancelAndDelete;
+  }
+
+  private Future<List<Transaction>> fetchExistingTransactions(DBConn conn) {
     List<String> ids = allTransactionsToCreateOrUpdate.stream().map(Transaction::getId).toList();
-    return transactionDAO.getTransactionsByIds(ids, conn)
-      .map(transactions -> {
-        existingTransactions = new ArrayList<>();
-        existingTransactions.addAll(transactions);
-        // avoid duplicates in existingTransactions in case a transaction was sent for both update and delete
-        existingTransactionMap = existingTransactions.stream().collect(Collectors.toMap(Transaction::getId, Function.identity()));
-        existingTransactions.addAll(transactionsToCancelAndDelete.stream()
-          .filter(tr -> !existingTransactionMap.containsKey(tr.getId()))
-          .toList());
-        existingTransactionMap = existingTransactions.stream().collect(Collectors.toMap(Transaction::getId, Function.identity()));
-        BatchTransactionChecks.checkExistingTransactionsConsistency(allTransactionsToCreate, allTransactionsToUpdate, existingTransactionMap);
-        return null;
-      });
+    return transactionDAO.getTransactionsByIds(ids, conn);
+  }
+
+  private Void setExistingTransactions(List<Transaction> transactions) {
+    existingTransactions = new ArrayList<>();
+    existingTransactions.addAll(transactions);
+    // avoid duplicates in existingTransactions in case a transaction was sent for both update and delete
+    existingTransactionMap = existingTransactions.stream().collect(Collectors.toMap(Transaction::getId, Function.identity()));
+    existingTransactions.addAll(transactionsToCancelAndDelete.stream()
+      .filter(tr -> !existingTransactionMap.containsKey(tr.getId()))
+      .toList());
+    existingTransactionMap = existingTransactions.stream().collect(Collectors.toMap(Transaction::getId, Function.identity()));
+    BatchTransactionChecks.checkExistingTransactionsConsistency(allTransactionsToCreate, allTransactionsToUpdate, existingTransactionMap);
+    return null;
   }
 
-  private Future<Void> loadLinkedPendingPayments(DBConn conn) {
+  private Future<List<Transaction>> fetchLinkedPendingPayments(DBConn conn) {
     List<String> invoiceIds = allTransactionsToCreate.stream()
       .filter(tr -> List.of(PAYMENT, CREDIT).contains(tr.getTransactionType()))
       .map(Transaction::getSourceInvoiceId)
       .distinct()
       .toList();
     if (invoiceIds.isEmpty()) {
-      linkedPendingPayments = new ArrayList<>();
-      return succeededFuture();
+      return succeededFuture(new ArrayList<>());
     }
-    Criteria primaryCriteria = new Criteria()
-      .addField("'" + TRANSACTION_TYPE + "'")
-      .setOperation("=")
-      .setVal(PENDING_PAYMENT.value());
-    GroupedCriterias secondaryCriteria = new GroupedCriterias();
-    invoiceIds.forEach(id -> {
-      Criteria field = new Criteria()
-        .addField("'" + SOURCE_INVOICE_ID + "'")
-        .setOperation("=")
-        .setVal(id);
-      secondaryCriteria.addCriteria(field, "OR");
+    return transactionDAO.getTransactionsByFieldValues(SOURCE_INVOICE_ID, invoiceIds,
+      Map.of(TRANSACTION_TYPE, PENDING_PAYMENT.value()), conn);
+  }
+
+  private Void setLinkedPendingPayments(List<Transaction> transactions) {
+    linkedPendingPayments = transactions;
+    transactions.forEach(tr -> {
+      if (!existingTransactionMap.containsKey(tr.getId())) {
+        existingTransactions.add(tr);
+        existingTransactionMap.put(tr.getId(), tr);
+      }
     });
-    Criterion criterion = new Criterion();
-    criterion.addCriterion(primaryCriteria);
-    criterion.addGroupOfCriterias(secondaryCriteria);
-    return transactionDAO.getTransactionsByCriterion(criterion, conn)
-      .map(transactions -> {
-        linkedPendingPayments = transactions;
-        transactions.forEach(tr -> {
-          if (!existingTransactionMap.containsKey(tr.getId())) {
-            existingTransactions.add(tr);
-            existingTransactionMap.put(tr.getId(), tr);
-          }
-        });
-        return null;
-      });
+    return null;
   }
 
-  private Future<Void> loadLinkedPayments(Set<String> transactionsToDelete, DBConn conn) {
+  private Future<List<Transaction>> fetchLinkedPayments(Set<String> transactionsToDelete, DBConn conn) {
     if (CollectionUtils.isEmpty(transactionsToDelete)) {
-      linkedPayments = new ArrayList<>();
-      return succeededFuture();
+      return succeededFuture(new ArrayList<>());
     }
-    Criteria primaryCriteria = new Criteria()
-      .addField("'" + TRANSACTION_TYPE + "'")
-      .setOperation("=")
-      .setVal(PAYMENT.value());
-    GroupedCriterias secondaryCriteria = new GroupedCriterias();
-    transactionsToDelete.forEach(id -> {
-      Criteria criteria = new Criteria()
-        .addField("'" + PAYMENT_ENCUMBRANCE_ID + "'")
-        .setOperation("=")
-        .setVal(id);
-      secondaryCriteria.addCriteria(criteria, "OR");
-    });
-    Criterion criterion = new Criterion();
-    criterion.addCriterion(primaryCriteria);
-    criterion.addGroupOfCriterias(secondaryCriteria);
-    return transactionDAO.getTransactionsByCriterion(criterion, conn)
-      .map(transactions -> {
-        linkedPayments = transactions;
-        return null;
-      });
+    return transactionDAO.getTransactionsByFieldValues(PAYMENT_ENCUMBRANCE_ID, new ArrayList<>(transactionsToDelete),
+      Map.of(TRANSACTION_TYPE, PAYMENT.value()), conn);
+  }
+
+  private Void setLinkedPayments(List<Transaction> transactions) {
+    linkedPayments = transactions;
+    return null;
   }
 
   private Future<Void> loadLinkedEncumbrances(DBConn conn) {
-    List<Transaction> transactionsToCreateUpdateOrDelete = Stream.of(
+    List<String> ids = getLinkedEncumbranceIds(Stream.of(
         allTransactionsToCreateOrUpdate.stream(),
         transactionsToCancelAndDelete.stream(),
         linkedPayments.stream()
       )
-      .flatMap(Function.identity())
-      .toList();
-    List<String> ids = transactionsToCreateUpdateOrDelete.stream()
+      .flatMap(Function.identity()));
+    log.info("loadLinkedEncumbrances:: Ids: {}", ids);
+    return transactionDAO.getTransactionsByIds(ids, conn)
+      .map(transactions -> setLinkedEncumbrances(ids, transactions));
+  }
+
+  private Void setLinkedEncumbrances(List<String> ids, List<Transaction> transactions) {
+    if (transactions.size() != ids.size()) {
+      List<String> missingIds = ids.stream()
+        .filter(id -> transactions.stream().noneMatch(tr -> id.equals(tr.getId())))
+        .toList();
+      Error error = LINKED_ENCUMBRANCES_NOT_FOUND.toError();
+      Parameter idsParam = new Parameter().withKey("ids").withValue(missingIds.toString());
+      error.setParameters(List.of(idsParam));
+      throw new HttpException(400, error);
+    }
+    linkedEncumbrances = transactions;
+    linkedEncumbranceMap = transactions.stream().collect(toMap(Transaction::getId, Function.identity()));
+    transactions.forEach(tr -> {
+      if (!existingTransactionMap.containsKey(tr.getId())) {
+        existingTransactions.add(tr);
+        existingTransactionMap.put(tr.getId(), tr);
+      }
+    });
+    return null;
+  }
+
+  private static List<String> getLinkedEncumbranceIds(Stream<Transaction> transactions) {
+    return transactions
       .map(tr -> {
         if (List.of(PAYMENT, CREDIT).contains(tr.getTransactionType())) {
           return tr.getPaymentEncumbranceId();
@@ -313,27 +463,6 @@ public class BatchTransactionHolder {
       .filter(Objects::nonNull)
       .distinct()
       .toList();
-    log.info("loadLinkedEncumbrances:: Ids: {}", ids);
-    return transactionDAO.getTransactionsByIds(ids, conn)
-      .map(transactions -> {
-        if (transactions.size() != ids.size()) {
-          List<String> missingIds = ids.stream()
-            .filter(id -> transactions.stream().noneMatch(tr -> id.equals(tr.getId())))
-            .toList();
-          Error error = LINKED_ENCUMBRANCES_NOT_FOUND.toError();
-          Parameter idsParam = new Parameter().withKey("ids").withValue(missingIds.toString());
-          error.setParameters(List.of(idsParam));
-          throw new HttpException(400, error);
-        }
-        linkedEncumbrances = transactions;
-        transactions.forEach(tr -> {
-          if (!existingTransactionMap.containsKey(tr.getId())) {
-            existingTransactions.add(tr);
-            existingTransactionMap.put(tr.getId(), tr);
-          }
-        });
-        return null;
-      });
   }
 
   private void setAllTransactions() {
@@ -342,7 +471,7 @@ public class BatchTransactionHolder {
       .toList();
   }
 
-  private Future<Void> loadFunds(DBConn conn) {
+  private Future<List<Fund>> fetchFunds(DBConn conn) {
     List<String> fundIds = allTransactions.stream()
       .map(tr -> {
         ArrayList<String> list = new ArrayList<>();
@@ -355,45 +484,57 @@ public class BatchTransactionHolder {
       .distinct()
       .toList();
     if (fundIds.isEmpty()) {
-      allFunds = emptyList();
-      return succeededFuture();
+      return succeededFuture(emptyList());
     }
-    return fundService.getFundsByIds(fundIds, conn)
-      .map(funds -> {
-        allFunds = funds;
-        return null;
-      });
+    return fundLedgerCache.getFunds(conn.getTenantId(), fundIds, ids -> fundService.getFundsByIds(ids, conn));
   }
 
-  private Future<Void> loadBudgets(DBConn conn) {
-    Map<String, Set<String>> fiscalYearIdToFundIds = allTransactions.stream().collect(groupingBy(Transaction::getFiscalYearId,
-      flatMapping(tr -> Stream.of(tr.getFromFundId(), tr.getToFundId()).filter(Objects::nonNull), toSet())));
+  private Future<List<Budget>> fetchBudgets(DBConn conn) {
+    Map<String, Set<String>> fiscalYearIdToFundIds = getFiscalYearIdToFundIds();
     if (fiscalYearIdToFundIds.isEmpty()) {
-      allBudgets = emptyList();
-      return succeededFuture();
+      return succeededFuture(emptyList());
     }
-    return budgetService.getBudgetsByFiscalYearIdsAndFundIdsForUpdate(fiscalYearIdToFundIds, conn)
-      .map(budgets -> {
-        allBudgets = budgets;
-        return null;
-      });
+    if (!lockBudgets) {
+      return budgetService.getBudgetsByFiscalYearIdsAndFundIds(fiscalYearIdToFundIds, conn);
+    }
+    return budgetService.getBudgetsByFiscalYearIdsAndFundIdsForUpdate(fiscalYearIdToFundIds, conn);
+  }
+
+  private Map<String, Set<String>> getFiscalYearIdToFundIds() {
+    return allTransactions.stream().collect(groupingBy(Transaction::getFiscalYearId,
+      flatMapping(tr -> Stream.of(tr.getFromFundId(), tr.getToFundId()).filter(Objects::nonNull), toSet())));
   }
 
-  private Future<Void> loadLedgers(DBConn conn) {
-    List<String> ledgerIds = allFunds.stream().map(Fund::getLedgerId).distinct().toList();
+  private Future<List<Ledger>> fetchLedgers(List<Fund> funds, DBConn conn) {
+    List<String> ledgerIds = funds.stream().map(Fund::getLedgerId).distinct().toList();
     if (ledgerIds.isEmpty()) {
-      allLedgers = emptyList();
-      return succeededFuture();
+      return succeededFuture(emptyList());
     }
-    return ledgerService.getLedgersByIds(ledgerIds, conn)
-      .map(ledgers -> {
-        allLedgers = ledgers;
-        return null;
-      });
+    return fundLedgerCache.getLedgers(conn.getTenantId(), ledgerIds, ids -> ledgerService.getLedgersByIds(ids, conn));
+  }
+
+  private void buildFundAndBudgetMaps() {
+    fundMap = allFunds.stream().collect(Collectors.toMap(Fund::getId, Function.identity()));
+    budgetMap = allBudgets.stream()
+      .collect(Collectors.toMap(b -> new FundFiscalYearKey(b.getFundId(), b.getFiscalYearId()), Function.identity()));
+    loadedBudgetAmounts = allBudgets.stream()
+      .collect(Collectors.toMap(Budget::getId, BatchTransactionHolder::copyAmounts));
+  }
+
+  private static Budget copyAmounts(Budget budget) {
+    return new Budget()
+      .withId(budget.getId())
+      .withInitialAllocation(budget.getInitialAllocation())
+      .withAllocationTo(budget.getAllocationTo())
+      .withAllocationFrom(budget.getAllocationFrom())
+      .withNetTransfers(budget.getNetTransfers())
+      .withEncumbered(budget.getEncumbered())
+      .withAwaitingPayment(budget.getAwaitingPayment())
+      .withExpenditures(budget.getExpenditures())
+      .withCredits(budget.getCredits());
   }
 
   private void buildOverspendMaps() {
-    Map<String, Fund> fundMap = allFunds.stream().collect(Collectors.toMap(Fund::getId, Function.identity()));
     Map<String, Ledger> ledgerMap = allLedgers.stream().collect(Collectors.toMap(Ledger::getId, Function.identity()));
     budgetIdToRestrictedExpenditures = new HashMap<>();
     budgetIdToRestrictedEncumbrance = new HashMap<>();
@@ -404,4 +545,9 @@ public class BatchTransactionHolder {
       budgetIdToRestrictedEncumbrance.put(b.getId(), l.getRestrictEncumbrance() && b.getAllowableEncumbrance() != null);
     }
   }
+
+  private static <T> Future<T> deferred(Supplier<Future<T>> load) {
+    // Turns an exception thrown while starting a load into a failed future, so it is reported in order with the others
+    return succeededFuture().compose(v -> load.get());
+  }
 }
@@ -0,0 +1,110 @@
+package org.folio.service.transactions.batch;
+
+import io.vertx.core.json.JsonObject;
+import org.folio.rest.exception.HttpException;
+import org.folio.rest.jaxrs.model.Transaction;
+import org.folio.rest.jaxrs.model.TransactionPatch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Helpers for the transaction patches of a batch. Patches are JSON merge patches (RFC 7396): fields set to null
+ * are removed, objects are merged recursively, and other values replace the existing ones.
+ */
+public class BatchTransactionPatches {
+
+  // Fields that never change budget amounts; patches only changing these are applied without reading the transactions
+  private static final Set<String> BUDGET_NEUTRAL_FIELDS = Set.of(
+    "description",
+    "tags",
+    "encumbrance.orderStatus",
+    "encumbrance.orderType",
+    "encumbrance.reEncumber",
+    "encumbrance.subscription");
+
+  private BatchTransactionPatches() {
+  }
+
+  /**
+   * Returns true if the patch only changes fields that do not affect budgets.
+   */
+  public static boolean isBudgetNeutral(TransactionPatch patch) {
+    List<String> paths = new ArrayList<>();
+    collectPaths("", patch.getAdditionalProperties(), paths);
+    return !paths.isEmpty() && paths.stream().allMatch(BUDGET_NEUTRAL_FIELDS::contains);
+  }
+
+  /**
+   * Returns a new transaction with the patch applied to the existing one.
+   */
+  public static Transaction applyPatch(Transaction existing, TransactionPatch patch) {
+    JsonObject patched = mergePatch(JsonObject.mapFrom(existing), new JsonObject(patch.getAdditionalProperties()));
+    try {
+      return patched.mapTo(Transaction.class);
+    } catch (IllegalArgumentException e) {
+      throw new HttpException(400, String.format("Invalid patch for transaction %s: %s", patch.getId(), e.getMessage()));
+    }
+  }
+
+  /**
+   * Checks that the values of a budget-neutral patch can be mapped to the transaction model, and returns the patch
+   * with the values as the model stores them, so that the patch does not store invalid values without reading
+   * the transaction.
+   */
+  public static TransactionPatch checkBudgetNeutralPatch(TransactionPatch patch) {
+    JsonObject mapped = JsonObject.mapFrom(applyPatch(new Transaction(), patch));
+    TransactionPatch checkedPatch = new TransactionPatch().withId(patch.getId());
+    toModelValues(new JsonObject(patch.getAdditionalProperties()), mapped)
+      .forEach(entry -> checkedPatch.withAdditionalProperty(entry.getKey(), entry.getValue()));
+    return checkedPatch;
+  }
+
+  private static JsonObject toModelValues(JsonObject patch, JsonObject mapped) {
+    JsonObject result = new JsonObject();
+    patch.forEach(entry -> {
+      Object value = entry.getValue();
+      if (value == null) {
+        result.putNull(entry.getKey());
+      } else if (value instanceof JsonObject patchObject && mapped.getValue(entry.getKey()) instanceof JsonObject object) {
+        result.put(entry.getKey(), toModelValues(patchObject, object));
+      } else {
+        result.put(entry.getKey(), mapped.getValue(entry.getKey()));
+      }
+    });
+    return result;
+  }
+
+  static JsonObject mergePatch(JsonObject target, JsonObject patch) {
+    JsonObject result = target.copy();
+    patch.forEach(entry -> {
+      Object value = entry.getValue();
+      if (value == null) {
+        result.remove(entry.getKey());
+      } else if (value instanceof JsonObject patchObject) {
+        JsonObject targetObject = result.getValue(entry.getKey()) instanceof JsonObject existing ? existing
+          : new JsonObject();
+        result.put(entry.getKey(), mergePatch(targetObject, patchObject));
+      } else {
+        result.put(entry.getKey(), value);
+      }
+    });
+    return result;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void collectPaths(String prefix, Map<String, Object> patch, List<String> paths) {
+    patch.forEach((key, value) -> {
+      String path = prefix + key;
+      if (value instanceof Map<?, ?> map && !BUDGET_NEUTRAL_FIELDS.contains(path)) {
+        collectPaths(path + ".", (Map<String, Object>) map, paths);
+      } else if (value instanceof JsonObject jsonObject && !BUDGET_NEUTRAL_FIELDS.contains(path)) {
+        collectPaths(path + ".", jsonObject.getMap(), paths);
+      } else {
+        paths.add(path);
+      }
+    });
+  }
+}
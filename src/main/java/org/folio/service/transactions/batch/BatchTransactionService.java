@@ -1,17 +1,19 @@
 package org.folio.service.transactions.batch;
 
 import io.vertx.core.Future;
-import io.vertx.core.json.Json;
-import io.vertx.core.json.JsonObject;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.folio.dao.budget.BudgetDelta;
 import org.folio.dao.transactions.BatchTransactionDAO;
 import org.folio.rest.core.model.RequestContext;
 import org.folio.rest.exception.HttpException;
 import org.folio.rest.jaxrs.model.Batch;
+import org.folio.rest.jaxrs.model.BatchValidationResult;
 import org.folio.rest.jaxrs.model.Budget;
+import org.folio.rest.jaxrs.model.BudgetChange;
+import org.folio.rest.jaxrs.model.Encumbrance;
 import org.folio.rest.jaxrs.model.Metadata;
 import org.folio.rest.jaxrs.model.Transaction;
 import org.folio.rest.jaxrs.model.Transaction.TransactionType;
@@ -22,15 +24,26 @@ import org.folio.rest.persist.DBConn;
 import org.folio.service.budget.BudgetService;
 import org.folio.service.fund.FundService;
 import org.folio.service.ledger.LedgerService;
+import org.folio.service.transactions.batch.BatchCoalescer.CoalescedBatch;
+import org.folio.service.transactions.batch.BatchMetrics.BatchTimer;
+import org.folio.utils.ModelCopyUtils;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.EnumMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static io.vertx.core.Future.succeededFuture;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toMap;
 import static org.folio.rest.jaxrs.model.Transaction.TransactionType.ALLOCATION;
 import static org.folio.rest.jaxrs.model.Transaction.TransactionType.CREDIT;
 import static org.folio.rest.jaxrs.model.Transaction.TransactionType.ENCUMBRANCE;
@@ -51,10 +64,19 @@ public class BatchTransactionService {
   private final BudgetService budgetService;
   private final LedgerService ledgerService;
   private final Map<TransactionType, BatchTransactionServiceInterface> serviceMap;
+  private final BatchTransactionSettings settings;
 
   public BatchTransactionService(DBClientFactory dbClientFactory, BatchTransactionDAO transactionDAO,
                                  FundService fundService, BudgetService budgetService, LedgerService ledgerService,
                                  Set<BatchTransactionServiceInterface> batchTransactionStrategies) {
+    this(dbClientFactory, transactionDAO, fundService, budgetService, ledgerService, batchTransactionStrategies,
+      BatchTransactionSettings.defaults());
+  }
+
+  public BatchTransactionService(DBClientFactory dbClientFactory, BatchTransactionDAO transactionDAO,
+                                 FundService fundService, BudgetService budgetService, LedgerService ledgerService,
+                                 Set<BatchTransactionServiceInterface> batchTransactionStrategies,
+                                 BatchTransactionSettings settings) {
     this.dbClientFactory = dbClientFactory;
     this.transactionDAO = transactionDAO;
     this.fundService = fundService;
@@ -63,61 +85,258 @@ public class BatchTransactionService {
     serviceMap = new EnumMap<>(TransactionType.class);
     batchTransactionStrategies.forEach(
       strategy -> serviceMap.put(strategy.getTransactionType(), strategy));
+    this.settings = settings;
   }
 
   public Future<Void> processBatch(Batch batch, RequestContext requestContext) {
     DBClient client = dbClientFactory.getDbClient(requestContext);
-    return client.withTrans(conn -> processBatch(batch, conn, requestContext.getHeaders()));
+    BatchIdempotency idempotency = settings.idempotency();
+    String idempotencyKey = idempotency == null ? null : BatchIdempotency.getKey(requestContext.getHeaders());
+    if (idempotencyKey == null) {
+      return processNewBatch(client, batch, requestContext.getHeaders(), null);
+    }
+    String payloadHash = BatchIdempotency.hashPayload(batch);
+    try {
+      if (idempotency.isCommittedReplay(client.getTenantId(), idempotencyKey, payloadHash)) {
+        return succeededFuture();
+      }
+    } catch (HttpException e) {
+      return Future.failedFuture(e);
+    }
+    return processNewBatch(client, batch, requestContext.getHeaders(), payloadHash)
+      .onSuccess(v -> idempotency.rememberCommitted(client.getTenantId(), idempotencyKey, payloadHash));
+  }
+
+  private Future<Void> processNewBatch(DBClient client, Batch batch, Map<String, String> okapiHeaders,
+      String payloadHash) {
+    if (settings.coalescer() != null) {
+      return settings.coalescer().submit(client, batch, okapiHeaders, payloadHash, this::processCoalescedBatches);
+    }
+    return runAdmitted(client, getBudgetKeys(batch),
+      () -> client.withTrans(conn -> processBatchOnce(batch, conn, okapiHeaders, payloadHash)));
+  }
+
+  /**
+   * Processes the batch, unless it has an idempotency key that was already used in a committed transaction.
+   *
+   * @param payloadHash hash of the batch computed when it was received, null if it has no idempotency key
+   */
+  private Future<Void> processBatchOnce(Batch batch, DBConn conn, Map<String, String> okapiHeaders,
+      String payloadHash) {
+    BatchIdempotency idempotency = settings.idempotency();
+    String idempotencyKey = idempotency == null ? null : BatchIdempotency.getKey(okapiHeaders);
+    if (idempotencyKey == null) {
+      return processBatch(batch, conn, okapiHeaders);
+    }
+    return idempotency.runOnce(idempotencyKey, payloadHash, conn, () -> processBatch(batch, conn, okapiHeaders));
   }
 
   public Future<Void> processBatch(Batch batch, DBConn conn, Map<String, String> okapiHeaders) {
+    BatchTimer timer = settings.metrics().startBatch(conn.getTenantId(), batch);
     populateMetadata(batch, okapiHeaders);
     try {
-      BatchTransactionChecks.sanityChecks(batch);
+      timer.timeSync("sanityChecks", () -> {
+        BatchTransactionChecks.sanityChecks(batch);
+        return null;
+      });
     } catch (Exception ex) {
-      logger.error("Sanity checks before processing batch transactions failed, batch={}", Json.encode(batch), ex);
+      logger.error("Sanity checks before processing batch transactions failed, batch={}",
+        BatchDiagnostics.summarize(batch), ex);
+      BatchDiagnostics.dump("Batch that failed the sanity checks", batch);
       return Future.failedFuture(ex);
     }
-    BatchTransactionHolder holder = new BatchTransactionHolder(transactionDAO, fundService, budgetService, ledgerService);
-    return holder.setup(batch, conn)
-      .map(v -> {
-        BatchTransactionChecks.checkBudgetsAreActive(holder);
-        prepareCreatingTransactions(holder);
-        prepareDeletingTransactions(holder, okapiHeaders);
-        prepareUpdatingTransactions(holder);
-        preparePatchingTransactions(holder);
-        BatchTransactionChecks.checkRestrictedBudgets(holder);
+    BatchTransactionHolder holder = new BatchTransactionHolder(transactionDAO, fundService, budgetService, ledgerService,
+      settings.loadWithBatchContextFunction(), timer, settings.fundLedgerCache());
+    return timer.time("resolvePatches", () -> resolvePatches(batch, conn, okapiHeaders))
+      .compose(v -> timer.time("setup", () -> holder.setup(batch, conn)))
+      .map(v -> timer.timeSync("prepare", () -> {
+        prepareChanges(holder, okapiHeaders);
         return null;
-      })
-      .compose(v -> applyChanges(holder, conn))
+      }))
+      .compose(v -> applyChanges(holder, conn, okapiHeaders, timer))
       .onSuccess(v -> logger.info("All batch transaction operations were successful."))
-      .onFailure(t -> logger.error("Error when batch processing transactions, batch={}",
-        Json.encode(batch), t));
+      .onFailure(t -> {
+        logger.error("Error when batch processing transactions, batch={}", BatchDiagnostics.summarize(batch), t);
+        BatchDiagnostics.dump("Batch that failed", batch);
+      });
+  }
+
+  /**
+   * Runs the same checks and computations as {@link #processBatch(Batch, RequestContext)}, in a read-only
+   * transaction and without locking the budgets. Nothing is saved.
+   * Violations of the batch rules are returned in the result; other errors fail the returned future.
+   */
+  public Future<BatchValidationResult> validateBatch(Batch batch, RequestContext requestContext) {
+    DBClient client = dbClientFactory.getDbClient(requestContext);
+    return client.withReadOnlyTrans(conn -> validateBatch(batch, conn, requestContext.getHeaders()));
+  }
+
+  private Future<BatchValidationResult> validateBatch(Batch batch, DBConn conn, Map<String, String> okapiHeaders) {
+    populateMetadata(batch, okapiHeaders);
+    BatchTransactionHolder holder = new BatchTransactionHolder(transactionDAO, fundService, budgetService, ledgerService,
+      false, BatchMetrics.noTimer(), settings.fundLedgerCache());
+    return succeededFuture()
+      .compose(v -> {
+        BatchTransactionChecks.sanityChecks(batch);
+        return resolvePatches(batch, conn, okapiHeaders);
+      })
+      .compose(v -> holder.setup(batch, conn, false))
+      .map(v -> {
+        prepareChanges(holder, okapiHeaders);
+        return new BatchValidationResult()
+          .withValid(true)
+          .withBudgetChanges(getBudgetChanges(holder));
+      })
+      .recover(t -> {
+        if (t instanceof HttpException httpException && httpException.getCode() < 500) {
+          logger.info("validateBatch:: The batch is not valid, batch={}", BatchDiagnostics.summarize(batch));
+          return succeededFuture(new BatchValidationResult()
+            .withValid(false)
+            .withErrors(httpException.getErrors()));
+        }
+        logger.error("Error when validating batch transactions, batch={}", BatchDiagnostics.summarize(batch), t);
+        return Future.failedFuture(t);
+      });
+  }
+
+  private void prepareChanges(BatchTransactionHolder holder, Map<String, String> okapiHeaders) {
+    BatchTransactionChecks.checkBudgetsAreActive(holder);
+    prepareCreatingTransactions(holder);
+    prepareDeletingTransactions(holder, okapiHeaders);
+    prepareUpdatingTransactions(holder);
+    BatchTransactionChecks.checkRestrictedBudgets(holder);
+  }
+
+  private List<BudgetChange> getBudgetChanges(BatchTransactionHolder holder) {
+    Map<String, BudgetDelta> deltas = holder.getBudgetDeltas().stream()
+      .collect(toMap(BudgetDelta::id, identity()));
+    return holder.getBudgets().stream()
+      .map(budget -> {
+        BudgetDelta delta = deltas.getOrDefault(budget.getId(), BudgetDelta.between(budget, budget));
+        return new BudgetChange()
+          .withBudgetId(budget.getId())
+          .withFundId(budget.getFundId())
+          .withFiscalYearId(budget.getFiscalYearId())
+          .withInitialAllocation(delta.initialAllocation().doubleValue())
+          .withAllocationTo(delta.allocationTo().doubleValue())
+          .withAllocationFrom(delta.allocationFrom().doubleValue())
+          .withNetTransfers(delta.netTransfers().doubleValue())
+          .withEncumbered(delta.encumbered().doubleValue())
+          .withAwaitingPayment(delta.awaitingPayment().doubleValue())
+          .withExpenditures(delta.expenditures().doubleValue())
+          .withCredits(delta.credits().doubleValue());
+      })
+      .toList();
+  }
+
+  private <T> Future<T> runAdmitted(DBClient client, Set<String> budgetKeys, Supplier<Future<T>> task) {
+    if (settings.admissionControl() == null) {
+      return task.get();
+    }
+    long start = System.nanoTime();
+    return settings.admissionControl().runAdmitted(client.getVertx(), client.getTenantId(), budgetKeys, () -> {
+      settings.metrics().recordAdmissionWait(client.getTenantId(), System.nanoTime() - start);
+      return task.get();
+    });
+  }
+
+  /**
+   * Processes coalesced batches one after the other in a single database transaction. Each batch is processed
+   * inside a savepoint, so that a batch that fails is rolled back without affecting the others.
+   * The batches are completed once the transaction is committed.
+   */
+  private Future<Void> processCoalescedBatches(DBClient client, List<CoalescedBatch> batches) {
+    if (batches.size() == 1) {
+      CoalescedBatch single = batches.getFirst();
+      return runAdmitted(client, getBudgetKeys(single.batch()),
+          () -> client.withTrans(conn -> processBatchOnce(single.batch(), conn, single.okapiHeaders(),
+            single.payloadHash())))
+        .onSuccess(v -> single.promise().complete());
+    }
+    Set<String> budgetKeys = new HashSet<>();
+    batches.forEach(b -> budgetKeys.addAll(getBudgetKeys(b.batch())));
+    Throwable[] failures = new Throwable[batches.size()];
+    return runAdmitted(client, budgetKeys, () -> client.withTrans(conn -> {
+        Future<Void> future = succeededFuture();
+        for (int i = 0; i < batches.size(); i++) {
+          int index = i;
+          future = future.compose(v -> processInSavepoint(batches.get(index), index, conn, failures));
+        }
+        return future;
+      }))
+      .onSuccess(v -> {
+        long failed = Arrays.stream(failures).filter(Objects::nonNull).count();
+        logger.info("Batch transactions: processed {} coalesced batches in one transaction, {} failed",
+          batches.size(), failed);
+        for (int i = 0; i < batches.size(); i++) {
+          if (failures[i] == null) {
+            batches.get(i).promise().complete();
+          } else {
+            batches.get(i).promise().fail(failures[i]);
+          }
+        }
+      });
+  }
+
+  private Future<Void> processInSavepoint(CoalescedBatch coalescedBatch, int index, DBConn conn, Throwable[] failures) {
+    String savepoint = "coalesced_batch_" + index;
+    return conn.execute("SAVEPOINT " + savepoint)
+      .compose(v -> processBatchOnce(coalescedBatch.batch(), conn, coalescedBatch.okapiHeaders(),
+          coalescedBatch.payloadHash())
+        .compose(v2 -> conn.execute("RELEASE SAVEPOINT " + savepoint))
+        .<Void>mapEmpty()
+        .recover(t -> {
+          failures[index] = t;
+          return conn.execute("ROLLBACK TO SAVEPOINT " + savepoint).mapEmpty();
+        }));
+  }
+
+  /**
+   * Returns keys for the budgets that can be found from the batch itself. Budgets only used by transactions
+   * to delete or to patch are not included, they are still protected by the database locks.
+   */
+  private Set<String> getBudgetKeys(Batch batch) {
+    Set<String> keys = new HashSet<>();
+    Stream.concat(batch.getTransactionsToCreate().stream(), batch.getTransactionsToUpdate().stream())
+      .forEach(tr -> {
+        if (tr.getFromFundId() != null) {
+          keys.add(tr.getFromFundId() + "/" + tr.getFiscalYearId());
+        }
+        if (tr.getToFundId() != null) {
+          keys.add(tr.getToFundId() + "/" + tr.getFiscalYearId());
+        }
+      });
+    return keys;
   }
 
   private void populateMetadata(Batch batch, Map<String, String> okapiHeaders) {
     Metadata newMd = generateMetadata(okapiHeaders);
     for (Transaction tr : batch.getTransactionsToCreate()) {
       if (tr.getMetadata() == null) {
-        tr.setMetadata(JsonObject.mapFrom(newMd).mapTo(Metadata.class));
+        tr.setMetadata(ModelCopyUtils.deepCopy(newMd));
       }
     }
     for (Transaction tr : batch.getTransactionsToUpdate()) {
-      Metadata md = Optional.ofNullable(tr.getMetadata()).orElseGet(Metadata::new);
-      md.setUpdatedDate(newMd.getUpdatedDate());
-      md.setUpdatedByUserId(newMd.getUpdatedByUserId());
-      tr.setMetadata(md);
+      setUpdateMetadata(tr, newMd);
     }
   }
 
+  private void setUpdateMetadata(Transaction tr, Metadata newMd) {
+    Metadata md = Optional.ofNullable(tr.getMetadata()).orElseGet(Metadata::new);
+    md.setUpdatedDate(newMd.getUpdatedDate());
+    md.setUpdatedByUserId(newMd.getUpdatedByUserId());
+    tr.setMetadata(md);
+  }
+
   private void prepareCreatingTransactions(BatchTransactionHolder holder) {
     if (holder.getAllTransactionsToCreate().isEmpty()) {
       return;
     }
     try {
       int totalPrepared = 0;
+      Map<TransactionType, List<Transaction>> transactionsByType = groupByType(holder.getAllTransactionsToCreate());
       for (TransactionType trType : transactionTypesInOrder) {
-        List<Transaction> transactionsForType = getByType(trType, holder.getAllTransactionsToCreate());
+        List<Transaction> transactionsForType = transactionsByType.getOrDefault(trType, List.of());
         if (!transactionsForType.isEmpty()) {
           getBatchServiceForType(trType).prepareCreatingTransactions(transactionsForType, holder);
           totalPrepared += transactionsForType.size();
@@ -154,12 +373,66 @@ public class BatchTransactionService {
     }
   }
 
-  private void preparePatchingTransactions(BatchTransactionHolder holder) {
-    List<TransactionPatch> transactionPatches = holder.getAllTransactionPatches();
-    if (transactionPatches.isEmpty()) {
-      return;
+  /**
+   * Applies the patches of transactions created in the same batch to these transactions. Then turns the patches that
+   * can change budget amounts into transactions to update, so that their effects are computed like for the other
+   * updates. The remaining patches are checked and stay in the batch, they are applied without reading the
+   * transactions. The sanity checks have already rejected several patches of a transaction, and patches of
+   * transactions updated or deleted in the batch.
+   */
+  private Future<Void> resolvePatches(Batch batch, DBConn conn, Map<String, String> okapiHeaders) {
+    List<TransactionPatch> patches = new ArrayList<>();
+    for (TransactionPatch patch : batch.getTransactionPatches()) {
+      if (!patchTransactionToCreate(batch, patch)) {
+        patches.add(patch);
+      }
     }
-    throw new HttpException(500, "transactionPatches: not implemented");
+    List<TransactionPatch> patchesToResolve = patches.stream()
+      .filter(patch -> !BatchTransactionPatches.isBudgetNeutral(patch))
+      .toList();
+    batch.setTransactionPatches(patches.stream()
+      .filter(BatchTransactionPatches::isBudgetNeutral)
+      .map(BatchTransactionPatches::checkBudgetNeutralPatch)
+      .toList());
+    if (patchesToResolve.isEmpty()) {
+      return succeededFuture();
+    }
+    List<String> ids = patchesToResolve.stream().map(TransactionPatch::getId).toList();
+    return transactionDAO.getTransactionsByIds(ids, conn)
+      .map(existingTransactions -> {
+        Map<String, Transaction> existingTransactionMap = existingTransactions.stream()
+          .collect(toMap(Transaction::getId, identity()));
+        Metadata newMd = generateMetadata(okapiHeaders);
+        List<Transaction> transactionsToUpdate = new ArrayList<>(batch.getTransactionsToUpdate());
+        for (TransactionPatch patch : patchesToResolve) {
+          Transaction existing = existingTransactionMap.get(patch.getId());
+          if (existing == null) {
+            throw new HttpException(400, String.format("A transaction to patch does not exist: %s", patch.getId()));
+          }
+          Transaction patched = BatchTransactionPatches.applyPatch(existing, patch);
+          setUpdateMetadata(patched, newMd);
+          transactionsToUpdate.add(patched);
+        }
+        batch.setTransactionsToUpdate(transactionsToUpdate);
+        logger.info("resolvePatches:: {} patches will be processed as updates", patchesToResolve.size());
+        return null;
+      });
+  }
+
+  /**
+   * Applies the patch to the transaction to create with the same id, if there is one.
+   */
+  private boolean patchTransactionToCreate(Batch batch, TransactionPatch patch) {
+    List<Transaction> transactions = batch.getTransactionsToCreate();
+    for (int i = 0; i < transactions.size(); i++) {
+      if (patch.getId().equals(transactions.get(i).getId())) {
+        List<Transaction> patchedTransactions = new ArrayList<>(transactions);
+        patchedTransactions.set(i, BatchTransactionPatches.applyPatch(transactions.get(i), patch));
+        batch.setTransactionsToCreate(patchedTransactions);
+        return true;
+      }
+    }
+    return false;
   }
 
   private void prepareDeletingTransactions(BatchTransactionHolder holder, Map<String, String> okapiHeaders) {
@@ -191,11 +464,13 @@ public class BatchTransactionService {
     }
   }
 
-  private Future<Void> applyChanges(BatchTransactionHolder holder, DBConn conn) {
-    return createTransactions(holder, conn)
-      .compose(v -> updateTransactions(holder, conn))
-      .compose(v -> deleteTransactions(holder, conn))
-      .compose(v -> updateBudgets(holder, conn));
+  private Future<Void> applyChanges(BatchTransactionHolder holder, DBConn conn, Map<String, String> okapiHeaders,
+      BatchTimer timer) {
+    return timer.time("apply.create", () -> createTransactions(holder, conn))
+      .compose(v -> timer.time("apply.update", () -> updateTransactions(holder, conn)))
+      .compose(v -> timer.time("apply.patch", () -> patchTransactions(holder, conn, okapiHeaders)))
+      .compose(v -> timer.time("apply.delete", () -> deleteTransactions(holder, conn)))
+      .compose(v -> timer.time("apply.budgets", () -> updateBudgets(holder, conn)));
   }
 
   private Future<Void> createTransactions(BatchTransactionHolder holder, DBConn conn) {
@@ -222,6 +497,15 @@ public class BatchTransactionService {
         getTransactionIds(transactions), t));
   }
 
+  private Future<Void> patchTransactions(BatchTransactionHolder holder, DBConn conn, Map<String, String> okapiHeaders) {
+    List<TransactionPatch> patches = holder.getAllTransactionPatches();
+    if (patches.isEmpty()) {
+      return succeededFuture();
+    }
+    return transactionDAO.patchTransactions(patches, generateMetadata(okapiHeaders), conn)
+      .onSuccess(v -> logger.info("Batch transactions: successfully patched {} transactions", patches.size()));
+  }
+
   private List<String> getTransactionIds(List<Transaction> transactions) {
     return transactions.stream().filter(Objects::nonNull).map(Transaction::getId).filter(Objects::nonNull).toList();
   }
@@ -233,19 +517,23 @@ public class BatchTransactionService {
     if (CollectionUtils.isEmpty(payments) || CollectionUtils.isEmpty(createTransactions) || CollectionUtils.isEmpty(deletingTransactions)) {
       return;
     }
+    // Index old and new encumbrances so that each payment is resolved without scanning the batch
+    Map<String, Transaction> oldEncumbranceMap = deletingTransactions.stream()
+      .filter(Objects::nonNull)
+      .filter(tr -> tr.getTransactionType() == ENCUMBRANCE && tr.getId() != null && tr.getEncumbrance() != null)
+      .collect(toMap(Transaction::getId, identity(), (tr1, tr2) -> tr1));
+    Map<AnalogousEncumbranceKey, List<Transaction>> newEncumbrancesByKey = createTransactions.stream()
+      .filter(Objects::nonNull)
+      .filter(tr -> tr.getEncumbrance() != null && tr.getId() != null)
+      .collect(groupingBy(AnalogousEncumbranceKey::of));
     payments.forEach(payment -> {
-      var oldEncumbrance = deletingTransactions.stream()
-        .filter(Objects::nonNull)
-        .filter(tr -> tr.getTransactionType() == ENCUMBRANCE)
-        .filter(tr -> StringUtils.equals(payment.getPaymentEncumbranceId(), tr.getId()))
-        .findFirst().orElse(null);
+      var oldEncumbrance = payment.getPaymentEncumbranceId() == null ? null
+        : oldEncumbranceMap.get(payment.getPaymentEncumbranceId());
       Transaction newEncumbrance = null;
       if (Objects.nonNull(oldEncumbrance)) {
         logger.info("relinkPaymentsIfNeeded:: Old encumbrance id={}, from fund id={}", oldEncumbrance.getId(), oldEncumbrance.getFromFundId());
-        newEncumbrance = createTransactions.stream()
-          .filter(Objects::nonNull)
+        newEncumbrance = newEncumbrancesByKey.getOrDefault(AnalogousEncumbranceKey.of(oldEncumbrance), List.of()).stream()
           .filter(tr -> isValidAnalogousEncumbrance(tr, oldEncumbrance))
-          .filter(tr -> Objects.nonNull(tr.getId()))
           .findFirst().orElse(null);
       }
       if (Objects.nonNull(newEncumbrance)) {
@@ -258,6 +546,17 @@ public class BatchTransactionService {
     });
   }
 
+  /**
+   * Fields that must be equal in an encumbrance replacing an old one after a fund change.
+   */
+  private record AnalogousEncumbranceKey(String fiscalYearId, String sourcePoLineId, Double amount,
+      Encumbrance.Status status) {
+    static AnalogousEncumbranceKey of(Transaction encumbrance) {
+      return new AnalogousEncumbranceKey(encumbrance.getFiscalYearId(), encumbrance.getEncumbrance().getSourcePoLineId(),
+        encumbrance.getAmount(), encumbrance.getEncumbrance().getStatus());
+    }
+  }
+
   private boolean isValidAnalogousEncumbrance(Transaction tr, Transaction oldEncumbrance) {
     return !StringUtils.equals(tr.getFromFundId(), oldEncumbrance.getFromFundId())
       && StringUtils.equals(tr.getFiscalYearId(), oldEncumbrance.getFiscalYearId())
@@ -281,13 +580,35 @@ public class BatchTransactionService {
     if (budgets.isEmpty()) {
       return succeededFuture();
     }
+    if (settings.updateBudgetsWithDeltas()) {
+      List<BudgetDelta> deltas = holder.getBudgetDeltas();
+      if (deltas.isEmpty()) {
+        return succeededFuture();
+      }
+      return budgetService.updateBudgetsWithDeltas(deltas, conn)
+        .onSuccess(v -> logger.info("Batch transactions: successfully updated {} budgets with deltas", deltas.size()))
+        .onFailure(t -> {
+          logger.error("Batch transactions: failed to update budgets with deltas, budgets = {}",
+            BatchDiagnostics.summarize(budgets), t);
+          BatchDiagnostics.dump("Budget deltas that failed to be applied", deltas);
+        })
+        .mapEmpty();
+    }
     return budgetService.updateBatchBudgets(budgets, conn, true)
       .onSuccess(v -> logger.info("Batch transactions: successfully updated {} budgets", budgets.size()))
-      .onFailure(t -> logger.error("Batch transactions: failed to update budgets, budgets = {}",
-        Json.encode(budgets), t))
+      .onFailure(t -> {
+        logger.error("Batch transactions: failed to update budgets, budgets = {}", BatchDiagnostics.summarize(budgets), t);
+        BatchDiagnostics.dump("Budgets that failed to be updated", budgets);
+      })
       .mapEmpty();
   }
 
+  private Map<TransactionType, List<Transaction>> groupByType(List<Transaction> transactions) {
+    // credits are processed with payments
+    return transactions.stream()
+      .collect(groupingBy(tr -> tr.getTransactionType() == CREDIT ? PAYMENT : tr.getTransactionType()));
+  }
+
   private List<Transaction> getByType(TransactionType trType, List<Transaction> transactions) {
     return transactions.stream()
       .filter(tr -> tr.getTransactionType() == trType || (tr.getTransactionType() == CREDIT && trType == PAYMENT))
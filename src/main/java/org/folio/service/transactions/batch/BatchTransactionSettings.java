@@ -0,0 +1,66 @@
+package org.folio.service.transactions.batch;
+
+import org.folio.service.fund.FundLedgerCache;
+
+/**
+ * Optional behaviors of {@link BatchTransactionService}, all disabled by default. The settings are created with
+ * {@link #defaults()} and the {@code with} methods, each returning a copy with one setting changed.
+ *
+ * @param loadWithBatchContextFunction if true, the data is loaded with a single call to the
+ *                                     batch_transaction_context database function, instead of separate queries
+ * @param updateBudgetsWithDeltas if true, budgets are updated by adding the changes of their amounts to the stored
+ *                                values with a single statement, instead of rewriting the whole budget documents
+ * @param admissionControl if not null, batches using the same budgets wait for each other before a database
+ *                         connection is used
+ * @param coalescer if not null, batches received at about the same time for a tenant are processed in the same
+ *                  database transaction
+ * @param metrics timers for the processing phases
+ * @param idempotency if not null, batches sent with an Idempotency-Key header are processed at most once
+ * @param fundLedgerCache cache for the funds and ledgers used by the batches
+ */
+public record BatchTransactionSettings(boolean loadWithBatchContextFunction, boolean updateBudgetsWithDeltas,
+                                       BatchAdmissionControl admissionControl, BatchCoalescer coalescer,
+                                       BatchMetrics metrics, BatchIdempotency idempotency,
+                                       FundLedgerCache fundLedgerCache) {
+
+  public static BatchTransactionSettings defaults() {
+    return new BatchTransactionSettings(false, false, null, null, BatchMetrics.disabled(), null,
+      FundLedgerCache.disabled());
+  }
+
+  public BatchTransactionSettings withLoadWithBatchContextFunction(boolean loadWithBatchContextFunction) {
+    return new BatchTransactionSettings(loadWithBatchContextFunction, updateBudgetsWithDeltas, admissionControl,
+      coalescer, metrics, idempotency, fundLedgerCache);
+  }
+
+  public BatchTransactionSettings withUpdateBudgetsWithDeltas(boolean updateBudgetsWithDeltas) {
+    return new BatchTransactionSettings(loadWithBatchContextFunction, updateBudgetsWithDeltas, admissionControl,
+      coalescer, metrics, idempotency, fundLedgerCache);
+  }
+
+  public BatchTransactionSettings withAdmissionControl(BatchAdmissionControl admissionControl) {
+    return new BatchTransactionSettings(loadWithBatchContextFunction, updateBudgetsWithDeltas, admissionControl,
+      coalescer, metrics, idempotency, fundLedgerCache);
+  }
+
+  public BatchTransactionSettings withCoalescer(BatchCoalescer coalescer) {
+    return new BatchTransactionSettings(loadWithBatchContextFunction, updateBudgetsWithDeltas, admissionControl,
+      coalescer, metrics, idempotency, fundLedgerCache);
+  }
+
+  public BatchTransactionSettings withMetrics(BatchMetrics metrics) {
+    return new BatchTransactionSettings(loadWithBatchContextFunction, updateBudgetsWithDeltas, admissionControl,
+      coalescer, metrics, idempotency, fundLedgerCache);
+  }
+
+  public BatchTransactionSettings withIdempotency(BatchIdempotency idempotency) {
+    return new BatchTransactionSettings(loadWithBatchContextFunction, updateBudgetsWithDeltas, admissionControl,
+      coalescer, metrics, idempotency, fundLedgerCache);
+  }
+
+  public BatchTransactionSettings withFundLedgerCache(FundLedgerCache fundLedgerCache) {
+    return new BatchTransactionSettings(loadWithBatchContextFunction, updateBudgetsWithDeltas, admissionControl,
+      coalescer, metrics, idempotency, fundLedgerCache);
+  }
+}
+
@@ -7,7 +7,6 @@ import static org.folio.utils.MoneyUtils.subtractMoney;
 import static org.folio.utils.MoneyUtils.sumMoney;
 
 import java.math.BigDecimal;
-import java.util.Map;
 import java.util.Objects;
 
 import javax.money.CurrencyUnit;
@@ -18,13 +17,7 @@ import org.folio.rest.jaxrs.model.Transaction;
 
 public final class CalculationUtils {
 
-  private static final String ALLOCATED = "allocated";
-  private static final String AVAILABLE = "available";
-  private static final String UNAVAILABLE = "unavailable";
-  private static final String OVER_ENCUMBERED = "overEncumbered";
-  private static final String OVER_EXPENDED = "overExpended";
-  private static final String TOTAL_FUNDING = "totalFunding";
-  private static final String CACHE_BALANCE = "cacheBalance";
+  private static final int NOT_EXACT = Integer.MAX_VALUE;
 
   private CalculationUtils() {}
 
@@ -51,7 +44,7 @@ public final class CalculationUtils {
   }
 
   public static void calculateBudgetSummaryFields(Budget budget) {
-    Map<String, BigDecimal> result = calculate(budget.getInitialAllocation(),
+    BudgetSummary summary = calculate(budget.getInitialAllocation(),
       budget.getAllocationFrom(),
       budget.getAllocationTo(),
       budget.getNetTransfers(),
@@ -61,17 +54,17 @@ public final class CalculationUtils {
       budget.getAwaitingPayment()
     );
 
-    budget.setAllocated(result.get(ALLOCATED).doubleValue());
-    budget.setAvailable(result.get(AVAILABLE).doubleValue());
-    budget.setUnavailable(result.get(UNAVAILABLE).doubleValue());
-    budget.setOverEncumbrance(result.get(OVER_ENCUMBERED).doubleValue());
-    budget.setOverExpended(result.get(OVER_EXPENDED).doubleValue());
-    budget.setTotalFunding(result.get(TOTAL_FUNDING).doubleValue());
-    budget.setCashBalance(result.get(CACHE_BALANCE).doubleValue());
+    budget.setAllocated(summary.allocated());
+    budget.setAvailable(summary.available());
+    budget.setUnavailable(summary.unavailable());
+    budget.setOverEncumbrance(summary.overEncumbered());
+    budget.setOverExpended(summary.overExpended());
+    budget.setTotalFunding(summary.totalFunding());
+    budget.setCashBalance(summary.cashBalance());
   }
 
   public static void calculateBudgetSummaryFields(LedgerFiscalYearRolloverBudget rolloverBudget) {
-    Map<String, BigDecimal> result = calculate(rolloverBudget.getInitialAllocation(),
+    BudgetSummary summary = calculate(rolloverBudget.getInitialAllocation(),
       rolloverBudget.getAllocationFrom(),
       rolloverBudget.getAllocationTo(),
       rolloverBudget.getNetTransfers(),
@@ -81,23 +74,84 @@ public final class CalculationUtils {
       rolloverBudget.getAwaitingPayment()
     );
 
-    rolloverBudget.setAllocated(result.get(ALLOCATED).doubleValue());
-    rolloverBudget.setAvailable(result.get(AVAILABLE).doubleValue());
-    rolloverBudget.setUnavailable(result.get(UNAVAILABLE).doubleValue());
-    rolloverBudget.setOverEncumbrance(result.get(OVER_ENCUMBERED).doubleValue());
-    rolloverBudget.setOverExpended(result.get(OVER_EXPENDED).doubleValue());
-    rolloverBudget.setTotalFunding(result.get(TOTAL_FUNDING).doubleValue());
-    rolloverBudget.setCashBalance(result.get(CACHE_BALANCE).doubleValue());
+    rolloverBudget.setAllocated(summary.allocated());
+    rolloverBudget.setAvailable(summary.available());
+    rolloverBudget.setUnavailable(summary.unavailable());
+    rolloverBudget.setOverEncumbrance(summary.overEncumbered());
+    rolloverBudget.setOverExpended(summary.overExpended());
+    rolloverBudget.setTotalFunding(summary.totalFunding());
+    rolloverBudget.setCashBalance(summary.cashBalance());
   }
 
-  private static Map<String, BigDecimal> calculate(Double dInitialAllocation,
-                                            Double dAllocationFrom,
-                                            Double dAllocationTo,
-                                            Double dNetTransfers,
-                                            Double dCredits,
-                                            Double dExpenditures,
-                                            Double dEncumbered,
-                                            Double dAwaitingPayment) {
+  private record BudgetSummary(double allocated, double available, double unavailable, double overEncumbered,
+                               double overExpended, double totalFunding, double cashBalance) {}
+
+  /**
+   * Amounts are usually stored with a few fraction digits: in this case the summary is computed with minor units
+   * at the largest scale used by the amounts, which gives the same result as BigDecimal without creating any object.
+   */
+  private static BudgetSummary calculate(double initialAllocation,
+                                         double allocationFrom,
+                                         double allocationTo,
+                                         double netTransfers,
+                                         double credits,
+                                         double expenditures,
+                                         double encumbered,
+                                         double awaitingPayment) {
+    int scale = Math.max(
+      Math.max(Math.max(exactScale(initialAllocation), exactScale(allocationFrom)),
+        Math.max(exactScale(allocationTo), exactScale(netTransfers))),
+      Math.max(Math.max(exactScale(credits), exactScale(expenditures)),
+        Math.max(exactScale(encumbered), exactScale(awaitingPayment))));
+    if (scale == NOT_EXACT
+        || !FixedPointMoney.isExact(initialAllocation, scale) || !FixedPointMoney.isExact(allocationFrom, scale)
+        || !FixedPointMoney.isExact(allocationTo, scale) || !FixedPointMoney.isExact(netTransfers, scale)
+        || !FixedPointMoney.isExact(credits, scale) || !FixedPointMoney.isExact(expenditures, scale)
+        || !FixedPointMoney.isExact(encumbered, scale) || !FixedPointMoney.isExact(awaitingPayment, scale)) {
+      return calculateWithBigDecimal(initialAllocation, allocationFrom, allocationTo, netTransfers, credits,
+        expenditures, encumbered, awaitingPayment);
+    }
+    long initialAllocationUnits = FixedPointMoney.toMinorUnits(initialAllocation, scale);
+    long allocationFromUnits = FixedPointMoney.toMinorUnits(allocationFrom, scale);
+    long allocationToUnits = FixedPointMoney.toMinorUnits(allocationTo, scale);
+    long netTransfersUnits = FixedPointMoney.toMinorUnits(netTransfers, scale);
+    long credited = FixedPointMoney.toMinorUnits(credits, scale);
+    long expended = FixedPointMoney.toMinorUnits(expenditures, scale);
+    long encumberedUnits = FixedPointMoney.toMinorUnits(encumbered, scale);
+    long awaitingPaymentUnits = FixedPointMoney.toMinorUnits(awaitingPayment, scale);
+
+    long allocated = initialAllocationUnits + allocationToUnits - allocationFromUnits;
+    long unavailableAmount = encumberedUnits + awaitingPaymentUnits + expended - credited;
+    long unavailable = Math.max(unavailableAmount, 0);
+    long totalFunding = allocated + netTransfersUnits;
+    long cashBalance = totalFunding - expended + credited;
+    long available = totalFunding - unavailableAmount;
+    long overExpended = Math.max(expended - credited + awaitingPaymentUnits - Math.max(totalFunding, 0), 0);
+    long overCommitted = Math.max(unavailable - Math.max(totalFunding, 0), 0);
+    long overEncumbered = overCommitted - overExpended;
+
+    return new BudgetSummary(FixedPointMoney.toDouble(allocated, scale),
+      FixedPointMoney.toDouble(available, scale),
+      FixedPointMoney.toDouble(unavailable, scale),
+      FixedPointMoney.toDouble(overEncumbered, scale),
+      FixedPointMoney.toDouble(overExpended, scale),
+      FixedPointMoney.toDouble(totalFunding, scale),
+      FixedPointMoney.toDouble(cashBalance, scale));
+  }
+
+  private static int exactScale(double amount) {
+    int scale = FixedPointMoney.exactScale(amount);
+    return scale < 0 ? NOT_EXACT : scale;
+  }
+
+  private static BudgetSummary calculateWithBigDecimal(double dInitialAllocation,
+                                                       double dAllocationFrom,
+                                                       double dAllocationTo,
+                                                       double dNetTransfers,
+                                                       double dCredits,
+                                                       double dExpenditures,
+                                                       double dEncumbered,
+                                                       double dAwaitingPayment) {
     BigDecimal initialAllocation = BigDecimal.valueOf(dInitialAllocation);
     BigDecimal allocationFrom = BigDecimal.valueOf(dAllocationFrom);
     BigDecimal allocationTo = BigDecimal.valueOf(dAllocationTo);
@@ -118,12 +172,12 @@ public final class CalculationUtils {
     BigDecimal overCommitted = unavailable.subtract(totalFunding.max(BigDecimal.ZERO)).max(BigDecimal.ZERO);
     BigDecimal overEncumbered = overCommitted.subtract(overExpended);
 
-    return Map.of(ALLOCATED, allocated,
-      UNAVAILABLE, unavailable,
-      TOTAL_FUNDING, totalFunding,
-      CACHE_BALANCE, cashBalance,
-      AVAILABLE, available,
-      OVER_EXPENDED, overExpended,
-      OVER_ENCUMBERED, overEncumbered);
+    return new BudgetSummary(allocated.doubleValue(),
+      available.doubleValue(),
+      unavailable.doubleValue(),
+      overEncumbered.doubleValue(),
+      overExpended.doubleValue(),
+      totalFunding.doubleValue(),
+      cashBalance.doubleValue());
   }
 }
@@ -0,0 +1,163 @@
+package org.folio.utils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import javax.money.CurrencyUnit;
+
+/**
+ * Immutable money amount stored as a number of minor units (e.g. cents), with the scale taken from
+ * the default fraction digits of the currency.
+ * <p>
+ * Addition and subtraction are exact. Conversion from a double is exact with {@link #of(double, CurrencyUnit)}
+ * and uses an explicit rounding mode with {@link #of(double, CurrencyUnit, RoundingMode)}.
+ * Amounts are limited to 15 digits, so that the sum of 2 amounts can always be converted back to
+ * the closest double (and to the same value Moneta would give with its default DECIMAL64 context).
+ */
+public final class FixedPointMoney {
+
+  static final long MAX_MINOR_UNITS = 999_999_999_999_999L;
+  private static final long[] POWERS_OF_TEN = {
+    1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L
+  };
+
+  private final long minorUnits;
+  private final int scale;
+
+  private FixedPointMoney(long minorUnits, int scale) {
+    this.minorUnits = minorUnits;
+    this.scale = scale;
+  }
+
+  /**
+   * @return the number of fraction digits used for the currency, or -1 if the currency cannot be represented
+   * with minor units (pseudo-currencies without default fraction digits)
+   */
+  public static int scaleOf(CurrencyUnit currency) {
+    int scale = currency.getDefaultFractionDigits();
+    return scale >= 0 && scale < POWERS_OF_TEN.length ? scale : -1;
+  }
+
+  /**
+   * @return true if the amount can be converted to minor units of the currency without rounding
+   */
+  public static boolean isExact(double amount, CurrencyUnit currency) {
+    int scale = scaleOf(currency);
+    return scale >= 0 && isExact(amount, scale);
+  }
+
+  public static FixedPointMoney of(double amount, CurrencyUnit currency) {
+    int scale = scaleOf(currency);
+    if (scale < 0 || !isExact(amount, scale)) {
+      throw new ArithmeticException("Amount " + amount + " cannot be represented exactly in " + currency.getCurrencyCode());
+    }
+    return new FixedPointMoney(toMinorUnits(amount, scale), scale);
+  }
+
+  public static FixedPointMoney of(double amount, CurrencyUnit currency, RoundingMode roundingMode) {
+    int scale = scaleOf(currency);
+    if (scale < 0) {
+      throw new ArithmeticException("Currency " + currency.getCurrencyCode() + " has no minor units");
+    }
+    if (isExact(amount, scale)) {
+      return new FixedPointMoney(toMinorUnits(amount, scale), scale);
+    }
+    long units = BigDecimal.valueOf(amount).setScale(scale, roundingMode).unscaledValue().longValueExact();
+    return new FixedPointMoney(checkRange(units), scale);
+  }
+
+  public FixedPointMoney add(FixedPointMoney other) {
+    checkScale(other);
+    return new FixedPointMoney(checkRange(minorUnits + other.minorUnits), scale);
+  }
+
+  public FixedPointMoney subtract(FixedPointMoney other) {
+    checkScale(other);
+    return new FixedPointMoney(checkRange(minorUnits - other.minorUnits), scale);
+  }
+
+  public boolean isNegativeOrZero() {
+    return minorUnits <= 0;
+  }
+
+  public long getMinorUnits() {
+    return minorUnits;
+  }
+
+  public int getScale() {
+    return scale;
+  }
+
+  public double toDouble() {
+    return toDouble(minorUnits, scale);
+  }
+
+  public BigDecimal toBigDecimal() {
+    return BigDecimal.valueOf(minorUnits, scale);
+  }
+
+  /**
+   * @return the smallest scale at which the amount can be represented exactly with minor units, or -1
+   */
+  static int exactScale(double amount) {
+    for (int scale = 0; scale < POWERS_OF_TEN.length; scale++) {
+      if (isExact(amount, scale)) {
+        return scale;
+      }
+    }
+    return -1;
+  }
+
+  static long toMinorUnits(double amount, int scale) {
+    return Math.round(amount * POWERS_OF_TEN[scale]);
+  }
+
+  static double toDouble(long minorUnits, int scale) {
+    // both values are exactly representable as doubles, so the division gives the closest double to the decimal value
+    return (double) minorUnits / POWERS_OF_TEN[scale];
+  }
+
+  static boolean isExact(double amount, int scale) {
+    if (!Double.isFinite(amount)) {
+      return false;
+    }
+    double scaled = amount * POWERS_OF_TEN[scale];
+    if (Math.abs(scaled) > MAX_MINOR_UNITS) {
+      return false;
+    }
+    long units = Math.round(scaled);
+    // the closest double to units / 10^scale is the amount itself: no other decimal with this scale is that close
+    return (double) units / POWERS_OF_TEN[scale] == amount;
+  }
+
+  private static long checkRange(long units) {
+    if (Math.abs(units) > 2 * MAX_MINOR_UNITS) {
+      throw new ArithmeticException("Amount out of range for fixed-point arithmetic: " + units);
+    }
+    return units;
+  }
+
+  private void checkScale(FixedPointMoney other) {
+    if (scale != other.scale) {
+      throw new ArithmeticException("Cannot combine amounts with different scales: " + scale + " and " + other.scale);
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    return o instanceof FixedPointMoney other && minorUnits == other.minorUnits && scale == other.scale;
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Long.hashCode(minorUnits) + scale;
+  }
+
+  @Override
+  public String toString() {
+    return toBigDecimal().toPlainString();
+  }
+}
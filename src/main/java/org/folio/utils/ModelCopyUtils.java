@@ -0,0 +1,112 @@
+package org.folio.utils;
+
+import lombok.experimental.UtilityClass;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Deep copies of the RMB model objects (generated in org.folio.rest.jaxrs.model), made by copying their fields
+ * directly instead of serializing them to JSON and deserializing the result.
+ * The fields of each model class are looked up once and cached.
+ */
+@UtilityClass
+public class ModelCopyUtils {
+
+  private static final String MODEL_PACKAGE = "org.folio.rest.jaxrs.model";
+  private static final ClassValue<ModelClass> MODEL_CLASSES = new ClassValue<>() {
+    @Override
+    protected ModelClass computeValue(Class<?> type) {
+      return ModelClass.of(type);
+    }
+  };
+
+  /**
+   * Returns a deep copy of a model object.
+   *
+   * @throws IllegalArgumentException if the object, or one of the objects it references, is not a model object,
+   *                                  a collection, a date or an immutable value
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> T deepCopy(T object) {
+    return (T) copyValue(object);
+  }
+
+  private static Object copyValue(Object value) {
+    if (value == null || isImmutable(value)) {
+      return value;
+    }
+    if (value instanceof Date date) {
+      return new Date(date.getTime());
+    }
+    if (value instanceof List<?> list) {
+      return copyElements(list, new ArrayList<>(list.size()));
+    }
+    if (value instanceof Set<?> set) {
+      return copyElements(set, new LinkedHashSet<>());
+    }
+    if (value instanceof Map<?, ?> map) {
+      Map<Object, Object> copy = new LinkedHashMap<>();
+      map.forEach((key, mapValue) -> copy.put(key, copyValue(mapValue)));
+      return copy;
+    }
+    return MODEL_CLASSES.get(value.getClass()).copy(value);
+  }
+
+  private static <C extends Collection<Object>> C copyElements(Collection<?> source, C copy) {
+    source.forEach(element -> copy.add(copyValue(element)));
+    return copy;
+  }
+
+  private static boolean isImmutable(Object value) {
+    return value instanceof String || value instanceof Number || value instanceof Boolean
+      || value instanceof Character || value instanceof Enum<?> || value instanceof UUID;
+  }
+
+  private record ModelClass(Constructor<?> constructor, List<Field> fields) {
+
+    private static ModelClass of(Class<?> type) {
+      if (!MODEL_PACKAGE.equals(type.getPackageName())) {
+        throw new IllegalArgumentException("Objects of class " + type.getName() + " cannot be copied");
+      }
+      try {
+        Constructor<?> constructor = type.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+          for (Field field : c.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers())) {
+              field.setAccessible(true);
+              fields.add(field);
+            }
+          }
+        }
+        return new ModelClass(constructor, List.copyOf(fields));
+      } catch (NoSuchMethodException e) {
+        throw new IllegalArgumentException("Class " + type.getName() + " has no constructor without arguments", e);
+      }
+    }
+
+    private Object copy(Object source) {
+      try {
+        Object copy = constructor.newInstance();
+        for (Field field : fields) {
+          field.set(copy, copyValue(field.get(source)));
+        }
+        return copy;
+      } catch (ReflectiveOperationException e) {
+        throw new IllegalStateException("Could not copy an object of class " + source.getClass().getName(), e);
+      }
+    }
+  }
+}
@@ -16,7 +16,16 @@ import org.javamoney.moneta.function.MonetaryFunctions;
 @UtilityClass
 public final class MoneyUtils {
 
+  /**
+   * Amounts with no more fraction digits than the currency allows are computed with {@link FixedPointMoney},
+   * other amounts fall back to Moneta. Both give the same result.
+   */
   public static Double subtractMoney(Double minuend, Double subtrahend, CurrencyUnit currency) {
+    if (FixedPointMoney.isExact(minuend, currency) && FixedPointMoney.isExact(subtrahend, currency)) {
+      return FixedPointMoney.of(minuend, currency)
+        .subtract(FixedPointMoney.of(subtrahend, currency))
+        .toDouble();
+    }
     return Money.of(minuend, currency)
       .subtract(Money.of(subtrahend, currency))
       .getNumber()
@@ -24,11 +33,20 @@ public final class MoneyUtils {
   }
 
   public static Double subtractMoneyOrDefault(Double minuend, Double subtrahend, Double defaulted, CurrencyUnit currency) {
+    if (FixedPointMoney.isExact(minuend, currency) && FixedPointMoney.isExact(subtrahend, currency)) {
+      var amount = FixedPointMoney.of(minuend, currency).subtract(FixedPointMoney.of(subtrahend, currency));
+      return amount.isNegativeOrZero() ? defaulted : amount.toDouble();
+    }
     var amount = Money.of(minuend, currency).subtract(Money.of(subtrahend, currency));
     return amount.isNegativeOrZero() ? defaulted : amount.getNumber().doubleValue();
   }
 
   public static Double sumMoney(Double addend, Double amount, CurrencyUnit currency) {
+    if (FixedPointMoney.isExact(addend, currency) && FixedPointMoney.isExact(amount, currency)) {
+      return FixedPointMoney.of(addend, currency)
+        .add(FixedPointMoney.of(amount, currency))
+        .toDouble();
+    }
     return Money.of(addend, currency)
       .add(Money.of(amount, currency))
       .getNumber()
@@ -36,6 +54,10 @@ public final class MoneyUtils {
   }
 
   public static Double sumMoney(CurrencyUnit currency, Double ... values) {
+    Double sum = sumFixedPoint(currency, values);
+    if (sum != null) {
+      return sum;
+    }
     return Stream.of(values)
       .map(aDouble -> Money.of(aDouble, currency))
       .reduce(Money::add)
@@ -44,6 +66,23 @@ public final class MoneyUtils {
       .doubleValue();
   }
 
+  private static Double sumFixedPoint(CurrencyUnit currency, Double ... values) {
+    if (FixedPointMoney.scaleOf(currency) < 0) {
+      return null;
+    }
+    var sum = FixedPointMoney.of(0d, currency);
+    for (Double value : values) {
+      if (!FixedPointMoney.isExact(value, currency)) {
+        return null;
+      }
+      sum = sum.add(FixedPointMoney.of(value, currency));
+      if (Math.abs(sum.getMinorUnits()) > FixedPointMoney.MAX_MINOR_UNITS) {
+        return null;
+      }
+    }
+    return sum.toDouble();
+  }
+
   public static double calculateExpendedPercentage(MonetaryAmount expended, double totalExpended) {
     return expended.divide(totalExpended).multiply(100).with(Monetary.getDefaultRounding()).getNumber().doubleValue();
   }
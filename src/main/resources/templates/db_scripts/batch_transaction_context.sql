@@ -0,0 +1,135 @@
+/*
+    batch_transaction_context(...) loads in a single call all the data used to process a batch of transactions
+    (the same data that BatchTransactionHolder loads with separate queries otherwise):
+    #1 transactions to delete, and ids of pending payments linked to the non-zero encumbrances to delete (only used for a warning)
+    #2 existing transactions for the transactions to create or update
+    #3 pending payments linked to the invoices of the payments and credits to create
+    #4 payments linked to the transactions to delete
+    #5 encumbrances linked to the transactions of the batch, to the transactions to delete and to the linked payments
+    #6 funds, budgets and ledgers related to all these transactions; budgets are locked FOR UPDATE, in id order
+
+    Parameters:
+    _ids: ids of transactions to create or update
+    _ids_to_delete: ids of transactions to delete
+    _invoice_ids: invoice ids of the payments and credits to create
+    _encumbrance_ids: encumbrance ids referenced by the transactions to create or update
+    _fiscal_year_ids, _fund_ids: (fiscalYearId, fundId) pairs of the transactions to create or update
+
+    Missing records are not reported here, the caller checks the result.
+ */
+CREATE OR REPLACE FUNCTION ${myuniversity}_${mymodule}.batch_transaction_context(_ids uuid[], _ids_to_delete uuid[],
+    _invoice_ids text[], _encumbrance_ids uuid[], _fiscal_year_ids uuid[], _fund_ids uuid[]) RETURNS jsonb AS $$
+  DECLARE
+    transactions_to_delete jsonb;
+    pending_payment_ids_for_encumbrances_to_delete jsonb;
+    existing_transactions jsonb;
+    linked_pending_payments jsonb;
+    linked_payments jsonb;
+    linked_encumbrance_ids uuid[];
+    linked_encumbrances jsonb;
+    related_transaction_ids uuid[];
+    budget_fiscal_year_ids uuid[];
+    budget_fund_ids uuid[];
+    funds jsonb;
+    budgets jsonb;
+    ledgers jsonb;
+  BEGIN
+    -- #1
+    SELECT coalesce(jsonb_agg(tr.jsonb), '[]'::jsonb) INTO transactions_to_delete
+      FROM ${myuniversity}_${mymodule}.transaction tr
+      WHERE tr.id = ANY(_ids_to_delete);
+
+    SELECT coalesce(jsonb_agg(tr.id), '[]'::jsonb) INTO pending_payment_ids_for_encumbrances_to_delete
+      FROM ${myuniversity}_${mymodule}.transaction tr
+      WHERE tr.jsonb->'awaitingPayment'->>'encumbranceId' IN (
+        SELECT del.id::text FROM ${myuniversity}_${mymodule}.transaction del
+          WHERE del.id = ANY(_ids_to_delete) AND del.jsonb->>'transactionType' = 'Encumbrance'
+            AND (del.jsonb->>'amount')::decimal <> 0
+      );
+
+    -- #2
+    SELECT coalesce(jsonb_agg(tr.jsonb), '[]'::jsonb) INTO existing_transactions
+      FROM ${myuniversity}_${mymodule}.transaction tr
+      WHERE tr.id = ANY(_ids);
+
+    -- #3
+    SELECT coalesce(jsonb_agg(tr.jsonb), '[]'::jsonb) INTO linked_pending_payments
+      FROM ${myuniversity}_${mymodule}.transaction tr
+      WHERE tr.jsonb->>'transactionType' = 'Pending payment'
+        AND tr.jsonb->>'sourceInvoiceId' = ANY(_invoice_ids);
+
+    -- #4
+    SELECT coalesce(jsonb_agg(tr.jsonb), '[]'::jsonb) INTO linked_payments
+      FROM ${myuniversity}_${mymodule}.transaction tr
+      WHERE tr.jsonb->>'transactionType' = 'Payment'
+        AND tr.jsonb->>'paymentEncumbranceId' = ANY(_ids_to_delete::text[]);
+
+    -- #5 (0-amount encumbrances to delete are not processed, so they are not taken into account)
+    SELECT array_agg(DISTINCT enc_id) INTO linked_encumbrance_ids
+      FROM (
+        SELECT unnest(_encumbrance_ids) AS enc_id
+        UNION
+        SELECT CASE
+                 WHEN tr->>'transactionType' IN ('Payment', 'Credit') THEN (tr->>'paymentEncumbranceId')::uuid
+                 WHEN tr->>'transactionType' = 'Pending payment' THEN (tr->'awaitingPayment'->>'encumbranceId')::uuid
+               END
+          FROM jsonb_array_elements(transactions_to_delete || linked_payments) tr
+          WHERE tr->>'transactionType' <> 'Encumbrance' OR (tr->>'amount')::decimal <> 0
+      ) ids
+      WHERE enc_id IS NOT NULL;
+
+    SELECT coalesce(jsonb_agg(tr.jsonb), '[]'::jsonb) INTO linked_encumbrances
+      FROM ${myuniversity}_${mymodule}.transaction tr
+      WHERE tr.id = ANY(linked_encumbrance_ids);
+
+    -- #6
+    SELECT array_agg((tr->>'id')::uuid) INTO related_transaction_ids
+      FROM jsonb_array_elements(existing_transactions || linked_pending_payments || linked_encumbrances ||
+        (SELECT coalesce(jsonb_agg(del), '[]'::jsonb) FROM jsonb_array_elements(transactions_to_delete) del
+          WHERE del->>'transactionType' <> 'Encumbrance' OR (del->>'amount')::decimal <> 0)) tr;
+
+    SELECT array_agg(keys.fiscalYearId), array_agg(keys.fundId) INTO budget_fiscal_year_ids, budget_fund_ids
+      FROM (
+        SELECT pairs.fiscalYearId, pairs.fundId
+          FROM unnest(_fiscal_year_ids, _fund_ids) AS pairs(fiscalYearId, fundId)
+          WHERE pairs.fundId IS NOT NULL
+        UNION
+        SELECT tr.fiscalYearId, tr.fromFundId
+          FROM ${myuniversity}_${mymodule}.transaction tr
+          WHERE tr.id = ANY(related_transaction_ids) AND tr.fromFundId IS NOT NULL
+        UNION
+        SELECT tr.fiscalYearId, tr.toFundId
+          FROM ${myuniversity}_${mymodule}.transaction tr
+          WHERE tr.id = ANY(related_transaction_ids) AND tr.toFundId IS NOT NULL
+      ) keys;
+
+    SELECT coalesce(jsonb_agg(fund.jsonb), '[]'::jsonb) INTO funds
+      FROM ${myuniversity}_${mymodule}.fund fund
+      WHERE fund.id = ANY(budget_fund_ids);
+
+    SELECT coalesce(jsonb_agg(locked.jsonb ORDER BY locked.id), '[]'::jsonb) INTO budgets
+      FROM (
+        SELECT budget.id, budget.jsonb
+          FROM ${myuniversity}_${mymodule}.budget budget
+          INNER JOIN unnest(budget_fiscal_year_ids, budget_fund_ids) AS keys(fiscalYearId, fundId) ON keys.fiscalYearId = budget.fiscalYearId AND keys.fundId = budget.fundId
+          ORDER BY budget.id
+          FOR UPDATE OF budget
+      ) locked;
+
+    SELECT coalesce(jsonb_agg(ledger.jsonb), '[]'::jsonb) INTO ledgers
+      FROM ${myuniversity}_${mymodule}.ledger ledger
+      WHERE ledger.id IN (SELECT fund.ledgerId FROM ${myuniversity}_${mymodule}.fund fund WHERE fund.id = ANY(budget_fund_ids));
+
+    RETURN jsonb_build_object(
+      'transactionsToDelete', transactions_to_delete,
+      'pendingPaymentIdsForEncumbrancesToDelete', pending_payment_ids_for_encumbrances_to_delete,
+      'existingTransactions', existing_transactions,
+      'linkedPendingPayments', linked_pending_payments,
+      'linkedPayments', linked_payments,
+      'linkedEncumbrances', linked_encumbrances,
+      'funds', funds,
+      'budgets', budgets,
+      'ledgers', ledgers
+    );
+  END;
+$$ LANGUAGE plpgsql;
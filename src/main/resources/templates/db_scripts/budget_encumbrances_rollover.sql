@@ -7,6 +7,7 @@
     #2  Create allocation for every difference between budget.allocated and sum of corresponding allocations amount
     #3  Create transfer for every difference between budget.netTransfers and sum of corresponding transfers amount
     #4  Call rollover_order(_order_id text, _rollover_record jsonb) function for every order id ordered by the lowest creation date of related encumbrances
+        (the po line totals used by calculate_planned_encumbrance_amount() are computed once before, in tmp_rollover_po_line_totals)
     For every order id
       #5 Check if there is any encumbrance that need to be rollovered for ledger related to order for which the rollover has not been completed yet
       #6 If #5 is true than create rollover error record
@@ -20,54 +21,51 @@
       #11 Check budget existence
       #12 If #11 is true create corresponding rollover error
     Finish rollover_order function
+    With budget_encumbrances_rollover(_rollover_record jsonb, _set_based boolean) and _set_based = true, #4 is done for all
+    the orders at once by rollover_orders_set_based(_rollover_record jsonb) (see budget_encumbrances_rollover_set_based.sql)
     #13 update planned budget status to active
+    #1 - #3 and #13 are done by rollover_budgets() and activate_planned_budgets(), also used by the rollover jobs
+    running #4 in chunks of orders (see rollover_job.sql)
 
     NOTE: uuid_generate_v4() cannot be used to generate uuids because of pgpool2. uuid_generate_v5() is used instead, with unique strings.
  */
 CREATE EXTENSION IF NOT EXISTS "uuid-ossp" WITH SCHEMA public;
 -- Map encumbrance with corresponding encumbranceRollover item, calculate expected encumbrance amount based on that item
-CREATE OR REPLACE FUNCTION ${myuniversity}_${mymodule}.calculate_planned_encumbrance_amount(_transaction jsonb, _rollover_record jsonb, _rounding boolean) RETURNS decimal as $$
-	DECLARE
-		amount DECIMAL DEFAULT 0;
-		encumbrance_rollover jsonb DEFAULT null;
-		po_line_cost DECIMAL DEFAULT 0;
-		total_amount DECIMAL DEFAULT 0;
-		distribution_value DECIMAL DEFAULT 0;
-		input_fromFiscalYearId uuid := (_rollover_record->>'fromFiscalYearId')::uuid;
-	BEGIN
-
+-- and on the totals of the encumbrance po line in the from fiscal year
+CREATE OR REPLACE FUNCTION ${myuniversity}_${mymodule}.calculate_planned_encumbrance_amount_from_totals(_transaction jsonb,
+    _rollover_record jsonb, _po_line_initial_amount decimal, _po_line_expended_amount decimal,
+    _po_line_remaining_amount decimal, _rounding boolean) RETURNS decimal as $$
+  DECLARE
+    amount DECIMAL DEFAULT 0;
+    encumbrance_rollover jsonb DEFAULT null;
+    total_amount DECIMAL DEFAULT 0;
+    distribution_value DECIMAL DEFAULT 0;
+  BEGIN
     IF
       NOT((_transaction->'encumbrance'->>'reEncumber')::boolean)
     THEN
       RETURN 0.0;
     END IF;
 
-	    SELECT sum((jsonb->'encumbrance'->>'initialAmountEncumbered')::decimal) INTO po_line_cost
-	        FROM ${myuniversity}_${mymodule}.transaction
-            WHERE input_fromFiscalYearId=fiscalYearId AND jsonb->'encumbrance'->>'sourcePoLineId'=_transaction->'encumbrance'->>'sourcePoLineId'
-            GROUP BY jsonb->'encumbrance'->>'sourcePoLineId';
+    IF
+      _po_line_initial_amount > 0
+    THEN
+      distribution_value := (_transaction->'encumbrance'->>'initialAmountEncumbered')::decimal/_po_line_initial_amount;
+    END IF;
 
-    distribution_value := 0;
-
-		IF
-			po_line_cost > 0
-		THEN
-			distribution_value := (_transaction->'encumbrance'->>'initialAmountEncumbered')::decimal/po_line_cost;
-	 	END IF;
-
-		IF
-		  _transaction->'encumbrance'->>'orderType'='Ongoing' AND (_transaction->'encumbrance'->>'subscription')::boolean
-		THEN
-			SELECT INTO encumbrance_rollover (er::jsonb) FROM jsonb_array_elements(_rollover_record->'encumbrancesRollover') er WHERE er->>'orderType'='Ongoing-Subscription';
-		ELSIF
-			_transaction->'encumbrance'->>'orderType'='Ongoing'
-		THEN
-			SELECT INTO encumbrance_rollover (er::jsonb) FROM jsonb_array_elements(_rollover_record->'encumbrancesRollover') er WHERE er->>'orderType'='Ongoing';
-		ELSIF
-			_transaction->'encumbrance'->>'orderType'='One-Time'
-		THEN
-			SELECT INTO encumbrance_rollover (er::jsonb) FROM jsonb_array_elements(_rollover_record->'encumbrancesRollover') er WHERE er->>'orderType'='One-time';
-		END IF;
+    IF
+      _transaction->'encumbrance'->>'orderType'='Ongoing' AND (_transaction->'encumbrance'->>'subscription')::boolean
+    THEN
+      SELECT INTO encumbrance_rollover (er::jsonb) FROM jsonb_array_elements(_rollover_record->'encumbrancesRollover') er WHERE er->>'orderType'='Ongoing-Subscription';
+    ELSIF
+      _transaction->'encumbrance'->>'orderType'='Ongoing'
+    THEN
+      SELECT INTO encumbrance_rollover (er::jsonb) FROM jsonb_array_elements(_rollover_record->'encumbrancesRollover') er WHERE er->>'orderType'='Ongoing';
+    ELSIF
+      _transaction->'encumbrance'->>'orderType'='One-Time'
+    THEN
+      SELECT INTO encumbrance_rollover (er::jsonb) FROM jsonb_array_elements(_rollover_record->'encumbrancesRollover') er WHERE er->>'orderType'='One-time';
+    END IF;
 
     IF
       encumbrance_rollover IS NULL
@@ -75,41 +73,110 @@ CREATE OR REPLACE FUNCTION ${myuniversity}_${mymodule}.calculate_planned_encumbr
       RETURN 0.0;
     END IF;
 
-		IF
-			encumbrance_rollover->>'basedOn'='Expended'
-		THEN
-		    SELECT sum((jsonb->'encumbrance'->>'amountExpended')::decimal - (jsonb->'encumbrance'->>'amountCredited')::decimal) INTO total_amount
-            	        FROM ${myuniversity}_${mymodule}.transaction
-                        WHERE input_fromFiscalYearId=fiscalYearId AND jsonb->'encumbrance'->>'sourcePoLineId'=_transaction->'encumbrance'->>'sourcePoLineId'
-                        GROUP BY jsonb->'encumbrance'->>'sourcePoLineId';
-
-		ELSEIF
-		  encumbrance_rollover->>'basedOn'='Remaining'
-		THEN
-			SELECT sum((jsonb->>'amount')::decimal) INTO total_amount
-                        	        FROM ${myuniversity}_${mymodule}.transaction
-                                    WHERE input_fromFiscalYearId=fiscalYearId AND jsonb->'encumbrance'->>'sourcePoLineId'=_transaction->'encumbrance'->>'sourcePoLineId'
-                                    GROUP BY jsonb->'encumbrance'->>'sourcePoLineId';
+    IF
+      encumbrance_rollover->>'basedOn'='Expended'
+    THEN
+      total_amount := _po_line_expended_amount;
+    ELSIF
+      encumbrance_rollover->>'basedOn'='Remaining'
+    THEN
+      total_amount := _po_line_remaining_amount;
+    ELSE
+      total_amount := _po_line_initial_amount;
+    END IF;
+    total_amount := total_amount + total_amount * (encumbrance_rollover->>'increaseBy')::decimal/100;
+    amount := total_amount * distribution_value;
+    IF
+      _rounding IS NOT NULL AND _rounding
+    THEN
+      RETURN ROUND(amount,(_rollover_record->>'currencyFactor')::integer);
+    ELSE
+      RETURN amount;
+    END IF;
+  END;
+$$ LANGUAGE plpgsql;
+
+-- Same as calculate_planned_encumbrance_amount_from_totals(), reading the po line totals from tmp_rollover_po_line_totals
+-- during a rollover (see create_rollover_po_line_totals()), or from the transaction table otherwise
+CREATE OR REPLACE FUNCTION ${myuniversity}_${mymodule}.calculate_planned_encumbrance_amount(_transaction jsonb, _rollover_record jsonb, _rounding boolean) RETURNS decimal as $$
+	DECLARE
+		po_line_initial_amount DECIMAL;
+		po_line_expended_amount DECIMAL;
+		po_line_remaining_amount DECIMAL;
+		input_fromFiscalYearId uuid := (_rollover_record->>'fromFiscalYearId')::uuid;
+	BEGIN
+
+    IF
+      NOT((_transaction->'encumbrance'->>'reEncumber')::boolean)
+    THEN
+      RETURN 0.0;
+    END IF;
 
+    IF
+      to_regclass('pg_temp.tmp_rollover_po_line_totals') IS NOT NULL
+    THEN
+      SELECT initial_amount, expended_amount, remaining_amount
+        INTO po_line_initial_amount, po_line_expended_amount, po_line_remaining_amount
+        FROM tmp_rollover_po_line_totals
+        WHERE po_line_id = _transaction->'encumbrance'->>'sourcePoLineId';
     ELSE
-      SELECT sum((jsonb->'encumbrance'->>'initialAmountEncumbered')::decimal) INTO total_amount
-                      FROM ${myuniversity}_${mymodule}.transaction
-                        WHERE input_fromFiscalYearId=fiscalYearId AND jsonb->'encumbrance'->>'sourcePoLineId'=_transaction->'encumbrance'->>'sourcePoLineId'
-                        GROUP BY jsonb->'encumbrance'->>'sourcePoLineId';
-
-		END IF;
-		total_amount:= total_amount + total_amount * (encumbrance_rollover->>'increaseBy')::decimal/100;
-		amount := total_amount * distribution_value;
-	    IF
-	        _rounding IS NOT NULL AND _rounding
-	    THEN
-		    RETURN ROUND(amount,(_rollover_record->>'currencyFactor')::integer);
-	    ELSE
-            RETURN amount;
-        END IF;
+      SELECT sum((jsonb->'encumbrance'->>'initialAmountEncumbered')::decimal) AS initial_amount,
+             sum((jsonb->'encumbrance'->>'amountExpended')::decimal - (jsonb->'encumbrance'->>'amountCredited')::decimal) AS expended_amount,
+             sum((jsonb->>'amount')::decimal) AS remaining_amount
+        INTO po_line_initial_amount, po_line_expended_amount, po_line_remaining_amount
+        FROM ${myuniversity}_${mymodule}.transaction
+        WHERE input_fromFiscalYearId=fiscalYearId AND jsonb->'encumbrance'->>'sourcePoLineId'=_transaction->'encumbrance'->>'sourcePoLineId'
+        GROUP BY jsonb->'encumbrance'->>'sourcePoLineId';
+    END IF;
+
+    RETURN ${myuniversity}_${mymodule}.calculate_planned_encumbrance_amount_from_totals(_transaction, _rollover_record,
+      po_line_initial_amount, po_line_expended_amount, po_line_remaining_amount, _rounding);
 	END;
 $$ LANGUAGE plpgsql;
 
+-- Materialize the totals of every po line in the from fiscal year, so that calculate_planned_encumbrance_amount()
+-- does not compute them again for each encumbrance
+CREATE OR REPLACE FUNCTION ${myuniversity}_${mymodule}.create_rollover_po_line_totals(_rollover_record jsonb) RETURNS VOID as $$
+    BEGIN
+        DROP TABLE IF EXISTS tmp_rollover_po_line_totals;
+        CREATE TEMPORARY TABLE tmp_rollover_po_line_totals AS
+            SELECT jsonb->'encumbrance'->>'sourcePoLineId' AS po_line_id,
+                   sum((jsonb->'encumbrance'->>'initialAmountEncumbered')::decimal) AS initial_amount,
+                   sum((jsonb->'encumbrance'->>'amountExpended')::decimal - (jsonb->'encumbrance'->>'amountCredited')::decimal) AS expended_amount,
+                   sum((jsonb->>'amount')::decimal) AS remaining_amount
+            FROM ${myuniversity}_${mymodule}.transaction
+            WHERE fiscalYearId = (_rollover_record->>'fromFiscalYearId')::uuid
+              AND jsonb->'encumbrance'->>'sourcePoLineId' IS NOT NULL
+            GROUP BY jsonb->'encumbrance'->>'sourcePoLineId';
+        CREATE UNIQUE INDEX ON tmp_rollover_po_line_totals (po_line_id);
+        ANALYZE tmp_rollover_po_line_totals;
+    END;
+$$ LANGUAGE plpgsql;
+
+-- Same as create_rollover_po_line_totals(_rollover_record jsonb), only for the po lines of the given orders
+-- (used when the orders are rolled over in chunks, see rollover_job.sql)
+CREATE OR REPLACE FUNCTION ${myuniversity}_${mymodule}.create_rollover_po_line_totals(_rollover_record jsonb, _order_ids text[]) RETURNS VOID as $$
+    BEGIN
+        DROP TABLE IF EXISTS tmp_rollover_po_line_totals;
+        CREATE TEMPORARY TABLE tmp_rollover_po_line_totals AS
+            SELECT jsonb->'encumbrance'->>'sourcePoLineId' AS po_line_id,
+                   sum((jsonb->'encumbrance'->>'initialAmountEncumbered')::decimal) AS initial_amount,
+                   sum((jsonb->'encumbrance'->>'amountExpended')::decimal - (jsonb->'encumbrance'->>'amountCredited')::decimal) AS expended_amount,
+                   sum((jsonb->>'amount')::decimal) AS remaining_amount
+            FROM ${myuniversity}_${mymodule}.transaction
+            WHERE fiscalYearId = (_rollover_record->>'fromFiscalYearId')::uuid
+              AND jsonb->'encumbrance'->>'sourcePoLineId' IN (
+                SELECT tr.jsonb->'encumbrance'->>'sourcePoLineId'
+                FROM ${myuniversity}_${mymodule}.transaction tr
+                WHERE tr.fiscalYearId = (_rollover_record->>'fromFiscalYearId')::uuid
+                  AND tr.jsonb->'encumbrance'->>'sourcePurchaseOrderId' = ANY(_order_ids)
+              )
+            GROUP BY jsonb->'encumbrance'->>'sourcePoLineId';
+        CREATE UNIQUE INDEX ON tmp_rollover_po_line_totals (po_line_id);
+        ANALYZE tmp_rollover_po_line_totals;
+    END;
+$$ LANGUAGE plpgsql;
+
 CREATE OR REPLACE FUNCTION ${myuniversity}_${mymodule}.calculate_planned_encumbrance_status(_transaction jsonb, _rollover_record jsonb) RETURNS varchar as $$
   DECLARE
     rollover_orderType VARCHAR DEFAULT null;
@@ -153,6 +220,8 @@ CREATE OR REPLACE FUNCTION ${myuniversity}_${mymodule}.rollover_order(_order_id
         input_toFiscalYearId uuid := (_rollover_record->>'toFiscalYearId')::uuid;
         input_ledgerId uuid := (_rollover_record->>'ledgerId')::uuid;
         input_ledgerRolloverId uuid := (_rollover_record->>'id')::uuid;
+        -- all the encumbrances of the order get the same creation date, the missing penny is added by id
+        order_created_date text := to_char(clock_timestamp(),'YYYY-MM-DD"T"HH24:MI:SS.MSTZHTZM');
     BEGIN
 
         -- #9 create encumbrances to temp table
@@ -171,7 +240,7 @@ CREATE OR REPLACE FUNCTION ${myuniversity}_${mymodule}.rollover_order(_order_id
                         'amountCredited', 0,
                         'status', ${myuniversity}_${mymodule}.calculate_planned_encumbrance_status(tr.jsonb, _rollover_record)
                     ),
-                'metadata', _rollover_record->'metadata' || jsonb_build_object('createdDate', to_char(clock_timestamp(),'YYYY-MM-DD"T"HH24:MI:SS.MSTZHTZM'))
+                'metadata', _rollover_record->'metadata' || jsonb_build_object('createdDate', order_created_date)
 
             )
         FROM ${myuniversity}_${mymodule}.transaction tr
@@ -212,7 +281,8 @@ CREATE OR REPLACE FUNCTION ${myuniversity}_${mymodule}.rollover_order(_order_id
                             WHERE _rollover_record ->> 'toFiscalYearId' = jsonb ->> 'fiscalYearId'
                               AND jsonb->'encumbrance'->>'sourcePoLineId' = missing_penny_row.po_line_id
                             ORDER BY CASE WHEN missing_penny_row.penny < 0 THEN jsonb -> 'metadata' ->> 'createdDate' END,
-                                     CASE WHEN missing_penny_row.penny > 0 THEN jsonb -> 'metadata' ->> 'createdDate' END DESC
+                                     CASE WHEN missing_penny_row.penny > 0 THEN jsonb -> 'metadata' ->> 'createdDate' END DESC,
+                                     id
                             LIMIT 1
                         );
 
@@ -380,6 +450,9 @@ CREATE OR REPLACE FUNCTION ${myuniversity}_${mymodule}.rollover_order(_order_id
                     FROM ${myuniversity}_${mymodule}.transaction tr
                     WHERE tr.id = t.id
                 )
+                -- of the encumbrances conflicting with each other, the one with the lowest id is saved, as with the
+                -- set-based rollover
+                ORDER BY t.id
                 ON CONFLICT (lower(${myuniversity}_${mymodule}.f_unaccent(${myuniversity}_${mymodule}.concat_space_sql(
                     VARIADIC ARRAY[
                         (jsonb ->> 'amount'::text),
@@ -532,19 +605,22 @@ $$ LANGUAGE plpgsql;
 
 
 CREATE OR REPLACE FUNCTION ${myuniversity}_${mymodule}.budget_encumbrances_rollover(_rollover_record jsonb) RETURNS VOID as $$
+    BEGIN
+        PERFORM ${myuniversity}_${mymodule}.budget_encumbrances_rollover(_rollover_record, false);
+    END;
+$$ LANGUAGE plpgsql;
+
+-- #1 - #3 of the rollover: budgets, budget expense classes and groups, allocations and transfers
+-- tmp_budget_expense_class is kept for the expense class totals of the rollover budgets
+CREATE OR REPLACE FUNCTION ${myuniversity}_${mymodule}.rollover_budgets(_rollover_record jsonb) RETURNS VOID as $$
     DECLARE
             toFiscalYear           jsonb;
             fromFiscalYear         jsonb;
-            temprow                record;
-            exceptionText          text;
-            exceptionDetails       text;
             input_fromFiscalYearId uuid := (_rollover_record->>'fromFiscalYearId')::uuid;
             input_toFiscalYearId   uuid := (_rollover_record->>'toFiscalYearId')::uuid;
             input_ledgerId         uuid := (_rollover_record->>'ledgerId')::uuid;
             input_ledgerRolloverId uuid := (_rollover_record->>'id')::uuid;
     BEGIN
-
-
         SELECT INTO toFiscalYear (jsonb::jsonb) FROM ${myuniversity}_${mymodule}.fiscal_year WHERE input_toFiscalYearId=id;
         SELECT INTO fromFiscalYear (jsonb::jsonb) FROM ${myuniversity}_${mymodule}.fiscal_year WHERE input_fromFiscalYearId=id;
 
@@ -637,20 +713,7 @@ CREATE OR REPLACE FUNCTION ${myuniversity}_${mymodule}.budget_encumbrances_rollo
         DROP TABLE IF EXISTS tmp_budget;
 
         -- #1.1 Create budget expense class relations for new budgets
-        CREATE TEMPORARY TABLE tmp_budget_expense_class(LIKE ${myuniversity}_${mymodule}.budget_expense_class);
-        INSERT INTO tmp_budget_expense_class
-        SELECT public.uuid_generate_v5(public.uuid_nil(), concat('BER6', oldBudget.id, fund.id, newBudget.id, exp.id)),
-               jsonb_build_object('budgetId', newBudget.jsonb ->> 'budgetId',
-                                  'expenseClassId', exp.jsonb->>'expenseClassId',
-                                  'status', exp.jsonb->>'status')
-        FROM ${myuniversity}_${mymodule}.budget AS oldBudget
-               INNER JOIN ${myuniversity}_${mymodule}.fund AS fund ON fund.id = oldBudget.fundId
-               INNER JOIN ${myuniversity}_${mymodule}.ledger_fiscal_year_rollover_budget AS newBudget ON newBudget.fundId = oldBudget.fundId
-               INNER JOIN ${myuniversity}_${mymodule}.budget_expense_class AS exp ON oldBudget.id = exp.budgetid
-        WHERE oldBudget.fiscalYearId = input_fromFiscalYearId
-          AND fund.ledgerId = input_ledgerId
-          AND newBudget.jsonb->>'fiscalYearId' = _rollover_record->>'toFiscalYearId'
-          AND newBudget.ledgerRolloverId = input_ledgerRolloverId;
+        PERFORM ${myuniversity}_${mymodule}.create_rollover_budget_expense_class(_rollover_record);
 
         IF _rollover_record->>'rolloverType' <> 'Preview' THEN
             INSERT INTO ${myuniversity}_${mymodule}.budget_expense_class(SELECT id, jsonb FROM tmp_budget_expense_class)
@@ -737,26 +800,40 @@ CREATE OR REPLACE FUNCTION ${myuniversity}_${mymodule}.budget_encumbrances_rollo
         END IF;
 
         DROP TABLE IF EXISTS tmp_transaction;
+    END;
+$$ LANGUAGE plpgsql;
 
-        -- #4.1 - create table to accumulate encumbered transactions, that will be used for Preview rollover
-        CREATE TEMPORARY TABLE tmp_encumbered_transactions(LIKE ${myuniversity}_${mymodule}.transaction);
-
-        -- #4.2 sort order ids
-        FOR temprow IN
-            SELECT min(tr.jsonb->'metadata'->>'createdDate') date, tr.jsonb->'encumbrance'->>'sourcePurchaseOrderId' order_id FROM ${myuniversity}_${mymodule}.transaction tr
-                LEFT JOIN ${myuniversity}_${mymodule}.fund fund ON fund.id = tr.fromFundId
-                LEFT JOIN ${myuniversity}_${mymodule}.ledger ledger ON ledger.id=fund.ledgerId
-                WHERE tr.jsonb->>'transactionType' = 'Encumbrance'
-                    AND tr.fiscalYearId = input_fromFiscalYearId
-                    AND tr.jsonb->'encumbrance'->>'orderStatus' = 'Open'
-                    AND ledger.id=input_ledgerId
-                GROUP BY order_id
-                ORDER BY date
-        LOOP
-            PERFORM ${myuniversity}_${mymodule}.rollover_order(temprow.order_id::text, _rollover_record);
-        END LOOP;
+-- #1.1 budget expense class relations for the new budgets, in tmp_budget_expense_class
+CREATE OR REPLACE FUNCTION ${myuniversity}_${mymodule}.create_rollover_budget_expense_class(_rollover_record jsonb) RETURNS VOID as $$
+    DECLARE
+            input_fromFiscalYearId uuid := (_rollover_record->>'fromFiscalYearId')::uuid;
+            input_ledgerId         uuid := (_rollover_record->>'ledgerId')::uuid;
+            input_ledgerRolloverId uuid := (_rollover_record->>'id')::uuid;
+    BEGIN
+        DROP TABLE IF EXISTS tmp_budget_expense_class;
+        CREATE TEMPORARY TABLE tmp_budget_expense_class(LIKE ${myuniversity}_${mymodule}.budget_expense_class);
+        INSERT INTO tmp_budget_expense_class
+        SELECT public.uuid_generate_v5(public.uuid_nil(), concat('BER6', oldBudget.id, fund.id, newBudget.id, exp.id)),
+               jsonb_build_object('budgetId', newBudget.jsonb ->> 'budgetId',
+                                  'expenseClassId', exp.jsonb->>'expenseClassId',
+                                  'status', exp.jsonb->>'status')
+        FROM ${myuniversity}_${mymodule}.budget AS oldBudget
+               INNER JOIN ${myuniversity}_${mymodule}.fund AS fund ON fund.id = oldBudget.fundId
+               INNER JOIN ${myuniversity}_${mymodule}.ledger_fiscal_year_rollover_budget AS newBudget ON newBudget.fundId = oldBudget.fundId
+               INNER JOIN ${myuniversity}_${mymodule}.budget_expense_class AS exp ON oldBudget.id = exp.budgetid
+        WHERE oldBudget.fiscalYearId = input_fromFiscalYearId
+          AND fund.ledgerId = input_ledgerId
+          AND newBudget.jsonb->>'fiscalYearId' = _rollover_record->>'toFiscalYearId'
+          AND newBudget.ledgerRolloverId = input_ledgerRolloverId;
+    END;
+$$ LANGUAGE plpgsql;
 
-        -- #13 update planned budget status to active
+-- #13
+CREATE OR REPLACE FUNCTION ${myuniversity}_${mymodule}.activate_planned_budgets(_rollover_record jsonb) RETURNS VOID as $$
+    DECLARE
+            input_toFiscalYearId   uuid := (_rollover_record->>'toFiscalYearId')::uuid;
+            input_ledgerId         uuid := (_rollover_record->>'ledgerId')::uuid;
+    BEGIN
         IF _rollover_record->>'rolloverType' <> 'Preview' THEN
             UPDATE ${myuniversity}_${mymodule}.budget as budget
             SET jsonb = budget.jsonb || jsonb_build_object('budgetStatus', 'Active')
@@ -767,6 +844,52 @@ CREATE OR REPLACE FUNCTION ${myuniversity}_${mymodule}.budget_encumbrances_rollo
                 AND budget.jsonb ? 'budgetStatus'
                 AND budget.jsonb ->> 'budgetStatus'='Planned';
         END IF;
+    END;
+$$ LANGUAGE plpgsql;
+
+-- Ids of the open orders with encumbrances in the ledger, with the lowest creation date of their encumbrances
+CREATE OR REPLACE FUNCTION ${myuniversity}_${mymodule}.rollover_orders(_rollover_record jsonb) RETURNS TABLE (date text, order_id text) as $$
+    SELECT min(tr.jsonb->'metadata'->>'createdDate') date, tr.jsonb->'encumbrance'->>'sourcePurchaseOrderId' order_id FROM ${myuniversity}_${mymodule}.transaction tr
+        LEFT JOIN ${myuniversity}_${mymodule}.fund fund ON fund.id = tr.fromFundId
+        LEFT JOIN ${myuniversity}_${mymodule}.ledger ledger ON ledger.id=fund.ledgerId
+        WHERE tr.jsonb->>'transactionType' = 'Encumbrance'
+            AND tr.fiscalYearId = (_rollover_record->>'fromFiscalYearId')::uuid
+            AND tr.jsonb->'encumbrance'->>'orderStatus' = 'Open'
+            AND ledger.id = (_rollover_record->>'ledgerId')::uuid
+        GROUP BY order_id;
+$$ LANGUAGE sql;
+
+-- _set_based: if true, the orders are rolled over with rollover_orders_set_based() instead of calling rollover_order() for each order
+CREATE OR REPLACE FUNCTION ${myuniversity}_${mymodule}.budget_encumbrances_rollover(_rollover_record jsonb, _set_based boolean) RETURNS VOID as $$
+    DECLARE
+            temprow                record;
+            exceptionText          text;
+            exceptionDetails       text;
+    BEGIN
+        -- #1 - #3
+        PERFORM ${myuniversity}_${mymodule}.rollover_budgets(_rollover_record);
+
+        -- #4.1 - create table to accumulate encumbered transactions, that will be used for Preview rollover
+        CREATE TEMPORARY TABLE tmp_encumbered_transactions(LIKE ${myuniversity}_${mymodule}.transaction);
+
+        -- #4.1.1 - po line totals used to calculate the planned encumbrance amounts
+        PERFORM ${myuniversity}_${mymodule}.create_rollover_po_line_totals(_rollover_record);
+
+        -- #4.2 sort order ids
+        IF _set_based THEN
+            PERFORM ${myuniversity}_${mymodule}.rollover_orders_set_based(_rollover_record);
+        ELSE
+        FOR temprow IN
+            SELECT order_id FROM ${myuniversity}_${mymodule}.rollover_orders(_rollover_record) ORDER BY date
+        LOOP
+            PERFORM ${myuniversity}_${mymodule}.rollover_order(temprow.order_id::text, _rollover_record);
+        END LOOP;
+        END IF;
+
+        DROP TABLE IF EXISTS tmp_rollover_po_line_totals;
+
+        -- #13 update planned budget status to active
+        PERFORM ${myuniversity}_${mymodule}.activate_planned_budgets(_rollover_record);
 
         EXCEPTION WHEN OTHERS THEN
             GET STACKED DIAGNOSTICS exceptionText = MESSAGE_TEXT,
@@ -0,0 +1,424 @@
+/*
+    Set-based orders rollover - rollover_orders_set_based(_rollover_record jsonb) function
+    Replaces step #4.2 of budget_encumbrances_rollover() (the rollover_order() call for every order) when it is called
+    with _set_based = true. The results are the same, but every step is done for all the orders at once:
+    #1 List the orders to rollover with their sequence number (lowest creation date of their encumbrances)
+    #2 Compute the planned amounts of all the encumbrances of these orders, with the po line totals of tmp_rollover_po_line_totals
+    #3 Create the planned encumbrances and add the missing pennies, choosing the encumbrance of each po line with DISTINCT ON
+       (like rollover_order(), the encumbrances of an order get the same creation date, and the penny goes by id)
+    #4 Find the orders related to ledgers that have not been rollovered (#5, #6 and #6.1 of rollover_order)
+    #5 Find the orders with missing budgets (#10 and #11 of rollover_order)
+    #6 Check the encumbrance restrictions (#7 and #8 of rollover_order); this is the only step depending on the previous
+       orders, because a budget encumbered amount grows with each order. Only the sums by order and restricted budget
+       are scanned in order.
+    #7 Save the planned encumbrances of the accepted orders in bulk (#9.2 of rollover_order)
+    #8 Update the budget encumbered amounts in bulk (#10 of rollover_order)
+
+    NOTE: the encumbrances of a po line are assumed to belong to the same order.
+ */
+
+CREATE OR REPLACE FUNCTION ${myuniversity}_${mymodule}.rollover_orders_set_based(_rollover_record jsonb) RETURNS VOID as $$
+  DECLARE
+    input_fromFiscalYearId uuid := (_rollover_record->>'fromFiscalYearId')::uuid;
+    input_toFiscalYearId uuid := (_rollover_record->>'toFiscalYearId')::uuid;
+    input_ledgerId uuid := (_rollover_record->>'ledgerId')::uuid;
+    input_ledgerRolloverId uuid := (_rollover_record->>'id')::uuid;
+    is_preview boolean := _rollover_record->>'rolloverType' = 'Preview';
+    remaining_by_fund jsonb;
+    order_row record;
+    failing_fund_ids uuid[];
+  BEGIN
+    DROP TABLE IF EXISTS tmp_rollover_order, tmp_rollover_source, tmp_rollover_planned, tmp_rollover_order_status,
+      tmp_rollover_order_fund, tmp_rollover_rejected;
+
+    -- #1 orders in the same order as the legacy loop, with the order id to break ties, and the creation date of their
+    -- new encumbrances
+    CREATE TEMPORARY TABLE tmp_rollover_order AS
+      SELECT tr.jsonb->'encumbrance'->>'sourcePurchaseOrderId' AS order_id,
+             row_number() OVER (ORDER BY min(tr.jsonb->'metadata'->>'createdDate'),
+                                         tr.jsonb->'encumbrance'->>'sourcePurchaseOrderId') AS seq,
+             to_char(clock_timestamp(),'YYYY-MM-DD"T"HH24:MI:SS.MSTZHTZM') AS created_date
+      FROM ${myuniversity}_${mymodule}.transaction tr
+      LEFT JOIN ${myuniversity}_${mymodule}.fund fund ON fund.id = tr.fromFundId
+      LEFT JOIN ${myuniversity}_${mymodule}.ledger ledger ON ledger.id = fund.ledgerId
+      WHERE tr.jsonb->>'transactionType' = 'Encumbrance'
+        AND tr.fiscalYearId = input_fromFiscalYearId
+        AND tr.jsonb->'encumbrance'->>'orderStatus' = 'Open'
+        AND ledger.id = input_ledgerId
+        AND tr.jsonb->'encumbrance'->>'sourcePurchaseOrderId' IS NOT NULL
+      GROUP BY tr.jsonb->'encumbrance'->>'sourcePurchaseOrderId';
+    CREATE UNIQUE INDEX ON tmp_rollover_order (order_id);
+
+    -- #2 all the from fiscal year transactions of these orders, with their planned amounts
+    CREATE TEMPORARY TABLE tmp_rollover_source AS
+      SELECT source.*,
+             ${myuniversity}_${mymodule}.calculate_planned_encumbrance_amount_from_totals(source.jsonb, _rollover_record,
+               source.po_line_initial_amount, source.po_line_expended_amount, source.po_line_remaining_amount, true) AS amount_rounded,
+             ${myuniversity}_${mymodule}.calculate_planned_encumbrance_amount_from_totals(source.jsonb, _rollover_record,
+               source.po_line_initial_amount, source.po_line_expended_amount, source.po_line_remaining_amount, false) AS amount_unrounded,
+             source.jsonb->'encumbrance'->>'orderStatus' = 'Open'
+               AND (NOT is_preview OR source.ledger_id = input_ledgerId) AS is_planned
+      FROM (
+        SELECT tr.id, tr.jsonb, tr.fromFundId AS fund_id, fund.ledgerId AS ledger_id, o.order_id, o.seq, o.created_date,
+               tr.jsonb->'encumbrance'->>'sourcePoLineId' AS po_line_id,
+               po_line.initial_amount AS po_line_initial_amount,
+               po_line.expended_amount AS po_line_expended_amount,
+               po_line.remaining_amount AS po_line_remaining_amount
+        FROM ${myuniversity}_${mymodule}.transaction tr
+        INNER JOIN tmp_rollover_order o ON o.order_id = tr.jsonb->'encumbrance'->>'sourcePurchaseOrderId'
+        LEFT JOIN ${myuniversity}_${mymodule}.fund fund ON fund.id = tr.fromFundId
+        LEFT JOIN tmp_rollover_po_line_totals po_line ON po_line.po_line_id = tr.jsonb->'encumbrance'->>'sourcePoLineId'
+        WHERE tr.fiscalYearId = input_fromFiscalYearId
+      ) source;
+
+    -- #3 planned encumbrances, with the missing pennies added to the first (negative penny) or last (positive penny)
+    -- planned encumbrance of each po line
+    CREATE TEMPORARY TABLE tmp_rollover_planned AS
+      SELECT public.uuid_generate_v5(public.uuid_nil(), concat('BER1', s.id)) AS id, s.order_id, s.seq, s.po_line_id,
+             s.fund_id, s.amount_rounded AS amount, s.jsonb AS source_jsonb,
+             ${myuniversity}_${mymodule}.calculate_planned_encumbrance_status(s.jsonb, _rollover_record) AS status,
+             s.created_date,
+             NULL::jsonb AS jsonb,
+             true AS insertable
+      FROM tmp_rollover_source s
+      WHERE s.is_planned;
+
+    UPDATE tmp_rollover_planned planned
+    SET amount = planned.amount + penny_target.penny
+    FROM (
+      SELECT DISTINCT ON (p.po_line_id) p.id, penny.penny
+      FROM tmp_rollover_planned p
+      INNER JOIN (
+        SELECT s.po_line_id,
+               round(sum(s.amount_unrounded) - sum(s.amount_rounded), (_rollover_record->>'currencyFactor')::integer) AS penny
+        FROM tmp_rollover_source s
+        WHERE s.po_line_id IS NOT NULL
+        GROUP BY s.po_line_id
+      ) penny ON penny.po_line_id = p.po_line_id
+      WHERE penny.penny IS NOT NULL AND penny.penny != 0
+      ORDER BY p.po_line_id,
+               CASE WHEN penny.penny < 0 THEN p.created_date END,
+               CASE WHEN penny.penny > 0 THEN p.created_date END DESC,
+               p.id
+    ) penny_target
+    WHERE planned.id = penny_target.id;
+
+    UPDATE tmp_rollover_planned
+    SET jsonb = source_jsonb - 'id' || jsonb_build_object
+      (
+        'fiscalYearId', _rollover_record->>'toFiscalYearId',
+        'amount', amount,
+        'encumbrance', source_jsonb->'encumbrance' || jsonb_build_object
+          (
+            'initialAmountEncumbered', amount,
+            'amountAwaitingPayment', 0,
+            'amountExpended', 0,
+            'amountCredited', 0,
+            'status', status
+          ),
+        'metadata', _rollover_record->'metadata' || jsonb_build_object('createdDate', created_date)
+      );
+
+    -- a non-preview rollover does not save the planned encumbrances already saved by a previous attempt,
+    -- or conflicting with the unique encumbrance index (see the ON CONFLICT clause of #7); the index expression is
+    -- computed once for each planned encumbrance, and written as in the index for the transactions so that it is used
+    WITH planned_key AS (
+      SELECT p.id, p.order_id, p.created_date,
+             lower(${myuniversity}_${mymodule}.f_unaccent(${myuniversity}_${mymodule}.concat_space_sql(
+                  VARIADIC ARRAY[
+                      (p.jsonb ->> 'amount'::text),
+                      (p.jsonb ->> 'fromFundId'::text),
+                      ((p.jsonb -> 'encumbrance'::text) ->> 'sourcePurchaseOrderId'::text),
+                      ((p.jsonb -> 'encumbrance'::text) ->> 'sourcePoLineId'::text),
+                      ((p.jsonb -> 'encumbrance'::text) ->> 'initialAmountEncumbered'::text),
+                      ((p.jsonb -> 'encumbrance'::text) ->> 'status'::text),
+                      (p.jsonb ->> 'expenseClassId'::text),
+                      (p.jsonb ->> 'fiscalYearId'::text)
+                  ]))) AS unique_key
+      FROM tmp_rollover_planned p
+    )
+    UPDATE tmp_rollover_planned planned
+    SET insertable = false
+    FROM planned_key
+    WHERE planned_key.id = planned.id
+      AND NOT is_preview
+      AND (EXISTS (SELECT 1 FROM ${myuniversity}_${mymodule}.transaction tr WHERE tr.id = planned.id)
+           OR EXISTS (SELECT 1 FROM ${myuniversity}_${mymodule}.transaction tr
+                      WHERE tr.jsonb->>'transactionType' = 'Encumbrance'
+                        AND lower(${myuniversity}_${mymodule}.f_unaccent(${myuniversity}_${mymodule}.concat_space_sql(
+                  VARIADIC ARRAY[
+                      (tr.jsonb ->> 'amount'::text),
+                      (tr.jsonb ->> 'fromFundId'::text),
+                      ((tr.jsonb -> 'encumbrance'::text) ->> 'sourcePurchaseOrderId'::text),
+                      ((tr.jsonb -> 'encumbrance'::text) ->> 'sourcePoLineId'::text),
+                      ((tr.jsonb -> 'encumbrance'::text) ->> 'initialAmountEncumbered'::text),
+                      ((tr.jsonb -> 'encumbrance'::text) ->> 'status'::text),
+                      (tr.jsonb ->> 'expenseClassId'::text),
+                      (tr.jsonb ->> 'fiscalYearId'::text)
+                  ]))) = planned_key.unique_key)
+           OR EXISTS (SELECT 1 FROM planned_key other
+                      WHERE other.order_id = planned_key.order_id
+                        AND (other.created_date, other.id) < (planned_key.created_date, planned_key.id)
+                        AND other.unique_key = planned_key.unique_key));
+
+    -- #4 orders with encumbrances in ledgers that have not been rollovered
+    CREATE TEMPORARY TABLE tmp_rollover_order_status AS
+      SELECT o.order_id, o.seq, not_rollovered.ledger_ids AS not_rollovered_ledger_ids,
+             (SELECT array_agg(format('%s (id=%s)', ledger.jsonb->>'name', ledger.id))
+                FROM ${myuniversity}_${mymodule}.ledger ledger
+                WHERE ledger.id = ANY(not_rollovered.ledger_ids)) AS not_rollovered_ledger_descriptions,
+             false AS missing_budget
+      FROM tmp_rollover_order o
+      LEFT JOIN (
+        SELECT s.order_id, array_agg(DISTINCT fund.ledgerId) AS ledger_ids
+        FROM tmp_rollover_source s
+        LEFT JOIN ${myuniversity}_${mymodule}.fund fund ON fund.id = s.fund_id
+        LEFT JOIN ${myuniversity}_${mymodule}.ledger_fiscal_year_rollover rollover ON rollover.ledgerId = fund.ledgerId
+          AND rollover.jsonb->>'rolloverType'<>'Preview'
+          AND rollover.fromfiscalyearid = input_fromFiscalYearId
+        LEFT JOIN ${myuniversity}_${mymodule}.ledger_fiscal_year_rollover_progress rollover_progress
+          ON rollover.id = rollover_progress.ledgerRolloverId
+        WHERE fund.ledgerId<>input_ledgerId
+          AND (rollover_progress.jsonb IS NULL OR rollover_progress.jsonb->>'overallRolloverStatus'='Not Started'
+               OR rollover_progress.jsonb->>'overallRolloverStatus'='In Progress')
+        GROUP BY s.order_id
+      ) not_rollovered ON not_rollovered.order_id = o.order_id;
+    CREATE UNIQUE INDEX ON tmp_rollover_order_status (order_id);
+
+    INSERT INTO ${myuniversity}_${mymodule}.ledger_fiscal_year_rollover_error (id, jsonb)
+      SELECT public.uuid_generate_v5(public.uuid_nil(), concat('BER2', _rollover_record->>'id', s.id, s.fund_id)), jsonb_build_object
+      (
+        'ledgerRolloverId', _rollover_record->>'id',
+        'errorType', 'Order',
+        'failedAction', 'Create encumbrance',
+        'errorMessage', '[WARNING] Part of the encumbrances belong to the ledger, which has not been rollovered. Ledgers to rollover: ' || array_to_string(os.not_rollovered_ledger_descriptions, ', '),
+        'details', jsonb_build_object
+        (
+          'purchaseOrderId', s.order_id,
+          'poLineId', s.jsonb->'encumbrance'->>'sourcePoLineId',
+          'amount', s.amount_rounded,
+          'fundId', s.fund_id::text
+        )
+      )
+      FROM tmp_rollover_source s
+      INNER JOIN tmp_rollover_order_status os ON os.order_id = s.order_id
+      WHERE os.not_rollovered_ledger_ids IS NOT NULL
+        AND s.ledger_id = input_ledgerId;
+
+    -- #5 orders with missing budgets; orders skipped because of ledgers that have not been rollovered are not checked
+    UPDATE tmp_rollover_order_status os
+    SET missing_budget = true
+    WHERE (is_preview OR os.not_rollovered_ledger_ids IS NULL)
+      AND EXISTS (
+        SELECT 1 FROM tmp_rollover_source s
+        LEFT JOIN ${myuniversity}_${mymodule}.ledger_fiscal_year_rollover rollover ON rollover.ledgerId = s.ledger_id
+          AND rollover.jsonb->>'rolloverType'<>'Preview'
+        WHERE s.order_id = os.order_id
+          AND NOT EXISTS (SELECT * FROM ${myuniversity}_${mymodule}.ledger_fiscal_year_rollover_budget budget
+                          WHERE s.fund_id = budget.fundId
+                            AND budget.fiscalYearId = input_toFiscalYearId
+                            AND (budget.ledgerRolloverId = input_ledgerRolloverId
+                                 OR (s.ledger_id <> input_ledgerId AND rollover.jsonb IS NOT NULL)))
+          AND (NOT is_preview OR s.ledger_id = input_ledgerId));
+
+    INSERT INTO ${myuniversity}_${mymodule}.ledger_fiscal_year_rollover_error (id, jsonb)
+      SELECT public.uuid_generate_v5(public.uuid_nil(), concat('BER3', _rollover_record->>'id', s.id)), jsonb_build_object
+      (
+        'ledgerRolloverId', _rollover_record->>'id',
+        'errorType', 'Order',
+        'failedAction', 'Create encumbrance',
+        'errorMessage', 'Budget not found',
+        'details', jsonb_build_object
+        (
+          'purchaseOrderId', s.order_id,
+          'poLineId', s.jsonb->'encumbrance'->>'sourcePoLineId',
+          'amount', s.amount_rounded,
+          'fundId', s.jsonb->>'fromFundId'
+        )
+      )
+      FROM tmp_rollover_source s
+      INNER JOIN tmp_rollover_order_status os ON os.order_id = s.order_id
+      WHERE os.missing_budget
+        AND NOT EXISTS (SELECT * FROM ${myuniversity}_${mymodule}.ledger_fiscal_year_rollover_budget budget
+                        WHERE s.fund_id = budget.fundId
+                          AND budget.fiscalYearId = input_toFiscalYearId
+                          AND budget.ledgerRolloverId = input_ledgerRolloverId);
+
+    -- #6 encumbrance restrictions
+    CREATE TEMPORARY TABLE tmp_rollover_rejected (order_id text, fund_id uuid, budget_json_id text);
+
+    IF (_rollover_record->>'restrictEncumbrance')::boolean
+    THEN
+      -- amounts by order and fund: the planned amount checked against the budget, and the increase of the budget
+      -- encumbered amount (encumbrances of the order in the to fiscal year) depending on whether the order is accepted
+      CREATE TEMPORARY TABLE tmp_rollover_order_fund AS
+        SELECT os.order_id, os.seq,
+               NOT (NOT is_preview AND os.not_rollovered_ledger_ids IS NOT NULL) AND NOT os.missing_budget AS candidate,
+               amounts.fund_id,
+               planned.amount AS planned_amount,
+               amounts.increment_if_accepted,
+               amounts.increment_if_rejected
+        FROM tmp_rollover_order_status os
+        INNER JOIN (
+          SELECT order_id, (jsonb->>'fromFundId')::uuid AS fund_id,
+                 CASE WHEN count(*) FILTER (WHERE NOT is_new OR insertable) = 0 THEN 0
+                      ELSE sum((jsonb->>'amount')::decimal) FILTER (WHERE NOT is_new OR insertable) END AS increment_if_accepted,
+                 CASE WHEN count(*) FILTER (WHERE NOT is_new) = 0 THEN 0
+                      ELSE sum((jsonb->>'amount')::decimal) FILTER (WHERE NOT is_new) END AS increment_if_rejected
+          FROM (
+            SELECT DISTINCT ON (order_rows.jsonb) order_rows.* FROM (
+              SELECT o.order_id, tr.jsonb, false AS is_new, false AS insertable
+                FROM ${myuniversity}_${mymodule}.transaction tr
+                INNER JOIN tmp_rollover_order o ON o.order_id = tr.jsonb->'encumbrance'->>'sourcePurchaseOrderId'
+                WHERE tr.fiscalYearId = input_toFiscalYearId
+              UNION ALL
+              SELECT p.order_id, p.jsonb, true AS is_new, p.insertable FROM tmp_rollover_planned p
+            ) order_rows
+            ORDER BY order_rows.jsonb, order_rows.is_new
+          ) distinct_rows
+          GROUP BY order_id, (jsonb->>'fromFundId')::uuid
+        ) amounts ON amounts.order_id = os.order_id
+        LEFT JOIN (
+          SELECT p.order_id, p.fund_id, sum(p.amount) AS amount FROM tmp_rollover_planned p GROUP BY p.order_id, p.fund_id
+        ) planned ON planned.order_id = os.order_id AND planned.fund_id = amounts.fund_id;
+
+      SELECT jsonb_object_agg(budget.fundId::text, ((budget.jsonb->>'initialAllocation')::decimal +
+                                                    (budget.jsonb->>'allocationTo')::decimal -
+                                                    (budget.jsonb->>'allocationFrom')::decimal +
+                                                    (budget.jsonb->>'netTransfers')::decimal) *
+                                                    (budget.jsonb->>'allowableEncumbrance')::decimal/100 -
+                                                    (budget.jsonb->>'encumbered')::decimal)
+      INTO remaining_by_fund
+      FROM ${myuniversity}_${mymodule}.ledger_fiscal_year_rollover_budget budget
+      WHERE budget.jsonb->>'allowableEncumbrance' IS NOT NULL
+        AND budget.fiscalYearId = input_toFiscalYearId
+        AND budget.ledgerRolloverId = input_ledgerRolloverId;
+
+      FOR order_row IN
+        SELECT f.order_id, f.candidate,
+               array_agg(f.fund_id ORDER BY f.fund_id) AS fund_ids,
+               array_agg(f.planned_amount ORDER BY f.fund_id) AS planned_amounts,
+               array_agg(f.increment_if_accepted ORDER BY f.fund_id) AS increments_if_accepted,
+               array_agg(f.increment_if_rejected ORDER BY f.fund_id) AS increments_if_rejected
+        FROM tmp_rollover_order_fund f
+        WHERE remaining_by_fund ? f.fund_id::text
+        GROUP BY f.seq, f.order_id, f.candidate
+        ORDER BY f.seq
+      LOOP
+        failing_fund_ids := NULL;
+        IF order_row.candidate
+        THEN
+          SELECT array_agg(t.fund_id) INTO failing_fund_ids
+          FROM unnest(order_row.fund_ids, order_row.planned_amounts) AS t(fund_id, planned_amount)
+          WHERE t.planned_amount > (remaining_by_fund->>t.fund_id::text)::decimal;
+        END IF;
+        IF failing_fund_ids IS NOT NULL
+        THEN
+          INSERT INTO tmp_rollover_rejected (order_id, fund_id, budget_json_id)
+            SELECT order_row.order_id, budget.fundId, budget.jsonb->>'id'
+            FROM ${myuniversity}_${mymodule}.ledger_fiscal_year_rollover_budget budget
+            WHERE budget.fundId = ANY(failing_fund_ids)
+              AND budget.jsonb->>'allowableEncumbrance' IS NOT NULL
+              AND budget.fiscalYearId = input_toFiscalYearId
+              AND budget.ledgerRolloverId = input_ledgerRolloverId;
+        END IF;
+        SELECT remaining_by_fund || jsonb_object_agg(t.fund_id::text, (remaining_by_fund->>t.fund_id::text)::decimal -
+                 CASE WHEN order_row.candidate AND failing_fund_ids IS NULL THEN t.increment_if_accepted
+                      ELSE t.increment_if_rejected END)
+        INTO remaining_by_fund
+        FROM unnest(order_row.fund_ids, order_row.increments_if_accepted, order_row.increments_if_rejected)
+          AS t(fund_id, increment_if_accepted, increment_if_rejected);
+      END LOOP;
+
+      INSERT INTO ${myuniversity}_${mymodule}.ledger_fiscal_year_rollover_error (id, jsonb)
+        SELECT public.uuid_generate_v5(public.uuid_nil(), concat('BER4', _rollover_record->>'id', s.id, r.budget_json_id)), jsonb_build_object
+        (
+          'ledgerRolloverId', _rollover_record->>'id',
+          'errorType', 'Order',
+          'failedAction', 'Create encumbrance',
+          'errorMessage', 'Insufficient funds',
+          'details', jsonb_build_object
+          (
+            'purchaseOrderId', s.order_id,
+            'poLineId', s.jsonb->'encumbrance'->>'sourcePoLineId',
+            'amount', s.amount_rounded,
+            'fundId', s.jsonb->>'fromFundId'
+          )
+        )
+        FROM tmp_rollover_source s
+        INNER JOIN tmp_rollover_rejected r ON r.order_id = s.order_id AND r.fund_id = s.fund_id
+        WHERE s.jsonb->>'transactionType'='Encumbrance';
+    END IF;
+
+    -- #7 save the planned encumbrances of the accepted orders
+    IF is_preview THEN
+      INSERT INTO tmp_encumbered_transactions (id, jsonb)
+        SELECT p.id, p.jsonb FROM tmp_rollover_planned p
+        INNER JOIN tmp_rollover_order_status os ON os.order_id = p.order_id
+        WHERE NOT os.missing_budget
+          AND NOT EXISTS (SELECT 1 FROM tmp_rollover_rejected r WHERE r.order_id = p.order_id);
+    ELSE
+      INSERT INTO ${myuniversity}_${mymodule}.transaction (id, jsonb)
+      SELECT p.id, p.jsonb FROM tmp_rollover_planned p
+      INNER JOIN tmp_rollover_order_status os ON os.order_id = p.order_id
+      WHERE os.not_rollovered_ledger_ids IS NULL
+        AND NOT os.missing_budget
+        AND NOT EXISTS (SELECT 1 FROM tmp_rollover_rejected r WHERE r.order_id = p.order_id)
+        AND p.insertable
+      ORDER BY p.seq, p.created_date, p.id
+      ON CONFLICT (lower(${myuniversity}_${mymodule}.f_unaccent(${myuniversity}_${mymodule}.concat_space_sql(
+          VARIADIC ARRAY[
+              (jsonb ->> 'amount'::text),
+              (jsonb ->> 'fromFundId'::text),
+              ((jsonb -> 'encumbrance'::text) ->> 'sourcePurchaseOrderId'::text),
+              ((jsonb -> 'encumbrance'::text) ->> 'sourcePoLineId'::text),
+              ((jsonb -> 'encumbrance'::text) ->> 'initialAmountEncumbered'::text),
+              ((jsonb -> 'encumbrance'::text) ->> 'status'::text),
+              (jsonb ->> 'expenseClassId'::text),
+              (jsonb ->> 'fiscalYearId'::text)
+          ]))))
+      WHERE (jsonb ->> 'transactionType' = 'Encumbrance') DO NOTHING;
+    END IF;
+
+    -- #8 update the budget encumbered amounts with the encumbrances of every order in the to fiscal year,
+    -- like rollover_order() does for each order (the amount becomes null if the sum for an order is null)
+    DROP TABLE IF EXISTS tmp_rollover_budget_increment;
+    CREATE TEMPORARY TABLE tmp_rollover_budget_increment AS
+      SELECT fund_id, CASE WHEN bool_or(amount IS NULL) THEN NULL ELSE sum(amount) END AS amount
+      FROM (
+        SELECT o.order_id, (order_rows.jsonb->>'fromFundId')::uuid AS fund_id, sum((order_rows.jsonb->>'amount')::decimal) AS amount
+        FROM (
+          SELECT jsonb FROM ${myuniversity}_${mymodule}.transaction WHERE fiscalYearId = input_toFiscalYearId
+          UNION
+          SELECT jsonb FROM tmp_encumbered_transactions
+        ) AS order_rows
+        INNER JOIN tmp_rollover_order o ON o.order_id = order_rows.jsonb->'encumbrance'->>'sourcePurchaseOrderId'
+        WHERE order_rows.jsonb->>'fiscalYearId' = _rollover_record->>'toFiscalYearId'
+        GROUP BY o.order_id, (order_rows.jsonb->>'fromFundId')::uuid
+      ) order_amounts
+      GROUP BY fund_id;
+
+    IF NOT is_preview THEN
+      UPDATE ${myuniversity}_${mymodule}.budget as budget
+      SET jsonb = budget.jsonb || jsonb_build_object('encumbered', (budget.jsonb->>'encumbered')::decimal + increment.amount)
+      FROM tmp_rollover_budget_increment increment
+      WHERE increment.fund_id = budget.fundId AND budget.fiscalYearId = input_toFiscalYearId
+        AND (NOT budget.jsonb ? 'ledgerRolloverId' OR budget.jsonb->>'ledgerRolloverId' = _rollover_record->>'id');
+    END IF;
+    UPDATE ${myuniversity}_${mymodule}.ledger_fiscal_year_rollover_budget as budget
+    SET jsonb = budget.jsonb || jsonb_build_object('encumbered', (budget.jsonb->>'encumbered')::decimal + increment.amount)
+    FROM tmp_rollover_budget_increment increment
+    WHERE increment.fund_id = budget.fundId AND budget.fiscalYearId = input_toFiscalYearId
+      AND (NOT budget.jsonb ? 'ledgerRolloverId' OR budget.jsonb->>'ledgerRolloverId' = _rollover_record->>'id');
+
+    -- like rollover_order(), a non-preview rollover keeps all the planned encumbrances, even the ones that were not saved
+    IF NOT is_preview THEN
+      INSERT INTO tmp_encumbered_transactions (id, jsonb)
+        SELECT p.id, p.jsonb FROM tmp_rollover_planned p
+        ORDER BY p.seq, p.created_date, p.id;
+    END IF;
+
+    DROP TABLE IF EXISTS tmp_rollover_order, tmp_rollover_source, tmp_rollover_planned, tmp_rollover_order_status,
+      tmp_rollover_order_fund, tmp_rollover_rejected, tmp_rollover_budget_increment;
+  END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,9 @@
+CREATE TABLE IF NOT EXISTS ${myuniversity}_${mymodule}.batch_idempotency_key (
+  key text NOT NULL,
+  payload_hash text NOT NULL,
+  expires_at timestamptz NOT NULL,
+  PRIMARY KEY(key)
+);
+
+CREATE INDEX IF NOT EXISTS batch_idempotency_key_expires_at_idx
+  ON ${myuniversity}_${mymodule}.batch_idempotency_key (expires_at);
@@ -0,0 +1,207 @@
+/*
+    Rollover jobs: the rollover of budget_encumbrances_rollover() split in steps committed separately, so that a rollover
+    can be resumed after a restart of the module (see LedgerRolloverService and RolloverJobRunner).
+    rollover_job_prepare()        #1 - #3, and split of the orders in chunks
+    rollover_job_chunk()          #4 for the orders of a chunk, and checkpoint of the chunk
+    rollover_job_partition_chunk() same as rollover_job_chunk() for a partitioned job, whose chunks are independent
+    rollover_job_restore_tables() temporary tables used by the final steps of the rollover
+    activate_planned_budgets()    #13
+    Every step checks that the job is still owned by the module instance running it, so that a step is never
+    committed twice when a job is resumed by another instance.
+    The chunks of a partitioned job are grouped in partitions sharing no fund, so the partitions can be rolled over at
+    the same time, the chunks of a partition one after the other. The chunks do not lock the job row: they take a
+    shared advisory lock on the job, which the claim of the job by another instance takes exclusively, and record
+    their completion in ledger_fiscal_year_rollover_job_chunk.
+    okapi_headers keeps the Okapi URL, tenant and user id of the rollover request until the job is finished; the token
+    is not saved, so the orders rollover of a resumed job must be started again.
+ */
+CREATE TABLE IF NOT EXISTS ${myuniversity}_${mymodule}.ledger_fiscal_year_rollover_job (
+  id uuid NOT NULL REFERENCES ${myuniversity}_${mymodule}.ledger_fiscal_year_rollover (id) ON DELETE CASCADE,
+  rollover jsonb NOT NULL,
+  status text NOT NULL,
+  total_chunks integer,
+  completed_chunks integer NOT NULL DEFAULT 0,
+  partitioned boolean NOT NULL DEFAULT false,
+  okapi_headers jsonb,
+  owner text,
+  lease_expires_at timestamptz,
+  created_at timestamptz NOT NULL DEFAULT now(),
+  updated_at timestamptz NOT NULL DEFAULT now(),
+  PRIMARY KEY(id)
+);
+
+CREATE INDEX IF NOT EXISTS ledger_fiscal_year_rollover_job_unfinished_idx
+  ON ${myuniversity}_${mymodule}.ledger_fiscal_year_rollover_job (lease_expires_at)
+  WHERE status IN ('Not Started', 'In Progress');
+
+CREATE TABLE IF NOT EXISTS ${myuniversity}_${mymodule}.ledger_fiscal_year_rollover_job_order (
+  job_id uuid NOT NULL REFERENCES ${myuniversity}_${mymodule}.ledger_fiscal_year_rollover_job (id) ON DELETE CASCADE,
+  chunk integer NOT NULL,
+  seq bigint NOT NULL,
+  order_id text,
+  -- partition of the chunk, for a partitioned job
+  partition_number integer,
+  PRIMARY KEY(job_id, chunk, seq)
+);
+
+-- Completed chunks of a partitioned job
+CREATE TABLE IF NOT EXISTS ${myuniversity}_${mymodule}.ledger_fiscal_year_rollover_job_chunk (
+  job_id uuid NOT NULL REFERENCES ${myuniversity}_${mymodule}.ledger_fiscal_year_rollover_job (id) ON DELETE CASCADE,
+  chunk integer NOT NULL,
+  PRIMARY KEY(job_id, chunk)
+);
+
+-- Encumbrances accumulated in tmp_encumbered_transactions by the chunks, used by the final steps of the rollover
+CREATE TABLE IF NOT EXISTS ${myuniversity}_${mymodule}.ledger_fiscal_year_rollover_job_encumbrance (
+  job_id uuid NOT NULL REFERENCES ${myuniversity}_${mymodule}.ledger_fiscal_year_rollover_job (id) ON DELETE CASCADE,
+  id uuid NOT NULL,
+  jsonb jsonb NOT NULL,
+  PRIMARY KEY(job_id, id)
+);
+
+-- Key of the advisory lock taken by the chunks of a partitioned job, and by the claim of the job (see RolloverJobDAO)
+CREATE OR REPLACE FUNCTION ${myuniversity}_${mymodule}.rollover_job_lock_key(_job_id uuid) RETURNS bigint as $$
+    SELECT hashtextextended(_job_id::text, 0);
+$$ LANGUAGE sql IMMUTABLE;
+
+-- Locks the job, and fails if it is not owned by _owner or if _completed_chunks is not the current checkpoint
+CREATE OR REPLACE FUNCTION ${myuniversity}_${mymodule}.lock_rollover_job(_job_id uuid, _owner text, _completed_chunks integer) RETURNS VOID as $$
+    BEGIN
+        PERFORM 1 FROM ${myuniversity}_${mymodule}.ledger_fiscal_year_rollover_job
+            WHERE id = _job_id AND owner = _owner AND completed_chunks = _completed_chunks
+            FOR UPDATE;
+        IF NOT FOUND THEN
+            RAISE EXCEPTION 'Rollover job % is not owned by % at chunk % anymore', _job_id, _owner, _completed_chunks;
+        END IF;
+    END;
+$$ LANGUAGE plpgsql;
+
+-- #1 - #3, then split of the orders in chunks of _chunk_size orders, in the order used by budget_encumbrances_rollover()
+-- Returns the number of chunks
+CREATE OR REPLACE FUNCTION ${myuniversity}_${mymodule}.rollover_job_prepare(_rollover_record jsonb, _chunk_size integer,
+    _owner text, _lease_seconds integer) RETURNS integer as $$
+    DECLARE
+        input_ledgerRolloverId uuid := (_rollover_record->>'id')::uuid;
+        chunks integer;
+    BEGIN
+        PERFORM ${myuniversity}_${mymodule}.lock_rollover_job(input_ledgerRolloverId, _owner, 0);
+
+        PERFORM ${myuniversity}_${mymodule}.rollover_budgets(_rollover_record);
+        -- created again with the final steps
+        DROP TABLE IF EXISTS tmp_budget_expense_class;
+
+        DELETE FROM ${myuniversity}_${mymodule}.ledger_fiscal_year_rollover_job_order WHERE job_id = input_ledgerRolloverId;
+        DELETE FROM ${myuniversity}_${mymodule}.ledger_fiscal_year_rollover_job_chunk WHERE job_id = input_ledgerRolloverId;
+        INSERT INTO ${myuniversity}_${mymodule}.ledger_fiscal_year_rollover_job_order (job_id, chunk, seq, order_id)
+            SELECT input_ledgerRolloverId, (seq - 1) / _chunk_size + 1, seq, order_id
+            FROM (
+                SELECT order_id, row_number() OVER (ORDER BY date, order_id) AS seq
+                FROM ${myuniversity}_${mymodule}.rollover_orders(_rollover_record)
+            ) AS orders;
+        SELECT coalesce(max(chunk), 0) INTO chunks
+            FROM ${myuniversity}_${mymodule}.ledger_fiscal_year_rollover_job_order WHERE job_id = input_ledgerRolloverId;
+
+        UPDATE ${myuniversity}_${mymodule}.ledger_fiscal_year_rollover_job
+            SET total_chunks = chunks,
+                lease_expires_at = now() + make_interval(secs => _lease_seconds),
+                updated_at = now()
+            WHERE id = input_ledgerRolloverId;
+        RETURN chunks;
+    END;
+$$ LANGUAGE plpgsql;
+
+-- #4 for the orders of the chunk _chunk, with their encumbrances saved for the final steps
+CREATE OR REPLACE FUNCTION ${myuniversity}_${mymodule}.rollover_job_chunk_orders(_rollover_record jsonb, _chunk integer) RETURNS VOID as $$
+    DECLARE
+        input_ledgerRolloverId uuid := (_rollover_record->>'id')::uuid;
+        temprow record;
+    BEGIN
+        -- rollover_order() only reads the encumbrances of the order being rolled over from this table,
+        -- so it can be empty at the beginning of each chunk
+        DROP TABLE IF EXISTS tmp_encumbered_transactions;
+        CREATE TEMPORARY TABLE tmp_encumbered_transactions(LIKE ${myuniversity}_${mymodule}.transaction);
+
+        PERFORM ${myuniversity}_${mymodule}.create_rollover_po_line_totals(_rollover_record, ARRAY(
+            SELECT order_id FROM ${myuniversity}_${mymodule}.ledger_fiscal_year_rollover_job_order
+            WHERE job_id = input_ledgerRolloverId AND chunk = _chunk));
+
+        FOR temprow IN
+            SELECT order_id FROM ${myuniversity}_${mymodule}.ledger_fiscal_year_rollover_job_order
+            WHERE job_id = input_ledgerRolloverId AND chunk = _chunk
+            ORDER BY seq
+        LOOP
+            PERFORM ${myuniversity}_${mymodule}.rollover_order(temprow.order_id, _rollover_record);
+        END LOOP;
+
+        INSERT INTO ${myuniversity}_${mymodule}.ledger_fiscal_year_rollover_job_encumbrance (job_id, id, jsonb)
+            SELECT input_ledgerRolloverId, id, jsonb FROM tmp_encumbered_transactions
+            ON CONFLICT DO NOTHING;
+
+        DROP TABLE IF EXISTS tmp_rollover_po_line_totals;
+        DROP TABLE IF EXISTS tmp_encumbered_transactions;
+    END;
+$$ LANGUAGE plpgsql;
+
+-- #4 for the orders of the chunk _chunk, then checkpoint of the chunk
+CREATE OR REPLACE FUNCTION ${myuniversity}_${mymodule}.rollover_job_chunk(_rollover_record jsonb, _chunk integer,
+    _owner text, _lease_seconds integer) RETURNS VOID as $$
+    DECLARE
+        input_ledgerRolloverId uuid := (_rollover_record->>'id')::uuid;
+    BEGIN
+        PERFORM ${myuniversity}_${mymodule}.lock_rollover_job(input_ledgerRolloverId, _owner, _chunk - 1);
+        PERFORM ${myuniversity}_${mymodule}.rollover_job_chunk_orders(_rollover_record, _chunk);
+
+        UPDATE ${myuniversity}_${mymodule}.ledger_fiscal_year_rollover_job
+            SET completed_chunks = _chunk,
+                lease_expires_at = now() + make_interval(secs => _lease_seconds),
+                updated_at = now()
+            WHERE id = input_ledgerRolloverId;
+    END;
+$$ LANGUAGE plpgsql;
+
+-- #4 for the orders of the chunk _chunk of a partitioned job, then checkpoint of the chunk
+-- The job row is not locked, so that the chunks of the other partitions can run at the same time; the lease is renewed
+-- by RolloverJobDAO after the commit. The shared advisory lock makes a claim of the job by another instance wait for
+-- the commit, and the chunk wait for the commit of a claim, after which the owner check fails.
+CREATE OR REPLACE FUNCTION ${myuniversity}_${mymodule}.rollover_job_partition_chunk(_rollover_record jsonb, _chunk integer,
+    _owner text) RETURNS VOID as $$
+    DECLARE
+        input_ledgerRolloverId uuid := (_rollover_record->>'id')::uuid;
+    BEGIN
+        PERFORM pg_advisory_xact_lock_shared(${myuniversity}_${mymodule}.rollover_job_lock_key(input_ledgerRolloverId));
+        PERFORM 1 FROM ${myuniversity}_${mymodule}.ledger_fiscal_year_rollover_job
+            WHERE id = input_ledgerRolloverId AND owner = _owner AND partitioned;
+        IF NOT FOUND THEN
+            RAISE EXCEPTION 'Partitioned rollover job % is not owned by % anymore', input_ledgerRolloverId, _owner;
+        END IF;
+        PERFORM 1 FROM ${myuniversity}_${mymodule}.ledger_fiscal_year_rollover_job_order AS job_order
+            WHERE job_order.job_id = input_ledgerRolloverId AND job_order.chunk < _chunk
+              AND job_order.partition_number = (
+                SELECT partition_number FROM ${myuniversity}_${mymodule}.ledger_fiscal_year_rollover_job_order
+                WHERE job_id = input_ledgerRolloverId AND chunk = _chunk LIMIT 1)
+              AND NOT EXISTS (SELECT 1 FROM ${myuniversity}_${mymodule}.ledger_fiscal_year_rollover_job_chunk AS job_chunk
+                WHERE job_chunk.job_id = job_order.job_id AND job_chunk.chunk = job_order.chunk);
+        IF FOUND THEN
+            RAISE EXCEPTION 'Chunk % of rollover job % cannot be rolled over before the previous chunks of its partition',
+                _chunk, input_ledgerRolloverId;
+        END IF;
+        -- fails if the chunk has already been rolled over, or waits for the transaction rolling it over
+        INSERT INTO ${myuniversity}_${mymodule}.ledger_fiscal_year_rollover_job_chunk (job_id, chunk)
+            VALUES (input_ledgerRolloverId, _chunk);
+
+        PERFORM ${myuniversity}_${mymodule}.rollover_job_chunk_orders(_rollover_record, _chunk);
+    END;
+$$ LANGUAGE plpgsql;
+
+-- tmp_encumbered_transactions and tmp_budget_expense_class, as left by budget_encumbrances_rollover()
+CREATE OR REPLACE FUNCTION ${myuniversity}_${mymodule}.rollover_job_restore_tables(_rollover_record jsonb) RETURNS VOID as $$
+    BEGIN
+        DROP TABLE IF EXISTS tmp_encumbered_transactions;
+        CREATE TEMPORARY TABLE tmp_encumbered_transactions(LIKE ${myuniversity}_${mymodule}.transaction);
+        INSERT INTO tmp_encumbered_transactions (id, jsonb)
+            SELECT id, jsonb FROM ${myuniversity}_${mymodule}.ledger_fiscal_year_rollover_job_encumbrance
+            WHERE job_id = (_rollover_record->>'id')::uuid;
+
+        PERFORM ${myuniversity}_${mymodule}.create_rollover_budget_expense_class(_rollover_record);
+    END;
+$$ LANGUAGE plpgsql;
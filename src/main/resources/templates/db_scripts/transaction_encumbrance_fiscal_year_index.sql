@@ -0,0 +1,4 @@
+-- Encumbrances of a fiscal year, used by the rollover and the encumbrance lookups
+CREATE INDEX IF NOT EXISTS transaction_encumbrance_fiscal_year_idx
+  ON ${myuniversity}_${mymodule}.transaction (fiscalYearId)
+  WHERE jsonb->>'transactionType' = 'Encumbrance';
@@ -19,6 +19,7 @@ import org.folio.dao.exchangerate.ExchangeRateSourceDAOTest;
 import org.folio.dao.rollover.LedgerFiscalYearRolloverDAOTest;
 import org.folio.dao.rollover.RolloverErrorDAOTest;
 import org.folio.dao.rollover.RolloverProgressDAOTest;
+import org.folio.dao.transactions.TransactionIndexesTest;
 import org.folio.postgres.testing.PostgresTesterContainer;
 import org.folio.rest.RestVerticle;
 import org.folio.rest.core.RestClientTest;
@@ -39,22 +40,40 @@ import org.folio.rest.impl.TenantSampleDataTest;
 import org.folio.rest.impl.TransactionTest;
 import org.folio.rest.impl.TransactionTotalApiTest;
 import org.folio.rest.jaxrs.model.TenantJob;
+import org.folio.rest.persist.BulkInsertWriterDatabaseTest;
+import org.folio.rest.persist.BulkInsertWriterTest;
 import org.folio.rest.persist.PostgresClient;
 import org.folio.rest.tools.utils.NetworkUtils;
 import org.folio.rest.utils.DBClientTest;
+import org.folio.service.RolloverSetBasedRegressionTest;
 import org.folio.service.budget.BudgetServiceTest;
 import org.folio.service.email.EmailServiceTest;
 import org.folio.service.exchangerate.ExchangeRateSourceServiceTest;
 import org.folio.service.financedata.FinanceDataServiceTest;
+import org.folio.service.fund.FundLedgerCacheTest;
 import org.folio.service.group.GroupServiceTest;
 import org.folio.service.rollover.LedgerRolloverServiceTest;
+import org.folio.service.rollover.RolloverJobRunnerTest;
+import org.folio.service.rollover.RolloverOrderPartitionerTest;
 import org.folio.service.rollover.RolloverProgressServiceTest;
 import org.folio.service.rollover.RolloverValidationServiceTest;
 import org.folio.service.transactions.AllocationTransferTest;
+import org.folio.service.transactions.BatchAdmissionControlTest;
+import org.folio.service.transactions.BatchBudgetDeltasTest;
+import org.folio.service.transactions.BatchCoalescerTest;
+import org.folio.service.transactions.BatchDiagnosticsTest;
+import org.folio.service.transactions.BatchIdempotencyTest;
+import org.folio.service.transactions.BatchMetricsTest;
+import org.folio.service.transactions.BatchStreamDatabaseTest;
+import org.folio.service.transactions.BatchStreamReaderTest;
+import org.folio.service.transactions.BatchStreamServiceTest;
+import org.folio.service.transactions.BatchTransactionContextTest;
 import org.folio.service.transactions.EncumbranceTest;
 import org.folio.service.transactions.PaymentCreditTest;
 import org.folio.service.transactions.PendingPaymentTest;
 import org.folio.utils.CalculationUtilsTest;
+import org.folio.utils.FixedPointMoneyTest;
+import org.folio.utils.ModelCopyUtilsTest;
 import org.folio.utils.SecureStoreUtilsTest;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
@@ -166,6 +185,12 @@ public class StorageTestSuite {
   class GroupServiceTestNested extends GroupServiceTest {
   }
 
+  @Nested
+  class FundLedgerCacheTestNested extends FundLedgerCacheTest {}
+
+  @Nested
+  class RolloverSetBasedRegressionTestNested extends RolloverSetBasedRegressionTest {}
+
   @Nested
   class GroupTestNested extends GroupTest {
   }
@@ -207,18 +232,39 @@ public class StorageTestSuite {
   @Nested
   class RolloverProgressDAOTestNested extends RolloverProgressDAOTest {}
 
+  @Nested
+  class TransactionIndexesTestNested extends TransactionIndexesTest {}
+
   @Nested
   class RestClientTestNested extends RestClientTest {}
 
   @Nested
   class RolloverProgressServiceTestNested extends RolloverProgressServiceTest {}
 
+  @Nested
+  class RolloverJobRunnerTestNested extends RolloverJobRunnerTest {}
+
+  @Nested
+  class RolloverOrderPartitionerTestNested extends RolloverOrderPartitionerTest {}
+
   @Nested
   class RolloverErrorDAOTestNested extends RolloverErrorDAOTest {}
 
+  @Nested
+  class BulkInsertWriterDatabaseTestNested extends BulkInsertWriterDatabaseTest {}
+
+  @Nested
+  class BulkInsertWriterTestNested extends BulkInsertWriterTest {}
+
   @Nested
   class CalculationUtilsTestNested extends CalculationUtilsTest {}
 
+  @Nested
+  class FixedPointMoneyTestNested extends FixedPointMoneyTest {}
+
+  @Nested
+  class ModelCopyUtilsTestNested extends ModelCopyUtilsTest {}
+
   @Nested
   class RolloverValidationServiceTestNested extends RolloverValidationServiceTest {}
 
@@ -237,6 +283,36 @@ public class StorageTestSuite {
   @Nested
   class PendingPaymentTestNested extends PendingPaymentTest {}
 
+  @Nested
+  class BatchAdmissionControlTestNested extends BatchAdmissionControlTest {}
+
+  @Nested
+  class BatchBudgetDeltasTestNested extends BatchBudgetDeltasTest {}
+
+  @Nested
+  class BatchCoalescerTestNested extends BatchCoalescerTest {}
+
+  @Nested
+  class BatchDiagnosticsTestNested extends BatchDiagnosticsTest {}
+
+  @Nested
+  class BatchIdempotencyTestNested extends BatchIdempotencyTest {}
+
+  @Nested
+  class BatchMetricsTestNested extends BatchMetricsTest {}
+
+  @Nested
+  class BatchStreamDatabaseTestNested extends BatchStreamDatabaseTest {}
+
+  @Nested
+  class BatchStreamReaderTestNested extends BatchStreamReaderTest {}
+
+  @Nested
+  class BatchStreamServiceTestNested extends BatchStreamServiceTest {}
+
+  @Nested
+  class BatchTransactionContextTestNested extends BatchTransactionContextTest {}
+
   @Nested
   class FinanceDataApiTestNested extends FinanceDataApiTest {}
 
@@ -0,0 +1,105 @@
+package org.folio.dao.transactions;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import io.vertx.sqlclient.Tuple;
+import org.folio.rest.impl.TestBase;
+import org.folio.rest.persist.DBClient;
+import org.folio.rest.persist.DBConn;
+import org.folio.rest.persist.PostgresClient;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Checks with EXPLAIN that the transaction lookups used by the rollover and by batch processing use their indexes.
+ * The data is seeded and the plans are checked in a transaction that is rolled back.
+ */
+@ExtendWith(VertxExtension.class)
+class TransactionIndexesTest extends TestBase {
+
+  private static final String SCHEMA = PostgresClient.convertToPsqlStandard(TENANT_NAME);
+  private static final String FISCAL_YEAR_ID = "8f5e2a3c-7d41-4b6e-9a0f-1c2d3e4f5a6b";
+
+  @ParameterizedTest
+  @CsvSource(delimiter = '|', quoteCharacter = '"', value = {
+    "(fiscalyearid, "
+      + "|SELECT jsonb FROM %1$s.transaction tr WHERE tr.jsonb->>'transactionType' = 'Encumbrance'"
+      + " AND tr.fiscalYearId = '%2$s' AND tr.jsonb->'encumbrance'->>'orderStatus' = 'Open'",
+    "'paymentEncumbranceId'"
+      + "|SELECT jsonb FROM %1$s.transaction tr WHERE tr.jsonb->>'transactionType' = 'Payment'"
+      + " AND tr.jsonb->>'paymentEncumbranceId' = ANY(ARRAY['%3$s', '%4$s'])",
+    "'awaitingPayment'"
+      + "|SELECT jsonb FROM %1$s.transaction tr WHERE tr.jsonb->'awaitingPayment'->>'encumbranceId' IN ('%3$s', '%4$s')"
+  })
+  void testLookupUsesIndex(String indexDefinitionPart, String query, Vertx vertx, VertxTestContext vtc) {
+    String sql = String.format(query, SCHEMA, FISCAL_YEAR_ID, UUID.randomUUID(), UUID.randomUUID());
+    new DBClient(vertx, TENANT_NAME).withConn(conn -> conn.execute("BEGIN")
+        .compose(v -> seed(conn))
+        .compose(v -> conn.execute("SET LOCAL enable_seqscan = off"))
+        .compose(v -> findIndexName(conn, indexDefinitionPart))
+        .compose(indexName -> conn.execute("EXPLAIN " + sql)
+          .map(rowSet -> {
+            String plan = StreamSupport.stream(rowSet.spliterator(), false)
+              .map(row -> row.getString(0))
+              .collect(Collectors.joining("\n"));
+            vtc.verify(() -> {
+              assertNotNull(indexName);
+              assertTrue(plan.contains(indexName), () -> "Index " + indexName + " not used:\n" + plan);
+            });
+            return null;
+          }))
+        .eventually(() -> conn.execute("ROLLBACK")))
+      .onComplete(vtc.succeedingThenComplete());
+  }
+
+  private Future<String> findIndexName(DBConn conn, String indexDefinitionPart) {
+    String sql = "SELECT indexname FROM pg_indexes WHERE schemaname = $1 AND tablename = 'transaction'"
+      + " AND indexdef LIKE $2 ORDER BY indexname LIMIT 1";
+    return conn.execute(sql, Tuple.of(SCHEMA, "%" + indexDefinitionPart + "%"))
+      .map(rowSet -> rowSet.iterator().hasNext() ? rowSet.iterator().next().getString(0) : null);
+  }
+
+  private Future<Void> seed(DBConn conn) {
+    JsonObject fiscalYear = new JsonObject()
+      .put("id", FISCAL_YEAR_ID)
+      .put("name", "Index test FY2095")
+      .put("code", "IDXT2095")
+      .put("series", "IDXT")
+      .put("periodStart", "2095-01-01T00:00:00.000+00:00")
+      .put("periodEnd", "2095-12-31T23:59:59.000+00:00");
+    String transactionsSql = String.format("""
+        INSERT INTO %1$s.transaction (id, jsonb)
+        SELECT t.id, jsonb_build_object(
+            'id', t.id,
+            'transactionType', (ARRAY['Encumbrance', 'Payment', 'Pending payment'])[n %% 3 + 1],
+            'amount', n,
+            'currency', 'USD',
+            'source', 'User',
+            'fiscalYearId', $1::text,
+            'paymentEncumbranceId', public.uuid_generate_v5(public.uuid_nil(), concat('IDXT-ENC', n)),
+            'awaitingPayment', jsonb_build_object('encumbranceId', public.uuid_generate_v5(public.uuid_nil(), concat('IDXT-ENC', n))),
+            'encumbrance', jsonb_build_object(
+              'sourcePurchaseOrderId', public.uuid_generate_v5(public.uuid_nil(), concat('IDXT-PO', n / 10)),
+              'sourcePoLineId', public.uuid_generate_v5(public.uuid_nil(), concat('IDXT-POL', n)),
+              'orderStatus', 'Open'))
+        FROM generate_series(1, 3000) AS n,
+             LATERAL (SELECT public.uuid_generate_v5(public.uuid_nil(), concat('IDXT-TR', n)) AS id) t
+        """, SCHEMA);
+    return conn.execute(String.format("INSERT INTO %s.fiscal_year (id, jsonb) VALUES ($1, $2)", SCHEMA),
+        Tuple.of(UUID.fromString(FISCAL_YEAR_ID), fiscalYear))
+      .compose(v -> conn.execute(transactionsSql, Tuple.of(FISCAL_YEAR_ID)))
+      .compose(v -> conn.execute(String.format("ANALYZE %s.transaction", SCHEMA)))
+      .mapEmpty();
+  }
+}
@@ -8,13 +8,18 @@ import static org.folio.rest.utils.TestEntities.BUDGET;
 import static org.folio.rest.utils.TestEntities.FISCAL_YEAR;
 import static org.folio.rest.utils.TestEntities.FUND;
 import static org.folio.rest.utils.TestEntities.LEDGER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import io.vertx.core.json.JsonObject;
 import org.apache.commons.lang3.tuple.Pair;
 import org.folio.rest.jaxrs.model.Batch;
+import org.folio.rest.jaxrs.model.Budget;
 import org.folio.rest.jaxrs.model.Encumbrance;
 import org.folio.rest.jaxrs.model.TenantJob;
 import org.folio.rest.jaxrs.model.Transaction;
+import org.folio.rest.jaxrs.model.TransactionPatch;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -23,6 +28,7 @@ import org.junit.jupiter.api.Test;
 import io.restassured.http.Header;
 
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public class TransactionTest extends TestBase {
@@ -52,9 +58,87 @@ public class TransactionTest extends TestBase {
 
   @Test
   void testBatchTransactionsPatch() {
+    // the transaction to patch does not exist
     String batchAsString = getFile(BATCH_TRANSACTION_SAMPLE);
     postData(BATCH_TRANSACTION_ENDPOINT, batchAsString, TRANSACTION_TENANT_HEADER).then()
-      .statusCode(500);
+      .statusCode(400);
+  }
+
+  @Test
+  void testBatchTransactionsPatchEncumbrance() {
+    givenTestData(TRANSACTION_TENANT_HEADER,
+      Pair.of(FISCAL_YEAR, FISCAL_YEAR.getPathToSampleFile()),
+      Pair.of(LEDGER, LEDGER.getPathToSampleFile()),
+      Pair.of(FUND, FUND.getPathToSampleFile()),
+      Pair.of(BUDGET, BUDGET.getPathToSampleFile()));
+
+    String encumbranceId = UUID.randomUUID().toString();
+    Transaction encumbrance = new Transaction()
+      .withId(encumbranceId)
+      .withCurrency("USD")
+      .withFromFundId(FUND.getId())
+      .withTransactionType(Transaction.TransactionType.ENCUMBRANCE)
+      .withAmount(10.0)
+      .withFiscalYearId(FISCAL_YEAR.getId())
+      .withSource(Transaction.Source.PO_LINE)
+      .withEncumbrance(new Encumbrance()
+        .withOrderType(Encumbrance.OrderType.ONE_TIME)
+        .withOrderStatus(Encumbrance.OrderStatus.OPEN)
+        .withSourcePurchaseOrderId(UUID.randomUUID().toString())
+        .withSourcePoLineId(UUID.randomUUID().toString())
+        .withInitialAmountEncumbered(10d)
+        .withSubscription(false)
+        .withReEncumber(false));
+    postData(BATCH_TRANSACTION_ENDPOINT, valueAsString(new Batch().withTransactionsToCreate(List.of(encumbrance))),
+      TRANSACTION_TENANT_HEADER)
+      .then().statusCode(204);
+    double encumbered = getBudgetEncumbered();
+
+    // budget-neutral patch with an invalid value
+    TransactionPatch invalidPatch = new TransactionPatch()
+      .withId(encumbranceId)
+      .withAdditionalProperty("encumbrance", Map.of("orderStatus", "Bogus"));
+    postData(BATCH_TRANSACTION_ENDPOINT, valueAsString(new Batch().withTransactionPatches(List.of(invalidPatch))),
+      TRANSACTION_TENANT_HEADER)
+      .then().statusCode(400);
+
+    // budget-neutral patch, applied without reading the transaction
+    TransactionPatch statusPatch = new TransactionPatch()
+      .withId(encumbranceId)
+      .withAdditionalProperty("encumbrance", Map.of("orderStatus", "Closed", "reEncumber", true));
+    postData(BATCH_TRANSACTION_ENDPOINT, valueAsString(new Batch().withTransactionPatches(List.of(statusPatch))),
+      TRANSACTION_TENANT_HEADER)
+      .then().statusCode(204);
+
+    Transaction patched = getDataById(TRANSACTION_ENDPOINT_BY_ID, encumbranceId, TRANSACTION_TENANT_HEADER)
+      .as(Transaction.class);
+    assertEquals(Encumbrance.OrderStatus.CLOSED, patched.getEncumbrance().getOrderStatus());
+    assertTrue(patched.getEncumbrance().getReEncumber());
+    assertEquals(Encumbrance.OrderType.ONE_TIME, patched.getEncumbrance().getOrderType());
+    assertEquals(10d, patched.getAmount());
+    assertNotNull(patched.getMetadata().getUpdatedDate());
+    assertEquals(encumbered, getBudgetEncumbered());
+
+    // patch changing the amount, processed as an update
+    TransactionPatch amountPatch = new TransactionPatch()
+      .withId(encumbranceId)
+      .withAdditionalProperty("amount", 8d)
+      .withAdditionalProperty("encumbrance", Map.of("initialAmountEncumbered", 8d));
+    postData(BATCH_TRANSACTION_ENDPOINT, valueAsString(new Batch().withTransactionPatches(List.of(amountPatch))),
+      TRANSACTION_TENANT_HEADER)
+      .then().statusCode(204);
+
+    patched = getDataById(TRANSACTION_ENDPOINT_BY_ID, encumbranceId, TRANSACTION_TENANT_HEADER)
+      .as(Transaction.class);
+    assertEquals(8d, patched.getAmount());
+    assertEquals(Encumbrance.OrderStatus.CLOSED, patched.getEncumbrance().getOrderStatus());
+    assertEquals(encumbered - 2d, getBudgetEncumbered(), 0.001);
+  }
+
+  private double getBudgetEncumbered() {
+    return getDataById(BUDGET.getEndpointWithId(), BUDGET.getId(), TRANSACTION_TENANT_HEADER)
+      .as(Budget.class)
+      .getEncumbered();
   }
 
   @Test
@@ -0,0 +1,120 @@
+package org.folio.rest.persist;
+
+import static org.folio.dao.transactions.BatchTransactionDAO.TRANSACTIONS_TABLE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.Tuple;
+import org.folio.rest.impl.TestBase;
+import org.folio.rest.jaxrs.model.Metadata;
+import org.folio.rest.jaxrs.model.Transaction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+/**
+ * Inserts more records than the threshold with the bulk insert, and the same records with saveBatch, in a
+ * transaction that is rolled back, and checks that the stored rows are the same, including the columns and the
+ * version set by the database triggers.
+ */
+@ExtendWith(VertxExtension.class)
+public class BulkInsertWriterDatabaseTest extends TestBase {
+
+  private static final String SCHEMA = PostgresClient.convertToPsqlStandard(TENANT_NAME);
+  private static final int COUNT = 5;
+
+  @Test
+  void testBulkInsertStoresTheSameRowsAsSaveBatch(Vertx vertx, VertxTestContext vtc) {
+    String userId = UUID.randomUUID().toString();
+    List<Transaction> bulkInserted = createTransactions(userId);
+    List<Transaction> saved = createTransactions(userId);
+    List<JsonObject> bulkInsertedRows = new ArrayList<>();
+    List<JsonObject> savedRows = new ArrayList<>();
+    new DBClient(vertx, TENANT_NAME).withConn(conn -> conn.execute("BEGIN")
+        .compose(v -> new BulkInsertWriter(3, 2).insert(TRANSACTIONS_TABLE, bulkInserted, conn))
+        .compose(v -> BulkInsertWriter.disabled().insert(TRANSACTIONS_TABLE, saved, conn))
+        .compose(v -> updateAmount(conn, bulkInserted.getFirst().getId()))
+        .compose(v -> updateAmount(conn, saved.getFirst().getId()))
+        .compose(v -> getRows(conn, bulkInserted, bulkInsertedRows))
+        .compose(v -> getRows(conn, saved, savedRows))
+        .eventually(() -> conn.execute("ROLLBACK")))
+      .onComplete(vtc.succeeding(v -> vtc.verify(() -> {
+        assertEquals(COUNT, bulkInsertedRows.size());
+        for (int i = 0; i < COUNT; i++) {
+          JsonObject bulkInsertedRow = bulkInsertedRows.get(i);
+          JsonObject savedRow = savedRows.get(i);
+          // the first record was updated once
+          assertEquals(i == 0 ? 2 : 1, bulkInsertedRow.getJsonObject("jsonb").getInteger("_version"));
+          assertEquals(userId, bulkInsertedRow.getString("created_by"));
+          assertNotNull(bulkInsertedRow.getValue("creation_date"));
+          assertEquals(savedRow.getString("created_by"), bulkInsertedRow.getString("created_by"));
+          assertEquals(savedRow.getValue("creation_date"), bulkInsertedRow.getValue("creation_date"));
+          assertEquals(savedRow.getJsonObject("jsonb").copy().put("id", bulkInserted.get(i).getId()),
+            bulkInsertedRow.getJsonObject("jsonb"));
+        }
+        vtc.completeNow();
+      })));
+  }
+
+  private List<Transaction> createTransactions(String userId) {
+    Date createdDate = new Date(1_700_000_000_000L);
+    return IntStream.range(0, COUNT)
+      .mapToObj(i -> new Transaction()
+        .withId(UUID.randomUUID().toString())
+        .withTransactionType(Transaction.TransactionType.TRANSFER)
+        .withAmount((double) i)
+        .withCurrency("USD")
+        .withSource(Transaction.Source.USER)
+        .withMetadata(new Metadata()
+          .withCreatedDate(createdDate)
+          .withCreatedByUserId(userId)
+          .withUpdatedDate(createdDate)
+          .withUpdatedByUserId(userId)))
+      .toList();
+  }
+
+  /**
+   * Updates a record keeping its version, as the optimistic locking trigger requires.
+   */
+  private Future<Void> updateAmount(DBConn conn, String id) {
+    String sql = String.format("UPDATE %s.%s SET jsonb = jsonb_set(jsonb, '{amount}', '10') WHERE id = $1",
+      SCHEMA, TRANSACTIONS_TABLE);
+    return conn.execute(sql, Tuple.of(UUID.fromString(id))).mapEmpty();
+  }
+
+  /**
+   * Adds the rows of the transactions, in the order of the list.
+   */
+  private Future<Void> getRows(DBConn conn, List<Transaction> transactions, List<JsonObject> rows) {
+    String sql = String.format("SELECT id, jsonb, creation_date, created_by FROM %s.%s WHERE id = ANY($1::uuid[])",
+      SCHEMA, TRANSACTIONS_TABLE);
+    UUID[] ids = transactions.stream().map(tr -> UUID.fromString(tr.getId())).toArray(UUID[]::new);
+    return conn.execute(sql, Tuple.tuple().addValue(ids))
+      .map(rowSet -> {
+        List<JsonObject> unorderedRows = new ArrayList<>();
+        for (Row row : rowSet) {
+          unorderedRows.add(new JsonObject()
+            .put("id", row.getUUID("id").toString())
+            .put("jsonb", row.getJsonObject("jsonb"))
+            .put("creation_date", String.valueOf(row.getValue("creation_date")))
+            .put("created_by", row.getString("created_by")));
+        }
+        transactions.forEach(tr -> unorderedRows.stream()
+          .filter(row -> row.getString("id").equals(tr.getId()))
+          .findFirst()
+          .ifPresent(rows::add));
+        return null;
+      });
+  }
+}
@@ -0,0 +1,103 @@
+package org.folio.rest.persist;
+
+import static io.vertx.core.Future.succeededFuture;
+import static org.folio.service.ServiceTestUtils.createRowSet;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import org.folio.rest.jaxrs.model.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+import io.vertx.sqlclient.Tuple;
+
+public class BulkInsertWriterTest {
+
+  private static final String TABLE = "transaction";
+
+  private DBConn conn;
+
+  @BeforeEach
+  void setUp() {
+    conn = mock(DBConn.class);
+    doReturn("tenantname").when(conn).getTenantId();
+    doReturn(succeededFuture(createRowSet(List.of()))).when(conn).execute(anyString(), any(Tuple.class));
+    doReturn(succeededFuture(createRowSet(List.of()))).when(conn).saveBatch(anyString(), anyList());
+  }
+
+  private List<Transaction> createTransactions(int count) {
+    return IntStream.range(0, count)
+      .mapToObj(i -> new Transaction().withId(UUID.randomUUID().toString()).withAmount((double) i))
+      .toList();
+  }
+
+  @Test
+  void testSmallListUsesSaveBatch() {
+    List<Transaction> transactions = createTransactions(2);
+
+    Future<Void> result = new BulkInsertWriter(3, 2).insert(TABLE, transactions, conn);
+
+    assertTrue(result.succeeded());
+    verify(conn, times(1)).saveBatch(TABLE, transactions);
+    verify(conn, never()).execute(anyString(), any(Tuple.class));
+  }
+
+  @Test
+  void testLargeListIsInsertedInChunks() {
+    List<Transaction> transactions = createTransactions(5);
+
+    Future<Void> result = new BulkInsertWriter(3, 2).insert(TABLE, transactions, conn);
+
+    assertTrue(result.succeeded());
+    verify(conn, never()).saveBatch(anyString(), anyList());
+    ArgumentCaptor<Tuple> paramsCaptor = ArgumentCaptor.forClass(Tuple.class);
+    verify(conn, times(3)).execute(eq("INSERT INTO tenantname_mod_finance_storage.transaction (id, jsonb) "
+      + "SELECT id, jsonb::jsonb FROM unnest($1::uuid[], $2::text[]) AS record(id, jsonb)"), paramsCaptor.capture());
+    List<Tuple> params = paramsCaptor.getAllValues();
+    assertEquals(2, ((UUID[]) params.get(0).getValue(0)).length);
+    assertEquals(1, ((UUID[]) params.get(2).getValue(0)).length);
+    UUID lastId = ((UUID[]) params.get(2).getValue(0))[0];
+    assertEquals(transactions.get(4).getId(), lastId.toString());
+    JsonObject lastDocument = new JsonObject(((String[]) params.get(2).getValue(1))[0]);
+    assertEquals(transactions.get(4).getId(), lastDocument.getString("id"));
+    assertEquals(4d, lastDocument.getDouble("amount"));
+  }
+
+  @Test
+  void testListWithoutIdsUsesSaveBatch() {
+    List<Transaction> transactions = List.of(new Transaction(), new Transaction(), new Transaction());
+
+    Future<Void> result = new BulkInsertWriter(3, 2).insert(TABLE, transactions, conn);
+
+    assertTrue(result.succeeded());
+    verify(conn, times(1)).saveBatch(TABLE, transactions);
+    verify(conn, never()).execute(anyString(), any(Tuple.class));
+  }
+
+  @Test
+  void testDisabledWriterUsesSaveBatch() {
+    List<Transaction> transactions = createTransactions(BulkInsertWriter.DEFAULT_THRESHOLD);
+
+    Future<Void> result = BulkInsertWriter.disabled().insert(TABLE, transactions, conn);
+
+    assertTrue(result.succeeded());
+    verify(conn, times(1)).saveBatch(TABLE, transactions);
+    verify(conn, never()).execute(anyString(), any(Tuple.class));
+  }
+}
@@ -1,19 +1,30 @@
 package org.folio.rest.utils;
 
+import static org.folio.dao.ledger.LedgerPostgresDAO.LEDGER_TABLE;
+import static org.folio.dao.transactions.BatchTransactionDAO.TRANSACTIONS_TABLE;
 import static org.folio.rest.impl.FiscalYearAPI.FISCAL_YEAR_TABLE;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
 
+import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonObject;
 import org.folio.rest.exception.HttpException;
 import io.vertx.junit5.VertxExtension;
 import io.vertx.junit5.VertxTestContext;
 import io.vertx.sqlclient.Tuple;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
 import org.folio.rest.impl.TestBase;
+import org.folio.rest.jaxrs.model.AwaitingPayment;
 import org.folio.rest.jaxrs.model.FiscalYear;
+import org.folio.rest.jaxrs.model.Ledger;
+import org.folio.rest.jaxrs.model.Transaction;
 import org.folio.rest.persist.DBClient;
 import org.folio.rest.persist.PostgresClient;
 import org.junit.jupiter.api.AfterAll;
@@ -69,6 +80,81 @@ public class DBClientTest extends TestBase {
     .onComplete(vtc.succeedingThenComplete());
   }
 
+  @Test
+  void getAndDeleteByIds(Vertx vertx, VertxTestContext vtc) {
+    String fiscalYearId1 = UUID.randomUUID().toString();
+    String fiscalYearId2 = UUID.randomUUID().toString();
+    String ledgerId1 = UUID.randomUUID().toString();
+    String ledgerId2 = UUID.randomUUID().toString();
+    String ledgerId3 = UUID.randomUUID().toString();
+    new DBClient(vertx, TENANT_NAME).withConn(conn -> conn.execute("BEGIN")
+        .compose(x -> conn.saveBatch(FISCAL_YEAR_TABLE, List.of(
+          new FiscalYear().withId(fiscalYearId1).withCode("FY" + UUID.randomUUID()),
+          new FiscalYear().withId(fiscalYearId2).withCode("FY" + UUID.randomUUID()))))
+        .compose(x -> conn.saveBatch(LEDGER_TABLE, List.of(
+          ledger(ledgerId1, fiscalYearId1), ledger(ledgerId2, fiscalYearId2), ledger(ledgerId3, fiscalYearId1))))
+        .compose(x -> conn.getByIds(LEDGER_TABLE, Ledger.class, List.of(ledgerId1, ledgerId2, UUID.randomUUID().toString())))
+        .map(ledgers -> assertIds(ledgers, Ledger::getId, ledgerId1, ledgerId2))
+        .compose(x -> conn.getByColumnValues(LEDGER_TABLE, Ledger.class, "fiscalYearOneId", List.of(fiscalYearId1), Map.of()))
+        .map(ledgers -> assertIds(ledgers, Ledger::getId, ledgerId1, ledgerId3))
+        .compose(x -> conn.getByColumnValues(LEDGER_TABLE, Ledger.class, "fiscalYearOneId",
+          List.of(fiscalYearId1, fiscalYearId2), Map.of("id", ledgerId3)))
+        .map(ledgers -> assertIds(ledgers, Ledger::getId, ledgerId3))
+        .compose(x -> conn.deleteByIds(LEDGER_TABLE, List.of(ledgerId1, ledgerId3)))
+        .map(rowSet -> {
+          assertThat(rowSet.rowCount(), is(2));
+          return null;
+        })
+        .compose(x -> conn.getByIds(LEDGER_TABLE, Ledger.class, List.of(ledgerId1, ledgerId2, ledgerId3)))
+        .map(ledgers -> assertIds(ledgers, Ledger::getId, ledgerId2))
+        .compose(x -> conn.getByIds(LEDGER_TABLE, Ledger.class, List.of("invalid")))
+        .transform(ar -> {
+          assertThat(ar.failed(), is(true));
+          assertHttpException(ar.cause(), "Invalid UUID", "invalid");
+          return Future.<Void>succeededFuture();
+        })
+        .eventually(() -> conn.execute("ROLLBACK")))
+      .onComplete(vtc.succeedingThenComplete());
+  }
+
+  @Test
+  void getByJsonbFieldValues(Vertx vertx, VertxTestContext vtc) {
+    String encumbranceId1 = UUID.randomUUID().toString();
+    String encumbranceId2 = UUID.randomUUID().toString();
+    Transaction payment1 = new Transaction().withId(UUID.randomUUID().toString())
+      .withTransactionType(Transaction.TransactionType.PAYMENT).withPaymentEncumbranceId(encumbranceId1);
+    Transaction payment2 = new Transaction().withId(UUID.randomUUID().toString())
+      .withTransactionType(Transaction.TransactionType.PAYMENT).withPaymentEncumbranceId(encumbranceId2);
+    Transaction credit = new Transaction().withId(UUID.randomUUID().toString())
+      .withTransactionType(Transaction.TransactionType.CREDIT).withPaymentEncumbranceId(encumbranceId1);
+    Transaction pendingPayment = new Transaction().withId(UUID.randomUUID().toString())
+      .withTransactionType(Transaction.TransactionType.PENDING_PAYMENT)
+      .withAwaitingPayment(new AwaitingPayment().withEncumbranceId(encumbranceId2));
+    new DBClient(vertx, TENANT_NAME).withConn(conn -> conn.execute("BEGIN")
+        .compose(x -> conn.saveBatch(TRANSACTIONS_TABLE, List.of(payment1, payment2, credit, pendingPayment)))
+        .compose(x -> conn.getByJsonbFieldValues(TRANSACTIONS_TABLE, Transaction.class, "paymentEncumbranceId",
+          List.of(encumbranceId1, encumbranceId2), Map.of("transactionType", "Payment")))
+        .map(transactions -> assertIds(transactions, Transaction::getId, payment1.getId(), payment2.getId()))
+        .compose(x -> conn.getByJsonbFieldValues(TRANSACTIONS_TABLE, Transaction.class, "paymentEncumbranceId",
+          List.of(encumbranceId1), Map.of()))
+        .map(transactions -> assertIds(transactions, Transaction::getId, payment1.getId(), credit.getId()))
+        .compose(x -> conn.getByJsonbFieldValues(TRANSACTIONS_TABLE, Transaction.class, "awaitingPayment.encumbranceId",
+          List.of(encumbranceId1, encumbranceId2), Map.of()))
+        .map(transactions -> assertIds(transactions, Transaction::getId, pendingPayment.getId()))
+        .eventually(() -> conn.execute("ROLLBACK")))
+      .onComplete(vtc.succeedingThenComplete());
+  }
+
+  private static Ledger ledger(String id, String fiscalYearId) {
+    String code = "L" + UUID.randomUUID();
+    return new Ledger().withId(id).withCode(code).withName(code).withFiscalYearOneId(fiscalYearId);
+  }
+
+  private static <T> Void assertIds(List<T> records, Function<T, String> getId, String... expectedIds) {
+    assertThat(records.stream().map(getId).toList(), containsInAnyOrder(expectedIds));
+    return null;
+  }
+
   private static void assertHttpException(Throwable e, String expectedSubstring1, String expectedSubstring2) {
     assertThat(e, instanceOf(HttpException.class));
     assertThat(e.getMessage(), containsString(expectedSubstring1));
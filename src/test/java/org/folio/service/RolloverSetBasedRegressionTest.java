@@ -0,0 +1,576 @@
+package org.folio.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.RowSet;
+import io.vertx.sqlclient.Tuple;
+import org.folio.dao.rollover.RolloverJob;
+import org.folio.dao.rollover.RolloverJobChunk;
+import org.folio.dao.rollover.RolloverJobDAO;
+import org.folio.okapi.common.XOkapiHeaders;
+import org.folio.rest.impl.TestBase;
+import org.folio.rest.jaxrs.model.LedgerFiscalYearRollover;
+import org.folio.rest.jaxrs.model.RolloverStatus;
+import org.folio.rest.persist.DBClient;
+import org.folio.rest.persist.DBConn;
+import org.folio.rest.persist.PostgresClient;
+import org.folio.service.rollover.RolloverOrderPartitioner;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Runs the legacy encumbrances rollover, and the set-based rollover or the rollover in job chunks (possibly
+ * partitioned or resumed by another owner), on the same data,
+ * in the same database transaction (rolled back to a savepoint between the two runs), and checks that they produce
+ * the same results.
+ */
+@ExtendWith(VertxExtension.class)
+class RolloverSetBasedRegressionTest extends TestBase {
+
+  private static final String SCHEMA = PostgresClient.convertToPsqlStandard(TENANT_NAME);
+
+  private final String suffix = UUID.randomUUID().toString().substring(0, 8);
+  private final String fromFiscalYearId = UUID.randomUUID().toString();
+  private final String toFiscalYearId = UUID.randomUUID().toString();
+  private final String ledgerId = UUID.randomUUID().toString();
+  private final String otherLedgerId = UUID.randomUUID().toString();
+  private final String restrictedFundId = UUID.randomUUID().toString();
+  private final String largeFundId = UUID.randomUUID().toString();
+  private final String inactiveFundId = UUID.randomUUID().toString();
+  private final String otherLedgerFundId = UUID.randomUUID().toString();
+  private final String separateFundId = UUID.randomUUID().toString();
+  private final String rolloverId = UUID.randomUUID().toString();
+
+  @ParameterizedTest
+  @ValueSource(strings = {"Commit", "Preview"})
+  void testSetBasedRolloverMatchesLegacyRollover(String rolloverType, Vertx vertx, VertxTestContext vtc) {
+    JsonObject rollover = rollover(rolloverType);
+    List<List<String>> snapshots = new ArrayList<>();
+    new DBClient(vertx, TENANT_NAME).withConn(conn -> conn.execute("BEGIN")
+        .compose(v -> insertAll(conn, testData(rollover)))
+        .compose(v -> conn.execute("SAVEPOINT before_rollover"))
+        .compose(v -> runRollover(conn, rollover, false))
+        .compose(v -> snapshot(conn))
+        .compose(snapshot -> {
+          snapshots.add(snapshot);
+          return conn.execute("ROLLBACK TO SAVEPOINT before_rollover");
+        })
+        .compose(v -> runRollover(conn, rollover, true))
+        .compose(v -> snapshot(conn))
+        .map(snapshot -> {
+          snapshots.add(snapshot);
+          return null;
+        })
+        .eventually(() -> conn.execute("ROLLBACK")))
+      .onComplete(vtc.succeeding(v -> vtc.verify(() -> {
+        assertFalse(snapshots.get(0).isEmpty());
+        assertEquals(snapshots.get(0), snapshots.get(1));
+        vtc.completeNow();
+      })));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"Commit", "Preview"})
+  void testChunkedRolloverMatchesLegacyRollover(String rolloverType, Vertx vertx, VertxTestContext vtc) {
+    JsonObject rollover = rollover(rolloverType);
+    List<List<String>> snapshots = new ArrayList<>();
+    new DBClient(vertx, TENANT_NAME).withConn(conn -> conn.execute("BEGIN")
+        .compose(v -> insertAll(conn, testData(rollover)))
+        .compose(v -> conn.execute("SAVEPOINT before_rollover"))
+        .compose(v -> runRollover(conn, rollover, false))
+        .compose(v -> snapshot(conn))
+        .compose(snapshot -> {
+          snapshots.add(snapshot);
+          return conn.execute("ROLLBACK TO SAVEPOINT before_rollover");
+        })
+        .compose(v -> runRolloverJob(conn, rollover, 2))
+        .compose(v -> snapshot(conn))
+        .map(snapshot -> {
+          snapshots.add(snapshot);
+          return null;
+        })
+        .eventually(() -> conn.execute("ROLLBACK")))
+      .onComplete(vtc.succeeding(v -> vtc.verify(() -> {
+        assertFalse(snapshots.get(0).isEmpty());
+        assertEquals(snapshots.get(0), snapshots.get(1));
+        vtc.completeNow();
+      })));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"Commit", "Preview"})
+  void testPartitionedRolloverMatchesLegacyRollover(String rolloverType, Vertx vertx, VertxTestContext vtc) {
+    JsonObject rollover = rollover(rolloverType);
+    List<List<String>> snapshots = new ArrayList<>();
+    List<RolloverJobChunk> jobChunks = new ArrayList<>();
+    List<Boolean> outOfOrderResults = new ArrayList<>();
+    new DBClient(vertx, TENANT_NAME).withConn(conn -> conn.execute("BEGIN")
+        .compose(v -> insertAll(conn, testData(rollover)))
+        .compose(v -> conn.execute("SAVEPOINT before_rollover"))
+        .compose(v -> runRollover(conn, rollover, false))
+        .compose(v -> snapshot(conn))
+        .compose(snapshot -> {
+          snapshots.add(snapshot);
+          return conn.execute("ROLLBACK TO SAVEPOINT before_rollover");
+        })
+        .compose(v -> runPartitionedRolloverJob(conn, rollover, 2, outOfOrderResults))
+        .compose(chunks -> {
+          jobChunks.addAll(chunks);
+          return snapshot(conn);
+        })
+        .map(snapshot -> {
+          snapshots.add(snapshot);
+          return null;
+        })
+        .eventually(() -> conn.execute("ROLLBACK")))
+      .onComplete(vtc.succeeding(v -> vtc.verify(() -> {
+        // the orders of the separate fund are in their own partition, the other orders in a partition larger than
+        // the chunk size, split in chunks
+        assertEquals(2, jobChunks.getLast().partition());
+        assertTrue(jobChunks.stream().filter(chunk -> chunk.partition() == 1).count() > 1);
+        assertEquals(List.of(false), outOfOrderResults);
+        assertFalse(snapshots.get(0).isEmpty());
+        assertEquals(snapshots.get(0), snapshots.get(1));
+        vtc.completeNow();
+      })));
+  }
+
+  /**
+   * The first owner of the job stops after the first chunk; once its lease has expired, another owner claims the job
+   * and rolls over the remaining chunks.
+   */
+  @ParameterizedTest
+  @ValueSource(strings = {"Commit", "Preview"})
+  void testResumedRolloverJobMatchesLegacyRollover(String rolloverType, Vertx vertx, VertxTestContext vtc) {
+    JsonObject rollover = rollover(rolloverType);
+    List<List<String>> snapshots = new ArrayList<>();
+    List<RolloverJob> claimedJobs = new ArrayList<>();
+    List<Boolean> firstOwnerResults = new ArrayList<>();
+    new DBClient(vertx, TENANT_NAME).withConn(conn -> conn.execute("BEGIN")
+        .compose(v -> insertAll(conn, testData(rollover)))
+        .compose(v -> conn.execute("SAVEPOINT before_rollover"))
+        .compose(v -> runRollover(conn, rollover, false))
+        .compose(v -> snapshot(conn))
+        .compose(snapshot -> {
+          snapshots.add(snapshot);
+          return conn.execute("ROLLBACK TO SAVEPOINT before_rollover");
+        })
+        .compose(v -> runResumedRolloverJob(conn, rollover, 2, claimedJobs, firstOwnerResults))
+        .compose(v -> snapshot(conn))
+        .map(snapshot -> {
+          snapshots.add(snapshot);
+          return null;
+        })
+        .eventually(() -> conn.execute("ROLLBACK")))
+      .onComplete(vtc.succeeding(v -> vtc.verify(() -> {
+        RolloverJob claimedJob = claimedJobs.getFirst();
+        assertEquals(1, claimedJob.completedChunks());
+        assertTrue(claimedJob.totalChunks() > 2);
+        assertEquals(TENANT_NAME, claimedJob.okapiHeaders().get(XOkapiHeaders.TENANT.toLowerCase(Locale.ROOT)));
+        assertFalse(claimedJob.okapiHeaders().containsKey(XOkapiHeaders.TOKEN.toLowerCase(Locale.ROOT)));
+        // the first owner can neither roll over a chunk nor finish the job anymore
+        assertEquals(List.of(false, false), firstOwnerResults);
+        assertFalse(snapshots.get(0).isEmpty());
+        assertEquals(snapshots.get(0), snapshots.get(1));
+        vtc.completeNow();
+      })));
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = {true, false})
+  void testPlannedAmountsWithPoLineTotalsTable(boolean rounding, Vertx vertx, VertxTestContext vtc) {
+    JsonObject rollover = rollover("Commit");
+    String amountsSql = String.format("""
+        SELECT %1$s.calculate_planned_encumbrance_amount(jsonb, $1, $2)::text FROM %1$s.transaction
+          WHERE fiscalYearId = $3 ORDER BY id
+        """, SCHEMA);
+    Tuple amountsParams = Tuple.of(rollover, rounding, UUID.fromString(fromFiscalYearId));
+    List<List<String>> amounts = new ArrayList<>();
+    new DBClient(vertx, TENANT_NAME).withConn(conn -> conn.execute("BEGIN")
+        .compose(v -> insertAll(conn, testData(rollover)))
+        .compose(v -> conn.execute(amountsSql, amountsParams))
+        .compose(rowSet -> {
+          amounts.add(toStrings(rowSet));
+          return conn.execute(String.format("SELECT %s.create_rollover_po_line_totals($1)", SCHEMA),
+            Tuple.of(rollover));
+        })
+        .compose(v -> conn.execute(amountsSql, amountsParams))
+        .map(rowSet -> {
+          amounts.add(toStrings(rowSet));
+          return null;
+        })
+        .eventually(() -> conn.execute("ROLLBACK")))
+      .onComplete(vtc.succeeding(v -> vtc.verify(() -> {
+        assertFalse(amounts.get(0).isEmpty());
+        assertEquals(amounts.get(0), amounts.get(1));
+        vtc.completeNow();
+      })));
+  }
+
+  private Future<Void> runRollover(DBConn conn, JsonObject rollover, boolean setBased) {
+    return conn.execute(String.format("SELECT %s.budget_encumbrances_rollover($1, $2)", SCHEMA),
+        Tuple.of(rollover, setBased))
+      .mapEmpty();
+  }
+
+  /**
+   * Runs the steps of a rollover job in the same transaction, as RolloverJobDAO would in separate transactions.
+   */
+  private Future<Void> runRolloverJob(DBConn conn, JsonObject rollover, int chunkSize) {
+    String owner = "test";
+    return conn.execute(String.format("INSERT INTO %s.ledger_fiscal_year_rollover_job (id, rollover, status, owner)"
+          + " VALUES ($1, $2, 'In Progress', $3)", SCHEMA),
+        Tuple.of(UUID.fromString(rolloverId), rollover, owner))
+      .compose(v -> conn.execute(String.format("SELECT %s.rollover_job_prepare($1, $2, $3, 60)", SCHEMA),
+        Tuple.of(rollover, chunkSize, owner)))
+      .compose(rowSet -> {
+        int chunks = rowSet.iterator().next().getInteger(0);
+        Future<Void> future = Future.succeededFuture();
+        for (int chunk = 1; chunk <= chunks; chunk++) {
+          Tuple params = Tuple.of(rollover, chunk, owner);
+          future = future.compose(v -> conn.execute(
+            String.format("SELECT %s.rollover_job_chunk($1, $2, $3, 60)", SCHEMA), params).mapEmpty());
+        }
+        return future;
+      })
+      .compose(v -> conn.execute(String.format("SELECT %s.rollover_job_restore_tables($1)", SCHEMA),
+        Tuple.of(rollover)))
+      .compose(v -> conn.execute(String.format("SELECT %s.activate_planned_budgets($1)", SCHEMA), Tuple.of(rollover)))
+      .mapEmpty();
+  }
+
+  /**
+   * Runs the steps of a rollover job in the same transaction, with a first owner stopping after the first chunk and
+   * a second owner claiming the job after the lease of the first one has expired.
+   */
+  private Future<Void> runResumedRolloverJob(DBConn conn, JsonObject rollover, int chunkSize,
+      List<RolloverJob> claimedJobs, List<Boolean> firstOwnerResults) {
+    String firstOwner = "first";
+    String secondOwner = "second";
+    RolloverJobDAO rolloverJobDAO = new RolloverJobDAO();
+    Map<String, String> okapiHeaders = Map.of(XOkapiHeaders.TENANT, TENANT_NAME, XOkapiHeaders.TOKEN, "token",
+      XOkapiHeaders.URL, "http://localhost");
+    return rolloverJobDAO.create(rollover.mapTo(LedgerFiscalYearRollover.class), firstOwner, 60, okapiHeaders, conn)
+      .compose(v -> rolloverJobDAO.claim(rolloverId, firstOwner, 60, conn))
+      .compose(v -> conn.execute(String.format("SELECT %s.rollover_job_prepare($1, $2, $3, 60)", SCHEMA),
+        Tuple.of(rollover, chunkSize, firstOwner)))
+      .compose(v -> runJobChunk(conn, rollover, 1, firstOwner))
+      .compose(v -> conn.execute(String.format("UPDATE %s.ledger_fiscal_year_rollover_job"
+        + " SET lease_expires_at = now() - interval '1 second' WHERE id = $1", SCHEMA),
+        Tuple.of(UUID.fromString(rolloverId))))
+      .compose(v -> rolloverJobDAO.claim(rolloverId, secondOwner, 60, conn))
+      .compose(job -> {
+        claimedJobs.add(job);
+        Future<Void> future = runFromSavepoint(conn,
+            () -> runJobChunk(conn, rollover, job.completedChunks() + 1, firstOwner))
+          .map(firstOwnerResults::add)
+          .mapEmpty();
+        for (int chunk = job.completedChunks() + 1; chunk <= job.totalChunks(); chunk++) {
+          int nextChunk = chunk;
+          future = future.compose(v -> runJobChunk(conn, rollover, nextChunk, secondOwner));
+        }
+        return future;
+      })
+      .compose(v -> conn.execute(String.format("SELECT %s.rollover_job_restore_tables($1)", SCHEMA),
+        Tuple.of(rollover)))
+      .compose(v -> conn.execute(String.format("SELECT %s.activate_planned_budgets($1)", SCHEMA), Tuple.of(rollover)))
+      .compose(v -> rolloverJobDAO.finish(rolloverId, firstOwner, RolloverStatus.SUCCESS, conn))
+      .map(firstOwnerResults::add)
+      .mapEmpty();
+  }
+
+  private Future<Void> runJobChunk(DBConn conn, JsonObject rollover, int chunk, String owner) {
+    return conn.execute(String.format("SELECT %s.rollover_job_chunk($1, $2, $3, 60)", SCHEMA),
+        Tuple.of(rollover, chunk, owner))
+      .mapEmpty();
+  }
+
+  private Future<Void> runPartitionChunk(DBConn conn, JsonObject rollover, int chunk, String owner) {
+    return conn.execute(String.format("SELECT %s.rollover_job_partition_chunk($1, $2, $3)", SCHEMA),
+        Tuple.of(rollover, chunk, owner))
+      .mapEmpty();
+  }
+
+  /**
+   * Runs a step, rolling back to a savepoint if it fails.
+   *
+   * @return true if the step has succeeded
+   */
+  private Future<Boolean> runFromSavepoint(DBConn conn, Supplier<Future<Void>> step) {
+    return conn.execute("SAVEPOINT before_step")
+      .compose(v -> step.get())
+      .transform(ar -> conn.execute(ar.succeeded() ? "RELEASE SAVEPOINT before_step"
+          : "ROLLBACK TO SAVEPOINT before_step")
+        .map(ar.succeeded()));
+  }
+
+  /**
+   * Runs the steps of a partitioned rollover job in the same transaction, with the partitions in the reverse order
+   * to check that they are independent, and the chunks of each partition in their order. The last chunk of the first
+   * partition is first tried before the other chunks of its partition, which must fail.
+   *
+   * @return the chunks of the job
+   */
+  private Future<List<RolloverJobChunk>> runPartitionedRolloverJob(DBConn conn, JsonObject rollover, int chunkSize,
+      List<Boolean> outOfOrderResults) {
+    String owner = "test";
+    RolloverJobDAO rolloverJobDAO = new RolloverJobDAO();
+    LedgerFiscalYearRollover rolloverModel = new LedgerFiscalYearRollover()
+      .withId(rolloverId)
+      .withFromFiscalYearId(fromFiscalYearId);
+    return conn.execute(String.format("INSERT INTO %s.ledger_fiscal_year_rollover_job (id, rollover, status, owner)"
+          + " VALUES ($1, $2, 'In Progress', $3)", SCHEMA),
+        Tuple.of(UUID.fromString(rolloverId), rollover, owner))
+      .compose(v -> conn.execute(String.format("SELECT %s.rollover_job_prepare($1, $2, $3, 60)", SCHEMA),
+        Tuple.of(rollover, chunkSize, owner)))
+      .compose(v -> rolloverJobDAO.getOrderFundIds(rolloverModel, conn))
+      .map(fundIdsByOrder -> RolloverOrderPartitioner.partition(fundIdsByOrder, chunkSize))
+      .compose(chunks -> rolloverJobDAO.savePartitions(rolloverId, chunks, conn).map(chunks))
+      .compose(chunks -> {
+        int lastChunkOfFirstPartition = IntStream.rangeClosed(1, chunks.size())
+          .filter(chunk -> chunks.get(chunk - 1).partition() == 1)
+          .max()
+          .orElseThrow();
+        Future<Void> future = runFromSavepoint(conn,
+            () -> runPartitionChunk(conn, rollover, lastChunkOfFirstPartition, owner))
+          .map(outOfOrderResults::add)
+          .mapEmpty();
+        for (int partition = chunks.getLast().partition(); partition >= 1; partition--) {
+          for (int chunk = 1; chunk <= chunks.size(); chunk++) {
+            if (chunks.get(chunk - 1).partition() == partition) {
+              int partitionChunk = chunk;
+              future = future.compose(v -> runPartitionChunk(conn, rollover, partitionChunk, owner));
+            }
+          }
+        }
+        return future
+          .compose(v -> conn.execute(String.format("SELECT %s.rollover_job_restore_tables($1)", SCHEMA),
+            Tuple.of(rollover)))
+          .compose(v -> conn.execute(String.format("SELECT %s.activate_planned_budgets($1)", SCHEMA),
+            Tuple.of(rollover)))
+          .map(chunks);
+      });
+  }
+
+  /**
+   * Returns the records written by the rollover, without the metadata. The new encumbrances are listed with their ids,
+   * which are derived from the ids of the rolled over encumbrances, to check which one gets the missing penny.
+   */
+  private Future<List<String>> snapshot(DBConn conn) {
+    String sql = String.format("""
+        SELECT 'transaction ' || id || ' ' || (jsonb - 'id' - 'metadata')::text FROM %1$s.transaction
+          WHERE fiscalYearId = $1
+        UNION ALL
+        SELECT 'tmp_encumbered_transactions ' || id || ' ' || (jsonb - 'id' - 'metadata')::text
+          FROM tmp_encumbered_transactions
+        UNION ALL
+        SELECT 'budget ' || (jsonb - 'metadata')::text FROM %1$s.budget WHERE fiscalYearId = $1
+        UNION ALL
+        SELECT 'rollover_budget ' || (jsonb - 'metadata')::text FROM %1$s.ledger_fiscal_year_rollover_budget
+          WHERE ledgerRolloverId = $2
+        UNION ALL
+        SELECT 'rollover_error ' || (jsonb - 'metadata')::text FROM %1$s.ledger_fiscal_year_rollover_error
+          WHERE ledgerRolloverId = $2
+        ORDER BY 1
+        """, SCHEMA);
+    return conn.execute(sql, Tuple.of(UUID.fromString(toFiscalYearId), UUID.fromString(rolloverId)))
+      .map(this::toStrings);
+  }
+
+  private List<String> toStrings(RowSet<Row> rowSet) {
+    List<String> rows = new ArrayList<>();
+    for (Row row : rowSet) {
+      rows.add(row.getString(0));
+    }
+    return rows;
+  }
+
+  private Future<Void> insertAll(DBConn conn, List<TableRecord> records) {
+    Future<Void> future = Future.succeededFuture();
+    for (TableRecord tableRecord : records) {
+      future = future.compose(v -> conn.execute(
+          String.format("INSERT INTO %s.%s (id, jsonb) VALUES ($1, $2)", SCHEMA, tableRecord.table()),
+          Tuple.of(UUID.fromString(tableRecord.json().getString("id")), tableRecord.json()))
+        .mapEmpty());
+    }
+    return future;
+  }
+
+  private List<TableRecord> testData(JsonObject rollover) {
+    List<TableRecord> records = new ArrayList<>();
+    records.add(new TableRecord("fiscal_year", fiscalYear(fromFiscalYearId, "2090")));
+    records.add(new TableRecord("fiscal_year", fiscalYear(toFiscalYearId, "2091")));
+    records.add(new TableRecord("ledger", ledger(ledgerId, "L")));
+    records.add(new TableRecord("ledger", ledger(otherLedgerId, "OL")));
+    records.add(new TableRecord("fund", fund(restrictedFundId, ledgerId, "RF", "Active")));
+    records.add(new TableRecord("fund", fund(largeFundId, ledgerId, "LF", "Active")));
+    records.add(new TableRecord("fund", fund(inactiveFundId, ledgerId, "IF", "Inactive")));
+    records.add(new TableRecord("fund", fund(otherLedgerFundId, otherLedgerId, "OF", "Active")));
+    records.add(new TableRecord("fund", fund(separateFundId, ledgerId, "SF", "Active")));
+    records.add(new TableRecord("budget", budget(restrictedFundId, 100)));
+    records.add(new TableRecord("budget", budget(largeFundId, 10000)));
+    records.add(new TableRecord("budget", budget(otherLedgerFundId, 10000)));
+    records.add(new TableRecord("budget", budget(separateFundId, 50)));
+    records.add(new TableRecord("ledger_fiscal_year_rollover", rollover));
+
+    // the second order does not fit in the restricted budget after the first one, the third one does
+    String firstOrderId = UUID.randomUUID().toString();
+    records.add(encumbrance(firstOrderId, UUID.randomUUID().toString(), restrictedFundId, "One-Time", 60, 60, 0, 1));
+    records.add(encumbrance(UUID.randomUUID().toString(), UUID.randomUUID().toString(), restrictedFundId, "One-Time",
+      50, 50, 0, 2));
+    records.add(encumbrance(UUID.randomUUID().toString(), UUID.randomUUID().toString(), restrictedFundId, "One-Time",
+      30, 30, 0, 3));
+    // a second encumbrance of the first order in another fund
+    records.add(encumbrance(firstOrderId, UUID.randomUUID().toString(), largeFundId, "One-Time", 25, 25, 0, 4));
+    // an order with an encumbrance in a ledger that has not been rolled over
+    String multiLedgerOrderId = UUID.randomUUID().toString();
+    records.add(encumbrance(multiLedgerOrderId, UUID.randomUUID().toString(), largeFundId, "One-Time", 10, 10, 0, 5));
+    records.add(encumbrance(multiLedgerOrderId, UUID.randomUUID().toString(), otherLedgerFundId, "One-Time",
+      10, 10, 0, 5));
+    // an order without budget in the new fiscal year
+    String missingBudgetOrderId = UUID.randomUUID().toString();
+    records.add(encumbrance(missingBudgetOrderId, UUID.randomUUID().toString(), largeFundId, "One-Time",
+      15, 15, 0, 6));
+    records.add(encumbrance(missingBudgetOrderId, UUID.randomUUID().toString(), inactiveFundId, "One-Time",
+      15, 15, 0, 6));
+    // a po line with 3 encumbrances, rolled over as 3.33, 3.33 and 3.34
+    String pennyOrderId = UUID.randomUUID().toString();
+    String pennyPoLineId = UUID.randomUUID().toString();
+    records.add(encumbrance(pennyOrderId, pennyPoLineId, largeFundId, "One-Time", 5, 1, 0, 7));
+    records.add(encumbrance(pennyOrderId, pennyPoLineId, largeFundId, "One-Time", 5, 1, 0, 8));
+    records.add(encumbrance(pennyOrderId, pennyPoLineId, largeFundId, "One-Time", 0, 1, 0, 9));
+    // a po line with 3 encumbrances created at the same time: the penny goes to the one with the lowest id
+    String sameDatePennyOrderId = UUID.randomUUID().toString();
+    String sameDatePennyPoLineId = UUID.randomUUID().toString();
+    for (int i = 0; i < 3; i++) {
+      records.add(encumbrance(sameDatePennyOrderId, sameDatePennyPoLineId, largeFundId, "One-Time", i == 0 ? 10 : 0, 1,
+        0, 13));
+    }
+    // an ongoing order rolled over based on the expended amount
+    records.add(encumbrance(UUID.randomUUID().toString(), UUID.randomUUID().toString(), largeFundId, "Ongoing",
+      10, 40, 30, 10));
+    // two orders sharing no fund with the other orders, the second one does not fit in the budget after the first one
+    records.add(encumbrance(UUID.randomUUID().toString(), UUID.randomUUID().toString(), separateFundId, "One-Time",
+      30, 30, 0, 11));
+    records.add(encumbrance(UUID.randomUUID().toString(), UUID.randomUUID().toString(), separateFundId, "One-Time",
+      30, 30, 0, 12));
+    return records;
+  }
+
+  private JsonObject rollover(String rolloverType) {
+    return new JsonObject()
+      .put("id", rolloverId)
+      .put("ledgerId", ledgerId)
+      .put("fromFiscalYearId", fromFiscalYearId)
+      .put("toFiscalYearId", toFiscalYearId)
+      .put("rolloverType", rolloverType)
+      .put("restrictEncumbrance", true)
+      .put("restrictExpenditures", true)
+      .put("currencyFactor", 2)
+      .put("budgetsRollover", new JsonArray().add(new JsonObject()
+        .put("rolloverAllocation", true)
+        .put("rolloverBudgetValue", "None")
+        .put("setAllowances", true)
+        .put("allowableEncumbrance", 100)
+        .put("allowableExpenditure", 100)))
+      .put("encumbrancesRollover", new JsonArray()
+        .add(new JsonObject().put("orderType", "One-time").put("basedOn", "Remaining").put("increaseBy", 0))
+        .add(new JsonObject().put("orderType", "Ongoing").put("basedOn", "Expended").put("increaseBy", 10)))
+      .put("metadata", new JsonObject().put("createdDate", "2091-01-01T00:00:00.000+00:00"));
+  }
+
+  private JsonObject fiscalYear(String id, String year) {
+    return new JsonObject()
+      .put("id", id)
+      .put("name", "SB" + suffix + year)
+      .put("code", "SB" + year)
+      .put("series", "SB")
+      .put("currency", "USD")
+      .put("periodStart", year + "-01-01T00:00:00.000+00:00")
+      .put("periodEnd", year + "-12-31T23:59:59.000+00:00");
+  }
+
+  private JsonObject ledger(String id, String code) {
+    return new JsonObject()
+      .put("id", id)
+      .put("code", code + suffix)
+      .put("name", code + suffix)
+      .put("fiscalYearOneId", fromFiscalYearId)
+      .put("ledgerStatus", "Active")
+      .put("restrictEncumbrance", true)
+      .put("restrictExpenditures", true);
+  }
+
+  private JsonObject fund(String id, String fundLedgerId, String code, String status) {
+    return new JsonObject()
+      .put("id", id)
+      .put("code", code + suffix)
+      .put("name", code + suffix)
+      .put("ledgerId", fundLedgerId)
+      .put("fundStatus", status)
+      .put("externalAccountNo", "1");
+  }
+
+  private JsonObject budget(String fundId, int allocation) {
+    return new JsonObject()
+      .put("id", UUID.randomUUID().toString())
+      .put("name", "B" + suffix + fundId.substring(0, 8))
+      .put("fundId", fundId)
+      .put("fiscalYearId", fromFiscalYearId)
+      .put("budgetStatus", "Active")
+      .put("initialAllocation", allocation)
+      .put("allocationTo", 0)
+      .put("allocationFrom", 0)
+      .put("netTransfers", 0)
+      .put("encumbered", 0)
+      .put("awaitingPayment", 0)
+      .put("expenditures", 0)
+      .put("credits", 0);
+  }
+
+  private TableRecord encumbrance(String orderId, String poLineId, String fundId, String orderType, int amount,
+      int initialAmount, int expended, int day) {
+    return new TableRecord("transaction", new JsonObject()
+      .put("id", UUID.randomUUID().toString())
+      .put("amount", amount)
+      .put("currency", "USD")
+      .put("fiscalYearId", fromFiscalYearId)
+      .put("fromFundId", fundId)
+      .put("source", "PoLine")
+      .put("transactionType", "Encumbrance")
+      .put("encumbrance", new JsonObject()
+        .put("initialAmountEncumbered", initialAmount)
+        .put("amountAwaitingPayment", 0)
+        .put("amountExpended", expended)
+        .put("amountCredited", 0)
+        .put("status", "Unreleased")
+        .put("orderType", orderType)
+        .put("orderStatus", "Open")
+        .put("subscription", false)
+        .put("reEncumber", true)
+        .put("sourcePurchaseOrderId", orderId)
+        .put("sourcePoLineId", poLineId))
+      .put("metadata", new JsonObject().put("createdDate", String.format("2090-01-%02dT00:00:00.000+00:00", day))));
+  }
+
+  private record TableRecord(String table, JsonObject json) {
+  }
+}
@@ -10,6 +10,7 @@ import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -23,6 +24,7 @@ import java.util.UUID;
 import java.util.function.Function;
 
 import io.vertx.core.Future;
+import io.vertx.core.Promise;
 import io.vertx.junit5.VertxExtension;
 import io.vertx.junit5.VertxTestContext;
 import org.folio.rest.core.model.RequestContext;
@@ -38,6 +40,7 @@ import org.folio.rest.persist.DBClient;
 import org.folio.rest.persist.DBConn;
 import org.folio.service.budget.BudgetService;
 import org.folio.service.fiscalyear.FiscalYearService;
+import org.folio.service.fund.FundLedgerCache;
 import org.folio.service.fund.FundService;
 import org.folio.service.transactions.batch.BatchTransactionService;
 import org.junit.jupiter.api.AfterEach;
@@ -66,6 +69,8 @@ public class FinanceDataServiceTest {
   private DBClient dbClient;
   @Mock
   private DBConn dbConn;
+  @Mock
+  private FundLedgerCache fundLedgerCache;
 
   @InjectMocks
   private FinanceDataService financeDataService;
@@ -125,11 +130,42 @@ public class FinanceDataServiceTest {
           assertEquals("Failed to update funds", error.getMessage());
           verify(budgetService, never()).updateBatchBudgets(any(), any(), anyBoolean());
           verify(fundService, never()).updateFunds(any(), any());
+          verify(fundLedgerCache, never()).invalidateFunds(any(), any());
         });
         testContext.completeNow();
       }));
   }
 
+  @Test
+  void shouldInvalidateFundsAfterCommit(VertxTestContext testContext) {
+    var collection = createTestFinanceDataCollection();
+    var fundId = collection.getFyFinanceData().getFirst().getFundId();
+    var oldFund = new Fund().withId(fundId).withFundStatus(Fund.FundStatus.ACTIVE);
+    var oldBudget = new Budget().withId(collection.getFyFinanceData().getFirst().getBudgetId())
+      .withBudgetStatus(Budget.BudgetStatus.ACTIVE);
+    var fiscalYear = new FiscalYear()
+      .withPeriodStart(Date.from(Instant.now().minus(100, ChronoUnit.DAYS)))
+      .withPeriodEnd(Date.from(Instant.now().plus(100, ChronoUnit.DAYS)))
+      .withCurrency("USD");
+    setupMocks(oldFund, oldBudget, fiscalYear);
+    Promise<Void> commit = Promise.promise();
+    when(dbClient.getTenantId()).thenReturn("tenant");
+    doAnswer(invocation -> {
+      Function<DBConn, Future<Void>> function = invocation.getArgument(0);
+      return function.apply(dbConn).compose(v -> commit.future());
+    }).when(dbClient).withTrans(any());
+
+    var future = financeDataService.update(collection, requestContext);
+
+    verify(fundService).updateFunds(any(), eq(dbConn));
+    verify(fundLedgerCache, never()).invalidateFunds(any(), any());
+    commit.complete();
+    future.onComplete(testContext.succeeding(result -> testContext.verify(() -> {
+      verify(fundLedgerCache).invalidateFunds("tenant", List.of(fundId));
+      testContext.completeNow();
+    })));
+  }
+
   @Test
   void negative_testCreateAllocationTransactionUsingReflection() throws Exception {
     var data = new FyFinanceData()
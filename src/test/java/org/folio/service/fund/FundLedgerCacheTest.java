@@ -0,0 +1,108 @@
+package org.folio.service.fund;
+
+import static io.vertx.core.Future.failedFuture;
+import static io.vertx.core.Future.succeededFuture;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.folio.rest.exception.HttpException;
+import org.folio.rest.jaxrs.model.Fund;
+import org.folio.rest.jaxrs.model.Ledger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+
+@ExtendWith(VertxExtension.class)
+public class FundLedgerCacheTest {
+  private static final String TENANT = "tenantname";
+
+  @Test
+  void testOnlyMissingFundsAreLoaded(Vertx vertx, VertxTestContext testContext) {
+    FundLedgerCache cache = new FundLedgerCache(vertx.getOrCreateContext(), 60);
+    Fund fund1 = new Fund().withId(UUID.randomUUID().toString()).withLedgerId(UUID.randomUUID().toString());
+    Fund fund2 = new Fund().withId(UUID.randomUUID().toString()).withLedgerId(UUID.randomUUID().toString());
+    List<List<String>> loadedIds = new ArrayList<>();
+
+    cache.getFunds(TENANT, List.of(fund1.getId()), ids -> load(ids, loadedIds, List.of(fund1)))
+      .compose(v -> cache.getFunds(TENANT, List.of(fund1.getId(), fund2.getId()),
+        ids -> load(ids, loadedIds, List.of(fund2))))
+      .onComplete(testContext.succeeding(funds -> testContext.verify(() -> {
+        assertEquals(List.of(fund1, fund2), funds);
+        assertEquals(List.of(List.of(fund1.getId()), List.of(fund2.getId())), loadedIds);
+        testContext.completeNow();
+      })));
+  }
+
+  @Test
+  void testInvalidatedLedgerIsLoadedAgain(Vertx vertx, VertxTestContext testContext) {
+    FundLedgerCache cache = new FundLedgerCache(vertx.getOrCreateContext(), 60);
+    String ledgerId = UUID.randomUUID().toString();
+    Ledger oldLedger = new Ledger().withId(ledgerId).withRestrictEncumbrance(true);
+    Ledger newLedger = new Ledger().withId(ledgerId).withRestrictEncumbrance(false);
+    List<List<String>> loadedIds = new ArrayList<>();
+
+    cache.getLedgers(TENANT, List.of(ledgerId), ids -> load(ids, loadedIds, List.of(oldLedger)))
+      .compose(v -> {
+        cache.invalidateLedger(TENANT, ledgerId);
+        return cache.getLedgers(TENANT, List.of(ledgerId), ids -> load(ids, loadedIds, List.of(newLedger)));
+      })
+      .onComplete(testContext.succeeding(ledgers -> testContext.verify(() -> {
+        assertSame(newLedger, ledgers.getFirst());
+        assertEquals(2, loadedIds.size());
+        testContext.completeNow();
+      })));
+  }
+
+  @Test
+  void testTenantsDoNotShareEntries(Vertx vertx, VertxTestContext testContext) {
+    FundLedgerCache cache = new FundLedgerCache(vertx.getOrCreateContext(), 60);
+    Fund fund = new Fund().withId(UUID.randomUUID().toString());
+    List<List<String>> loadedIds = new ArrayList<>();
+
+    cache.getFunds(TENANT, List.of(fund.getId()), ids -> load(ids, loadedIds, List.of(fund)))
+      .compose(v -> cache.getFunds("othertenant", List.of(fund.getId()), ids -> load(ids, loadedIds, List.of())))
+      .onComplete(testContext.succeeding(funds -> testContext.verify(() -> {
+        assertEquals(List.of(), funds);
+        assertEquals(2, loadedIds.size());
+        testContext.completeNow();
+      })));
+  }
+
+  @Test
+  void testLoadFailureIsReturnedAsIs(Vertx vertx, VertxTestContext testContext) {
+    FundLedgerCache cache = new FundLedgerCache(vertx.getOrCreateContext(), 60);
+
+    cache.getFunds(TENANT, List.of(UUID.randomUUID().toString()), ids -> failedFuture(new HttpException(500, "error")))
+      .onComplete(testContext.failing(t -> testContext.verify(() -> {
+        assertEquals(HttpException.class, t.getClass());
+        testContext.completeNow();
+      })));
+  }
+
+  @Test
+  void testDisabledCacheAlwaysLoads(VertxTestContext testContext) {
+    FundLedgerCache cache = FundLedgerCache.disabled();
+    Fund fund = new Fund().withId(UUID.randomUUID().toString());
+    List<List<String>> loadedIds = new ArrayList<>();
+
+    cache.getFunds(TENANT, List.of(fund.getId()), ids -> load(ids, loadedIds, List.of(fund)))
+      .compose(v -> cache.getFunds(TENANT, List.of(fund.getId()), ids -> load(ids, loadedIds, List.of(fund))))
+      .onComplete(testContext.succeeding(funds -> testContext.verify(() -> {
+        assertEquals(2, loadedIds.size());
+        testContext.completeNow();
+      })));
+  }
+
+  private static <T> Future<List<T>> load(List<String> ids, List<List<String>> loadedIds, List<T> result) {
+    loadedIds.add(ids);
+    return succeededFuture(result);
+  }
+}
@@ -28,6 +28,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Stream;
 
@@ -45,6 +46,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.times;
@@ -152,8 +154,8 @@ public class GroupServiceTest {
       return function.apply(conn);
     }).when(dbClient).withConn(any());
 
-    doAnswer(invocation -> succeededFuture(createResults(allRecords)))
-      .when(conn).get(eq(GROUP_FUND_FY_TABLE), eq(GroupFundFiscalYear.class), any(Criterion.class));
+    doAnswer(invocation -> succeededFuture(allRecords))
+      .when(conn).getByColumnValues(eq(GROUP_FUND_FY_TABLE), eq(GroupFundFiscalYear.class), eq("fundId"), anyList(), anyMap());
 
     // Execute
     var requestContext = new RequestContext(vertxContext, new HashMap<>());
@@ -205,8 +207,8 @@ public class GroupServiceTest {
       return function.apply(conn);
     }).when(dbClient).withConn(any());
 
-    doAnswer(invocation -> succeededFuture(createResults(matchingRecords)))
-      .when(conn).get(eq(GROUP_FUND_FY_TABLE), eq(GroupFundFiscalYear.class), any(Criterion.class));
+    doAnswer(invocation -> succeededFuture(matchingRecords))
+      .when(conn).getByColumnValues(eq(GROUP_FUND_FY_TABLE), eq(GroupFundFiscalYear.class), eq("fundId"), anyList(), anyMap());
 
     var request = new GroupFundFiscalYearBatchRequest()
       .withFundIds(List.of(fundId1, fundId2))
@@ -223,6 +225,8 @@ public class GroupServiceTest {
         assertThat(collection.getGroupFundFiscalYears(), hasSize(2));
         assertThat(collection.getGroupFundFiscalYears(),
           everyItem(hasProperty("fiscalYearId", is(fiscalYearId))));
+        verify(conn).getByColumnValues(GROUP_FUND_FY_TABLE, GroupFundFiscalYear.class, "fundId",
+          List.of(fundId1, fundId2), Map.of("fiscalYearId", fiscalYearId));
 
         testContext.completeNow();
       });
@@ -249,8 +253,8 @@ public class GroupServiceTest {
       return function.apply(conn);
     }).when(dbClient).withConn(any());
 
-    doAnswer(invocation -> succeededFuture(createResults(matchingRecords)))
-      .when(conn).get(eq(GROUP_FUND_FY_TABLE), eq(GroupFundFiscalYear.class), any(Criterion.class));
+    doAnswer(invocation -> succeededFuture(matchingRecords))
+      .when(conn).getByColumnValues(eq(GROUP_FUND_FY_TABLE), eq(GroupFundFiscalYear.class), eq("fundId"), anyList(), anyMap());
 
     var request = new GroupFundFiscalYearBatchRequest()
       .withFundIds(List.of(fundId))
@@ -292,8 +296,8 @@ public class GroupServiceTest {
       return function.apply(conn);
     }).when(dbClient).withConn(any());
 
-    doAnswer(invocation -> succeededFuture(createResults(matchingRecords)))
-      .when(conn).get(eq(GROUP_FUND_FY_TABLE), eq(GroupFundFiscalYear.class), any(Criterion.class));
+    doAnswer(invocation -> succeededFuture(matchingRecords))
+      .when(conn).getByColumnValues(eq(GROUP_FUND_FY_TABLE), eq(GroupFundFiscalYear.class), eq("fundId"), anyList(), anyMap());
 
     var request = new GroupFundFiscalYearBatchRequest()
       .withFundIds(List.of(fundId))
@@ -328,8 +332,8 @@ public class GroupServiceTest {
       return function.apply(conn);
     }).when(dbClient).withConn(any());
 
-    doAnswer(invocation -> succeededFuture(createResults(Collections.emptyList())))
-      .when(conn).get(eq(GROUP_FUND_FY_TABLE), eq(GroupFundFiscalYear.class), any(Criterion.class));
+    doAnswer(invocation -> succeededFuture(Collections.emptyList()))
+      .when(conn).getByColumnValues(eq(GROUP_FUND_FY_TABLE), eq(GroupFundFiscalYear.class), eq("fundId"), anyList(), anyMap());
 
     var request = new GroupFundFiscalYearBatchRequest()
       .withFundIds(new ArrayList<>());
@@ -363,8 +367,8 @@ public class GroupServiceTest {
       return function.apply(conn);
     }).when(dbClient).withConn(any());
 
-    doAnswer(invocation -> succeededFuture(createResults(Collections.emptyList())))
-      .when(conn).get(eq(GROUP_FUND_FY_TABLE), eq(GroupFundFiscalYear.class), any(Criterion.class));
+    doAnswer(invocation -> succeededFuture(Collections.emptyList()))
+      .when(conn).getByColumnValues(eq(GROUP_FUND_FY_TABLE), eq(GroupFundFiscalYear.class), eq("fundId"), anyList(), anyMap());
 
     var request = new GroupFundFiscalYearBatchRequest()
       .withFundIds(nonExistentFundIds);
@@ -409,8 +413,8 @@ public class GroupServiceTest {
       return function.apply(conn);
     }).when(dbClient).withConn(any());
 
-    doAnswer(invocation -> succeededFuture(createResults(allRecords)))
-      .when(conn).get(eq(GROUP_FUND_FY_TABLE), eq(GroupFundFiscalYear.class), any(Criterion.class));
+    doAnswer(invocation -> succeededFuture(allRecords))
+      .when(conn).getByColumnValues(eq(GROUP_FUND_FY_TABLE), eq(GroupFundFiscalYear.class), eq("fundId"), anyList(), anyMap());
 
     var request = new GroupFundFiscalYearBatchRequest()
       .withFundIds(fundIds);
@@ -460,8 +464,8 @@ public class GroupServiceTest {
       return function.apply(conn);
     }).when(dbClient).withConn(any());
 
-    doAnswer(invocation -> succeededFuture(createResults(matchingRecords)))
-      .when(conn).get(eq(GROUP_FUND_FY_TABLE), eq(GroupFundFiscalYear.class), any(Criterion.class));
+    doAnswer(invocation -> succeededFuture(matchingRecords))
+      .when(conn).getByColumnValues(eq(GROUP_FUND_FY_TABLE), eq(GroupFundFiscalYear.class), eq("fundId"), anyList(), anyMap());
 
     var request = new GroupFundFiscalYearBatchRequest()
       .withFundIds(List.of(existingFundId1, existingFundId2, nonExistentFundId1, nonExistentFundId2));
@@ -508,8 +512,8 @@ public class GroupServiceTest {
       return function.apply(conn);
     }).when(dbClient).withConn(any());
 
-    doAnswer(invocation -> succeededFuture(createResults(allRecords)))
-      .when(conn).get(eq(GROUP_FUND_FY_TABLE), eq(GroupFundFiscalYear.class), any(Criterion.class));
+    doAnswer(invocation -> succeededFuture(allRecords))
+      .when(conn).getByColumnValues(eq(GROUP_FUND_FY_TABLE), eq(GroupFundFiscalYear.class), eq("fundId"), anyList(), anyMap());
 
     var request = new GroupFundFiscalYearBatchRequest()
       .withFundIds(List.of(fundId));
@@ -558,8 +562,8 @@ public class GroupServiceTest {
       return function.apply(conn);
     }).when(dbClient).withConn(any());
 
-    doAnswer(invocation -> succeededFuture(createResults(allRecords)))
-      .when(conn).get(eq(GROUP_FUND_FY_TABLE), eq(GroupFundFiscalYear.class), any(Criterion.class));
+    doAnswer(invocation -> succeededFuture(allRecords))
+      .when(conn).getByColumnValues(eq(GROUP_FUND_FY_TABLE), eq(GroupFundFiscalYear.class), eq("fundId"), anyList(), anyMap());
 
     var request = new GroupFundFiscalYearBatchRequest()
       .withFundIds(List.of(fundId));
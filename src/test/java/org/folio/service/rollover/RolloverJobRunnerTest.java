@@ -0,0 +1,84 @@
+package org.folio.service.rollover;
+
+import static io.vertx.core.Future.succeededFuture;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(VertxExtension.class)
+public class RolloverJobRunnerTest {
+
+  @Test
+  void testJobsWaitWhenTheMaximumNumberOfJobsIsRunning(VertxTestContext testContext) {
+    RolloverJobRunner runner = new RolloverJobRunner(1, 100, 60);
+    Promise<Void> firstJob = Promise.promise();
+    AtomicBoolean secondStarted = new AtomicBoolean();
+
+    Future<Void> first = runner.submit("job1", firstJob::future);
+    Future<Void> second = runner.submit("job2", () -> {
+      secondStarted.set(true);
+      return succeededFuture();
+    });
+
+    testContext.verify(() -> {
+      assertFalse(secondStarted.get());
+      assertEquals(1, runner.getRunningJobs());
+    });
+    firstJob.complete();
+
+    Future.all(first, second)
+      .onComplete(testContext.succeeding(v -> {
+        testContext.verify(() -> {
+          assertTrue(secondStarted.get());
+          assertEquals(0, runner.getRunningJobs());
+        });
+        testContext.completeNow();
+      }));
+  }
+
+  @Test
+  void testJobIsNotSubmittedTwice(VertxTestContext testContext) {
+    RolloverJobRunner runner = new RolloverJobRunner(2, 100, 60);
+    Promise<Void> job = Promise.promise();
+
+    Future<Void> first = runner.submit("job1", job::future);
+    runner.submit("job1", () -> succeededFuture())
+      .onComplete(testContext.failing(t -> {
+        testContext.verify(() -> assertFalse(first.isComplete()));
+        job.complete();
+        // the job can be submitted again once it is finished
+        first.compose(v -> runner.submit("job1", () -> succeededFuture()))
+          .onComplete(testContext.succeedingThenComplete());
+      }));
+  }
+
+  @Test
+  void testNextJobRunsAfterFailedJob(VertxTestContext testContext) {
+    RolloverJobRunner runner = new RolloverJobRunner(1, 100, 60);
+
+    Future<Void> first = runner.submit("job1", () -> Future.failedFuture(new IllegalStateException("test")));
+    Future<Void> second = runner.submit("job2", () -> succeededFuture());
+
+    first.onComplete(testContext.failing(t -> second.onComplete(testContext.succeeding(v -> {
+      testContext.verify(() -> assertEquals(0, runner.getRunningJobs()));
+      testContext.completeNow();
+    }))));
+  }
+
+  @Test
+  void testInvalidSettings() {
+    assertThrows(IllegalArgumentException.class, () -> new RolloverJobRunner(0, 100, 60));
+    assertThrows(IllegalArgumentException.class, () -> new RolloverJobRunner(1, 0, 60));
+    assertThrows(IllegalArgumentException.class, () -> new RolloverJobRunner(1, 100, 60, 0));
+  }
+}
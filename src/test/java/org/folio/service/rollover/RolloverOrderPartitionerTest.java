@@ -0,0 +1,76 @@
+package org.folio.service.rollover;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.folio.dao.rollover.RolloverJobChunk;
+import org.junit.jupiter.api.Test;
+
+public class RolloverOrderPartitionerTest {
+
+  @Test
+  void testOrdersSharingFundsAreInTheSameChunk() {
+    SortedMap<Long, Set<String>> fundIdsByOrder = new TreeMap<>();
+    fundIdsByOrder.put(1L, Set.of("A"));
+    fundIdsByOrder.put(2L, Set.of("B"));
+    fundIdsByOrder.put(3L, Set.of("C"));
+    // links the partitions of the orders 1 and 3
+    fundIdsByOrder.put(4L, Set.of("A", "C"));
+    fundIdsByOrder.put(5L, Set.of("B"));
+    fundIdsByOrder.put(6L, Set.of("D"));
+
+    List<RolloverJobChunk> chunks = RolloverOrderPartitioner.partition(fundIdsByOrder, 3);
+
+    assertEquals(List.of(new RolloverJobChunk(1, List.of(1L, 3L, 4L)), new RolloverJobChunk(2, List.of(2L, 5L, 6L))),
+      chunks);
+  }
+
+  @Test
+  void testPartitionsArePackedInChunks() {
+    SortedMap<Long, Set<String>> fundIdsByOrder = new TreeMap<>();
+    fundIdsByOrder.put(1L, Set.of("A"));
+    fundIdsByOrder.put(2L, Set.of("B"));
+    fundIdsByOrder.put(3L, Set.of("A"));
+    // an order without encumbrance
+    fundIdsByOrder.put(4L, Set.of());
+    fundIdsByOrder.put(5L, Set.of("C"));
+
+    List<RolloverJobChunk> chunks = RolloverOrderPartitioner.partition(fundIdsByOrder, 3);
+
+    assertEquals(List.of(new RolloverJobChunk(1, List.of(1L, 2L, 3L)), new RolloverJobChunk(2, List.of(4L, 5L))),
+      chunks);
+  }
+
+  @Test
+  void testPartitionLargerThanChunkSize() {
+    SortedMap<Long, Set<String>> fundIdsByOrder = new TreeMap<>();
+    fundIdsByOrder.put(1L, Set.of("A"));
+    fundIdsByOrder.put(2L, Set.of("A", "B"));
+    fundIdsByOrder.put(3L, Set.of("B"));
+    fundIdsByOrder.put(4L, Set.of("C"));
+    fundIdsByOrder.put(5L, Set.of("B"));
+    fundIdsByOrder.put(6L, Set.of("D"));
+
+    List<RolloverJobChunk> chunks = RolloverOrderPartitioner.partition(fundIdsByOrder, 2);
+
+    // the partition of the orders 1, 2, 3 and 5 is split in chunks rolled over one after the other
+    assertEquals(List.of(new RolloverJobChunk(1, List.of(1L, 2L)), new RolloverJobChunk(1, List.of(3L, 5L)),
+      new RolloverJobChunk(2, List.of(4L, 6L))), chunks);
+  }
+
+  @Test
+  void testNoOrders() {
+    assertEquals(List.of(), RolloverOrderPartitioner.partition(new TreeMap<>(), 10));
+  }
+
+  @Test
+  void testInvalidChunkSize() {
+    SortedMap<Long, Set<String>> fundIdsByOrder = new TreeMap<>();
+    assertThrows(IllegalArgumentException.class, () -> RolloverOrderPartitioner.partition(fundIdsByOrder, 0));
+  }
+}
@@ -1,7 +1,6 @@
 package org.folio.service.transactions;
 
 import io.vertx.junit5.VertxTestContext;
-import io.vertx.sqlclient.Tuple;
 import org.folio.rest.exception.HttpException;
 import org.folio.rest.jaxrs.model.Batch;
 import org.folio.rest.jaxrs.model.Budget;
@@ -9,7 +8,6 @@ import org.folio.rest.jaxrs.model.Fund;
 import org.folio.rest.jaxrs.model.Ledger;
 import org.folio.rest.jaxrs.model.Metadata;
 import org.folio.rest.jaxrs.model.Transaction;
-import org.folio.rest.persist.Criteria.Criterion;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
@@ -27,7 +25,6 @@ import static org.folio.rest.impl.FundAPI.FUND_TABLE;
 import static org.folio.rest.jaxrs.model.Budget.BudgetStatus.ACTIVE;
 import static org.folio.rest.jaxrs.model.Transaction.TransactionType.ALLOCATION;
 import static org.folio.rest.jaxrs.model.Transaction.TransactionType.TRANSFER;
-import static org.folio.service.ServiceTestUtils.createResults;
 import static org.folio.service.ServiceTestUtils.createRowSet;
 import static org.hamcrest.CoreMatchers.startsWith;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -35,10 +32,8 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
-import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
@@ -66,10 +61,8 @@ public class AllocationTransferTest extends BatchTransactionServiceTestBase {
 
     setupFundBudgetLedger(fundId, fiscalYearId, 0d, 0d, 0d, 0d, false, false, false);
 
-    Criterion transactionCriterion = createCriterionByIds(List.of(transactionId));
-    doReturn(succeededFuture(createResults(new ArrayList<Transaction>())))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(transactionCriterion.toString())));
+    doReturn(succeededFuture(new ArrayList<Transaction>()))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(transactionId)));
 
     doAnswer(invocation -> succeededFuture(createRowSet(invocation.getArgument(1))))
       .when(conn).saveBatch(anyString(), anyList());
@@ -129,10 +122,8 @@ public class AllocationTransferTest extends BatchTransactionServiceTestBase {
     Batch batch = new Batch();
     batch.getTransactionsToCreate().add(allocation);
 
-    Criterion transactionCriterion = createCriterionByIds(List.of(transactionId));
-    doReturn(succeededFuture(createResults(new ArrayList<Transaction>())))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(transactionCriterion.toString())));
+    doReturn(succeededFuture(new ArrayList<Transaction>()))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(transactionId)));
 
     doAnswer(invocation -> succeededFuture(createRowSet(invocation.getArgument(1))))
       .when(conn).saveBatch(anyString(), anyList());
@@ -196,10 +187,8 @@ public class AllocationTransferTest extends BatchTransactionServiceTestBase {
     Batch batch = new Batch();
     batch.getTransactionsToCreate().add(transfer);
 
-    Criterion transactionCriterion = createCriterionByIds(List.of(transactionId));
-    doReturn(succeededFuture(createResults(new ArrayList<Transaction>())))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(transactionCriterion.toString())));
+    doReturn(succeededFuture(new ArrayList<Transaction>()))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(transactionId)));
 
     doAnswer(invocation -> succeededFuture(createRowSet(invocation.getArgument(1))))
       .when(conn).saveBatch(anyString(), anyList());
@@ -286,29 +275,19 @@ public class AllocationTransferTest extends BatchTransactionServiceTestBase {
     doReturn(tenantId)
       .when(conn).getTenantId();
 
-    Criterion fundCriterion = createCriterionByIds(List.of(fundId1, fundId2));
-    doReturn(succeededFuture(createResults(List.of(fund1, fund2))))
-      .when(conn).get(eq(FUND_TABLE), eq(Fund.class), argThat(
-        crit -> crit.toString().equals(fundCriterion.toString())), eq(false));
+    doReturn(succeededFuture(List.of(fund1, fund2)))
+      .when(conn).getByIds(eq(FUND_TABLE), eq(Fund.class), eq(List.of(fundId1, fundId2)));
 
-    String sql = "SELECT jsonb FROM " + tenantId + "_mod_finance_storage.budget WHERE (fiscalYearId = '" + fiscalYearId + "' AND (fundId = '%s' OR fundId = '%s')) FOR UPDATE";
-    doReturn(succeededFuture(createRowSet(List.of(budget2))))
-      .when(conn).execute(argThat(s ->
-          s.equals(String.format(sql, fundId1, fundId2)) || s.equals(String.format(sql, fundId2, fundId1))),
-        any(Tuple.class));
+    mockBudgetsForUpdate(fiscalYearId, List.of(fundId1, fundId2), List.of(budget2));
 
-    Criterion ledgerCriterion = createCriterionByIds(List.of(ledgerId));
-    doReturn(succeededFuture(createResults(List.of(ledger))))
-      .when(conn).get(eq(LEDGER_TABLE), eq(Ledger.class), argThat(
-        crit -> crit.toString().equals(ledgerCriterion.toString())), eq(false));
+    doReturn(succeededFuture(List.of(ledger)))
+      .when(conn).getByIds(eq(LEDGER_TABLE), eq(Ledger.class), eq(List.of(ledgerId)));
 
     Batch batch = new Batch();
     batch.getTransactionsToCreate().add(allocation);
 
-    Criterion transactionCriterion = createCriterionByIds(List.of(transactionId));
-    doReturn(succeededFuture(createResults(new ArrayList<Transaction>())))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(transactionCriterion.toString())));
+    doReturn(succeededFuture(new ArrayList<Transaction>()))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(transactionId)));
 
     testContext.assertFailure(batchTransactionService.processBatch(batch, requestContext))
       .onComplete(event -> {
@@ -341,10 +320,8 @@ public class AllocationTransferTest extends BatchTransactionServiceTestBase {
 
     setupFundBudgetLedger(fundId, fiscalYearId, 0d, 0d, 0d, 0d, false, false, false);
 
-    Criterion transactionCriterion = createCriterionByIds(List.of(transactionId));
-    doReturn(succeededFuture(createResults(new ArrayList<Transaction>())))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(transactionCriterion.toString())));
+    doReturn(succeededFuture(new ArrayList<Transaction>()))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(transactionId)));
 
     doAnswer(invocation -> succeededFuture(createRowSet(invocation.getArgument(1))))
       .when(conn).saveBatch(anyString(), anyList());
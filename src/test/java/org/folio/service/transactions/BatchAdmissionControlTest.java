@@ -0,0 +1,114 @@
+package org.folio.service.transactions;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.folio.service.transactions.batch.BatchAdmissionControl;
+import org.folio.service.transactions.batch.BatchAdmissionControl.BatchAdmissionMetrics;
+import org.folio.service.transactions.batch.BatchMetrics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static io.vertx.core.Future.succeededFuture;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(VertxExtension.class)
+public class BatchAdmissionControlTest {
+  private static final String TENANT = "tenantname";
+
+  @Test
+  void testBatchesWithTheSameBudgetsRunOneAfterTheOther(Vertx vertx, VertxTestContext testContext) {
+    BatchAdmissionControl admissionControl = new BatchAdmissionControl(16, 10_000);
+    Promise<Void> firstBatch = Promise.promise();
+    AtomicBoolean secondStarted = new AtomicBoolean();
+
+    Future<Void> first = admissionControl.runAdmitted(vertx, TENANT, Set.of("a"), firstBatch::future);
+    Future<Void> second = admissionControl.runAdmitted(vertx, TENANT, Set.of("a", "b"), () -> {
+      secondStarted.set(true);
+      return succeededFuture();
+    });
+
+    vertx.setTimer(100, id -> {
+      testContext.verify(() -> {
+        assertFalse(secondStarted.get());
+        assertEquals(1, admissionControl.getMetrics().queueDepth());
+      });
+      firstBatch.complete();
+    });
+
+    Future.all(first, second)
+      .onComplete(testContext.succeeding(v -> {
+        testContext.verify(() -> {
+          assertTrue(secondStarted.get());
+          BatchAdmissionMetrics metrics = admissionControl.getMetrics();
+          assertEquals(0, metrics.queueDepth());
+          assertTrue(metrics.maxQueueDepth() >= 1);
+          assertEquals(2, metrics.admittedBatches());
+          assertEquals(0, metrics.timedOutBatches());
+        });
+        testContext.completeNow();
+      }));
+  }
+
+  @Test
+  void testBatchesWithDifferentBudgetsRunInParallel(Vertx vertx, VertxTestContext testContext) {
+    BatchAdmissionControl admissionControl = new BatchAdmissionControl(16, 10_000);
+    Promise<Void> firstBatch = Promise.promise();
+
+    Future<Void> first = admissionControl.runAdmitted(vertx, TENANT, Set.of("a"), firstBatch::future);
+    // "b" uses another stripe than "a"
+    admissionControl.runAdmitted(vertx, TENANT, Set.of("b"), () -> succeededFuture())
+      .onComplete(testContext.succeeding(v -> {
+        testContext.verify(() -> assertFalse(first.isComplete()));
+        firstBatch.complete();
+        first.onComplete(testContext.succeedingThenComplete());
+      }));
+  }
+
+  @Test
+  void testBatchRunsAfterLockTimeout(Vertx vertx, VertxTestContext testContext) {
+    BatchAdmissionControl admissionControl = new BatchAdmissionControl(16, 50);
+    Promise<Void> firstBatch = Promise.promise();
+
+    admissionControl.runAdmitted(vertx, TENANT, Set.of("a"), firstBatch::future);
+    admissionControl.runAdmitted(vertx, TENANT, Set.of("a"), () -> succeededFuture())
+      .onComplete(testContext.succeeding(v -> {
+        testContext.verify(() -> assertEquals(1, admissionControl.getMetrics().timedOutBatches()));
+        firstBatch.complete();
+        testContext.completeNow();
+      }));
+  }
+
+  @Test
+  void testMetricsAreRegistered(Vertx vertx, VertxTestContext testContext) {
+    BatchAdmissionControl admissionControl = new BatchAdmissionControl(16, 200);
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    new BatchMetrics(registry, 0).registerAdmissionControl(admissionControl);
+    Promise<Void> firstBatch = Promise.promise();
+
+    admissionControl.runAdmitted(vertx, TENANT, Set.of("a"), firstBatch::future);
+    Future<Void> second = admissionControl.runAdmitted(vertx, TENANT, Set.of("a"), () -> succeededFuture());
+    testContext.verify(() -> {
+      assertEquals(1, registry.get("batch.transactions.admission.queue.depth").gauge().value());
+      assertEquals(0, registry.get("batch.transactions.admission.timed.out").functionCounter().count());
+    });
+
+    second.onComplete(testContext.succeeding(v -> {
+      testContext.verify(() -> {
+        assertEquals(0, registry.get("batch.transactions.admission.queue.depth").gauge().value());
+        assertEquals(1, registry.get("batch.transactions.admission.queue.max.depth").gauge().value());
+        assertEquals(1, registry.get("batch.transactions.admission.timed.out").functionCounter().count());
+      });
+      firstBatch.complete();
+      testContext.completeNow();
+    }));
+  }
+}
@@ -0,0 +1,238 @@
+package org.folio.service.transactions;
+
+import static org.folio.dao.ledger.LedgerPostgresDAO.LEDGER_TABLE;
+import static org.folio.dao.transactions.BatchTransactionDAO.TRANSACTIONS_TABLE;
+import static org.folio.rest.impl.BudgetAPI.BUDGET_TABLE;
+import static org.folio.rest.impl.FiscalYearAPI.FISCAL_YEAR_TABLE;
+import static org.folio.rest.impl.FundAPI.FUND_TABLE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.Tuple;
+import org.folio.dao.budget.BudgetPostgresDAO;
+import org.folio.dao.fund.FundPostgresDAO;
+import org.folio.dao.group.GroupPostgresDAO;
+import org.folio.dao.ledger.LedgerPostgresDAO;
+import org.folio.dao.transactions.BatchTransactionPostgresDAO;
+import org.folio.rest.impl.TestBase;
+import org.folio.rest.jaxrs.model.Batch;
+import org.folio.rest.jaxrs.model.Budget;
+import org.folio.rest.jaxrs.model.Encumbrance;
+import org.folio.rest.jaxrs.model.FiscalYear;
+import org.folio.rest.jaxrs.model.Fund;
+import org.folio.rest.jaxrs.model.Ledger;
+import org.folio.rest.jaxrs.model.Metadata;
+import org.folio.rest.jaxrs.model.Transaction;
+import org.folio.rest.persist.BulkInsertWriter;
+import org.folio.rest.persist.DBClient;
+import org.folio.rest.persist.DBClientFactory;
+import org.folio.rest.persist.DBConn;
+import org.folio.rest.persist.PostgresClient;
+import org.folio.service.budget.BudgetService;
+import org.folio.service.fund.FundLedgerCache;
+import org.folio.service.fund.StorageFundService;
+import org.folio.service.group.GroupService;
+import org.folio.service.ledger.StorageLedgerService;
+import org.folio.service.transactions.batch.BatchAllocationService;
+import org.folio.service.transactions.batch.BatchEncumbranceService;
+import org.folio.service.transactions.batch.BatchPaymentCreditService;
+import org.folio.service.transactions.batch.BatchPendingPaymentService;
+import org.folio.service.transactions.batch.BatchTransactionService;
+import org.folio.service.transactions.batch.BatchTransactionSettings;
+import org.folio.service.transactions.batch.BatchTransferService;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Processes a batch against the database, with the budgets updated with deltas or rewritten, and checks the stored
+ * budget amounts. The data is seeded and the batch is processed in a transaction that is rolled back.
+ */
+@ExtendWith(VertxExtension.class)
+public class BatchBudgetDeltasTest extends TestBase {
+
+  private static final String SCHEMA = PostgresClient.convertToPsqlStandard(TENANT_NAME);
+
+  private final String suffix = UUID.randomUUID().toString().substring(0, 8);
+  private final String fiscalYearId = UUID.randomUUID().toString();
+  private final String ledgerId = UUID.randomUUID().toString();
+  private final String fundAId = UUID.randomUUID().toString();
+  private final String fundBId = UUID.randomUUID().toString();
+  private final String fundCId = UUID.randomUUID().toString();
+  private final String budgetAId = UUID.randomUUID().toString();
+  private final String budgetBId = UUID.randomUUID().toString();
+  private final String budgetCId = UUID.randomUUID().toString();
+  private final String encumbranceCId = UUID.randomUUID().toString();
+
+  @ParameterizedTest
+  @ValueSource(booleans = {true, false})
+  void testBudgetAmountsAfterBatch(boolean updateBudgetsWithDeltas, Vertx vertx, VertxTestContext vtc) {
+    BatchTransactionService service = createService(updateBudgetsWithDeltas);
+    Map<String, JsonObject> budgetsBefore = new HashMap<>();
+    Map<String, JsonObject> budgetsAfter = new HashMap<>();
+    new DBClient(vertx, TENANT_NAME).withConn(conn -> conn.execute("BEGIN")
+        .compose(v -> seed(conn))
+        .compose(v -> getBudgets(conn))
+        .compose(budgets -> {
+          budgetsBefore.putAll(budgets);
+          return service.processBatch(batch(), conn, Map.of());
+        })
+        .compose(v -> getBudgets(conn))
+        .map(budgets -> {
+          budgetsAfter.putAll(budgets);
+          return null;
+        })
+        .eventually(() -> conn.execute("ROLLBACK")))
+      .onComplete(vtc.succeeding(v -> vtc.verify(() -> {
+        JsonObject budgetA = budgetsAfter.get(budgetAId);
+        assertEquals(15d, budgetA.getDouble("encumbered"));
+        assertEquals(-7d, budgetA.getDouble("netTransfers"));
+        assertEquals(100d, budgetA.getDouble("initialAllocation"));
+        assertNotEquals(budgetsBefore.get(budgetAId).getValue("_version"), budgetA.getValue("_version"));
+        JsonObject budgetB = budgetsAfter.get(budgetBId);
+        assertEquals(7d, budgetB.getDouble("netTransfers"));
+        assertEquals(0d, budgetB.getDouble("encumbered"));
+        // the amounts of budget C do not change, with deltas it is not updated at all
+        JsonObject budgetC = budgetsAfter.get(budgetCId);
+        assertEquals(20d, budgetC.getDouble("encumbered"));
+        assertEquals(0d, budgetC.getDouble("netTransfers"));
+        if (updateBudgetsWithDeltas) {
+          assertEquals(budgetsBefore.get(budgetCId), budgetC);
+        }
+        vtc.completeNow();
+      })));
+  }
+
+  private BatchTransactionService createService(boolean updateBudgetsWithDeltas) {
+    BulkInsertWriter bulkInsertWriter = BulkInsertWriter.disabled();
+    DBClientFactory dbClientFactory = new DBClientFactory();
+    StorageFundService fundService = new StorageFundService(new FundPostgresDAO(), FundLedgerCache.disabled());
+    BudgetService budgetService = new BudgetService(dbClientFactory, new BudgetPostgresDAO(bulkInsertWriter),
+      new GroupService(dbClientFactory, new GroupPostgresDAO()));
+    return new BatchTransactionService(dbClientFactory, new BatchTransactionPostgresDAO(bulkInsertWriter), fundService,
+      budgetService, new StorageLedgerService(new LedgerPostgresDAO(), fundService),
+      Set.of(new BatchEncumbranceService(), new BatchPendingPaymentService(), new BatchPaymentCreditService(),
+        new BatchAllocationService(), new BatchTransferService()),
+      BatchTransactionSettings.defaults().withUpdateBudgetsWithDeltas(updateBudgetsWithDeltas));
+  }
+
+  private Future<Map<String, JsonObject>> getBudgets(DBConn conn) {
+    String sql = String.format("SELECT jsonb FROM %s.%s WHERE id = ANY($1::uuid[])", SCHEMA, BUDGET_TABLE);
+    UUID[] ids = { UUID.fromString(budgetAId), UUID.fromString(budgetBId), UUID.fromString(budgetCId) };
+    return conn.execute(sql, Tuple.tuple().addValue(ids))
+      .map(rowSet -> {
+        Map<String, JsonObject> budgets = new HashMap<>();
+        for (Row row : rowSet) {
+          JsonObject budget = row.getJsonObject(0);
+          budgets.put(budget.getString("id"), budget);
+        }
+        return budgets;
+      });
+  }
+
+  private Future<Void> seed(DBConn conn) {
+    return conn.saveBatch(FISCAL_YEAR_TABLE, List.of(new FiscalYear()
+        .withId(fiscalYearId)
+        .withName("BD" + suffix)
+        .withCode("BD" + suffix)
+        .withSeries("BD")
+        .withCurrency("USD")))
+      .compose(v -> conn.saveBatch(LEDGER_TABLE, List.of(new Ledger()
+        .withId(ledgerId)
+        .withCode("BD" + suffix)
+        .withName("BD" + suffix)
+        .withFiscalYearOneId(fiscalYearId)
+        .withLedgerStatus(Ledger.LedgerStatus.ACTIVE)
+        .withRestrictEncumbrance(false)
+        .withRestrictExpenditures(false))))
+      .compose(v -> conn.saveBatch(FUND_TABLE, List.of(fund(fundAId, "A"), fund(fundBId, "B"), fund(fundCId, "C"))))
+      .compose(v -> conn.saveBatch(BUDGET_TABLE, List.of(budget(budgetAId, fundAId, 5), budget(budgetBId, fundBId, 0),
+        budget(budgetCId, fundCId, 20))))
+      .compose(v -> conn.saveBatch(TRANSACTIONS_TABLE, List.of(encumbrance(encumbranceCId, fundCId, 20))))
+      .mapEmpty();
+  }
+
+  /**
+   * A new encumbrance in fund A, a transfer from fund A to fund B, and an update of an encumbrance of fund C
+   * that does not change its amounts.
+   */
+  private Batch batch() {
+    Transaction transfer = new Transaction()
+      .withId(UUID.randomUUID().toString())
+      .withTransactionType(Transaction.TransactionType.TRANSFER)
+      .withAmount(7d)
+      .withCurrency("USD")
+      .withFiscalYearId(fiscalYearId)
+      .withFromFundId(fundAId)
+      .withToFundId(fundBId)
+      .withSource(Transaction.Source.USER);
+    Transaction encumbranceC = encumbrance(encumbranceCId, fundCId, 20)
+      .withMetadata(new Metadata().withCreatedDate(new Date()));
+    return new Batch()
+      .withTransactionsToCreate(List.of(encumbrance(UUID.randomUUID().toString(), fundAId, 10), transfer))
+      .withTransactionsToUpdate(List.of(encumbranceC));
+  }
+
+  private Fund fund(String id, String code) {
+    return new Fund()
+      .withId(id)
+      .withCode(code + suffix)
+      .withName(code + suffix)
+      .withLedgerId(ledgerId)
+      .withFundStatus(Fund.FundStatus.ACTIVE)
+      .withExternalAccountNo("1");
+  }
+
+  private Budget budget(String id, String fundId, double encumbered) {
+    return new Budget()
+      .withId(id)
+      .withName("BD" + suffix + fundId.substring(0, 8))
+      .withFundId(fundId)
+      .withFiscalYearId(fiscalYearId)
+      .withBudgetStatus(Budget.BudgetStatus.ACTIVE)
+      .withInitialAllocation(100d)
+      .withAllocationTo(0d)
+      .withAllocationFrom(0d)
+      .withNetTransfers(0d)
+      .withEncumbered(encumbered)
+      .withAwaitingPayment(0d)
+      .withExpenditures(0d)
+      .withCredits(0d);
+  }
+
+  private Transaction encumbrance(String id, String fundId, double amount) {
+    return new Transaction()
+      .withId(id)
+      .withTransactionType(Transaction.TransactionType.ENCUMBRANCE)
+      .withAmount(amount)
+      .withCurrency("USD")
+      .withFiscalYearId(fiscalYearId)
+      .withFromFundId(fundId)
+      .withSource(Transaction.Source.PO_LINE)
+      .withEncumbrance(new Encumbrance()
+        .withInitialAmountEncumbered(amount)
+        .withAmountAwaitingPayment(0d)
+        .withAmountExpended(0d)
+        .withAmountCredited(0d)
+        .withStatus(Encumbrance.Status.UNRELEASED)
+        .withOrderType(Encumbrance.OrderType.ONE_TIME)
+        .withOrderStatus(Encumbrance.OrderStatus.OPEN)
+        .withSubscription(false)
+        .withReEncumber(false)
+        .withSourcePurchaseOrderId(fundId)
+        .withSourcePoLineId(id));
+  }
+}
@@ -0,0 +1,155 @@
+package org.folio.service.transactions;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.folio.rest.jaxrs.model.Batch;
+import org.folio.rest.persist.DBClient;
+import org.folio.service.transactions.batch.BatchCoalescer;
+import org.folio.service.transactions.batch.BatchCoalescer.CoalescedBatch;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static io.vertx.core.Future.failedFuture;
+import static io.vertx.core.Future.succeededFuture;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+@ExtendWith(VertxExtension.class)
+public class BatchCoalescerTest {
+
+  private DBClient createClient(Vertx vertx, String tenantId) {
+    DBClient client = mock(DBClient.class);
+    doReturn(vertx).when(client).getVertx();
+    doReturn(tenantId).when(client).getTenantId();
+    return client;
+  }
+
+  @Test
+  void testBatchIsProcessedRightAwayWhenNothingIsQueued(Vertx vertx, VertxTestContext testContext) {
+    BatchCoalescer coalescer = new BatchCoalescer(60_000, 10);
+    DBClient client = createClient(vertx, "tenantname");
+    List<Integer> groupSizes = new ArrayList<>();
+    BatchCoalescer.GroupProcessor processor = (c, batches) -> {
+      groupSizes.add(batches.size());
+      batches.forEach(b -> b.promise().complete());
+      return succeededFuture();
+    };
+
+    // the second batch is received after the first one was processed, it does not wait for the window either
+    coalescer.submit(client, new Batch(), Map.of(), null, processor)
+      .compose(v -> coalescer.submit(client, new Batch(), Map.of(), null, processor))
+      .onComplete(testContext.succeeding(v -> {
+        testContext.verify(() -> assertEquals(List.of(1, 1), groupSizes));
+        testContext.completeNow();
+      }));
+  }
+
+  @Test
+  void testBatchesReceivedWhileAGroupIsProcessedAreProcessedTogether(Vertx vertx, VertxTestContext testContext) {
+    BatchCoalescer coalescer = new BatchCoalescer(60_000, 10);
+    DBClient client = createClient(vertx, "tenantname");
+    List<Integer> groupSizes = new ArrayList<>();
+    Promise<Void> firstGroupDone = Promise.promise();
+    BatchCoalescer.GroupProcessor processor = (c, batches) -> {
+      groupSizes.add(batches.size());
+      batches.forEach(b -> b.promise().complete());
+      return groupSizes.size() == 1 ? firstGroupDone.future() : succeededFuture();
+    };
+
+    Future<Void> first = coalescer.submit(client, new Batch(), Map.of(), null, processor);
+    Future<Void> second = coalescer.submit(client, new Batch(), Map.of(), null, processor);
+    Future<Void> third = coalescer.submit(client, new Batch(), Map.of(), null, processor);
+    testContext.verify(() -> {
+      assertTrue(first.succeeded());
+      assertFalse(second.isComplete());
+      assertEquals(List.of(1), groupSizes);
+    });
+    // the waiting group is processed when the first group is done, before the end of its window
+    firstGroupDone.complete();
+
+    Future.all(second, third)
+      .onComplete(testContext.succeeding(v -> {
+        testContext.verify(() -> assertEquals(List.of(1, 2), groupSizes));
+        testContext.completeNow();
+      }));
+  }
+
+  @Test
+  void testWaitingGroupIsProcessedAtTheEndOfTheWindow(Vertx vertx, VertxTestContext testContext) {
+    BatchCoalescer coalescer = new BatchCoalescer(50, 10);
+    DBClient client = createClient(vertx, "tenantname");
+    List<Integer> groupSizes = new ArrayList<>();
+    Promise<Void> firstGroupDone = Promise.promise();
+    BatchCoalescer.GroupProcessor processor = (c, batches) -> {
+      groupSizes.add(batches.size());
+      batches.forEach(b -> b.promise().complete());
+      return groupSizes.size() == 1 ? firstGroupDone.future() : succeededFuture();
+    };
+
+    coalescer.submit(client, new Batch(), Map.of(), null, processor);
+    Future<Void> second = coalescer.submit(client, new Batch(), Map.of(), null, processor);
+    Future<Void> third = coalescer.submit(client, new Batch(), Map.of(), null, processor);
+
+    Future.all(second, third)
+      .onComplete(testContext.succeeding(v -> {
+        testContext.verify(() -> assertEquals(List.of(1, 2), groupSizes));
+        firstGroupDone.complete();
+        testContext.completeNow();
+      }));
+  }
+
+  @Test
+  void testFullGroupIsProcessedWithoutWaiting(Vertx vertx, VertxTestContext testContext) {
+    BatchCoalescer coalescer = new BatchCoalescer(60_000, 2);
+    DBClient client = createClient(vertx, "tenantname");
+    DBClient otherTenantClient = createClient(vertx, "othertenant");
+    List<List<CoalescedBatch>> groups = new ArrayList<>();
+    Promise<Void> firstGroupDone = Promise.promise();
+    BatchCoalescer.GroupProcessor processor = (c, batches) -> {
+      groups.add(batches);
+      batches.forEach(b -> b.promise().complete());
+      return groups.size() == 1 ? firstGroupDone.future() : succeededFuture();
+    };
+
+    coalescer.submit(client, new Batch(), Map.of(), null, processor);
+    Future<Void> second = coalescer.submit(client, new Batch(), Map.of(), null, processor);
+    // nothing is being processed for the other tenant
+    Future<Void> otherTenant = coalescer.submit(otherTenantClient, new Batch(), Map.of(), null, processor);
+    Future<Void> third = coalescer.submit(client, new Batch(), Map.of(), null, processor);
+
+    Future.all(second, third, otherTenant)
+      .onComplete(testContext.succeeding(v -> {
+        testContext.verify(() -> {
+          assertEquals(3, groups.size());
+          assertEquals(1, groups.get(1).size());
+          // the group of the tenant is full, it does not wait for the first group to be done
+          assertEquals(2, groups.get(2).size());
+        });
+        firstGroupDone.complete();
+        testContext.completeNow();
+      }));
+  }
+
+  @Test
+  void testBatchesAreFailedWhenTheGroupFails(Vertx vertx, VertxTestContext testContext) {
+    BatchCoalescer coalescer = new BatchCoalescer(60_000, 1);
+    DBClient client = createClient(vertx, "tenantname");
+    RuntimeException error = new RuntimeException("test");
+
+    coalescer.submit(client, new Batch(), Map.of(), null, (c, batches) -> failedFuture(error))
+      .onComplete(testContext.failing(t -> {
+        testContext.verify(() -> assertEquals(error, t));
+        testContext.completeNow();
+      }));
+  }
+}
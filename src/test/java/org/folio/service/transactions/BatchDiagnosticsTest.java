@@ -0,0 +1,65 @@
+package org.folio.service.transactions;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import org.folio.rest.jaxrs.model.Batch;
+import org.folio.rest.jaxrs.model.Budget;
+import org.folio.rest.jaxrs.model.Transaction;
+import org.folio.service.transactions.batch.BatchDiagnostics;
+import org.junit.jupiter.api.Test;
+
+public class BatchDiagnosticsTest {
+
+  @Test
+  void testBatchSummaryIsBounded() {
+    String fundId = UUID.randomUUID().toString();
+    String fiscalYearId = UUID.randomUUID().toString();
+    List<Transaction> encumbrances = IntStream.range(0, 12)
+      .mapToObj(i -> new Transaction()
+        .withId(UUID.randomUUID().toString())
+        .withTransactionType(Transaction.TransactionType.ENCUMBRANCE)
+        .withFromFundId(fundId)
+        .withFiscalYearId(fiscalYearId))
+      .toList();
+    Batch batch = new Batch();
+    batch.getTransactionsToCreate().addAll(encumbrances);
+    batch.getTransactionsToCreate().add(new Transaction()
+      .withId(UUID.randomUUID().toString())
+      .withTransactionType(Transaction.TransactionType.PAYMENT));
+    batch.getIdsOfTransactionsToDelete().add(UUID.randomUUID().toString());
+
+    String summary = BatchDiagnostics.summarize(batch);
+
+    assertThat(summary, containsString("transactionsToCreate=13 {Encumbrance=12, Payment=1}"));
+    assertThat(summary, containsString("idsOfTransactionsToDelete=1,"));
+    assertThat(summary, containsString("firstFundsAndFiscalYears=[" + fundId + "/" + fiscalYearId + "]"));
+    assertThat(summary, containsString(encumbrances.get(9).getId()));
+    assertThat(summary, not(containsString(encumbrances.get(10).getId())));
+  }
+
+  @Test
+  void testBudgetsSummaryIsBounded() {
+    List<Budget> budgets = IntStream.range(0, 15)
+      .mapToObj(i -> new Budget().withId(UUID.randomUUID().toString()))
+      .toList();
+
+    String summary = BatchDiagnostics.summarize(budgets);
+
+    assertThat(summary, containsString("count=15"));
+    assertThat(summary, containsString(budgets.get(9).getId()));
+    assertThat(summary, not(containsString(budgets.get(10).getId())));
+  }
+
+  @Test
+  void testEmptyBatchSummary() {
+    assertEquals("{transactionsToCreate=0 {}, transactionsToUpdate=0 {}, idsOfTransactionsToDelete=0, "
+      + "transactionPatches=0, firstIds=[], firstFundsAndFiscalYears=[]}", BatchDiagnostics.summarize(new Batch()));
+  }
+}
@@ -0,0 +1,139 @@
+package org.folio.service.transactions;
+
+import io.vertx.core.Future;
+import org.folio.dao.transactions.BatchIdempotencyDAO;
+import org.folio.rest.exception.HttpException;
+import org.folio.rest.jaxrs.model.Batch;
+import org.folio.rest.jaxrs.model.Transaction;
+import org.folio.rest.persist.DBConn;
+import org.folio.service.transactions.batch.BatchIdempotency;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.vertx.core.Future.succeededFuture;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class BatchIdempotencyTest {
+  private static final String TENANT = "tenantname";
+  private static final String KEY = "key1";
+
+  private AutoCloseable mockitoMocks;
+  private BatchIdempotency idempotency;
+  @Mock
+  private BatchIdempotencyDAO idempotencyDAO;
+  @Mock
+  private DBConn conn;
+
+  @BeforeEach
+  void init() {
+    mockitoMocks = MockitoAnnotations.openMocks(this);
+    idempotency = new BatchIdempotency(idempotencyDAO, Duration.ofHours(1), 10);
+    doReturn(TENANT).when(conn).getTenantId();
+    doReturn(succeededFuture(0)).when(idempotencyDAO).deleteExpiredKeys(conn);
+  }
+
+  @AfterEach
+  void afterEach() throws Exception {
+    mockitoMocks.close();
+  }
+
+  @Test
+  void testKeyHeaderIsCaseInsensitive() {
+    assertEquals(KEY, BatchIdempotency.getKey(Map.of("idempotency-key", KEY)));
+    assertNull(BatchIdempotency.getKey(Map.of("x-okapi-tenant", TENANT)));
+  }
+
+  @Test
+  void testPayloadHashDependsOnTheBatch() {
+    Batch batch1 = new Batch().withIdsOfTransactionsToDelete(List.of(UUID.randomUUID().toString()));
+    Batch batch2 = new Batch().withTransactionsToCreate(List.of(new Transaction().withAmount(1d)));
+
+    assertEquals(BatchIdempotency.hashPayload(batch1), BatchIdempotency.hashPayload(batch1));
+    assertNotEquals(BatchIdempotency.hashPayload(batch1), BatchIdempotency.hashPayload(batch2));
+  }
+
+  @Test
+  void testNewKeyRunsTheBatch() {
+    doReturn(succeededFuture(true)).when(idempotencyDAO).registerKey(eq(KEY), eq("hash"), any(), eq(conn));
+    AtomicInteger runs = new AtomicInteger();
+
+    Future<Void> result = idempotency.runOnce(KEY, "hash", conn, () -> {
+      runs.incrementAndGet();
+      return succeededFuture();
+    });
+
+    assertTrue(result.succeeded());
+    assertEquals(1, runs.get());
+    verify(idempotencyDAO, never()).getPayloadHash(anyString(), any());
+  }
+
+  @Test
+  void testReplayedBatchIsNotRunAgain() {
+    doReturn(succeededFuture(false)).when(idempotencyDAO).registerKey(eq(KEY), eq("hash"), any(), eq(conn));
+    doReturn(succeededFuture("hash")).when(idempotencyDAO).getPayloadHash(KEY, conn);
+    AtomicInteger runs = new AtomicInteger();
+
+    Future<Void> result = idempotency.runOnce(KEY, "hash", conn, () -> {
+      runs.incrementAndGet();
+      return succeededFuture();
+    });
+
+    assertTrue(result.succeeded());
+    assertEquals(0, runs.get());
+  }
+
+  @Test
+  void testKeyUsedWithAnotherBatchIsRejected() {
+    doReturn(succeededFuture(false)).when(idempotencyDAO).registerKey(eq(KEY), eq("hash2"), any(), eq(conn));
+    doReturn(succeededFuture("hash1")).when(idempotencyDAO).getPayloadHash(KEY, conn);
+
+    Future<Void> result = idempotency.runOnce(KEY, "hash2", conn, () -> succeededFuture());
+
+    assertTrue(result.failed());
+    assertEquals(422, ((HttpException) result.cause()).getCode());
+  }
+
+  @Test
+  void testCommittedKeysAreCached() {
+    assertFalse(idempotency.isCommittedReplay(TENANT, KEY, "hash"));
+
+    idempotency.rememberCommitted(TENANT, KEY, "hash");
+
+    assertTrue(idempotency.isCommittedReplay(TENANT, KEY, "hash"));
+    assertFalse(idempotency.isCommittedReplay("othertenant", KEY, "hash"));
+    HttpException exception = assertThrows(HttpException.class,
+      () -> idempotency.isCommittedReplay(TENANT, KEY, "hash2"));
+    assertEquals(422, exception.getCode());
+  }
+
+  @Test
+  void testExpiredKeysAreDeletedOncePerInterval() {
+    doReturn(succeededFuture(true)).when(idempotencyDAO).registerKey(anyString(), anyString(), any(), eq(conn));
+
+    idempotency.runOnce(KEY, "hash", conn, () -> succeededFuture());
+    idempotency.runOnce("key2", "hash", conn, () -> succeededFuture());
+
+    verify(idempotencyDAO, times(1)).deleteExpiredKeys(conn);
+  }
+}
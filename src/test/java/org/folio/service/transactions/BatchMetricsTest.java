@@ -0,0 +1,88 @@
+package org.folio.service.transactions;
+
+import static io.vertx.core.Future.failedFuture;
+import static io.vertx.core.Future.succeededFuture;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.folio.rest.jaxrs.model.Batch;
+import org.folio.rest.jaxrs.model.Transaction;
+import org.folio.service.transactions.batch.BatchMetrics;
+import org.folio.service.transactions.batch.BatchMetrics.BatchTimer;
+import org.junit.jupiter.api.Test;
+
+public class BatchMetricsTest {
+  private static final String TENANT = "tenantname";
+  private static final String PHASE_TIMER = "batch.transactions.phase";
+
+  @Test
+  void testPhasesAreTimedWithBatchTags() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    BatchMetrics metrics = new BatchMetrics(registry, 0);
+    Batch batch = new Batch();
+    IntStream.range(0, 12).forEach(i -> batch.getTransactionsToCreate().add(new Transaction()
+      .withId(UUID.randomUUID().toString())
+      .withTransactionType(i % 2 == 0 ? Transaction.TransactionType.PAYMENT : Transaction.TransactionType.CREDIT)));
+
+    BatchTimer timer = metrics.startBatch(TENANT, batch);
+    timer.time("setup", () -> succeededFuture());
+    timer.time("apply.create", () -> failedFuture("error"));
+    assertEquals(3, timer.timeSync("prepare", () -> 3));
+
+    Timer setup = registry.find(PHASE_TIMER)
+      .tags("tenant", TENANT, "transactionTypes", "Credit,Payment", "batchSize", "11-100", "phase", "setup",
+        "outcome", "success")
+      .timer();
+    assertNotNull(setup);
+    assertEquals(1, setup.count());
+    assertNotNull(registry.find(PHASE_TIMER).tags("phase", "apply.create", "outcome", "failure").timer());
+    assertNotNull(registry.find(PHASE_TIMER).tags("phase", "prepare", "outcome", "success").timer());
+  }
+
+  @Test
+  void testBatchSizeBuckets() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    BatchMetrics metrics = new BatchMetrics(registry, 0);
+    Batch smallBatch = new Batch();
+    smallBatch.getIdsOfTransactionsToDelete().add(UUID.randomUUID().toString());
+    Batch largeBatch = new Batch();
+    IntStream.range(0, 1001).forEach(i -> largeBatch.getIdsOfTransactionsToDelete().add(UUID.randomUUID().toString()));
+
+    metrics.startBatch(TENANT, smallBatch).timeSync("prepare", () -> null);
+    metrics.startBatch(TENANT, largeBatch).timeSync("prepare", () -> null);
+
+    assertNotNull(registry.find(PHASE_TIMER).tags("batchSize", "1", "transactionTypes", "none").timer());
+    assertNotNull(registry.find(PHASE_TIMER).tags("batchSize", "1001+").timer());
+  }
+
+  @Test
+  void testAdmissionWaitIsRecorded() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    BatchMetrics metrics = new BatchMetrics(registry, 0);
+
+    metrics.recordAdmissionWait(TENANT, TimeUnit.MILLISECONDS.toNanos(5));
+
+    Timer admission = registry.find("batch.transactions.admission.wait").tag("tenant", TENANT).timer();
+    assertNotNull(admission);
+    assertTrue(admission.totalTime(TimeUnit.MILLISECONDS) >= 5);
+  }
+
+  @Test
+  void testDisabledMetricsDoNotRecordAnything() {
+    BatchMetrics metrics = BatchMetrics.disabled();
+
+    BatchTimer timer = metrics.startBatch(TENANT, new Batch());
+
+    assertEquals("result", timer.timeSync("prepare", () -> "result"));
+    assertTrue(timer.time("setup", () -> succeededFuture()).succeeded());
+    assertNull(metrics.startScrapeEndpoint(null).result());
+  }
+}
@@ -0,0 +1,263 @@
+package org.folio.service.transactions;
+
+import static org.folio.dao.ledger.LedgerPostgresDAO.LEDGER_TABLE;
+import static org.folio.dao.transactions.BatchTransactionDAO.TRANSACTIONS_TABLE;
+import static org.folio.rest.RestVerticle.OKAPI_HEADER_TENANT;
+import static org.folio.rest.impl.BudgetAPI.BUDGET_TABLE;
+import static org.folio.rest.impl.FiscalYearAPI.FISCAL_YEAR_TABLE;
+import static org.folio.rest.impl.FundAPI.FUND_TABLE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.folio.dao.budget.BudgetPostgresDAO;
+import org.folio.dao.fund.FundPostgresDAO;
+import org.folio.dao.group.GroupPostgresDAO;
+import org.folio.dao.ledger.LedgerPostgresDAO;
+import org.folio.dao.transactions.BatchTransactionPostgresDAO;
+import org.folio.rest.core.model.RequestContext;
+import org.folio.rest.exception.HttpException;
+import org.folio.rest.impl.TestBase;
+import org.folio.rest.jaxrs.model.Batch;
+import org.folio.rest.jaxrs.model.Budget;
+import org.folio.rest.jaxrs.model.Encumbrance;
+import org.folio.rest.jaxrs.model.FiscalYear;
+import org.folio.rest.jaxrs.model.Fund;
+import org.folio.rest.jaxrs.model.Ledger;
+import org.folio.rest.jaxrs.model.Transaction;
+import org.folio.rest.persist.BulkInsertWriter;
+import org.folio.rest.persist.DBClient;
+import org.folio.rest.persist.DBClientFactory;
+import org.folio.service.budget.BudgetService;
+import org.folio.service.fund.FundLedgerCache;
+import org.folio.service.fund.StorageFundService;
+import org.folio.service.group.GroupService;
+import org.folio.service.ledger.StorageLedgerService;
+import org.folio.service.transactions.batch.BatchAllocationService;
+import org.folio.service.transactions.batch.BatchEncumbranceService;
+import org.folio.service.transactions.batch.BatchPaymentCreditService;
+import org.folio.service.transactions.batch.BatchPendingPaymentService;
+import org.folio.service.transactions.batch.BatchStreamService;
+import org.folio.service.transactions.batch.BatchTransactionService;
+import org.folio.service.transactions.batch.BatchTransferService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+/**
+ * Sends streams of batches, split in chunks that do not end at line breaks, to the stream service using the
+ * database, and checks that the batches are applied together, or not at all when one of them fails.
+ */
+@ExtendWith(VertxExtension.class)
+public class BatchStreamDatabaseTest extends TestBase {
+
+  private static final String STREAM_ID = "database-stream";
+
+  private final String suffix = UUID.randomUUID().toString().substring(0, 8);
+  private final String fiscalYearId = UUID.randomUUID().toString();
+  private final String ledgerId = UUID.randomUUID().toString();
+  private final String fundAId = UUID.randomUUID().toString();
+  private final String fundBId = UUID.randomUUID().toString();
+  private final String budgetAId = UUID.randomUUID().toString();
+  private final String budgetBId = UUID.randomUUID().toString();
+  private final String encumbranceId = UUID.randomUUID().toString();
+  private final String transferId = UUID.randomUUID().toString();
+
+  @BeforeEach
+  void seed(Vertx vertx, VertxTestContext vtc) {
+    new DBClient(vertx, TENANT_NAME).withTrans(conn -> conn.saveBatch(FISCAL_YEAR_TABLE, List.of(fiscalYear()))
+        .compose(v -> conn.saveBatch(LEDGER_TABLE, List.of(ledger())))
+        .compose(v -> conn.saveBatch(FUND_TABLE, List.of(fund(fundAId, "A"), fund(fundBId, "B"))))
+        .compose(v -> conn.saveBatch(BUDGET_TABLE, List.of(budget(budgetAId, fundAId), budget(budgetBId, fundBId)))))
+      .onComplete(vtc.succeedingThenComplete());
+  }
+
+  @AfterEach
+  void cleanUp(Vertx vertx, VertxTestContext vtc) {
+    new DBClient(vertx, TENANT_NAME).withTrans(conn -> conn.deleteByIds(TRANSACTIONS_TABLE,
+          List.of(encumbranceId, transferId))
+        .compose(v -> conn.deleteByIds(BUDGET_TABLE, List.of(budgetAId, budgetBId)))
+        .compose(v -> conn.deleteByIds(FUND_TABLE, List.of(fundAId, fundBId)))
+        .compose(v -> conn.deleteByIds(LEDGER_TABLE, List.of(ledgerId)))
+        .compose(v -> conn.deleteByIds(FISCAL_YEAR_TABLE, List.of(fiscalYearId))))
+      .onComplete(vtc.succeedingThenComplete());
+  }
+
+  @Test
+  void testBatchesOfTheStreamAreCommittedTogether(Vertx vertx, VertxTestContext vtc) {
+    String stream = line(new Batch().withTransactionsToCreate(List.of(encumbrance())))
+      + line(new Batch().withTransactionsToCreate(List.of(transfer())));
+
+    send(vertx, stream)
+      .compose(v -> getBudgets(vertx))
+      .onComplete(vtc.succeeding(budgets -> vtc.verify(() -> {
+        assertEquals(10d, budgets.get(budgetAId).getEncumbered());
+        assertEquals(-7d, budgets.get(budgetAId).getNetTransfers());
+        assertEquals(7d, budgets.get(budgetBId).getNetTransfers());
+        vtc.completeNow();
+      })));
+  }
+
+  @Test
+  void testBatchesOfTheStreamAreRolledBackWhenOneFails(Vertx vertx, VertxTestContext vtc) {
+    // the second batch creates the encumbrance created by the first one again
+    String stream = line(new Batch().withTransactionsToCreate(List.of(encumbrance())))
+      + line(new Batch().withTransactionsToCreate(List.of(transfer(), encumbrance())));
+
+    send(vertx, stream)
+      .transform(ar -> {
+        vtc.verify(() -> {
+          assertTrue(ar.failed());
+          assertInstanceOf(HttpException.class, ar.cause());
+          assertEquals(400, ((HttpException) ar.cause()).getCode());
+        });
+        return getBudgets(vertx);
+      })
+      .compose(budgets -> new DBClient(vertx, TENANT_NAME).withConn(conn -> conn.getByIds(TRANSACTIONS_TABLE,
+          Transaction.class, List.of(encumbranceId)))
+        .map(transactions -> {
+          vtc.verify(() -> {
+            assertEquals(List.of(), transactions);
+            assertEquals(0d, budgets.get(budgetAId).getEncumbered());
+            assertEquals(0d, budgets.get(budgetAId).getNetTransfers());
+          });
+          return null;
+        }))
+      .onComplete(vtc.succeedingThenComplete());
+  }
+
+  /**
+   * Sends the stream in chunks of 50 bytes, which end in the middle of the lines.
+   */
+  private Future<Void> send(Vertx vertx, String stream) {
+    BatchStreamService service = new BatchStreamService(new DBClientFactory(), createBatchTransactionService(),
+      1000, 10, 60_000);
+    RequestContext requestContext = new RequestContext(vertx.getOrCreateContext(),
+      Map.of(OKAPI_HEADER_TENANT, TENANT_NAME));
+    byte[] bytes = stream.getBytes(StandardCharsets.UTF_8);
+    int chunkSize = 50;
+    int lastChunkStart = (bytes.length - 1) / chunkSize * chunkSize;
+    for (int i = 0; i < lastChunkStart; i += chunkSize) {
+      service.processChunk(STREAM_ID, Arrays.copyOfRange(bytes, i, i + chunkSize), requestContext);
+    }
+    return service.completeStream(STREAM_ID, Arrays.copyOfRange(bytes, lastChunkStart, bytes.length),
+      requestContext);
+  }
+
+  private BatchTransactionService createBatchTransactionService() {
+    BulkInsertWriter bulkInsertWriter = BulkInsertWriter.disabled();
+    DBClientFactory dbClientFactory = new DBClientFactory();
+    StorageFundService fundService = new StorageFundService(new FundPostgresDAO(), FundLedgerCache.disabled());
+    BudgetService budgetService = new BudgetService(dbClientFactory, new BudgetPostgresDAO(bulkInsertWriter),
+      new GroupService(dbClientFactory, new GroupPostgresDAO()));
+    return new BatchTransactionService(dbClientFactory, new BatchTransactionPostgresDAO(bulkInsertWriter), fundService,
+      budgetService, new StorageLedgerService(new LedgerPostgresDAO(), fundService),
+      Set.of(new BatchEncumbranceService(), new BatchPendingPaymentService(), new BatchPaymentCreditService(),
+        new BatchAllocationService(), new BatchTransferService()));
+  }
+
+  private Future<Map<String, Budget>> getBudgets(Vertx vertx) {
+    return new DBClient(vertx, TENANT_NAME).withConn(conn -> conn.getByIds(BUDGET_TABLE, Budget.class,
+        List.of(budgetAId, budgetBId)))
+      .map(budgets -> Map.of(budgets.get(0).getId(), budgets.get(0), budgets.get(1).getId(), budgets.get(1)));
+  }
+
+  private String line(Batch batch) {
+    return JsonObject.mapFrom(batch).encode() + "\n";
+  }
+
+  private FiscalYear fiscalYear() {
+    return new FiscalYear()
+      .withId(fiscalYearId)
+      .withName("BS" + suffix)
+      .withCode("BS" + suffix)
+      .withSeries("BS")
+      .withCurrency("USD");
+  }
+
+  private Ledger ledger() {
+    return new Ledger()
+      .withId(ledgerId)
+      .withCode("BS" + suffix)
+      .withName("BS" + suffix)
+      .withFiscalYearOneId(fiscalYearId)
+      .withLedgerStatus(Ledger.LedgerStatus.ACTIVE)
+      .withRestrictEncumbrance(false)
+      .withRestrictExpenditures(false);
+  }
+
+  private Fund fund(String id, String code) {
+    return new Fund()
+      .withId(id)
+      .withCode(code + suffix)
+      .withName(code + suffix)
+      .withLedgerId(ledgerId)
+      .withFundStatus(Fund.FundStatus.ACTIVE)
+      .withExternalAccountNo("1");
+  }
+
+  private Budget budget(String id, String fundId) {
+    return new Budget()
+      .withId(id)
+      .withName("BS" + suffix + fundId.substring(0, 8))
+      .withFundId(fundId)
+      .withFiscalYearId(fiscalYearId)
+      .withBudgetStatus(Budget.BudgetStatus.ACTIVE)
+      .withInitialAllocation(100d)
+      .withAllocationTo(0d)
+      .withAllocationFrom(0d)
+      .withNetTransfers(0d)
+      .withEncumbered(0d)
+      .withAwaitingPayment(0d)
+      .withExpenditures(0d)
+      .withCredits(0d);
+  }
+
+  private Transaction encumbrance() {
+    return new Transaction()
+      .withId(encumbranceId)
+      .withTransactionType(Transaction.TransactionType.ENCUMBRANCE)
+      .withAmount(10d)
+      .withCurrency("USD")
+      .withFiscalYearId(fiscalYearId)
+      .withFromFundId(fundAId)
+      .withSource(Transaction.Source.PO_LINE)
+      .withEncumbrance(new Encumbrance()
+        .withInitialAmountEncumbered(10d)
+        .withAmountAwaitingPayment(0d)
+        .withAmountExpended(0d)
+        .withAmountCredited(0d)
+        .withStatus(Encumbrance.Status.UNRELEASED)
+        .withOrderType(Encumbrance.OrderType.ONE_TIME)
+        .withOrderStatus(Encumbrance.OrderStatus.OPEN)
+        .withSubscription(false)
+        .withReEncumber(false)
+        .withSourcePurchaseOrderId(UUID.randomUUID().toString())
+        .withSourcePoLineId(UUID.randomUUID().toString()));
+  }
+
+  private Transaction transfer() {
+    return new Transaction()
+      .withId(transferId)
+      .withTransactionType(Transaction.TransactionType.TRANSFER)
+      .withAmount(7d)
+      .withCurrency("USD")
+      .withFiscalYearId(fiscalYearId)
+      .withFromFundId(fundAId)
+      .withToFundId(fundBId)
+      .withSource(Transaction.Source.USER);
+  }
+}
@@ -0,0 +1,90 @@
+package org.folio.service.transactions;
+
+import org.folio.rest.exception.HttpException;
+import org.folio.rest.jaxrs.model.Batch;
+import org.folio.service.transactions.batch.BatchStreamReader;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BatchStreamReaderTest {
+
+  @Test
+  void testBatchesSplitAcrossChunks() {
+    String id1 = UUID.randomUUID().toString();
+    String id2 = UUID.randomUUID().toString();
+    String id3 = UUID.randomUUID().toString();
+    String stream = "{\"transactionsToCreate\": [{\"id\": \"" + id1 + "\", \"amount\": 5.5}]}\n"
+      + "{\"idsOfTransactionsToDelete\": [\"" + id2 + "\", \"" + id3 + "\"]}\n";
+    byte[] bytes = stream.getBytes(StandardCharsets.UTF_8);
+
+    BatchStreamReader reader = new BatchStreamReader();
+    List<Batch> batches = new ArrayList<>();
+    for (int i = 0; i < bytes.length; i += 7) {
+      batches.addAll(reader.feed(Arrays.copyOfRange(bytes, i, Math.min(i + 7, bytes.length))));
+    }
+    batches.addAll(reader.endOfInput());
+
+    assertEquals(2, batches.size());
+    assertEquals(id1, batches.get(0).getTransactionsToCreate().getFirst().getId());
+    assertEquals(5.5, batches.get(0).getTransactionsToCreate().getFirst().getAmount());
+    assertEquals(List.of(id2, id3), batches.get(1).getIdsOfTransactionsToDelete());
+  }
+
+  @Test
+  void testLastBatchWithoutLineBreak() {
+    BatchStreamReader reader = new BatchStreamReader();
+    assertTrue(reader.feed("{\"transactionsToCreate\": [".getBytes(StandardCharsets.UTF_8)).isEmpty());
+    assertEquals(1, reader.feed("]}".getBytes(StandardCharsets.UTF_8)).size());
+    assertTrue(reader.endOfInput().isEmpty());
+  }
+
+  @Test
+  void testIncompleteLastBatch() {
+    BatchStreamReader reader = new BatchStreamReader();
+    reader.feed("{\"transactionsToCreate\": [".getBytes(StandardCharsets.UTF_8));
+    HttpException exception = assertThrows(HttpException.class, reader::endOfInput);
+    assertEquals(400, exception.getCode());
+  }
+
+  @Test
+  void testLineThatIsNotABatchObject() {
+    BatchStreamReader reader = new BatchStreamReader();
+    HttpException exception = assertThrows(HttpException.class,
+      () -> reader.feed("[]\n".getBytes(StandardCharsets.UTF_8)));
+    assertEquals(400, exception.getCode());
+  }
+
+  @Test
+  void testBatchesOnTheSameLine() {
+    BatchStreamReader reader = new BatchStreamReader();
+    assertEquals(1, reader.feed("{\"transactionsToCreate\": []}".getBytes(StandardCharsets.UTF_8)).size());
+    HttpException exception = assertThrows(HttpException.class,
+      () -> reader.feed(" {\"transactionsToCreate\": []}\n".getBytes(StandardCharsets.UTF_8)));
+    assertEquals(400, exception.getCode());
+  }
+
+  @Test
+  void testBatchesSeparatedByEmptyLines() {
+    BatchStreamReader reader = new BatchStreamReader();
+    List<Batch> batches = reader.feed("{}\r\n\n{}\n".getBytes(StandardCharsets.UTF_8));
+    assertEquals(2, batches.size());
+    assertTrue(reader.endOfInput().isEmpty());
+  }
+
+  @Test
+  void testInvalidJson() {
+    BatchStreamReader reader = new BatchStreamReader();
+    HttpException exception = assertThrows(HttpException.class,
+      () -> reader.feed("{\"transactionsToCreate\": }\n".getBytes(StandardCharsets.UTF_8)));
+    assertEquals(400, exception.getCode());
+  }
+}
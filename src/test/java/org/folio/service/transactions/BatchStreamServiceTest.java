@@ -0,0 +1,173 @@
+package org.folio.service.transactions;
+
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.junit5.VertxTestContext;
+import org.folio.rest.exception.HttpException;
+import org.folio.rest.jaxrs.model.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static io.vertx.core.Future.succeededFuture;
+import static org.folio.dao.transactions.BatchTransactionDAO.TRANSACTIONS_TABLE;
+import static org.folio.service.ServiceTestUtils.createRowSet;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class BatchStreamServiceTest extends BatchTransactionServiceTestBase {
+
+  private static final String STREAM_ID = "stream-1";
+
+  private String encumbranceJson(String id, String fundId, String fiscalYearId) {
+    return "{\"id\": \"" + id + "\", \"currency\": \"USD\", \"fromFundId\": \"" + fundId + "\", "
+      + "\"transactionType\": \"Encumbrance\", \"amount\": 5, \"fiscalYearId\": \"" + fiscalYearId + "\", "
+      + "\"source\": \"PoLine\", \"encumbrance\": {\"status\": \"Pending\", \"sourcePurchaseOrderId\": \""
+      + UUID.randomUUID() + "\", \"initialAmountEncumbered\": 5}}";
+  }
+
+  @Test
+  void testBatchesOfTheStreamAreProcessedInOrder(VertxTestContext testContext) {
+    String fundId = UUID.randomUUID().toString();
+    String fiscalYearId = UUID.randomUUID().toString();
+    String transactionId1 = UUID.randomUUID().toString();
+    String transactionId2 = UUID.randomUUID().toString();
+
+    setupFundBudgetLedger(fundId, fiscalYearId, 0d, 0d, 0d, 0d, false, false, false);
+    doReturn(succeededFuture(new ArrayList<Transaction>()))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), anyList());
+    doAnswer(invocation -> succeededFuture(createRowSet(invocation.getArgument(1))))
+      .when(conn).saveBatch(anyString(), anyList());
+    doAnswer(invocation -> succeededFuture(createRowSet(invocation.getArgument(1))))
+      .when(conn).updateBatch(anyString(), anyList());
+
+    String stream = "{\"transactionsToCreate\": [" + encumbranceJson(transactionId1, fundId, fiscalYearId) + "]}\n"
+      + "{\"transactionsToCreate\": [" + encumbranceJson(transactionId2, fundId, fiscalYearId) + "]}\n";
+    byte[] bytes = stream.getBytes(StandardCharsets.UTF_8);
+    int half = bytes.length / 2;
+    byte[] firstChunk = new byte[half];
+    byte[] lastChunk = new byte[bytes.length - half];
+    System.arraycopy(bytes, 0, firstChunk, 0, half);
+    System.arraycopy(bytes, half, lastChunk, 0, lastChunk.length);
+
+    batchStreamService.processChunk(STREAM_ID, firstChunk, requestContext);
+    testContext.assertComplete(batchStreamService.completeStream(STREAM_ID, lastChunk, requestContext))
+      .onComplete(event -> {
+        testContext.verify(() -> {
+          verify(conn, times(2)).saveBatch(eq(TRANSACTIONS_TABLE), saveEntitiesCaptor.capture());
+          List<String> savedIds = saveEntitiesCaptor.getAllValues().stream()
+            .map(entities -> ((Transaction)entities.getFirst()).getId())
+            .toList();
+          assertThat(savedIds, equalTo(List.of(transactionId1, transactionId2)));
+        });
+        testContext.completeNow();
+      });
+  }
+
+  @Test
+  void testBatchWithTooManyOperations(VertxTestContext testContext) {
+    String stream = "{\"idsOfTransactionsToDelete\": [\"" + UUID.randomUUID() + "\", \"" + UUID.randomUUID()
+      + "\", \"" + UUID.randomUUID() + "\"]}\n";
+
+    testContext.assertFailure(batchStreamService.completeStream(STREAM_ID, stream.getBytes(StandardCharsets.UTF_8),
+        requestContext))
+      .onComplete(event -> {
+        testContext.verify(() -> {
+          assertThat(event.cause(), instanceOf(HttpException.class));
+          assertEquals(400, ((HttpException) event.cause()).getCode());
+          verify(conn, never()).saveBatch(anyString(), anyList());
+        });
+        testContext.completeNow();
+      });
+  }
+
+  @Test
+  void testEmptyStream(VertxTestContext testContext) {
+    testContext.assertFailure(batchStreamService.completeStream(STREAM_ID, new byte[0], requestContext))
+      .onComplete(event -> {
+        testContext.verify(() -> {
+          assertThat(event.cause(), instanceOf(HttpException.class));
+          assertEquals(400, ((HttpException) event.cause()).getCode());
+        });
+        testContext.completeNow();
+      });
+  }
+
+  @Test
+  void testStreamIsRejectedWhenTooManyBatchesAreWaiting(VertxTestContext testContext) {
+    String fundId = UUID.randomUUID().toString();
+    String fiscalYearId = UUID.randomUUID().toString();
+
+    setupFundBudgetLedger(fundId, fiscalYearId, 0d, 0d, 0d, 0d, false, false, false);
+    doReturn(succeededFuture(new ArrayList<Transaction>()))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), anyList());
+    // the batches wait until the first one is saved
+    Promise<Void> firstSave = Promise.promise();
+    doAnswer(invocation -> firstSave.future().map(v -> createRowSet(invocation.getArgument(1))))
+      .when(conn).saveBatch(anyString(), anyList());
+    doAnswer(invocation -> succeededFuture(createRowSet(invocation.getArgument(1))))
+      .when(conn).updateBatch(anyString(), anyList());
+
+    StringBuilder stream = new StringBuilder();
+    for (int i = 0; i < 3; i++) {
+      stream.append("{\"transactionsToCreate\": [")
+        .append(encumbranceJson(UUID.randomUUID().toString(), fundId, fiscalYearId))
+        .append("]}\n");
+    }
+    batchStreamService.processChunk(STREAM_ID, stream.toString().getBytes(StandardCharsets.UTF_8), requestContext);
+    Future<Void> result = batchStreamService.completeStream(STREAM_ID, new byte[0], requestContext);
+    firstSave.complete();
+
+    testContext.assertFailure(result)
+      .onComplete(event -> {
+        testContext.verify(() -> {
+          assertThat(event.cause(), instanceOf(HttpException.class));
+          assertEquals(429, ((HttpException) event.cause()).getCode());
+          verify(conn, times(2)).saveBatch(eq(TRANSACTIONS_TABLE), anyList());
+        });
+        testContext.completeNow();
+      });
+  }
+
+  @Test
+  void testIdleStreamIsAborted(VertxTestContext testContext) {
+    AtomicReference<Handler<Long>> idleTimeoutHandler = new AtomicReference<>();
+    doAnswer(invocation -> {
+      idleTimeoutHandler.set(invocation.getArgument(1));
+      return 1L;
+    }).when(vertx).setTimer(anyLong(), any());
+
+    batchStreamService.processChunk(STREAM_ID, "{\"transactionsToCreate\": [".getBytes(StandardCharsets.UTF_8),
+      requestContext);
+    idleTimeoutHandler.get().handle(1L);
+
+    // the chunks received after the timeout do not start a new stream
+    testContext.assertFailure(batchStreamService.completeStream(STREAM_ID, "]}\n".getBytes(StandardCharsets.UTF_8),
+        requestContext))
+      .onComplete(event -> {
+        testContext.verify(() -> {
+          assertThat(event.cause(), instanceOf(HttpException.class));
+          assertEquals(408, ((HttpException) event.cause()).getCode());
+          verify(conn, never()).saveBatch(anyString(), anyList());
+        });
+        testContext.completeNow();
+      });
+  }
+}
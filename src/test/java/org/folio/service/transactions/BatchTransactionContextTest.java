@@ -0,0 +1,261 @@
+package org.folio.service.transactions;
+
+import static org.folio.dao.ledger.LedgerPostgresDAO.LEDGER_TABLE;
+import static org.folio.dao.transactions.BatchTransactionDAO.TRANSACTIONS_TABLE;
+import static org.folio.rest.impl.BudgetAPI.BUDGET_TABLE;
+import static org.folio.rest.impl.FiscalYearAPI.FISCAL_YEAR_TABLE;
+import static org.folio.rest.impl.FundAPI.FUND_TABLE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import io.vertx.sqlclient.Tuple;
+import org.folio.dao.budget.BudgetPostgresDAO;
+import org.folio.dao.fund.FundPostgresDAO;
+import org.folio.dao.group.GroupPostgresDAO;
+import org.folio.dao.ledger.LedgerPostgresDAO;
+import org.folio.dao.transactions.BatchTransactionPostgresDAO;
+import org.folio.rest.impl.TestBase;
+import org.folio.rest.jaxrs.model.AwaitingPayment;
+import org.folio.rest.jaxrs.model.Batch;
+import org.folio.rest.jaxrs.model.Budget;
+import org.folio.rest.jaxrs.model.Encumbrance;
+import org.folio.rest.jaxrs.model.FiscalYear;
+import org.folio.rest.jaxrs.model.Fund;
+import org.folio.rest.jaxrs.model.Ledger;
+import org.folio.rest.jaxrs.model.Transaction;
+import org.folio.rest.persist.BulkInsertWriter;
+import org.folio.rest.persist.DBClient;
+import org.folio.rest.persist.DBClientFactory;
+import org.folio.rest.persist.PostgresClient;
+import org.folio.service.budget.BudgetService;
+import org.folio.service.fund.FundLedgerCache;
+import org.folio.service.fund.StorageFundService;
+import org.folio.service.group.GroupService;
+import org.folio.service.ledger.StorageLedgerService;
+import org.folio.service.transactions.batch.BatchMetrics;
+import org.folio.service.transactions.batch.BatchTransactionHolder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+/**
+ * Loads the same batch with the batch_transaction_context function and with separate queries, on committed data,
+ * and checks that the holder has the same state, and that the budgets are locked until the end of the transaction.
+ */
+@ExtendWith(VertxExtension.class)
+public class BatchTransactionContextTest extends TestBase {
+
+  private static final String SCHEMA = PostgresClient.convertToPsqlStandard(TENANT_NAME);
+
+  private final String suffix = UUID.randomUUID().toString().substring(0, 8);
+  private final String fiscalYearId = UUID.randomUUID().toString();
+  private final String ledgerId = UUID.randomUUID().toString();
+  private final String fundAId = UUID.randomUUID().toString();
+  private final String fundBId = UUID.randomUUID().toString();
+  private final String budgetAId = UUID.randomUUID().toString();
+  private final String budgetBId = UUID.randomUUID().toString();
+  private final String invoiceId = UUID.randomUUID().toString();
+  private final String encumbranceAId = UUID.randomUUID().toString();
+  private final String encumbranceBId = UUID.randomUUID().toString();
+  private final String pendingPaymentId = UUID.randomUUID().toString();
+  private final String paymentBId = UUID.randomUUID().toString();
+
+  @BeforeEach
+  void seed(Vertx vertx, VertxTestContext vtc) {
+    new DBClient(vertx, TENANT_NAME).withTrans(conn -> conn.saveBatch(FISCAL_YEAR_TABLE, List.of(fiscalYear()))
+        .compose(v -> conn.saveBatch(LEDGER_TABLE, List.of(ledger())))
+        .compose(v -> conn.saveBatch(FUND_TABLE, List.of(fund(fundAId, "A"), fund(fundBId, "B"))))
+        .compose(v -> conn.saveBatch(BUDGET_TABLE, List.of(budget(budgetAId, fundAId), budget(budgetBId, fundBId))))
+        .compose(v -> conn.saveBatch(TRANSACTIONS_TABLE, List.of(
+          encumbrance(encumbranceAId, fundAId, 10),
+          encumbrance(encumbranceBId, fundBId, 20),
+          transaction(pendingPaymentId, Transaction.TransactionType.PENDING_PAYMENT, fundAId, 3)
+            .withSourceInvoiceId(invoiceId)
+            .withAwaitingPayment(new AwaitingPayment().withEncumbranceId(encumbranceAId).withReleaseEncumbrance(false)),
+          transaction(paymentBId, Transaction.TransactionType.PAYMENT, fundBId, 4)
+            .withSourceInvoiceId(UUID.randomUUID().toString())
+            .withPaymentEncumbranceId(encumbranceBId)))))
+      .onComplete(vtc.succeedingThenComplete());
+  }
+
+  @AfterEach
+  void cleanUp(Vertx vertx, VertxTestContext vtc) {
+    List<String> transactionIds = List.of(encumbranceAId, encumbranceBId, pendingPaymentId, paymentBId);
+    new DBClient(vertx, TENANT_NAME).withTrans(conn -> conn.deleteByIds(TRANSACTIONS_TABLE, transactionIds)
+        .compose(v -> conn.deleteByIds(BUDGET_TABLE, List.of(budgetAId, budgetBId)))
+        .compose(v -> conn.deleteByIds(FUND_TABLE, List.of(fundAId, fundBId)))
+        .compose(v -> conn.deleteByIds(LEDGER_TABLE, List.of(ledgerId)))
+        .compose(v -> conn.deleteByIds(FISCAL_YEAR_TABLE, List.of(fiscalYearId))))
+      .onComplete(vtc.succeedingThenComplete());
+  }
+
+  @Test
+  void testBatchContextFunctionLoadsTheSameDataAsQueries(Vertx vertx, VertxTestContext vtc) {
+    Batch batch = batch();
+    List<List<String>> states = new ArrayList<>();
+    List<Boolean> lockConflicts = new ArrayList<>();
+    load(vertx, batch, false, states, lockConflicts)
+      .compose(v -> load(vertx, batch, true, states, lockConflicts))
+      .onComplete(vtc.succeeding(v -> vtc.verify(() -> {
+        assertFalse(states.get(0).isEmpty());
+        assertEquals(states.get(0), states.get(1));
+        assertEquals(List.of(true, true), lockConflicts);
+        vtc.completeNow();
+      })));
+  }
+
+  /**
+   * Sets up a holder in a transaction and, before the transaction ends, tries to lock the budgets from another
+   * connection without waiting.
+   */
+  private Future<Void> load(Vertx vertx, Batch batch, boolean withBatchContextFunction, List<List<String>> states,
+      List<Boolean> lockConflicts) {
+    BatchTransactionHolder holder = createHolder(withBatchContextFunction);
+    String lockSql = String.format("SELECT id FROM %s.%s WHERE id = ANY($1::uuid[]) FOR UPDATE NOWAIT",
+      SCHEMA, BUDGET_TABLE);
+    Tuple lockParams = Tuple.tuple().addValue(new UUID[] { UUID.fromString(budgetAId), UUID.fromString(budgetBId) });
+    return new DBClient(vertx, TENANT_NAME).withTrans(conn -> holder.setup(batch, conn)
+      .compose(v -> new DBClient(vertx, TENANT_NAME).withConn(otherConn -> otherConn.execute(lockSql, lockParams))
+        .transform(ar -> {
+          lockConflicts.add(ar.failed() && ar.cause().getMessage().contains("lock"));
+          states.add(describe(holder));
+          return Future.<Void>succeededFuture();
+        })));
+  }
+
+  private BatchTransactionHolder createHolder(boolean withBatchContextFunction) {
+    BulkInsertWriter bulkInsertWriter = BulkInsertWriter.disabled();
+    StorageFundService fundService = new StorageFundService(new FundPostgresDAO(), FundLedgerCache.disabled());
+    BudgetService budgetService = new BudgetService(new DBClientFactory(), new BudgetPostgresDAO(bulkInsertWriter),
+      new GroupService(new DBClientFactory(), new GroupPostgresDAO()));
+    return new BatchTransactionHolder(new BatchTransactionPostgresDAO(bulkInsertWriter), fundService, budgetService,
+      new StorageLedgerService(new LedgerPostgresDAO(), fundService), withBatchContextFunction,
+      BatchMetrics.noTimer(), FundLedgerCache.disabled());
+  }
+
+  private List<String> describe(BatchTransactionHolder holder) {
+    List<String> state = new ArrayList<>();
+    state.add("existing " + sortedIds(holder.getExistingTransactionMap().values().stream()));
+    state.add("linkedEncumbrances " + sortedIds(holder.getLinkedEncumbranceMap().values().stream()));
+    state.add("linkedPendingPayments " + sortedIds(holder.getLinkedPendingPayments().stream()));
+    state.add("linkedPayments " + sortedIds(holder.getLinkedPayments().stream()));
+    state.add("toCancelAndDelete " + sortedIds(holder.getTransactionsToCancelAndDelete().stream()));
+    holder.getExistingTransactionMap().values().stream()
+      .sorted(Comparator.comparing(Transaction::getId))
+      .forEach(tr -> state.add("transaction " + JsonObject.mapFrom(tr).encode()));
+    holder.getBudgets().stream()
+      .sorted(Comparator.comparing(Budget::getId))
+      .forEach(budget -> state.add("budget " + JsonObject.mapFrom(budget).encode()
+        + " fund " + holder.getFundCodeForBudget(budget)
+        + " restricted " + holder.budgetExpendituresAreRestricted(budget.getId())
+        + " " + holder.budgetEncumbranceIsRestricted(budget.getId())));
+    return state;
+  }
+
+  private List<String> sortedIds(Stream<Transaction> transactions) {
+    return transactions.map(Transaction::getId).sorted().toList();
+  }
+
+  /**
+   * A payment and a transfer to create, an encumbrance to update, and an encumbrance with a payment to delete.
+   */
+  private Batch batch() {
+    Transaction payment = transaction(UUID.randomUUID().toString(), Transaction.TransactionType.PAYMENT, fundAId, 3)
+      .withSourceInvoiceId(invoiceId)
+      .withPaymentEncumbranceId(encumbranceAId);
+    Transaction transfer = transaction(UUID.randomUUID().toString(), Transaction.TransactionType.TRANSFER, fundAId, 1)
+      .withSource(Transaction.Source.USER)
+      .withToFundId(fundBId);
+    return new Batch()
+      .withTransactionsToCreate(List.of(payment, transfer))
+      .withTransactionsToUpdate(List.of(encumbrance(encumbranceAId, fundAId, 12)))
+      .withIdsOfTransactionsToDelete(List.of(encumbranceBId));
+  }
+
+  private FiscalYear fiscalYear() {
+    return new FiscalYear()
+      .withId(fiscalYearId)
+      .withName("BC" + suffix)
+      .withCode("BC" + suffix)
+      .withSeries("BC")
+      .withCurrency("USD");
+  }
+
+  private Ledger ledger() {
+    return new Ledger()
+      .withId(ledgerId)
+      .withCode("BC" + suffix)
+      .withName("BC" + suffix)
+      .withFiscalYearOneId(fiscalYearId)
+      .withLedgerStatus(Ledger.LedgerStatus.ACTIVE)
+      .withRestrictEncumbrance(true)
+      .withRestrictExpenditures(false);
+  }
+
+  private Fund fund(String id, String code) {
+    return new Fund()
+      .withId(id)
+      .withCode(code + suffix)
+      .withName(code + suffix)
+      .withLedgerId(ledgerId)
+      .withFundStatus(Fund.FundStatus.ACTIVE)
+      .withExternalAccountNo("1");
+  }
+
+  private Budget budget(String id, String fundId) {
+    return new Budget()
+      .withId(id)
+      .withName("BC" + suffix + fundId.substring(0, 8))
+      .withFundId(fundId)
+      .withFiscalYearId(fiscalYearId)
+      .withBudgetStatus(Budget.BudgetStatus.ACTIVE)
+      .withInitialAllocation(100d)
+      .withAllocationTo(0d)
+      .withAllocationFrom(0d)
+      .withNetTransfers(0d)
+      .withEncumbered(30d)
+      .withAwaitingPayment(3d)
+      .withExpenditures(4d)
+      .withCredits(0d);
+  }
+
+  private Transaction encumbrance(String id, String fundId, double amount) {
+    return transaction(id, Transaction.TransactionType.ENCUMBRANCE, fundId, amount)
+      .withSource(Transaction.Source.PO_LINE)
+      .withEncumbrance(new Encumbrance()
+        .withInitialAmountEncumbered(amount)
+        .withAmountAwaitingPayment(0d)
+        .withAmountExpended(0d)
+        .withAmountCredited(0d)
+        .withStatus(Encumbrance.Status.UNRELEASED)
+        .withOrderType(Encumbrance.OrderType.ONE_TIME)
+        .withOrderStatus(Encumbrance.OrderStatus.OPEN)
+        .withSubscription(false)
+        .withReEncumber(false)
+        .withSourcePurchaseOrderId(UUID.randomUUID().toString())
+        .withSourcePoLineId(UUID.randomUUID().toString()));
+  }
+
+  private Transaction transaction(String id, Transaction.TransactionType type, String fundId, double amount) {
+    return new Transaction()
+      .withId(id)
+      .withTransactionType(type)
+      .withAmount(amount)
+      .withCurrency("USD")
+      .withFiscalYearId(fiscalYearId)
+      .withFromFundId(fundId)
+      .withSource(Transaction.Source.INVOICE);
+  }
+}
@@ -1,8 +1,8 @@
 package org.folio.service.transactions;
 
 import io.vertx.core.Future;
+import io.vertx.core.Vertx;
 import io.vertx.junit5.VertxExtension;
-import io.vertx.sqlclient.Tuple;
 import org.folio.dao.budget.BudgetDAO;
 import org.folio.dao.budget.BudgetPostgresDAO;
 import org.folio.dao.fund.FundDAO;
@@ -16,8 +16,6 @@ import org.folio.rest.jaxrs.model.Budget;
 import org.folio.rest.jaxrs.model.Fund;
 import org.folio.rest.jaxrs.model.Ledger;
 import org.folio.rest.jaxrs.model.Metadata;
-import org.folio.rest.persist.Criteria.Criterion;
-import org.folio.rest.persist.CriterionBuilder;
 import org.folio.rest.persist.DBClient;
 import org.folio.rest.persist.DBClientFactory;
 import org.folio.rest.persist.DBConn;
@@ -28,11 +26,14 @@ import org.folio.service.group.GroupService;
 import org.folio.service.ledger.LedgerService;
 import org.folio.service.ledger.StorageLedgerService;
 import org.folio.service.transactions.batch.BatchAllocationService;
+import org.folio.service.transactions.batch.BatchCoalescer;
 import org.folio.service.transactions.batch.BatchEncumbranceService;
 import org.folio.service.transactions.batch.BatchPaymentCreditService;
 import org.folio.service.transactions.batch.BatchPendingPaymentService;
+import org.folio.service.transactions.batch.BatchStreamService;
 import org.folio.service.transactions.batch.BatchTransactionService;
 import org.folio.service.transactions.batch.BatchTransactionServiceInterface;
+import org.folio.service.transactions.batch.BatchTransactionSettings;
 import org.folio.service.transactions.batch.BatchTransferService;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -48,13 +49,14 @@ import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static io.vertx.core.Future.succeededFuture;
 import static org.folio.dao.ledger.LedgerPostgresDAO.LEDGER_TABLE;
 import static org.folio.rest.impl.FundAPI.FUND_TABLE;
 import static org.folio.rest.jaxrs.model.Budget.BudgetStatus.ACTIVE;
 import static org.folio.rest.jaxrs.model.Budget.BudgetStatus.INACTIVE;
-import static org.folio.service.ServiceTestUtils.createResults;
 import static org.folio.service.ServiceTestUtils.createRowSet;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
@@ -64,8 +66,17 @@ import static org.mockito.Mockito.doReturn;
 
 @ExtendWith(VertxExtension.class)
 public abstract class BatchTransactionServiceTestBase {
+  protected static final String BUDGETS_SQL = "SELECT budget.jsonb FROM tenantname_mod_finance_storage.budget AS budget " +
+    "INNER JOIN unnest($1::uuid[], $2::uuid[]) AS keys(fiscalYearId, fundId) " +
+    "ON budget.fiscalYearId = keys.fiscalYearId AND budget.fundId = keys.fundId " +
+    "ORDER BY budget.id";
+  protected static final String BUDGETS_FOR_UPDATE_SQL = BUDGETS_SQL + " FOR UPDATE OF budget";
+
   private AutoCloseable mockitoMocks;
   protected BatchTransactionService batchTransactionService;
+  protected BatchTransactionService batchTransactionServiceWithBudgetDeltas;
+  protected BatchTransactionService batchTransactionServiceWithCoalescing;
+  protected BatchStreamService batchStreamService;
 
   @Mock
   private DBClientFactory dbClientFactory;
@@ -74,6 +85,8 @@ public abstract class BatchTransactionServiceTestBase {
   @Mock
   private DBClient dbClient;
   @Mock
+  protected Vertx vertx;
+  @Mock
   protected DBConn conn;
   @Mock
   private GroupService groupService;
@@ -81,6 +94,8 @@ public abstract class BatchTransactionServiceTestBase {
   protected ArgumentCaptor<List<Object>> saveEntitiesCaptor;
   @Captor
   protected ArgumentCaptor<List<Object>> updateEntitiesCaptor;
+  @Captor
+  protected ArgumentCaptor<List<String>> deleteIdsCaptor;
 
 
   @BeforeEach
@@ -101,12 +116,28 @@ public abstract class BatchTransactionServiceTestBase {
     BatchTransactionDAO transactionDAO = new BatchTransactionPostgresDAO();
     batchTransactionService = new BatchTransactionService(dbClientFactory, transactionDAO, fundService, budgetService,
       ledgerService, batchTransactionStrategies);
+    batchTransactionServiceWithBudgetDeltas = new BatchTransactionService(dbClientFactory, transactionDAO, fundService,
+      budgetService, ledgerService, batchTransactionStrategies,
+      BatchTransactionSettings.defaults().withUpdateBudgetsWithDeltas(true));
+    // batches received while another one is processed are grouped by 2, and processed when the second one is received
+    batchTransactionServiceWithCoalescing = new BatchTransactionService(dbClientFactory, transactionDAO, fundService,
+      budgetService, ledgerService, batchTransactionStrategies,
+      BatchTransactionSettings.defaults().withCoalescer(new BatchCoalescer(60_000, 2)));
+    batchStreamService = new BatchStreamService(dbClientFactory, batchTransactionService, 2, 2, 60_000);
     doReturn(dbClient)
       .when(dbClientFactory).getDbClient(requestContext);
+    doReturn(vertx)
+      .when(dbClient).getVertx();
+    doReturn("tenantname")
+      .when(dbClient).getTenantId();
     doAnswer(invocation -> {
       Function<DBConn, Future<Void>> function = invocation.getArgument(0);
       return function.apply(conn);
     }).when(dbClient).withTrans(any());
+    doAnswer(invocation -> {
+      Function<DBConn, Future<Void>> function = invocation.getArgument(0);
+      return function.apply(conn);
+    }).when(dbClient).withReadOnlyTrans(any());
   }
 
   @AfterEach
@@ -148,19 +179,13 @@ public abstract class BatchTransactionServiceTestBase {
     doReturn(tenantId)
       .when(conn).getTenantId();
 
-    Criterion fundCriterion = createCriterionByIds(List.of(fundId));
-    doReturn(succeededFuture(createResults(List.of(fund))))
-      .when(conn).get(eq(FUND_TABLE), eq(Fund.class), argThat(
-        crit -> crit.toString().equals(fundCriterion.toString())), eq(false));
+    doReturn(succeededFuture(List.of(fund)))
+      .when(conn).getByIds(eq(FUND_TABLE), eq(Fund.class), eq(List.of(fundId)));
 
-    String sql = "SELECT jsonb FROM " + tenantId + "_mod_finance_storage.budget WHERE (fiscalYearId = '" + fiscalYearId + "' AND (fundId = '" + fundId + "')) FOR UPDATE";
-    doReturn(succeededFuture(createRowSet(List.of(budget))))
-      .when(conn).execute(eq(sql), any(Tuple.class));
+    mockBudgetsForUpdate(fiscalYearId, List.of(fundId), List.of(budget));
 
-    Criterion ledgerCriterion = createCriterionByIds(List.of(ledgerId));
-    doReturn(succeededFuture(createResults(List.of(ledger))))
-      .when(conn).get(eq(LEDGER_TABLE), eq(Ledger.class), argThat(
-        crit -> crit.toString().equals(ledgerCriterion.toString())), eq(false));
+    doReturn(succeededFuture(List.of(ledger)))
+      .when(conn).getByIds(eq(LEDGER_TABLE), eq(Ledger.class), eq(List.of(ledgerId)));
   }
 
   protected void setup2Funds2Budgets1Ledger(String fundId1, String fundId2, String budgetId1, String budgetId2,
@@ -197,21 +222,13 @@ public abstract class BatchTransactionServiceTestBase {
     doReturn(tenantId)
       .when(conn).getTenantId();
 
-    Criterion fundCriterion = createCriterionByIds(List.of(fundId1, fundId2));
-    doReturn(succeededFuture(createResults(List.of(fund1, fund2))))
-      .when(conn).get(eq(FUND_TABLE), eq(Fund.class), argThat(
-        crit -> crit.toString().equals(fundCriterion.toString())), eq(false));
-
-    String sql = "SELECT jsonb FROM " + tenantId + "_mod_finance_storage.budget WHERE (fiscalYearId = '" + fiscalYearId + "' AND (fundId = '%s' OR fundId = '%s')) FOR UPDATE";
-    doReturn(succeededFuture(createRowSet(List.of(budget1, budget2))))
-      .when(conn).execute(argThat(s ->
-          s.equals(String.format(sql, fundId1, fundId2)) || s.equals(String.format(sql, fundId2, fundId1))),
-        any(Tuple.class));
-
-    Criterion ledgerCriterion = createCriterionByIds(List.of(ledgerId));
-    doReturn(succeededFuture(createResults(List.of(ledger))))
-      .when(conn).get(eq(LEDGER_TABLE), eq(Ledger.class), argThat(
-        crit -> crit.toString().equals(ledgerCriterion.toString())), eq(false));
+    doReturn(succeededFuture(List.of(fund1, fund2)))
+      .when(conn).getByIds(eq(FUND_TABLE), eq(Fund.class), eq(List.of(fundId1, fundId2)));
+
+    mockBudgetsForUpdate(fiscalYearId, List.of(fundId1, fundId2), List.of(budget1, budget2));
+
+    doReturn(succeededFuture(List.of(ledger)))
+      .when(conn).getByIds(eq(LEDGER_TABLE), eq(Ledger.class), eq(List.of(ledgerId)));
   }
 
   protected void setupFundWithMissingBudget(String fundId, String fiscalYearId) {
@@ -230,25 +247,32 @@ public abstract class BatchTransactionServiceTestBase {
     doReturn(tenantId)
       .when(conn).getTenantId();
 
-    Criterion fundCriterion = createCriterionByIds(List.of(fundId));
-    doReturn(succeededFuture(createResults(List.of(fund))))
-      .when(conn).get(eq(FUND_TABLE), eq(Fund.class), argThat(
-        crit -> crit.toString().equals(fundCriterion.toString())), eq(false));
+    doReturn(succeededFuture(List.of(fund)))
+      .when(conn).getByIds(eq(FUND_TABLE), eq(Fund.class), eq(List.of(fundId)));
 
-    String sql = "SELECT jsonb FROM " + tenantId + "_mod_finance_storage.budget WHERE (fiscalYearId = '" + fiscalYearId + "' AND (fundId = '" + fundId + "')) FOR UPDATE";
-    doReturn(succeededFuture(createRowSet(Collections.emptyList())))
-      .when(conn).execute(eq(sql), any(Tuple.class));
+    mockBudgetsForUpdate(fiscalYearId, List.of(fundId), Collections.emptyList());
 
-    Criterion ledgerCriterion = createCriterionByIds(List.of(ledgerId));
-    doReturn(succeededFuture(createResults(List.of(ledger))))
-      .when(conn).get(eq(LEDGER_TABLE), eq(Ledger.class), argThat(
-        crit -> crit.toString().equals(ledgerCriterion.toString())), eq(false));
+    doReturn(succeededFuture(List.of(ledger)))
+      .when(conn).getByIds(eq(LEDGER_TABLE), eq(Ledger.class), eq(List.of(ledgerId)));
   }
 
-  protected Criterion createCriterionByIds(List<String> ids) {
-    CriterionBuilder criterionBuilder = new CriterionBuilder("OR");
-    ids.forEach(id -> criterionBuilder.with("id", id));
-    return criterionBuilder.build();
+  protected void mockBudgetsForUpdate(String fiscalYearId, List<String> fundIds, List<Budget> budgets) {
+    Set<String> expectedKeys = fundIds.stream()
+      .map(fundId -> fiscalYearId + "/" + fundId)
+      .collect(Collectors.toSet());
+    // the budgets are also returned by the query without lock, used when a batch is only validated
+    for (String sql : List.of(BUDGETS_FOR_UPDATE_SQL, BUDGETS_SQL)) {
+      doReturn(succeededFuture(createRowSet(budgets)))
+        .when(conn).execute(eq(sql), argThat(params -> {
+          if (!(params.getValue(0) instanceof UUID[] fiscalYearIds) || !(params.getValue(1) instanceof UUID[] budgetFundIds)) {
+            return false;
+          }
+          Set<String> keys = IntStream.range(0, fiscalYearIds.length)
+            .mapToObj(i -> fiscalYearIds[i] + "/" + budgetFundIds[i])
+            .collect(Collectors.toSet());
+          return fiscalYearIds.length == fundIds.size() && keys.equals(expectedKeys);
+        }));
+    }
   }
 
 }
@@ -1,27 +1,38 @@
 package org.folio.service.transactions;
 
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.json.Json;
 import io.vertx.core.json.JsonObject;
 import io.vertx.junit5.VertxTestContext;
+import io.vertx.sqlclient.Tuple;
+import io.vertx.sqlclient.data.Numeric;
 import org.folio.rest.exception.HttpException;
 import org.folio.rest.jaxrs.model.Batch;
+import org.folio.rest.jaxrs.model.BatchValidationResult;
 import org.folio.rest.jaxrs.model.Budget;
+import org.folio.rest.jaxrs.model.BudgetChange;
 import org.folio.rest.jaxrs.model.Encumbrance;
 import org.folio.rest.jaxrs.model.Metadata;
 import org.folio.rest.jaxrs.model.Transaction;
 import org.folio.rest.jaxrs.model.TransactionPatch;
-import org.folio.rest.persist.Criteria.Criterion;
-import org.folio.rest.persist.CriterionBuilder;
+import org.folio.rest.persist.DBConn;
+import org.folio.rest.persist.helpers.LocalRowSet;
 import org.folio.service.ServiceTestUtils;
 import org.folio.service.transactions.batch.BatchTransactionHolder;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.ArgumentCaptor;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
 
 import static io.vertx.core.Future.succeededFuture;
 import static org.folio.dao.transactions.BatchTransactionDAO.TRANSACTIONS_TABLE;
@@ -32,25 +43,29 @@ import static org.folio.rest.jaxrs.model.Encumbrance.Status.UNRELEASED;
 import static org.folio.rest.jaxrs.model.Transaction.Source.PO_LINE;
 import static org.folio.rest.jaxrs.model.Transaction.TransactionType.ENCUMBRANCE;
 import static org.folio.rest.util.ErrorCodes.BUDGET_RESTRICTED_ENCUMBRANCE_ERROR;
-import static org.folio.service.ServiceTestUtils.createResults;
 import static org.folio.service.ServiceTestUtils.createRowSet;
 import static org.hamcrest.CoreMatchers.startsWith;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.comparesEqualTo;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 public class EncumbranceTest extends BatchTransactionServiceTestBase {
+  private static final String UPDATE_BUDGETS_WITH_DELTAS_SQL = "UPDATE tenantname_mod_finance_storage.budget AS budget SET";
 
   @Test
   void testCreateEncumbrance(VertxTestContext testContext) {
@@ -77,10 +92,8 @@ public class EncumbranceTest extends BatchTransactionServiceTestBase {
 
     setupFundBudgetLedger(fundId, fiscalYearId, 0d, 0d, 0d, 0d, false, false, false);
 
-    Criterion transactionCriterion = createCriterionByIds(List.of(transactionId));
-    doReturn(succeededFuture(createResults(new ArrayList<Transaction>())))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(transactionCriterion.toString())));
+    doReturn(succeededFuture(new ArrayList<Transaction>()))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(transactionId)));
 
     doAnswer(invocation -> succeededFuture(createRowSet(invocation.getArgument(1))))
       .when(conn).saveBatch(anyString(), anyList());
@@ -115,6 +128,136 @@ public class EncumbranceTest extends BatchTransactionServiceTestBase {
       });
   }
 
+  @Test
+  void testCoalescedBatchesAreProcessedInSavepoints(VertxTestContext testContext) {
+    String transactionId = UUID.randomUUID().toString();
+    String fundId = UUID.randomUUID().toString();
+    String fiscalYearId = UUID.randomUUID().toString();
+
+    Transaction encumbrance = new Transaction()
+      .withId(transactionId)
+      .withCurrency("USD")
+      .withFromFundId(fundId)
+      .withTransactionType(ENCUMBRANCE)
+      .withAmount(5d)
+      .withFiscalYearId(fiscalYearId)
+      .withSource(PO_LINE)
+      .withEncumbrance(new Encumbrance()
+        .withStatus(Encumbrance.Status.PENDING)
+        .withSourcePurchaseOrderId(UUID.randomUUID().toString())
+        .withInitialAmountEncumbered(5d));
+
+    Batch validBatch = new Batch();
+    validBatch.getTransactionsToCreate().add(encumbrance);
+    // an empty batch fails the sanity checks
+    Batch invalidBatch = new Batch();
+
+    setupFundBudgetLedger(fundId, fiscalYearId, 0d, 0d, 0d, 0d, false, false, false);
+
+    doReturn(succeededFuture(new ArrayList<Transaction>()))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(transactionId)));
+
+    doAnswer(invocation -> succeededFuture(createRowSet(invocation.getArgument(1))))
+      .when(conn).saveBatch(anyString(), anyList());
+
+    doAnswer(invocation -> succeededFuture(createRowSet(invocation.getArgument(1))))
+      .when(conn).updateBatch(anyString(), anyList());
+
+    doReturn(succeededFuture(createRowSet(List.of())))
+      .when(conn).execute(anyString());
+
+    // the batches are grouped while a previous batch is being processed
+    Promise<Void> previousBatchDone = Promise.promise();
+    doReturn(previousBatchDone.future())
+      .when(dbClient).withTrans(any());
+    Future<Void> previousFuture = batchTransactionServiceWithCoalescing.processBatch(new Batch(), requestContext);
+    doAnswer(invocation -> {
+      Function<DBConn, Future<Void>> function = invocation.getArgument(0);
+      return function.apply(conn);
+    }).when(dbClient).withTrans(any());
+
+    Future<Void> validFuture = batchTransactionServiceWithCoalescing.processBatch(validBatch, requestContext);
+    Future<Void> invalidFuture = batchTransactionServiceWithCoalescing.processBatch(invalidBatch, requestContext);
+    previousBatchDone.complete();
+
+    Future.join(previousFuture, validFuture, invalidFuture)
+      .onComplete(event -> {
+        testContext.verify(() -> {
+          assertTrue(validFuture.succeeded());
+          assertThat(invalidFuture.cause(), instanceOf(HttpException.class));
+          assertEquals(400, ((HttpException) invalidFuture.cause()).getCode());
+
+          ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+          verify(conn, times(4)).execute(sqlCaptor.capture());
+          assertThat(sqlCaptor.getAllValues(), equalTo(List.of("SAVEPOINT coalesced_batch_0",
+            "RELEASE SAVEPOINT coalesced_batch_0", "SAVEPOINT coalesced_batch_1",
+            "ROLLBACK TO SAVEPOINT coalesced_batch_1")));
+          verify(conn, times(1)).saveBatch(eq(TRANSACTIONS_TABLE), anyList());
+        });
+        testContext.completeNow();
+      });
+  }
+
+  @Test
+  void testCreateEncumbranceWithBudgetDeltas(VertxTestContext testContext) {
+    String transactionId = UUID.randomUUID().toString();
+    String fundId = UUID.randomUUID().toString();
+    String fiscalYearId = UUID.randomUUID().toString();
+    String orderId = UUID.randomUUID().toString();
+
+    Transaction encumbrance = new Transaction()
+      .withId(transactionId)
+      .withCurrency("USD")
+      .withFromFundId(fundId)
+      .withTransactionType(ENCUMBRANCE)
+      .withAmount(5d)
+      .withFiscalYearId(fiscalYearId)
+      .withSource(PO_LINE)
+      .withEncumbrance(new Encumbrance()
+        .withStatus(Encumbrance.Status.PENDING)
+        .withSourcePurchaseOrderId(orderId)
+        .withInitialAmountEncumbered(5d));
+
+    Batch batch = new Batch();
+    batch.getTransactionsToCreate().add(encumbrance);
+
+    setupFundBudgetLedger(fundId, fiscalYearId, 2.5d, 0d, 0d, 0d, false, false, false);
+
+    doReturn(succeededFuture(new ArrayList<Transaction>()))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(transactionId)));
+
+    doAnswer(invocation -> succeededFuture(createRowSet(invocation.getArgument(1))))
+      .when(conn).saveBatch(anyString(), anyList());
+
+    doAnswer(invocation -> {
+      UUID[] budgetIds = (UUID[]) invocation.<Tuple>getArgument(1).getValue(0);
+      return succeededFuture(createRowSet(List.of(new Budget().withId(budgetIds[0].toString()).withEncumbered(7.5d))));
+    }).when(conn).execute(argThat(sql -> sql.startsWith(UPDATE_BUDGETS_WITH_DELTAS_SQL)), any(Tuple.class));
+
+    testContext.assertComplete(batchTransactionServiceWithBudgetDeltas.processBatch(batch, requestContext))
+      .onComplete(event -> {
+        testContext.verify(() -> {
+          verify(conn, never()).updateBatch(anyString(), anyList());
+
+          ArgumentCaptor<Tuple> paramsCaptor = ArgumentCaptor.forClass(Tuple.class);
+          verify(conn, times(1)).execute(argThat(sql -> sql.startsWith(UPDATE_BUDGETS_WITH_DELTAS_SQL)), paramsCaptor.capture());
+          Tuple params = paramsCaptor.getValue();
+          // deltas of initialAllocation, allocationTo, allocationFrom, netTransfers, encumbered,
+          // awaitingPayment, expenditures and credits
+          List<BigDecimal> expectedDeltas = List.of(BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO,
+            new BigDecimal(5), BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
+          for (int i = 0; i < expectedDeltas.size(); i++) {
+            Numeric[] deltas = (Numeric[]) params.getValue(i + 1);
+            assertThat(deltas.length, equalTo(1));
+            assertThat(deltas[0].bigDecimalValue(), comparesEqualTo(expectedDeltas.get(i)));
+          }
+          String[] metadata = (String[]) params.getValue(9);
+          assertNotNull(new JsonObject(metadata[0]).getValue("updatedDate"));
+        });
+        testContext.completeNow();
+      });
+  }
+
   @ParameterizedTest
   @CsvSource({
     "0,0,0,0,0,0",     // zero amount
@@ -156,10 +299,8 @@ public class EncumbranceTest extends BatchTransactionServiceTestBase {
 
     setupFundBudgetLedger(fundId, fiscalYearId, oldAmount, 0d, 0d, 0d, false, false, false);
 
-    Criterion transactionCriterion = createCriterionByIds(List.of(encumbranceId));
-    doReturn(succeededFuture(createResults(List.of(existingEncumbrance))))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(transactionCriterion.toString())));
+    doReturn(succeededFuture(List.of(existingEncumbrance)))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(encumbranceId)));
 
     doAnswer(invocation -> succeededFuture(createRowSet(invocation.getArgument(1))))
       .when(conn).updateBatch(anyString(), anyList());
@@ -210,39 +351,27 @@ public class EncumbranceTest extends BatchTransactionServiceTestBase {
     doReturn(tenantId)
       .when(conn).getTenantId();
 
-    Criterion criterion = createCriterionByIds(List.of(encumbranceId));
-    CriterionBuilder criterionBuilder = new CriterionBuilder("OR");
-    criterionBuilder.withJson("awaitingPayment.encumbranceId", "=", encumbranceId);
+    doReturn(succeededFuture(List.of(transaction)))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(encumbranceId)));
 
-    // Mock transaction queries with specific matchers
-    doAnswer(invocation -> {
-      Criterion crit = invocation.getArgument(2);
-      if (crit.toString().equals(criterion.toString())) {
-        return succeededFuture(createResults(List.of(transaction)));
-      } else if (crit.toString().equals(criterionBuilder.build().toString())) {
-        return succeededFuture(createResults(List.of()));
-      } else {
-        return succeededFuture(createResults(List.of()));
-      }
-    }).when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), any(Criterion.class));
+    // Mock the other transaction queries
+    doReturn(succeededFuture(List.of()))
+      .when(conn).getByJsonbFieldValues(eq(TRANSACTIONS_TABLE), eq(Transaction.class), anyString(), anyList(), anyMap());
 
     doAnswer(invocation -> succeededFuture(createRowSet(List.of(transaction))))
-      .when(conn).delete(anyString(), any(Criterion.class));
+      .when(conn).deleteByIds(anyString(), anyList());
 
     testContext.assertComplete(batchTransactionService.processBatch(batch, requestContext))
       .onComplete(event -> {
         testContext.verify(() -> {
           // Verify transaction deletion
           ArgumentCaptor<String> deleteTableNamesCaptor = ArgumentCaptor.forClass(String.class);
-          ArgumentCaptor<Criterion> deleteCriterionCaptor = ArgumentCaptor.forClass(Criterion.class);
-          verify(conn, times(1)).delete(deleteTableNamesCaptor.capture(), deleteCriterionCaptor.capture());
+          verify(conn, times(1)).deleteByIds(deleteTableNamesCaptor.capture(), deleteIdsCaptor.capture());
           List<String> deleteTableNames = deleteTableNamesCaptor.getAllValues();
-          List<Criterion> deleteCriterions = deleteCriterionCaptor.getAllValues();
+          List<List<String>> deleteIds = deleteIdsCaptor.getAllValues();
 
-          Criterion expectedCriterion = createCriterionByIds(List.of(encumbranceId));
           assertThat(deleteTableNames.getFirst(), equalTo(TRANSACTIONS_TABLE));
-          Criterion deleteCriterion = deleteCriterions.getFirst();
-          assertThat(deleteCriterion.toString(), equalTo(expectedCriterion.toString()));
+          assertThat(deleteIds.getFirst(), equalTo(List.of(encumbranceId)));
         });
         testContext.completeNow();
       });
@@ -253,16 +382,218 @@ public class EncumbranceTest extends BatchTransactionServiceTestBase {
     String transactionId = UUID.randomUUID().toString();
     TransactionPatch transactionPatch = new TransactionPatch()
       .withId(transactionId)
-      .withAdditionalProperty("encumbrance", new LinkedHashMap<String, String>()
-        .put("orderStatus", Encumbrance.OrderStatus.CLOSED.value()));
+      .withAdditionalProperty("encumbrance", new LinkedHashMap<>(Map.of(
+        "orderStatus", Encumbrance.OrderStatus.CLOSED.value())));
+    Batch batch = new Batch();
+    batch.getTransactionPatches().add(transactionPatch);
+
+    doReturn("tenantname")
+      .when(conn).getTenantId();
+    doReturn(succeededFuture(new LocalRowSet(1)))
+      .when(conn).execute(anyString(), any(Tuple.class));
+
+    testContext.assertComplete(batchTransactionService.processBatch(batch, requestContext))
+      .onComplete(event -> {
+        testContext.verify(() -> {
+          ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+          ArgumentCaptor<Tuple> paramsCaptor = ArgumentCaptor.forClass(Tuple.class);
+          verify(conn, times(1)).execute(sqlCaptor.capture(), paramsCaptor.capture());
+          assertThat(sqlCaptor.getValue(), startsWith(
+            "UPDATE tenantname_mod_finance_storage.transaction SET jsonb = jsonb_set(jsonb_set(jsonb, "));
+          assertEquals(UUID.fromString(transactionId), paramsCaptor.getValue().getValue(0));
+          assertEquals("{\"orderStatus\":\"Closed\"}", paramsCaptor.getValue().getValue(3));
+          // the transaction is not read before it is patched
+          verify(conn, never()).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), anyList());
+          verify(conn, never()).updateBatch(anyString(), anyList());
+        });
+        testContext.completeNow();
+      });
+  }
+
+  @Test
+  void testPatchTransactionThatDoesNotExist(VertxTestContext testContext) {
+    TransactionPatch transactionPatch = new TransactionPatch()
+      .withId(UUID.randomUUID().toString())
+      .withAdditionalProperty("description", "closed");
+    Batch batch = new Batch();
+    batch.getTransactionPatches().add(transactionPatch);
+
+    doReturn("tenantname")
+      .when(conn).getTenantId();
+    doReturn(succeededFuture(new LocalRowSet(0)))
+      .when(conn).execute(anyString(), any(Tuple.class));
+
+    testContext.assertFailure(batchTransactionService.processBatch(batch, requestContext))
+      .onFailure(thrown -> {
+        testContext.verify(() -> {
+          assertThat(thrown, instanceOf(HttpException.class));
+          assertThat(((HttpException) thrown).getCode(), equalTo(400));
+        });
+        testContext.completeNow();
+      });
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = {true, false})
+  void testPatchOfTransactionPatchedTwiceOrDeleted(boolean patchedTwice, VertxTestContext testContext) {
+    String encumbranceId = UUID.randomUUID().toString();
+    TransactionPatch transactionPatch = new TransactionPatch()
+      .withId(encumbranceId)
+      .withAdditionalProperty("encumbrance", new LinkedHashMap<>(Map.of(
+        "orderStatus", Encumbrance.OrderStatus.CLOSED.value())));
+    Batch batch = new Batch();
+    batch.getTransactionPatches().add(transactionPatch);
+    if (patchedTwice) {
+      batch.getTransactionPatches().add(new TransactionPatch()
+        .withId(encumbranceId)
+        .withAdditionalProperty("amount", 10d));
+    } else {
+      batch.getIdsOfTransactionsToDelete().add(encumbranceId);
+    }
+
+    testContext.assertFailure(batchTransactionService.processBatch(batch, requestContext))
+      .onFailure(thrown -> {
+        testContext.verify(() -> {
+          assertThat(thrown, instanceOf(HttpException.class));
+          assertThat(((HttpException) thrown).getCode(), equalTo(400));
+          verify(conn, never()).execute(anyString(), any(Tuple.class));
+        });
+        testContext.completeNow();
+      });
+  }
+
+  @ParameterizedTest
+  @CsvSource(value = {
+    "encumbrance|{\"orderStatus\": \"Bogus\"}",
+    "tags|5",
+    "encumbrance|{\"reEncumber\": \"maybe\"}"
+  }, delimiter = '|')
+  void testInvalidBudgetNeutralPatch(String field, String value, VertxTestContext testContext) {
+    TransactionPatch transactionPatch = new TransactionPatch()
+      .withId(UUID.randomUUID().toString())
+      .withAdditionalProperty(field, Json.decodeValue(value));
     Batch batch = new Batch();
     batch.getTransactionPatches().add(transactionPatch);
+
     testContext.assertFailure(batchTransactionService.processBatch(batch, requestContext))
       .onFailure(thrown -> {
         testContext.verify(() -> {
           assertThat(thrown, instanceOf(HttpException.class));
-          assertThat(((HttpException) thrown).getCode(), equalTo(500));
-          assertThat(thrown.getMessage(), equalTo("transactionPatches: not implemented"));
+          assertThat(((HttpException) thrown).getCode(), equalTo(400));
+          verify(conn, never()).execute(anyString(), any(Tuple.class));
+        });
+        testContext.completeNow();
+      });
+  }
+
+  @Test
+  void testPatchEncumbranceCreatedInTheSameBatch(VertxTestContext testContext) {
+    String encumbranceId = UUID.randomUUID().toString();
+    String fundId = UUID.randomUUID().toString();
+    String fiscalYearId = UUID.randomUUID().toString();
+
+    Transaction encumbrance = new Transaction()
+      .withId(encumbranceId)
+      .withCurrency("USD")
+      .withFromFundId(fundId)
+      .withTransactionType(ENCUMBRANCE)
+      .withAmount(5d)
+      .withFiscalYearId(fiscalYearId)
+      .withSource(PO_LINE)
+      .withEncumbrance(new Encumbrance()
+        .withStatus(Encumbrance.Status.PENDING)
+        .withOrderStatus(Encumbrance.OrderStatus.OPEN)
+        .withSourcePurchaseOrderId(UUID.randomUUID().toString())
+        .withInitialAmountEncumbered(5d));
+    // a patch changing the amount and the order status is applied to the transaction to create
+    TransactionPatch transactionPatch = new TransactionPatch()
+      .withId(encumbranceId)
+      .withAdditionalProperty("amount", 10d)
+      .withAdditionalProperty("encumbrance", new LinkedHashMap<>(Map.of(
+        "initialAmountEncumbered", 10d,
+        "orderStatus", Encumbrance.OrderStatus.CLOSED.value())));
+    Batch batch = new Batch();
+    batch.getTransactionsToCreate().add(encumbrance);
+    batch.getTransactionPatches().add(transactionPatch);
+
+    setupFundBudgetLedger(fundId, fiscalYearId, 0d, 0d, 0d, 0d, false, false, false);
+    doReturn(succeededFuture(new ArrayList<Transaction>()))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(encumbranceId)));
+    doAnswer(invocation -> succeededFuture(createRowSet(invocation.getArgument(1))))
+      .when(conn).saveBatch(anyString(), anyList());
+    doAnswer(invocation -> succeededFuture(createRowSet(invocation.getArgument(1))))
+      .when(conn).updateBatch(anyString(), anyList());
+
+    testContext.assertComplete(batchTransactionService.processBatch(batch, requestContext))
+      .onComplete(event -> {
+        testContext.verify(() -> {
+          verify(conn, times(1)).saveBatch(eq(TRANSACTIONS_TABLE), saveEntitiesCaptor.capture());
+          Transaction savedTransaction = (Transaction)(saveEntitiesCaptor.getValue().getFirst());
+          assertThat(savedTransaction.getAmount(), equalTo(10d));
+          assertThat(savedTransaction.getEncumbrance().getOrderStatus(), equalTo(Encumbrance.OrderStatus.CLOSED));
+          verify(conn, never()).execute(anyString(), any(Tuple.class));
+
+          verify(conn, times(1)).updateBatch(eq(BUDGET_TABLE), updateEntitiesCaptor.capture());
+          Budget savedBudget = (Budget)(updateEntitiesCaptor.getValue().getFirst());
+          assertThat(savedBudget.getEncumbered(), equalTo(10d));
+        });
+        testContext.completeNow();
+      });
+  }
+
+  @Test
+  void testPatchEncumbranceAmount(VertxTestContext testContext) {
+    String encumbranceId = UUID.randomUUID().toString();
+    String fundId = UUID.randomUUID().toString();
+    String fiscalYearId = UUID.randomUUID().toString();
+
+    Transaction existingEncumbrance = new Transaction()
+      .withId(encumbranceId)
+      .withCurrency("USD")
+      .withFromFundId(fundId)
+      .withTransactionType(ENCUMBRANCE)
+      .withAmount(5d)
+      .withFiscalYearId(fiscalYearId)
+      .withSource(PO_LINE)
+      .withEncumbrance(new Encumbrance()
+        .withStatus(Encumbrance.Status.PENDING)
+        .withOrderStatus(Encumbrance.OrderStatus.OPEN)
+        .withSourcePurchaseOrderId(UUID.randomUUID().toString())
+        .withInitialAmountEncumbered(5d))
+      .withMetadata(new Metadata());
+
+    TransactionPatch transactionPatch = new TransactionPatch()
+      .withId(encumbranceId)
+      .withAdditionalProperty("amount", 10d)
+      .withAdditionalProperty("encumbrance", new LinkedHashMap<>(Map.of("initialAmountEncumbered", 10d)));
+    Batch batch = new Batch();
+    batch.getTransactionPatches().add(transactionPatch);
+
+    setupFundBudgetLedger(fundId, fiscalYearId, 5d, 0d, 0d, 0d, false, false, false);
+
+    doReturn(succeededFuture(List.of(existingEncumbrance)))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(encumbranceId)));
+
+    doAnswer(invocation -> succeededFuture(createRowSet(invocation.getArgument(1))))
+      .when(conn).updateBatch(anyString(), anyList());
+
+    testContext.assertComplete(batchTransactionService.processBatch(batch, requestContext))
+      .onComplete(event -> {
+        testContext.verify(() -> {
+          ArgumentCaptor<String> updateTableNamesCaptor = ArgumentCaptor.forClass(String.class);
+          verify(conn, times(2)).updateBatch(updateTableNamesCaptor.capture(), updateEntitiesCaptor.capture());
+          List<String> updateTableNames = updateTableNamesCaptor.getAllValues();
+          List<List<Object>> updateEntities = updateEntitiesCaptor.getAllValues();
+
+          assertThat(updateTableNames.getFirst(), equalTo(TRANSACTIONS_TABLE));
+          Transaction savedTransaction = (Transaction)(updateEntities.getFirst().getFirst());
+          assertThat(savedTransaction.getAmount(), equalTo(10d));
+          assertThat(savedTransaction.getEncumbrance().getOrderStatus(), equalTo(Encumbrance.OrderStatus.OPEN));
+          assertNotNull(savedTransaction.getMetadata().getUpdatedDate());
+
+          assertThat(updateTableNames.get(1), equalTo(BUDGET_TABLE));
+          Budget savedBudget = (Budget)(updateEntities.get(1).getFirst());
+          assertThat(savedBudget.getEncumbered(), equalTo(10d));
         });
         testContext.completeNow();
       });
@@ -293,10 +624,8 @@ public class EncumbranceTest extends BatchTransactionServiceTestBase {
 
     setupFundBudgetLedger(fundId, fiscalYearId, 0d, 0d, 0d, 0d, false, true, false);
 
-    Criterion transactionCriterion = createCriterionByIds(List.of(transactionId));
-    doReturn(succeededFuture(createResults(new ArrayList<Transaction>())))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(transactionCriterion.toString())));
+    doReturn(succeededFuture(new ArrayList<Transaction>()))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(transactionId)));
 
     testContext.assertFailure(batchTransactionService.processBatch(batch, requestContext))
       .onFailure(thrown -> {
@@ -310,6 +639,93 @@ public class EncumbranceTest extends BatchTransactionServiceTestBase {
       });
   }
 
+  @Test
+  void testValidateOnlyComputesBudgetChangesWithoutLocksOrWrites(VertxTestContext testContext) {
+    String transactionId = UUID.randomUUID().toString();
+    String fundId = UUID.randomUUID().toString();
+    String fiscalYearId = UUID.randomUUID().toString();
+
+    Transaction encumbrance = new Transaction()
+      .withId(transactionId)
+      .withCurrency("USD")
+      .withFromFundId(fundId)
+      .withTransactionType(ENCUMBRANCE)
+      .withAmount(5d)
+      .withFiscalYearId(fiscalYearId)
+      .withSource(PO_LINE)
+      .withEncumbrance(new Encumbrance()
+        .withStatus(Encumbrance.Status.UNRELEASED)
+        .withSourcePurchaseOrderId(UUID.randomUUID().toString())
+        .withInitialAmountEncumbered(5d));
+
+    Batch batch = new Batch();
+    batch.getTransactionsToCreate().add(encumbrance);
+
+    setupFundBudgetLedger(fundId, fiscalYearId, 0d, 0d, 0d, 0d, false, false, false);
+
+    doReturn(succeededFuture(new ArrayList<Transaction>()))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(transactionId)));
+
+    testContext.assertComplete(batchTransactionService.validateBatch(batch, requestContext))
+      .onComplete(event -> {
+        testContext.verify(() -> {
+          BatchValidationResult result = event.result();
+          assertTrue(result.getValid());
+          assertEquals(1, result.getBudgetChanges().size());
+          BudgetChange budgetChange = result.getBudgetChanges().getFirst();
+          assertEquals(fundId, budgetChange.getFundId());
+          assertEquals(5d, budgetChange.getEncumbered());
+          assertEquals(0d, budgetChange.getExpenditures());
+
+          verify(conn, never()).execute(eq(BUDGETS_FOR_UPDATE_SQL), any(Tuple.class));
+          verify(conn, never()).saveBatch(anyString(), anyList());
+          verify(conn, never()).updateBatch(anyString(), anyList());
+        });
+        testContext.completeNow();
+      });
+  }
+
+  @Test
+  void testValidateOnlyReturnsViolations(VertxTestContext testContext) {
+    String transactionId = UUID.randomUUID().toString();
+    String fundId = UUID.randomUUID().toString();
+    String fiscalYearId = UUID.randomUUID().toString();
+
+    Transaction encumbrance = new Transaction()
+      .withId(transactionId)
+      .withCurrency("USD")
+      .withFromFundId(fundId)
+      .withTransactionType(ENCUMBRANCE)
+      .withAmount(100d)
+      .withFiscalYearId(fiscalYearId)
+      .withSource(PO_LINE)
+      .withEncumbrance(new Encumbrance()
+        .withStatus(Encumbrance.Status.UNRELEASED)
+        .withSourcePurchaseOrderId(UUID.randomUUID().toString())
+        .withInitialAmountEncumbered(100d));
+
+    Batch batch = new Batch();
+    batch.getTransactionsToCreate().add(encumbrance);
+
+    setupFundBudgetLedger(fundId, fiscalYearId, 0d, 0d, 0d, 0d, false, true, false);
+
+    doReturn(succeededFuture(new ArrayList<Transaction>()))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(transactionId)));
+
+    testContext.assertComplete(batchTransactionService.validateBatch(batch, requestContext))
+      .onComplete(event -> {
+        testContext.verify(() -> {
+          BatchValidationResult result = event.result();
+          assertThat(result.getValid(), equalTo(false));
+          assertTrue(result.getBudgetChanges().isEmpty());
+          assertThat(result.getErrors().getErrors().getFirst().getMessage(),
+            equalTo(BUDGET_RESTRICTED_ENCUMBRANCE_ERROR.getDescription()));
+          verify(conn, never()).saveBatch(anyString(), anyList());
+        });
+        testContext.completeNow();
+      });
+  }
+
   @Test
   void testCreateEncumbranceWithInactiveBudget(VertxTestContext testContext) {
     String transactionId = UUID.randomUUID().toString();
@@ -335,10 +751,8 @@ public class EncumbranceTest extends BatchTransactionServiceTestBase {
 
     setupFundBudgetLedger(fundId, fiscalYearId, 0d, 0d, 0d, 0d, false, false, true);
 
-    Criterion transactionCriterion = createCriterionByIds(List.of(transactionId));
-    doReturn(succeededFuture(createResults(new ArrayList<Transaction>())))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(transactionCriterion.toString())));
+    doReturn(succeededFuture(new ArrayList<Transaction>()))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(transactionId)));
 
     testContext.assertFailure(batchTransactionService.processBatch(batch, requestContext))
       .onComplete(event -> {
@@ -376,10 +790,8 @@ public class EncumbranceTest extends BatchTransactionServiceTestBase {
 
     setupFundWithMissingBudget(fundId, fiscalYearId);
 
-    Criterion transactionCriterion = createCriterionByIds(List.of(transactionId));
-    doReturn(succeededFuture(createResults(new ArrayList<Transaction>())))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(transactionCriterion.toString())));
+    doReturn(succeededFuture(new ArrayList<Transaction>()))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(transactionId)));
 
     testContext.assertFailure(batchTransactionService.processBatch(batch, requestContext))
       .onComplete(event -> {
@@ -436,10 +848,8 @@ public class EncumbranceTest extends BatchTransactionServiceTestBase {
 
     setupFundBudgetLedger(fundId, fiscalYearId, oldAmount, 5d, 1d, 1d, false, false, false);
 
-    Criterion transactionCriterion = createCriterionByIds(List.of(encumbranceId));
-    doReturn(succeededFuture(createResults(List.of(existingEncumbrance))))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(transactionCriterion.toString())));
+    doReturn(succeededFuture(List.of(existingEncumbrance)))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(encumbranceId)));
 
     doAnswer(invocation -> succeededFuture(createRowSet(invocation.getArgument(1))))
       .when(conn).updateBatch(anyString(), anyList());
@@ -502,10 +912,8 @@ public class EncumbranceTest extends BatchTransactionServiceTestBase {
 
     setupFundBudgetLedger(fundId, fiscalYearId, 0d, 5d, 2d, 2d, false, false, false);
 
-    Criterion transactionCriterion = createCriterionByIds(List.of(encumbranceId));
-    doReturn(succeededFuture(createResults(List.of(existingEncumbrance))))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(transactionCriterion.toString())));
+    doReturn(succeededFuture(List.of(existingEncumbrance)))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(encumbranceId)));
 
     doAnswer(invocation -> succeededFuture(createRowSet(invocation.getArgument(1))))
       .when(conn).updateBatch(anyString(), anyList());
@@ -568,10 +976,8 @@ public class EncumbranceTest extends BatchTransactionServiceTestBase {
 
     setupFundBudgetLedger(fundId, fiscalYearId, 0d, 50d, 0d, 0d, false, false, false);
 
-    Criterion transactionCriterion = createCriterionByIds(List.of(encumbranceId));
-    doReturn(succeededFuture(createResults(List.of(existingEncumbrance))))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(transactionCriterion.toString())));
+    doReturn(succeededFuture(List.of(existingEncumbrance)))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(encumbranceId)));
 
     doAnswer(invocation -> succeededFuture(createRowSet(invocation.getArgument(1))))
       .when(conn).updateBatch(anyString(), anyList());
@@ -635,10 +1041,8 @@ public class EncumbranceTest extends BatchTransactionServiceTestBase {
 
     setupFundBudgetLedger(fundId, fiscalYearId, 0d, 50d, 55d, 0d, false, false, false);
 
-    Criterion transactionCriterion = createCriterionByIds(List.of(encumbranceId));
-    doReturn(succeededFuture(createResults(List.of(existingEncumbrance))))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(transactionCriterion.toString())));
+    doReturn(succeededFuture(List.of(existingEncumbrance)))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(encumbranceId)));
 
     doAnswer(invocation -> succeededFuture(createRowSet(invocation.getArgument(1))))
       .when(conn).updateBatch(anyString(), anyList());
@@ -702,10 +1106,8 @@ public class EncumbranceTest extends BatchTransactionServiceTestBase {
 
     setupFundBudgetLedger(fundId, fiscalYearId, 0d, 50d, 0d, 0d, false, false, false);
 
-    Criterion transactionCriterion = createCriterionByIds(List.of(encumbranceId));
-    doReturn(succeededFuture(createResults(List.of(existingEncumbrance))))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(transactionCriterion.toString())));
+    doReturn(succeededFuture(List.of(existingEncumbrance)))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(encumbranceId)));
 
     doAnswer(invocation -> succeededFuture(createRowSet(invocation.getArgument(1))))
       .when(conn).updateBatch(anyString(), anyList());
@@ -955,6 +1357,61 @@ public class EncumbranceTest extends BatchTransactionServiceTestBase {
     assertThat(payment2.getPaymentEncumbranceId(), equalTo(newEncumbranceId));
   }
 
+  @Test
+  void testRelinkPaymentsForManyPoLines() throws Exception {
+    // Given: a fund change for many PO lines, each with a paid invoice
+    int numberOfPoLines = 10_000;
+    String oldFundId = UUID.randomUUID().toString();
+    String newFundId = UUID.randomUUID().toString();
+    List<Transaction> oldEncumbrances = new ArrayList<>();
+    List<Transaction> newEncumbrances = new ArrayList<>();
+    List<Transaction> payments = new ArrayList<>();
+    for (int i = 0; i < numberOfPoLines; i++) {
+      String poLineId = UUID.randomUUID().toString();
+      Transaction oldEncumbrance = new Transaction()
+        .withId(UUID.randomUUID().toString())
+        .withFromFundId(oldFundId)
+        .withTransactionType(ENCUMBRANCE)
+        .withAmount((double) i)
+        .withEncumbrance(new Encumbrance()
+          .withSourcePoLineId(poLineId));
+      oldEncumbrances.add(oldEncumbrance);
+      newEncumbrances.add(new Transaction()
+        .withId(UUID.randomUUID().toString())
+        .withFromFundId(newFundId)
+        .withTransactionType(ENCUMBRANCE)
+        .withAmount((double) i)
+        .withEncumbrance(new Encumbrance()
+          .withSourcePoLineId(poLineId)));
+      payments.add(new Transaction()
+        .withId(UUID.randomUUID().toString())
+        .withTransactionType(Transaction.TransactionType.PAYMENT)
+        .withPaymentEncumbranceId(oldEncumbrance.getId()));
+    }
+
+    BatchTransactionHolder holder = org.mockito.Mockito.mock(BatchTransactionHolder.class);
+    org.mockito.Mockito.when(holder.getLinkedPayments()).thenReturn(payments);
+    org.mockito.Mockito.when(holder.getAllTransactionsToCreate()).thenReturn(newEncumbrances);
+    org.mockito.Mockito.when(holder.getAllTransactionsToDelete()).thenReturn(oldEncumbrances);
+
+    List<Transaction> transactionsToUpdate = new ArrayList<>();
+
+    // When
+    ServiceTestUtils.callPrivateMethod(
+      batchTransactionService,
+      "relinkPaymentsIfNeeded",
+      Void.class,
+      new Class<?>[]{BatchTransactionHolder.class, List.class},
+      new Object[]{holder, transactionsToUpdate}
+    );
+
+    // Then
+    assertThat(transactionsToUpdate.size(), equalTo(numberOfPoLines));
+    for (int i = 0; i < numberOfPoLines; i++) {
+      assertThat(payments.get(i).getPaymentEncumbranceId(), equalTo(newEncumbrances.get(i).getId()));
+    }
+  }
+
   @Test
   void testRelinkPaymentsSkipsWhenNoLinkedPayments() throws Exception {
     // Given: No linked payments
@@ -10,7 +10,6 @@ import org.folio.rest.jaxrs.model.Budget;
 import org.folio.rest.jaxrs.model.Encumbrance;
 import org.folio.rest.jaxrs.model.Metadata;
 import org.folio.rest.jaxrs.model.Transaction;
-import org.folio.rest.persist.Criteria.Criterion;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.EnumSource;
@@ -18,6 +17,7 @@ import org.mockito.ArgumentCaptor;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import static io.vertx.core.Future.succeededFuture;
@@ -30,17 +30,14 @@ import static org.folio.rest.jaxrs.model.Transaction.TransactionType.CREDIT;
 import static org.folio.rest.jaxrs.model.Transaction.TransactionType.ENCUMBRANCE;
 import static org.folio.rest.jaxrs.model.Transaction.TransactionType.PAYMENT;
 import static org.folio.rest.jaxrs.model.Transaction.TransactionType.PENDING_PAYMENT;
-import static org.folio.service.ServiceTestUtils.createResults;
 import static org.folio.service.ServiceTestUtils.createRowSet;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
-import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
@@ -85,15 +82,12 @@ public class PaymentCreditTest extends BatchTransactionServiceTestBase {
 
     setupFundBudgetLedger(fundId, fiscalYearId, 0d, 5d, 0d, 0d, false, false, false);
 
-    Criterion paymentCriterion = createCriterionByIds(List.of(paymentId));
-    doReturn(succeededFuture(createResults(List.of())))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(paymentCriterion.toString())));
+    doReturn(succeededFuture(List.of()))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(paymentId)));
 
-    String snippet = "WHERE (jsonb->>'transactionType') = 'Pending payment'  AND  (  (jsonb->>'sourceInvoiceId') = '" + invoiceId + "')    ";
-    doReturn(succeededFuture(createResults(List.of(existingPendingPayment))))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(snippet)));
+    doReturn(succeededFuture(List.of(existingPendingPayment)))
+      .when(conn).getByJsonbFieldValues(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq("sourceInvoiceId"),
+        eq(List.of(invoiceId)), eq(Map.of("transactionType", "Pending payment")));
 
     doAnswer(invocation -> succeededFuture(createRowSet(invocation.getArgument(1))))
       .when(conn).saveBatch(anyString(), anyList());
@@ -102,7 +96,7 @@ public class PaymentCreditTest extends BatchTransactionServiceTestBase {
       .when(conn).updateBatch(anyString(), anyList());
 
     doAnswer(invocation -> succeededFuture(createRowSet(List.of(existingPendingPayment))))
-      .when(conn).delete(anyString(), any(Criterion.class));
+      .when(conn).deleteByIds(anyString(), anyList());
 
     testContext.assertComplete(batchTransactionService.processBatch(batch, requestContext))
       .onComplete(event -> {
@@ -135,15 +129,12 @@ public class PaymentCreditTest extends BatchTransactionServiceTestBase {
 
           // Verify pending payment deletion
           ArgumentCaptor<String> deleteTableNamesCaptor = ArgumentCaptor.forClass(String.class);
-          ArgumentCaptor<Criterion> deleteCriterionCaptor = ArgumentCaptor.forClass(Criterion.class);
-          verify(conn, times(1)).delete(deleteTableNamesCaptor.capture(), deleteCriterionCaptor.capture());
+          verify(conn, times(1)).deleteByIds(deleteTableNamesCaptor.capture(), deleteIdsCaptor.capture());
           List<String> deleteTableNames = deleteTableNamesCaptor.getAllValues();
-          List<Criterion> deleteCriterions = deleteCriterionCaptor.getAllValues();
+          List<List<String>> deleteIds = deleteIdsCaptor.getAllValues();
 
-          Criterion pendingPaymentCriterionByIds = createCriterionByIds(List.of(pendingPaymentId));
           assertThat(deleteTableNames.get(0), equalTo(TRANSACTIONS_TABLE));
-          Criterion deleteCriterion = deleteCriterions.get(0);
-          assertThat(deleteCriterion.toString(), equalTo(pendingPaymentCriterionByIds.toString()));
+          assertThat(deleteIds.getFirst(), equalTo(List.of(pendingPaymentId)));
         });
         testContext.completeNow();
       });
@@ -185,15 +176,12 @@ public class PaymentCreditTest extends BatchTransactionServiceTestBase {
 
     setupFundBudgetLedger(fundId, fiscalYearId, 0d, 5d, 5d, 0d, false, false, false);
 
-    Criterion paymentCriterion = createCriterionByIds(List.of(creditId));
-    doReturn(succeededFuture(createResults(List.of())))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(paymentCriterion.toString())));
+    doReturn(succeededFuture(List.of()))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(creditId)));
 
-    String snippet = "WHERE (jsonb->>'transactionType') = 'Pending payment'  AND  (  (jsonb->>'sourceInvoiceId') = '" + invoiceId + "')    ";
-    doReturn(succeededFuture(createResults(List.of(existingPendingPayment))))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(snippet)));
+    doReturn(succeededFuture(List.of(existingPendingPayment)))
+      .when(conn).getByJsonbFieldValues(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq("sourceInvoiceId"),
+        eq(List.of(invoiceId)), eq(Map.of("transactionType", "Pending payment")));
 
     doAnswer(invocation -> succeededFuture(createRowSet(invocation.getArgument(1))))
       .when(conn).saveBatch(anyString(), anyList());
@@ -202,7 +190,7 @@ public class PaymentCreditTest extends BatchTransactionServiceTestBase {
       .when(conn).updateBatch(anyString(), anyList());
 
     doAnswer(invocation -> succeededFuture(createRowSet(List.of(existingPendingPayment))))
-      .when(conn).delete(anyString(), any(Criterion.class));
+      .when(conn).deleteByIds(anyString(), anyList());
 
     testContext.assertComplete(batchTransactionService.processBatch(batch, requestContext))
       .onComplete(event -> {
@@ -235,15 +223,12 @@ public class PaymentCreditTest extends BatchTransactionServiceTestBase {
 
           // Verify pending payment deletion
           ArgumentCaptor<String> deleteTableNamesCaptor = ArgumentCaptor.forClass(String.class);
-          ArgumentCaptor<Criterion> deleteCriterionCaptor = ArgumentCaptor.forClass(Criterion.class);
-          verify(conn, times(1)).delete(deleteTableNamesCaptor.capture(), deleteCriterionCaptor.capture());
+          verify(conn, times(1)).deleteByIds(deleteTableNamesCaptor.capture(), deleteIdsCaptor.capture());
           List<String> deleteTableNames = deleteTableNamesCaptor.getAllValues();
-          List<Criterion> deleteCriterions = deleteCriterionCaptor.getAllValues();
+          List<List<String>> deleteIds = deleteIdsCaptor.getAllValues();
 
-          Criterion pendingPaymentCriterionByIds = createCriterionByIds(List.of(pendingPaymentId));
           assertThat(deleteTableNames.get(0), equalTo(TRANSACTIONS_TABLE));
-          Criterion deleteCriterion = deleteCriterions.get(0);
-          assertThat(deleteCriterion.toString(), equalTo(pendingPaymentCriterionByIds.toString()));
+          assertThat(deleteIds.getFirst(), equalTo(List.of(pendingPaymentId)));
         });
         testContext.completeNow();
       });
@@ -302,20 +287,15 @@ public class PaymentCreditTest extends BatchTransactionServiceTestBase {
 
     setupFundBudgetLedger(fundId, fiscalYearId, 0d, 5d, 10d, 0d, false, false, false);
 
-    Criterion paymentCriterion = createCriterionByIds(List.of(paymentId));
-    doReturn(succeededFuture(createResults(List.of())))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(paymentCriterion.toString())));
+    doReturn(succeededFuture(List.of()))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(paymentId)));
 
-    Criterion encumbranceCriterion = createCriterionByIds(List.of(encumbranceId));
-    doReturn(succeededFuture(createResults(List.of(existingEncumbrance))))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(encumbranceCriterion.toString())));
+    doReturn(succeededFuture(List.of(existingEncumbrance)))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(encumbranceId)));
 
-    String snippet = "WHERE (jsonb->>'transactionType') = 'Pending payment'  AND  (  (jsonb->>'sourceInvoiceId') = '" + invoiceId + "')    ";
-    doReturn(succeededFuture(createResults(List.of(existingPendingPayment))))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(snippet)));
+    doReturn(succeededFuture(List.of(existingPendingPayment)))
+      .when(conn).getByJsonbFieldValues(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq("sourceInvoiceId"),
+        eq(List.of(invoiceId)), eq(Map.of("transactionType", "Pending payment")));
 
     doAnswer(invocation -> succeededFuture(createRowSet(invocation.getArgument(1))))
       .when(conn).saveBatch(anyString(), anyList());
@@ -324,7 +304,7 @@ public class PaymentCreditTest extends BatchTransactionServiceTestBase {
       .when(conn).updateBatch(anyString(), anyList());
 
     doAnswer(invocation -> succeededFuture(createRowSet(List.of(existingPendingPayment))))
-      .when(conn).delete(anyString(), any(Criterion.class));
+      .when(conn).deleteByIds(anyString(), anyList());
 
     testContext.assertComplete(batchTransactionService.processBatch(batch, requestContext))
       .onComplete(event -> {
@@ -367,15 +347,12 @@ public class PaymentCreditTest extends BatchTransactionServiceTestBase {
 
           // Verify pending payment deletion
           ArgumentCaptor<String> deleteTableNamesCaptor = ArgumentCaptor.forClass(String.class);
-          ArgumentCaptor<Criterion> deleteCriterionCaptor = ArgumentCaptor.forClass(Criterion.class);
-          verify(conn, times(1)).delete(deleteTableNamesCaptor.capture(), deleteCriterionCaptor.capture());
+          verify(conn, times(1)).deleteByIds(deleteTableNamesCaptor.capture(), deleteIdsCaptor.capture());
           List<String> deleteTableNames = deleteTableNamesCaptor.getAllValues();
-          List<Criterion> deleteCriterions = deleteCriterionCaptor.getAllValues();
+          List<List<String>> deleteIds = deleteIdsCaptor.getAllValues();
 
-          Criterion pendingPaymentCriterionByIds = createCriterionByIds(List.of(pendingPaymentId));
           assertThat(deleteTableNames.get(0), equalTo(TRANSACTIONS_TABLE));
-          Criterion deleteCriterion = deleteCriterions.get(0);
-          assertThat(deleteCriterion.toString(), equalTo(pendingPaymentCriterionByIds.toString()));
+          assertThat(deleteIds.getFirst(), equalTo(List.of(pendingPaymentId)));
         });
         testContext.completeNow();
       });
@@ -434,20 +411,15 @@ public class PaymentCreditTest extends BatchTransactionServiceTestBase {
 
     setupFundBudgetLedger(fundId, fiscalYearId, 0d, 5d, 0d, 0d, false, false, false);
 
-    Criterion paymentCriterion = createCriterionByIds(List.of(creditId));
-    doReturn(succeededFuture(createResults(List.of())))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(paymentCriterion.toString())));
+    doReturn(succeededFuture(List.of()))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(creditId)));
 
-    Criterion encumbranceCriterion = createCriterionByIds(List.of(encumbranceId));
-    doReturn(succeededFuture(createResults(List.of(existingEncumbrance))))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(encumbranceCriterion.toString())));
+    doReturn(succeededFuture(List.of(existingEncumbrance)))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(encumbranceId)));
 
-    String snippet = "WHERE (jsonb->>'transactionType') = 'Pending payment'  AND  (  (jsonb->>'sourceInvoiceId') = '" + invoiceId + "')    ";
-    doReturn(succeededFuture(createResults(List.of(existingPendingPayment))))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(snippet)));
+    doReturn(succeededFuture(List.of(existingPendingPayment)))
+      .when(conn).getByJsonbFieldValues(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq("sourceInvoiceId"),
+        eq(List.of(invoiceId)), eq(Map.of("transactionType", "Pending payment")));
 
     doAnswer(invocation -> succeededFuture(createRowSet(invocation.getArgument(1))))
       .when(conn).saveBatch(anyString(), anyList());
@@ -456,7 +428,7 @@ public class PaymentCreditTest extends BatchTransactionServiceTestBase {
       .when(conn).updateBatch(anyString(), anyList());
 
     doAnswer(invocation -> succeededFuture(createRowSet(List.of(existingPendingPayment))))
-      .when(conn).delete(anyString(), any(Criterion.class));
+      .when(conn).deleteByIds(anyString(), anyList());
 
     testContext.assertComplete(batchTransactionService.processBatch(batch, requestContext))
       .onComplete(event -> {
@@ -500,15 +472,12 @@ public class PaymentCreditTest extends BatchTransactionServiceTestBase {
 
           // Verify pending payment deletion
           ArgumentCaptor<String> deleteTableNamesCaptor = ArgumentCaptor.forClass(String.class);
-          ArgumentCaptor<Criterion> deleteCriterionCaptor = ArgumentCaptor.forClass(Criterion.class);
-          verify(conn, times(1)).delete(deleteTableNamesCaptor.capture(), deleteCriterionCaptor.capture());
+          verify(conn, times(1)).deleteByIds(deleteTableNamesCaptor.capture(), deleteIdsCaptor.capture());
           List<String> deleteTableNames = deleteTableNamesCaptor.getAllValues();
-          List<Criterion> deleteCriterions = deleteCriterionCaptor.getAllValues();
+          List<List<String>> deleteIds = deleteIdsCaptor.getAllValues();
 
-          Criterion pendingPaymentCriterionByIds = createCriterionByIds(List.of(pendingPaymentId));
           assertThat(deleteTableNames.get(0), equalTo(TRANSACTIONS_TABLE));
-          Criterion deleteCriterion = deleteCriterions.get(0);
-          assertThat(deleteCriterion.toString(), equalTo(pendingPaymentCriterionByIds.toString()));
+          assertThat(deleteIds.getFirst(), equalTo(List.of(pendingPaymentId)));
         });
         testContext.completeNow();
       });
@@ -559,15 +528,11 @@ public class PaymentCreditTest extends BatchTransactionServiceTestBase {
 
     setupFundBudgetLedger(fundId, fiscalYearId, 0d, 0d, 10d, 5d, false, false, false);
 
-    Criterion paymentCriterion = createCriterionByIds(List.of(paymentId));
-    doReturn(succeededFuture(createResults(List.of(existingPayment))))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(paymentCriterion.toString())));
+    doReturn(succeededFuture(List.of(existingPayment)))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(paymentId)));
 
-    Criterion encumbranceCriterion = createCriterionByIds(List.of(encumbranceId));
-    doReturn(succeededFuture(createResults(List.of(existingEncumbrance))))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(encumbranceCriterion.toString())));
+    doReturn(succeededFuture(List.of(existingEncumbrance)))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(encumbranceId)));
 
     doAnswer(invocation -> succeededFuture(createRowSet(invocation.getArgument(1))))
       .when(conn).saveBatch(anyString(), anyList());
@@ -662,15 +627,11 @@ public class PaymentCreditTest extends BatchTransactionServiceTestBase {
 
     setupFundBudgetLedger(fundId, fiscalYearId, 10d, 2d, 5d, 1d, false, false, false);
 
-    var creditCriterion = createCriterionByIds(List.of(creditId));
-    doReturn(succeededFuture(createResults(List.of(existingCredit))))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(creditCriterion.toString())));
+    doReturn(succeededFuture(List.of(existingCredit)))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(creditId)));
 
-    var encumbranceCriterion = createCriterionByIds(List.of(encumbranceId));
-    doReturn(succeededFuture(createResults(List.of(existingEncumbrance))))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(encumbranceCriterion.toString())));
+    doReturn(succeededFuture(List.of(existingEncumbrance)))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(encumbranceId)));
 
     doAnswer(invocation -> succeededFuture(createRowSet(invocation.getArgument(1))))
       .when(conn).saveBatch(anyString(), anyList());
@@ -766,15 +727,11 @@ public class PaymentCreditTest extends BatchTransactionServiceTestBase {
 
     setupFundBudgetLedger(fundId, fiscalYearId, 8d, 3d, 0d, 0d, false, false, false);
 
-    var creditCriterion = createCriterionByIds(List.of(creditId));
-    doReturn(succeededFuture(createResults(List.of(existingCredit))))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(creditCriterion.toString())));
+    doReturn(succeededFuture(List.of(existingCredit)))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(creditId)));
 
-    var encumbranceCriterion = createCriterionByIds(List.of(encumbranceId));
-    doReturn(succeededFuture(createResults(List.of(existingEncumbrance))))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(encumbranceCriterion.toString())));
+    doReturn(succeededFuture(List.of(existingEncumbrance)))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(encumbranceId)));
 
     doAnswer(invocation -> succeededFuture(createRowSet(invocation.getArgument(1))))
       .when(conn).saveBatch(anyString(), anyList());
@@ -846,15 +803,11 @@ public class PaymentCreditTest extends BatchTransactionServiceTestBase {
 
     setupFundBudgetLedger(fundId, fiscalYearId, 5d, 0d, 0d, 2d, false, false, false);
 
-    var creditCriterion = createCriterionByIds(List.of(creditId));
-    doReturn(succeededFuture(createResults(List.of(existingCredit))))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(creditCriterion.toString())));
+    doReturn(succeededFuture(List.of(existingCredit)))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(creditId)));
 
-    var encumbranceCriterion = createCriterionByIds(List.of(encumbranceId));
-    doReturn(succeededFuture(createResults(List.of(existingEncumbrance))))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(encumbranceCriterion.toString())));
+    doReturn(succeededFuture(List.of(existingEncumbrance)))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(encumbranceId)));
 
     doAnswer(invocation -> succeededFuture(createRowSet(invocation.getArgument(1))))
       .when(conn).saveBatch(anyString(), anyList());
@@ -926,15 +879,11 @@ public class PaymentCreditTest extends BatchTransactionServiceTestBase {
 
     setupFundBudgetLedger(fundId, fiscalYearId, 6d, 0d, 3d, 0d, false, false, false);
 
-    var creditCriterion = createCriterionByIds(List.of(creditId));
-    doReturn(succeededFuture(createResults(List.of(existingCredit))))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(creditCriterion.toString())));
+    doReturn(succeededFuture(List.of(existingCredit)))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(creditId)));
 
-    var encumbranceCriterion = createCriterionByIds(List.of(encumbranceId));
-    doReturn(succeededFuture(createResults(List.of(existingEncumbrance))))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(encumbranceCriterion.toString())));
+    doReturn(succeededFuture(List.of(existingEncumbrance)))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(encumbranceId)));
 
     doAnswer(invocation -> succeededFuture(createRowSet(invocation.getArgument(1))))
       .when(conn).saveBatch(anyString(), anyList());
@@ -1006,15 +955,11 @@ public class PaymentCreditTest extends BatchTransactionServiceTestBase {
 
     setupFundBudgetLedger(fundId, fiscalYearId, 4d, 0d, 0d, 0d, false, false, false);
 
-    var creditCriterion = createCriterionByIds(List.of(creditId));
-    doReturn(succeededFuture(createResults(List.of(existingCredit))))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(creditCriterion.toString())));
+    doReturn(succeededFuture(List.of(existingCredit)))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(creditId)));
 
-    var encumbranceCriterion = createCriterionByIds(List.of(encumbranceId));
-    doReturn(succeededFuture(createResults(List.of(existingEncumbrance))))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(encumbranceCriterion.toString())));
+    doReturn(succeededFuture(List.of(existingEncumbrance)))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(encumbranceId)));
 
     doAnswer(invocation -> succeededFuture(createRowSet(invocation.getArgument(1))))
       .when(conn).saveBatch(anyString(), anyList());
@@ -1086,15 +1031,11 @@ public class PaymentCreditTest extends BatchTransactionServiceTestBase {
 
     setupFundBudgetLedger(fundId, fiscalYearId, 3d, 1d, 3d, 1d, false, false, false);
 
-    var creditCriterion = createCriterionByIds(List.of(creditId));
-    doReturn(succeededFuture(createResults(List.of(existingCredit))))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(creditCriterion.toString())));
+    doReturn(succeededFuture(List.of(existingCredit)))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(creditId)));
 
-    var encumbranceCriterion = createCriterionByIds(List.of(encumbranceId));
-    doReturn(succeededFuture(createResults(List.of(existingEncumbrance))))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(encumbranceCriterion.toString())));
+    doReturn(succeededFuture(List.of(existingEncumbrance)))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(encumbranceId)));
 
     doAnswer(invocation -> succeededFuture(createRowSet(invocation.getArgument(1))))
       .when(conn).saveBatch(anyString(), anyList());
@@ -1193,20 +1134,15 @@ public class PaymentCreditTest extends BatchTransactionServiceTestBase {
 
     setupFundBudgetLedger(fundId, fiscalYearId, 0d, 5d, 0d, 0d, false, false, false);
 
-    Criterion paymentCriterion = createCriterionByIds(List.of(paymentId));
-    doReturn(succeededFuture(createResults(List.of())))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(paymentCriterion.toString())));
+    doReturn(succeededFuture(List.of()))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(paymentId)));
 
-    String snippet = "WHERE (jsonb->>'transactionType') = 'Pending payment'  AND  (  (jsonb->>'sourceInvoiceId') = '" + invoiceId + "')    ";
-    doReturn(succeededFuture(createResults(List.of(existingPendingPayment))))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(snippet)));
+    doReturn(succeededFuture(List.of(existingPendingPayment)))
+      .when(conn).getByJsonbFieldValues(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq("sourceInvoiceId"),
+        eq(List.of(invoiceId)), eq(Map.of("transactionType", "Pending payment")));
 
-    Criterion encumbranceCriterion = createCriterionByIds(List.of(encumbranceId));
-    doReturn(succeededFuture(createResults(Collections.emptyList())))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(encumbranceCriterion.toString())));
+    doReturn(succeededFuture(Collections.emptyList()))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(encumbranceId)));
 
     testContext.assertFailure(batchTransactionService.processBatch(batch, requestContext))
       .onComplete(event -> {
@@ -1286,20 +1222,15 @@ public class PaymentCreditTest extends BatchTransactionServiceTestBase {
     // Budget mock should reflect the encumbrance values: encumbered=8d, awaitingPayment=3d, credits=4d, expenditures=2d
     setupFundBudgetLedger(fundId, fiscalYearId, 8d, 3d, 4d, 2d, false, false, false);
 
-    var paymentCriterion = createCriterionByIds(List.of(paymentId));
-    doReturn(succeededFuture(createResults(List.of())))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(paymentCriterion.toString())));
+    doReturn(succeededFuture(List.of()))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(paymentId)));
 
-    var encumbranceCriterion = createCriterionByIds(List.of(encumbranceId));
-    doReturn(succeededFuture(createResults(List.of(existingEncumbrance))))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(encumbranceCriterion.toString())));
+    doReturn(succeededFuture(List.of(existingEncumbrance)))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(encumbranceId)));
 
-    var snippet = "WHERE (jsonb->>'transactionType') = 'Pending payment'  AND  (  (jsonb->>'sourceInvoiceId') = '" + invoiceId + "')    ";
-    doReturn(succeededFuture(createResults(List.of(existingPendingPayment))))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(snippet)));
+    doReturn(succeededFuture(List.of(existingPendingPayment)))
+      .when(conn).getByJsonbFieldValues(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq("sourceInvoiceId"),
+        eq(List.of(invoiceId)), eq(Map.of("transactionType", "Pending payment")));
 
     doAnswer(invocation -> succeededFuture(createRowSet(invocation.getArgument(1))))
       .when(conn).saveBatch(anyString(), anyList());
@@ -1308,7 +1239,7 @@ public class PaymentCreditTest extends BatchTransactionServiceTestBase {
       .when(conn).updateBatch(anyString(), anyList());
 
     doAnswer(invocation -> succeededFuture(createRowSet(List.of(existingPendingPayment))))
-      .when(conn).delete(anyString(), any(Criterion.class));
+      .when(conn).deleteByIds(anyString(), anyList());
 
     testContext.assertComplete(batchTransactionService.processBatch(batch, requestContext))
       .onComplete(event -> {
@@ -1353,15 +1284,12 @@ public class PaymentCreditTest extends BatchTransactionServiceTestBase {
 
           // Verify pending payment deletion
           var deleteTableNamesCaptor = ArgumentCaptor.forClass(String.class);
-          var deleteCriterionCaptor = ArgumentCaptor.forClass(Criterion.class);
-          verify(conn, times(1)).delete(deleteTableNamesCaptor.capture(), deleteCriterionCaptor.capture());
+          verify(conn, times(1)).deleteByIds(deleteTableNamesCaptor.capture(), deleteIdsCaptor.capture());
           var deleteTableNames = deleteTableNamesCaptor.getAllValues();
-          var deleteCriteria = deleteCriterionCaptor.getAllValues();
+          List<List<String>> deleteIds = deleteIdsCaptor.getAllValues();
 
-          var pendingPaymentCriterionByIds = createCriterionByIds(List.of(pendingPaymentId));
           assertThat(deleteTableNames.getFirst(), equalTo(TRANSACTIONS_TABLE));
-          var deleteCriterion = deleteCriteria.getFirst();
-          assertThat(deleteCriterion.toString(), equalTo(pendingPaymentCriterionByIds.toString()));
+          assertThat(deleteIds.getFirst(), equalTo(List.of(pendingPaymentId)));
         });
         testContext.completeNow();
       });
@@ -9,7 +9,6 @@ import org.folio.rest.jaxrs.model.Budget;
 import org.folio.rest.jaxrs.model.Encumbrance;
 import org.folio.rest.jaxrs.model.Metadata;
 import org.folio.rest.jaxrs.model.Transaction;
-import org.folio.rest.persist.Criteria.Criterion;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.EnumSource;
@@ -28,17 +27,15 @@ import static org.folio.rest.jaxrs.model.Transaction.Source.PO_LINE;
 import static org.folio.rest.jaxrs.model.Transaction.TransactionType.ENCUMBRANCE;
 import static org.folio.rest.jaxrs.model.Transaction.TransactionType.PENDING_PAYMENT;
 import static org.folio.rest.util.ErrorCodes.BUDGET_RESTRICTED_EXPENDITURES_ERROR;
-import static org.folio.service.ServiceTestUtils.createResults;
 import static org.folio.service.ServiceTestUtils.createRowSet;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
-import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
@@ -119,15 +116,11 @@ public class PendingPaymentTest extends BatchTransactionServiceTestBase {
 
     setupFundBudgetLedger(fundId, fiscalYearId, 5d, 0d, 0d, 0d, false, false, false);
 
-    Criterion pendingPaymentCriterion = createCriterionByIds(List.of(pendingPaymentId));
-    doReturn(succeededFuture(createResults(List.of())))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(pendingPaymentCriterion.toString())));
+    doReturn(succeededFuture(List.of()))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(pendingPaymentId)));
 
-    Criterion encumbranceCriterion = createCriterionByIds(List.of(encumbranceId));
-    doReturn(succeededFuture(createResults(List.of(existingEncumbrance))))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(encumbranceCriterion.toString())));
+    doReturn(succeededFuture(List.of(existingEncumbrance)))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(encumbranceId)));
 
     doAnswer(invocation -> succeededFuture(createRowSet(invocation.getArgument(1))))
       .when(conn).saveBatch(anyString(), anyList());
@@ -220,15 +213,11 @@ public class PendingPaymentTest extends BatchTransactionServiceTestBase {
 
     setupFundBudgetLedger(fundId, fiscalYearId, 0d, 5d, 0d, 0d, false, false, false);
 
-    Criterion pendingPaymentCriterion = createCriterionByIds(List.of(pendingPaymentId));
-    doReturn(succeededFuture(createResults(List.of(existingPendingPayment))))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(pendingPaymentCriterion.toString())));
+    doReturn(succeededFuture(List.of(existingPendingPayment)))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(pendingPaymentId)));
 
-    Criterion encumbranceCriterion = createCriterionByIds(List.of(encumbranceId));
-    doReturn(succeededFuture(createResults(List.of(existingEncumbrance))))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(encumbranceCriterion.toString())));
+    doReturn(succeededFuture(List.of(existingEncumbrance)))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(encumbranceId)));
 
     doAnswer(invocation -> succeededFuture(createRowSet(invocation.getArgument(1))))
       .when(conn).updateBatch(anyString(), anyList());
@@ -313,15 +302,11 @@ public class PendingPaymentTest extends BatchTransactionServiceTestBase {
 
     setupFundBudgetLedger(fundId, fiscalYearId, 0d, 5d, 0d, 0d, false, false, false);
 
-    Criterion pendingPaymentCriterion = createCriterionByIds(List.of(pendingPaymentId));
-    doReturn(succeededFuture(createResults(List.of(existingPendingPayment))))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(pendingPaymentCriterion.toString())));
+    doReturn(succeededFuture(List.of(existingPendingPayment)))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(pendingPaymentId)));
 
-    Criterion encumbranceCriterion = createCriterionByIds(List.of(encumbranceId));
-    doReturn(succeededFuture(createResults(List.of(existingEncumbrance))))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(encumbranceCriterion.toString())));
+    doReturn(succeededFuture(List.of(existingEncumbrance)))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(encumbranceId)));
 
     doAnswer(invocation -> succeededFuture(createRowSet(invocation.getArgument(1))))
       .when(conn).updateBatch(anyString(), anyList());
@@ -395,10 +380,8 @@ public class PendingPaymentTest extends BatchTransactionServiceTestBase {
 
     setupFundBudgetLedger(fundId, fiscalYearId, 0d, 0d, 0d, 0d, true, false, false);
 
-    Criterion pendingPaymentCriterion = createCriterionByIds(List.of(pendingPaymentId1, pendingPaymentId2));
-    doReturn(succeededFuture(createResults(List.of())))
-      .when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), argThat(
-        crit -> crit.toString().equals(pendingPaymentCriterion.toString())));
+    doReturn(succeededFuture(List.of()))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(pendingPaymentId1, pendingPaymentId2)));
 
     testContext.assertFailure(batchTransactionService.processBatch(batch, requestContext))
       .onFailure(thrown -> {
@@ -455,40 +438,31 @@ public class PendingPaymentTest extends BatchTransactionServiceTestBase {
 
     setupFundBudgetLedger(fundId, fiscalYearId, 0d, 5d, 0d, 0d, false, false, false);
 
-    Criterion pendingPaymentCriterion = createCriterionByIds(List.of(pendingPaymentId));
-    Criterion encumbranceCriterion = createCriterionByIds(List.of(encumbranceId));
-
     // Mock transaction queries with specific matchers
-    doAnswer(invocation -> {
-      Criterion crit = invocation.getArgument(2);
-      if (crit.toString().equals(pendingPaymentCriterion.toString())) {
-        return succeededFuture(createResults(List.of(existingPendingPayment)));
-      } else if (crit.toString().equals(encumbranceCriterion.toString())) {
-        return succeededFuture(createResults(List.of(existingEncumbrance)));
-      } else {
-        return succeededFuture(createResults(List.of()));
-      }
-    }).when(conn).get(eq(TRANSACTIONS_TABLE), eq(Transaction.class), any(Criterion.class));
+    doReturn(succeededFuture(List.of(existingPendingPayment)))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(pendingPaymentId)));
+    doReturn(succeededFuture(List.of(existingEncumbrance)))
+      .when(conn).getByIds(eq(TRANSACTIONS_TABLE), eq(Transaction.class), eq(List.of(encumbranceId)));
+    doReturn(succeededFuture(List.of()))
+      .when(conn).getByJsonbFieldValues(eq(TRANSACTIONS_TABLE), eq(Transaction.class), anyString(), anyList(), anyMap());
 
     doAnswer(invocation -> succeededFuture(createRowSet(invocation.getArgument(1))))
       .when(conn).updateBatch(anyString(), anyList());
 
     doReturn(succeededFuture(createRowSet(List.of(existingPendingPayment))))
-      .when(conn).delete(eq(TRANSACTIONS_TABLE), any(Criterion.class));
+      .when(conn).deleteByIds(eq(TRANSACTIONS_TABLE), anyList());
 
     testContext.assertComplete(batchTransactionService.processBatch(batch, requestContext))
       .onComplete(event -> {
         testContext.verify(() -> {
           // Verify pending payment deletion
           ArgumentCaptor<String> deleteTableNamesCaptor = ArgumentCaptor.forClass(String.class);
-          ArgumentCaptor<Criterion> deleteCriterionCaptor = ArgumentCaptor.forClass(Criterion.class);
-          verify(conn, times(1)).delete(deleteTableNamesCaptor.capture(), deleteCriterionCaptor.capture());
+          verify(conn, times(1)).deleteByIds(deleteTableNamesCaptor.capture(), deleteIdsCaptor.capture());
 
           List<String> deleteTableNames = deleteTableNamesCaptor.getAllValues();
           assertThat(deleteTableNames.get(0), equalTo(TRANSACTIONS_TABLE));
-          List<Criterion> deletionCriterions = deleteCriterionCaptor.getAllValues();
-          Criterion criterion = deletionCriterions.get(0);
-          assertThat(criterion.toString(), equalTo(pendingPaymentCriterion.toString()));
+          List<List<String>> deleteIds = deleteIdsCaptor.getAllValues();
+          assertThat(deleteIds.get(0), equalTo(List.of(pendingPaymentId)));
 
           // Verify encumbrance update
           ArgumentCaptor<String> updateTableNamesCaptor = ArgumentCaptor.forClass(String.class);
@@ -3,11 +3,14 @@ package org.folio.utils;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import org.folio.rest.jaxrs.model.Budget;
+import org.folio.rest.jaxrs.model.LedgerFiscalYearRolloverBudget;
 import org.folio.rest.jaxrs.model.Transaction;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 
+import java.math.BigDecimal;
+import java.util.Random;
 import java.util.UUID;
 
 public class CalculationUtilsTest {
@@ -97,4 +100,94 @@ public class CalculationUtilsTest {
 
     assertEquals(100d, budget.getAllocationTo(), 0d);
   }
+
+  @Test
+  void summaryFieldsShouldMatchBigDecimalCalculationForRandomBudgets() {
+    Random random = new Random(20240101);
+    for (int i = 0; i < 100_000; i++) {
+      int scale = random.nextInt(5);
+      Budget budget = new Budget()
+        .withInitialAllocation(randomAmount(random, scale))
+        .withAllocationFrom(randomAmount(random, scale))
+        .withAllocationTo(randomAmount(random, scale))
+        .withNetTransfers(randomAmount(random, scale) - randomAmount(random, scale))
+        .withCredits(randomAmount(random, scale))
+        .withExpenditures(randomAmount(random, scale))
+        .withEncumbered(randomAmount(random, scale))
+        .withAwaitingPayment(random.nextBoolean() ? randomAmount(random, scale) : random.nextDouble() * 1000);
+
+      CalculationUtils.calculateBudgetSummaryFields(budget);
+
+      assertBudgetSummaryMatchesBigDecimal(budget);
+    }
+  }
+
+  @Test
+  void summaryFieldsShouldMatchBigDecimalCalculationForRolloverBudget() {
+    LedgerFiscalYearRolloverBudget rolloverBudget = new LedgerFiscalYearRolloverBudget()
+      .withInitialAllocation(1000.5)
+      .withAllocationFrom(0.25)
+      .withAllocationTo(10d)
+      .withNetTransfers(-3.333)
+      .withCredits(1.1)
+      .withExpenditures(900.9)
+      .withEncumbered(200.02)
+      .withAwaitingPayment(0.1 + 0.2);
+
+    Budget budget = new Budget()
+      .withInitialAllocation(rolloverBudget.getInitialAllocation())
+      .withAllocationFrom(rolloverBudget.getAllocationFrom())
+      .withAllocationTo(rolloverBudget.getAllocationTo())
+      .withNetTransfers(rolloverBudget.getNetTransfers())
+      .withCredits(rolloverBudget.getCredits())
+      .withExpenditures(rolloverBudget.getExpenditures())
+      .withEncumbered(rolloverBudget.getEncumbered())
+      .withAwaitingPayment(rolloverBudget.getAwaitingPayment());
+
+    CalculationUtils.calculateBudgetSummaryFields(rolloverBudget);
+    CalculationUtils.calculateBudgetSummaryFields(budget);
+
+    assertBudgetSummaryMatchesBigDecimal(budget);
+    assertEquals(budget.getAllocated(), rolloverBudget.getAllocated());
+    assertEquals(budget.getAvailable(), rolloverBudget.getAvailable());
+    assertEquals(budget.getUnavailable(), rolloverBudget.getUnavailable());
+    assertEquals(budget.getOverEncumbrance(), rolloverBudget.getOverEncumbrance());
+    assertEquals(budget.getOverExpended(), rolloverBudget.getOverExpended());
+    assertEquals(budget.getTotalFunding(), rolloverBudget.getTotalFunding());
+    assertEquals(budget.getCashBalance(), rolloverBudget.getCashBalance());
+  }
+
+  private static double randomAmount(Random random, int scale) {
+    long units = random.nextLong(1_000_000_000L);
+    return BigDecimal.valueOf(units, scale).doubleValue();
+  }
+
+  private static void assertBudgetSummaryMatchesBigDecimal(Budget budget) {
+    BigDecimal initialAllocation = BigDecimal.valueOf(budget.getInitialAllocation());
+    BigDecimal allocationFrom = BigDecimal.valueOf(budget.getAllocationFrom());
+    BigDecimal allocationTo = BigDecimal.valueOf(budget.getAllocationTo());
+    BigDecimal netTransfers = BigDecimal.valueOf(budget.getNetTransfers());
+    BigDecimal credited = BigDecimal.valueOf(budget.getCredits());
+    BigDecimal expended = BigDecimal.valueOf(budget.getExpenditures());
+    BigDecimal encumbered = BigDecimal.valueOf(budget.getEncumbered());
+    BigDecimal awaitingPayment = BigDecimal.valueOf(budget.getAwaitingPayment());
+
+    BigDecimal allocated = initialAllocation.add(allocationTo).subtract(allocationFrom);
+    BigDecimal unavailableAmount = encumbered.add(awaitingPayment).add(expended).subtract(credited);
+    BigDecimal unavailable = unavailableAmount.max(BigDecimal.ZERO);
+    BigDecimal totalFunding = allocated.add(netTransfers);
+    BigDecimal cashBalance = totalFunding.subtract(expended).add(credited);
+    BigDecimal available = totalFunding.subtract(unavailableAmount);
+    BigDecimal overExpended = expended.subtract(credited).add(awaitingPayment).subtract(totalFunding.max(BigDecimal.ZERO)).max(BigDecimal.ZERO);
+    BigDecimal overCommitted = unavailable.subtract(totalFunding.max(BigDecimal.ZERO)).max(BigDecimal.ZERO);
+    BigDecimal overEncumbered = overCommitted.subtract(overExpended);
+
+    assertEquals(allocated.doubleValue(), budget.getAllocated());
+    assertEquals(available.doubleValue(), budget.getAvailable());
+    assertEquals(unavailable.doubleValue(), budget.getUnavailable());
+    assertEquals(overEncumbered.doubleValue(), budget.getOverEncumbrance());
+    assertEquals(overExpended.doubleValue(), budget.getOverExpended());
+    assertEquals(totalFunding.doubleValue(), budget.getTotalFunding());
+    assertEquals(cashBalance.doubleValue(), budget.getCashBalance());
+  }
 }
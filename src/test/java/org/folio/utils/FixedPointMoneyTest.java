@@ -0,0 +1,102 @@
+package org.folio.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.RoundingMode;
+import java.util.Random;
+
+import javax.money.CurrencyUnit;
+import javax.money.Monetary;
+
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+public class FixedPointMoneyTest {
+
+  private static final CurrencyUnit USD = Monetary.getCurrency("USD");
+  private static final CurrencyUnit JPY = Monetary.getCurrency("JPY");
+  private static final CurrencyUnit BHD = Monetary.getCurrency("BHD");
+
+  @ParameterizedTest
+  @CsvSource({
+    "USD, 0.1, 0.2",
+    "USD, 1.005, 2.01",
+    "USD, 100, -100.01",
+    "USD, -0.01, 0.01",
+    "USD, 123456789.99, 0.01",
+    "USD, 9999999999999.99, 9999999999999.99",
+    "JPY, 1000, 25",
+    "BHD, 1.234, 0.001",
+    "USD, 10.005, 0.001",
+    "USD, 0.1234567, 3"
+  })
+  void testSumAndSubtractMatchMoneta(String currencyCode, double a, double b) {
+    CurrencyUnit currency = Monetary.getCurrency(currencyCode);
+    assertEquals(Money.of(a, currency).add(Money.of(b, currency)).getNumber().doubleValue(),
+      MoneyUtils.sumMoney(a, b, currency));
+    assertEquals(Money.of(a, currency).subtract(Money.of(b, currency)).getNumber().doubleValue(),
+      MoneyUtils.subtractMoney(a, b, currency));
+    assertEquals(Money.of(a, currency).add(Money.of(b, currency)).add(Money.of(a, currency)).getNumber().doubleValue(),
+      MoneyUtils.sumMoney(currency, a, b, a));
+  }
+
+  @Test
+  void testRandomAmountsMatchMoneta() {
+    Random random = new Random(42);
+    for (int i = 0; i < 100_000; i++) {
+      double a = random.nextLong(-10_000_000_000L, 10_000_000_000L) / 100d;
+      double b = random.nextLong(-10_000_000_000L, 10_000_000_000L) / 100d;
+      assertEquals(Money.of(a, USD).add(Money.of(b, USD)).getNumber().doubleValue(), MoneyUtils.sumMoney(a, b, USD));
+      assertEquals(Money.of(a, USD).subtract(Money.of(b, USD)).getNumber().doubleValue(), MoneyUtils.subtractMoney(a, b, USD));
+    }
+  }
+
+  @Test
+  void testSubtractMoneyOrDefault() {
+    assertEquals(0d, MoneyUtils.subtractMoneyOrDefault(10d, 10d, 0d, USD));
+    assertEquals(-1d, MoneyUtils.subtractMoneyOrDefault(10d, 10.01, -1d, USD));
+    assertEquals(0.01, MoneyUtils.subtractMoneyOrDefault(10.01, 10d, 0d, USD));
+    assertEquals(0.0005, MoneyUtils.subtractMoneyOrDefault(10.0015, 10.001, 0d, USD));
+  }
+
+  @Test
+  void testIsExact() {
+    assertTrue(FixedPointMoney.isExact(0.1, USD));
+    assertTrue(FixedPointMoney.isExact(-99.99, USD));
+    assertFalse(FixedPointMoney.isExact(10.005, USD));
+    assertFalse(FixedPointMoney.isExact(0.5, JPY));
+    assertTrue(FixedPointMoney.isExact(0.005, BHD));
+    assertFalse(FixedPointMoney.isExact(Double.NaN, USD));
+    assertFalse(FixedPointMoney.isExact(1e16, USD));
+  }
+
+  @Test
+  void testMinorUnits() {
+    FixedPointMoney amount = FixedPointMoney.of(12.34, USD).add(FixedPointMoney.of(0.66, USD));
+    assertEquals(1300, amount.getMinorUnits());
+    assertEquals(2, amount.getScale());
+    assertEquals(13d, amount.toDouble());
+    assertEquals("13.00", amount.toString());
+    assertEquals(FixedPointMoney.of(13, USD), amount);
+  }
+
+  @Test
+  void testExplicitRounding() {
+    assertThrows(ArithmeticException.class, () -> FixedPointMoney.of(10.005, USD));
+    assertEquals(1000, FixedPointMoney.of(10.005, USD, RoundingMode.HALF_EVEN).getMinorUnits());
+    assertEquals(1001, FixedPointMoney.of(10.005, USD, RoundingMode.HALF_UP).getMinorUnits());
+    assertEquals(3, FixedPointMoney.of(2.5, JPY, RoundingMode.CEILING).getMinorUnits());
+  }
+
+  @Test
+  void testDifferentScalesCannotBeCombined() {
+    FixedPointMoney usd = FixedPointMoney.of(1, USD);
+    FixedPointMoney jpy = FixedPointMoney.of(1, JPY);
+    assertThrows(ArithmeticException.class, () -> usd.add(jpy));
+  }
+}
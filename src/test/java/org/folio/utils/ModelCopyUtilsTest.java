@@ -0,0 +1,94 @@
+package org.folio.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import org.folio.rest.jaxrs.model.Budget;
+import org.folio.rest.jaxrs.model.Encumbrance;
+import org.folio.rest.jaxrs.model.Metadata;
+import org.folio.rest.jaxrs.model.Tags;
+import org.folio.rest.jaxrs.model.Transaction;
+import org.junit.jupiter.api.Test;
+
+import io.vertx.core.json.JsonObject;
+
+public class ModelCopyUtilsTest {
+
+  private Transaction createEncumbrance() {
+    return new Transaction()
+      .withId(UUID.randomUUID().toString())
+      .withTransactionType(Transaction.TransactionType.ENCUMBRANCE)
+      .withAmount(12.34)
+      .withCurrency("USD")
+      .withFromFundId(UUID.randomUUID().toString())
+      .withFiscalYearId(UUID.randomUUID().toString())
+      .withSource(Transaction.Source.PO_LINE)
+      .withTags(new Tags().withTagList(new ArrayList<>(List.of("tag1", "tag2"))))
+      .withEncumbrance(new Encumbrance()
+        .withStatus(Encumbrance.Status.UNRELEASED)
+        .withInitialAmountEncumbered(20d)
+        .withAmountAwaitingPayment(7.66)
+        .withSourcePurchaseOrderId(UUID.randomUUID().toString()))
+      .withMetadata(new Metadata()
+        .withCreatedDate(new Date())
+        .withCreatedByUserId(UUID.randomUUID().toString()));
+  }
+
+  @Test
+  void testDeepCopyOfTransaction() {
+    Transaction transaction = createEncumbrance();
+
+    Transaction copy = ModelCopyUtils.deepCopy(transaction);
+
+    assertNotSame(transaction, copy);
+    assertEquals(JsonObject.mapFrom(transaction), JsonObject.mapFrom(copy));
+    assertNotSame(transaction.getEncumbrance(), copy.getEncumbrance());
+    assertNotSame(transaction.getMetadata(), copy.getMetadata());
+    assertNotSame(transaction.getMetadata().getCreatedDate(), copy.getMetadata().getCreatedDate());
+    assertNotSame(transaction.getTags().getTagList(), copy.getTags().getTagList());
+    assertSame(transaction.getTransactionType(), copy.getTransactionType());
+  }
+
+  @Test
+  void testCopyIsIndependentFromOriginal() {
+    Transaction transaction = createEncumbrance();
+    Transaction copy = ModelCopyUtils.deepCopy(transaction);
+
+    transaction.getEncumbrance().setAmountAwaitingPayment(0d);
+    transaction.getTags().getTagList().add("tag3");
+    transaction.getMetadata().getCreatedDate().setTime(0);
+
+    assertEquals(7.66, copy.getEncumbrance().getAmountAwaitingPayment());
+    assertEquals(List.of("tag1", "tag2"), copy.getTags().getTagList());
+    assertNotEquals(0, copy.getMetadata().getCreatedDate().getTime());
+  }
+
+  @Test
+  void testDeepCopyOfBudgetAndNull() {
+    Budget budget = new Budget()
+      .withId(UUID.randomUUID().toString())
+      .withName("budget")
+      .withInitialAllocation(100d)
+      .withEncumbered(12.5);
+
+    Budget copy = ModelCopyUtils.deepCopy(budget);
+
+    assertEquals(JsonObject.mapFrom(budget), JsonObject.mapFrom(copy));
+    assertNull(ModelCopyUtils.deepCopy(null));
+  }
+
+  @Test
+  void testObjectsOutsideOfTheModelCannotBeCopied() {
+    StringBuilder notAModel = new StringBuilder();
+    assertThrows(IllegalArgumentException.class, () -> ModelCopyUtils.deepCopy(notAModel));
+  }
+}